@@ -18,9 +18,11 @@ import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.common.net.NetworkInfo;
 import edu.iu.dsc.tws.common.net.tcp.TCPChannel;
 import edu.iu.dsc.tws.common.net.tcp.TCPContext;
+import edu.iu.dsc.tws.common.net.tcp.TCPMetrics;
 import edu.iu.dsc.tws.comms.core.TWSCommunication;
 import edu.iu.dsc.tws.comms.core.TaskPlan;
 import edu.iu.dsc.tws.comms.mpi.MPIDataFlowCommunication;
+import edu.iu.dsc.tws.comms.mpi.ProgressThreadChannel;
 import edu.iu.dsc.tws.comms.tcp.TWSTCPChannel;
 import edu.iu.dsc.tws.proto.system.job.JobAPI;
 import edu.iu.dsc.tws.rsched.bootstrap.WorkerNetworkInfo;
@@ -91,10 +93,19 @@ public class TCPNetwork {
     TWSTCPChannel twstcpChannel = new TWSTCPChannel(config, taskPlan.getThisExecutor(), channel);
     // now lets create the dataflow communication
     dataFlowCommunication = new MPIDataFlowCommunication();
-    dataFlowCommunication.init(config, taskPlan, twstcpChannel);
+    dataFlowCommunication.init(config, taskPlan,
+        ProgressThreadChannel.wrap(config, twstcpChannel));
   }
 
   public TWSCommunication getDataFlowCommunication() {
     return dataFlowCommunication;
   }
+
+  /**
+   * Get the metrics of the TCP connections of this worker, so that the worker can export them
+   * @return the metrics
+   */
+  public TCPMetrics getMetrics() {
+    return channel.getMetrics();
+  }
 }
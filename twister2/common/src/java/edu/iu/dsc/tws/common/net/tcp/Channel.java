@@ -51,8 +51,6 @@ public class Channel {
 
   private ByteBuffer readHeader;
 
-  private ByteBuffer writeHeader;
-
   private TCPRequest readingRequest;
 
   private int readEdge;
@@ -67,13 +65,49 @@ public class Channel {
 
   private DataStatus readStatus;
 
-  private DataStatus writeStatus;
-
   private MessageHandler messageHandler;
 
   // header size of each message, we use edge and length as the header
   private static final int HEADER_SIZE = 8;
 
+  // maximum number of requests written with a single call
+  private static final int MAX_WRITE_BATCH = 64;
+
+  // maximum number of bytes written with a single call, a larger request is written alone
+  private final int writeBatchBytes;
+
+  // headers of the requests in the current write batch
+  private ByteBuffer[] writeHeaders;
+
+  // header and body of each request in the current write batch
+  private ByteBuffer[] writeBuffers;
+
+  // the requests in the current write batch, in the order of pending sends
+  private TCPRequest[] writeBatch;
+
+  // number of requests in the current write batch
+  private int writeBatchSize;
+
+  // number of requests in the current write batch that are fully written
+  private int writeBatchCompleted;
+
+  // bytes of the current write batch that are not yet written
+  private long writeBatchRemaining;
+
+  // bytes read from the socket but not yet consumed, this is always ready to be read
+  private ByteBuffer readBuffer;
+
+  // the body we are reading and the read buffer, used for scattering reads
+  private ByteBuffer[] scatterBuffers = new ByteBuffer[2];
+
+  // true while we are reading, to avoid reading again from a receive callback
+  private boolean reading;
+
+  // number of receives posted and not yet completed, across all the edges
+  private int postedReceives;
+
+  private ChannelMetrics metrics;
+
   public Channel(Config cfg, Progress progress, SelectHandler handler,
                  SocketChannel channel, MessageHandler msgHandler) {
     this.socketChannel = channel;
@@ -85,29 +119,61 @@ public class Channel {
     pendingReceives = new HashMap<>();
 
     readHeader = ByteBuffer.allocate(HEADER_SIZE);
-    writeHeader = ByteBuffer.allocate(HEADER_SIZE);
+
+    writeBatchBytes = TCPContext.getNetworkWriteBatchSize(cfg,
+        TCPContext.DEFAULT_WRITE_BATCH_SIZE);
+    writeHeaders = new ByteBuffer[MAX_WRITE_BATCH];
+    for (int i = 0; i < MAX_WRITE_BATCH; i++) {
+      writeHeaders[i] = ByteBuffer.allocate(HEADER_SIZE);
+    }
+    writeBuffers = new ByteBuffer[MAX_WRITE_BATCH * 2];
+    writeBatch = new TCPRequest[MAX_WRITE_BATCH];
+
+    readBuffer = ByteBuffer.allocateDirect(TCPContext.getNetworkReadBatchSize(cfg,
+        TCPContext.DEFAULT_READ_BATCH_SIZE));
+    // nothing to read yet
+    readBuffer.limit(0);
 
     this.readStatus = DataStatus.INIT;
-    this.writeStatus = DataStatus.INIT;
+    this.metrics = progress.getMetrics().register(channel);
   }
 
   public void read() {
-//    LOG.info("Reading from channel: " + socketChannel);
-    while (pendingReceives.size() > 0) {
-      TCPRequest readRequest = readRequest(socketChannel);
-
-      if (readRequest != null) {
-        readRequest.setComplete(true);
-        messageHandler.onReceiveComplete(socketChannel, readRequest);
-      } else {
-        break;
+    reading = true;
+    try {
+      while (pendingReceives.size() > 0) {
+        TCPRequest readRequest = readRequest(socketChannel);
+
+        if (readRequest != null) {
+          postedReceives--;
+          metrics.pendingReceives(postedReceives);
+          metrics.messageRead(readRequest.getEdge(), readRequest.getByteBuffer().limit());
+          readRequest.setComplete(true);
+          messageHandler.onReceiveComplete(socketChannel, readRequest);
+        } else {
+          break;
+        }
       }
+    } finally {
+      reading = false;
     }
   }
 
   public void clear() {
     pendingReceives.clear();
     pendingSends.clear();
+
+    for (int i = 0; i < writeBatchSize; i++) {
+      writeBatch[i] = null;
+      writeBuffers[i * 2] = null;
+      writeBuffers[i * 2 + 1] = null;
+    }
+    writeBatchSize = 0;
+    writeBatchCompleted = 0;
+    writeBatchRemaining = 0;
+    postedReceives = 0;
+    readBuffer.clear();
+    readBuffer.limit(0);
   }
 
   public boolean addReadRequest(TCPRequest request) {
@@ -116,38 +182,76 @@ public class Channel {
     byteBuffer.position(0);
     byteBuffer.limit(request.getLength());
 
-    return readRequests.offer(request);
+    boolean added = readRequests.offer(request);
+    if (added) {
+      postedReceives++;
+      metrics.pendingReceives(postedReceives);
+    }
+    // a message already read in to the read buffer may be waiting for this request, the
+    // socket will not become readable for it again
+    if (added && !reading && (readBuffer.hasRemaining() || readStatus == DataStatus.BODY)) {
+      read();
+    }
+    return added;
   }
 
   public boolean addWriteRequest(TCPRequest request) {
     ByteBuffer byteBuffer = request.getByteBuffer();
     byteBuffer.position(request.getLength());
 
-    return pendingSends.offer(request);
+    boolean added = pendingSends.offer(request);
+    metrics.pendingSends(pendingSends.size());
+    return added;
   }
 
+  /**
+   * Write the pending requests. The headers and bodies of a batch of requests are written
+   * with a single gathering write.
+   */
   public void write() {
-    while (pendingSends.size() > 0) {
-      TCPRequest writeRequest = pendingSends.peek();
-      if (writeRequest == null) {
-        break;
+    while (true) {
+      if (writeBatchSize == 0) {
+        prepareWriteBatch();
+        if (writeBatchSize == 0) {
+          break;
+        }
       }
 
-      int writeState = writeRequest(socketChannel, writeRequest);
-      if (writeState > 0) {
-        break;
-      } else if (writeState < 0) {
+      int offset = writeBatchCompleted * 2;
+      try {
+        long wrote = socketChannel.write(writeBuffers, offset, writeBatchSize * 2 - offset);
+        metrics.write(wrote, wrote < writeBatchRemaining);
+        writeBatchRemaining -= wrote;
+      } catch (IOException e) {
+        LOG.log(Level.SEVERE, "Error writing to channel ", e);
         LOG.severe("Something bad happened while writing to channel");
         selectHandler.handleError(socketChannel);
         return;
-      } else {
-        LOG.log(Level.INFO, "Send complete");
-        // remove the request
-        pendingSends.poll();
+      }
+
+      while (writeBatchCompleted < writeBatchSize
+          && !writeBuffers[writeBatchCompleted * 2 + 1].hasRemaining()
+          && !writeBuffers[writeBatchCompleted * 2].hasRemaining()) {
+        // remove the request, the batch is taken from the head of the pending sends
+        TCPRequest writeRequest = pendingSends.poll();
+        writeBatch[writeBatchCompleted] = null;
+        writeBuffers[writeBatchCompleted * 2] = null;
+        writeBuffers[writeBatchCompleted * 2 + 1] = null;
+        writeBatchCompleted++;
+        metrics.messageWritten(writeRequest.getEdge(), writeRequest.getLength());
+        metrics.pendingSends(pendingSends.size());
+
         writeRequest.setComplete(true);
         // notify the handler
         messageHandler.onSendComplete(socketChannel, writeRequest);
       }
+
+      if (writeBatchCompleted < writeBatchSize) {
+        // the socket cannot take more, we continue when it is writable again
+        break;
+      }
+      writeBatchSize = 0;
+      writeBatchCompleted = 0;
     }
 
 //    if (pendingSends.size() == 0) {
@@ -155,71 +259,56 @@ public class Channel {
 //    }
   }
 
-  private int writeRequest(SocketChannel channel, TCPRequest request) {
-    ByteBuffer buffer = request.getByteBuffer();
-    int written = 0;
-    if (writeStatus == DataStatus.INIT) {
-      // lets flip the buffer
-      writeHeader.clear();
-      writeStatus = DataStatus.HEADER;
-
-      writeHeader.putInt(request.getLength());
-      writeHeader.putInt(request.getEdge());
-      writeHeader.flip();
-      LOG.log(Level.INFO, String.format("WRITE Header %d %d",
-          request.getLength(), request.getEdge()));
-    }
-
-    if (writeStatus == DataStatus.HEADER) {
-      written = writeToChannel(channel, writeHeader);
-      if (written < 0) {
-        return written;
-      } else if (written == 0) {
-        writeStatus = DataStatus.BODY;
+  /**
+   * Take requests from the head of the pending sends in to a batch, until the byte budget
+   * of a batch is reached
+   */
+  private void prepareWriteBatch() {
+    int bytes = 0;
+    for (TCPRequest request : pendingSends) {
+      int size = HEADER_SIZE + request.getLength();
+      if (writeBatchSize == MAX_WRITE_BATCH
+          || (writeBatchSize > 0 && bytes + size > writeBatchBytes)) {
+        break;
       }
-    }
 
-    if (writeStatus == DataStatus.BODY) {
-      buffer.flip();
-      written = writeToChannel(channel, buffer);
-      if (written < 0) {
-        return written;
-      } else if (written == 0) {
-        LOG.log(Level.INFO, String.format("WRITE BODY %d", buffer.limit()));
-        writeStatus = DataStatus.INIT;
-        return written;
-      }
-    }
+      ByteBuffer header = writeHeaders[writeBatchSize];
+      header.clear();
+      header.putInt(request.getLength());
+      header.putInt(request.getEdge());
+      header.flip();
 
-    return written;
-  }
+      ByteBuffer body = request.getByteBuffer();
+      body.flip();
 
-  private int writeToChannel(SocketChannel channel, ByteBuffer buffer) {
-    int remaining = buffer.remaining();
-    assert remaining > 0;
-    int wrote = 0;
-    try {
-      wrote = channel.write(buffer);
-      LOG.info("Wrote " + wrote);
-    } catch (IOException e) {
-      LOG.log(Level.SEVERE, "Error writing to channel ", e);
-      return -1;
+      writeBuffers[writeBatchSize * 2] = header;
+      writeBuffers[writeBatchSize * 2 + 1] = body;
+      writeBatch[writeBatchSize] = request;
+      writeBatchSize++;
+      bytes += size;
     }
-    return remaining - wrote;
+    writeBatchCompleted = 0;
+    writeBatchRemaining = bytes;
   }
 
   private TCPRequest readRequest(SocketChannel channel) {
     if (readStatus == DataStatus.INIT) {
       readHeader.clear();
       readStatus = DataStatus.HEADER;
-      LOG.log(Level.INFO, "READ Header INIT");
     }
 
     if (readStatus == DataStatus.HEADER) {
-      int retval = readFromChannel(channel, readHeader);
-      if (retval != 0) {
-        // either we didnt read fully or we had an error
-        return null;
+      copyFromReadBuffer(readHeader);
+      if (readHeader.hasRemaining()) {
+        // read as much as we can, this may bring in the following messages as well
+        if (fillReadBuffer(channel) < 0) {
+          return null;
+        }
+        copyFromReadBuffer(readHeader);
+        if (readHeader.hasRemaining()) {
+          // we didnt read the header fully
+          return null;
+        }
       }
 
       // We read the header fully
@@ -227,76 +316,119 @@ public class Channel {
       readSize = readHeader.getInt();
       readEdge = readHeader.getInt();
       readStatus = DataStatus.BODY;
-      LOG.log(Level.INFO, String.format("READ Header %d %d", readSize, readEdge));
     }
 
     if (readStatus == DataStatus.BODY) {
-      ByteBuffer buffer;
       if (readingRequest == null) {
         Queue<TCPRequest> readRequests = getReadRequest(readEdge);
         if (readRequests.size() == 0) {
           return null;
         }
         readingRequest = readRequests.poll();
-        buffer = readingRequest.getByteBuffer();
-        buffer.limit(readSize);
-      } else {
-        buffer = readingRequest.getByteBuffer();
+        readingRequest.getByteBuffer().limit(readSize);
       }
-
-      int retVal = readFromChannel(channel, buffer);
-      if (retVal < 0) {
-        readSize = 0;
-        readEdge = 0;
-
-        readingRequest = null;
-        readStatus = DataStatus.INIT;
-        LOG.log(Level.SEVERE, "Failed to read");
-        // handle the error
-        return null;
-      } else if (retVal == 0) {
-        readSize = 0;
-        readEdge = 0;
-        buffer.flip();
-
-        TCPRequest ret = readingRequest;
-        readingRequest = null;
-        readStatus = DataStatus.INIT;
-        LOG.log(Level.INFO, String.format("READ Body %d", buffer.limit()));
-        return ret;
-      } else {
-        LOG.log(Level.INFO, String.format("READ Body not COMPLETE %d %d", buffer.limit(), retVal));
-        return null;
+      ByteBuffer buffer = readingRequest.getByteBuffer();
+
+      copyFromReadBuffer(buffer);
+      if (buffer.hasRemaining()) {
+        // read the rest of the body and whatever follows it with a single call
+        if (scatterRead(channel, buffer) < 0) {
+          readSize = 0;
+          readEdge = 0;
+
+          readingRequest = null;
+          readStatus = DataStatus.INIT;
+          LOG.log(Level.SEVERE, "Failed to read");
+          // handle the error
+          return null;
+        }
+        if (buffer.hasRemaining()) {
+          return null;
+        }
       }
+
+      readSize = 0;
+      readEdge = 0;
+      buffer.flip();
+
+      TCPRequest ret = readingRequest;
+      readingRequest = null;
+      readStatus = DataStatus.INIT;
+      return ret;
     }
     return null;
   }
 
-  private int readFromChannel(SocketChannel channel, ByteBuffer buffer) {
-    int remaining = buffer.remaining();
-    int read;
+  /**
+   * Copy the bytes we already have in the read buffer to the target
+   */
+  private void copyFromReadBuffer(ByteBuffer target) {
+    int copy = Math.min(readBuffer.remaining(), target.remaining());
+    if (copy > 0) {
+      int limit = readBuffer.limit();
+      readBuffer.limit(readBuffer.position() + copy);
+      target.put(readBuffer);
+      readBuffer.limit(limit);
+    }
+  }
+
+  private long fillReadBuffer(SocketChannel channel) {
+    readBuffer.compact();
+    try {
+      return readFromChannel(channel, readBuffer);
+    } finally {
+      readBuffer.flip();
+    }
+  }
+
+  private long scatterRead(SocketChannel channel, ByteBuffer buffer) {
+    // the read buffer is empty at this point
+    readBuffer.clear();
+    scatterBuffers[0] = buffer;
+    scatterBuffers[1] = readBuffer;
+    try {
+      return readFromChannel(channel, scatterBuffers);
+    } finally {
+      scatterBuffers[0] = null;
+      readBuffer.flip();
+    }
+  }
+
+  private long readFromChannel(SocketChannel channel, ByteBuffer buffer) {
+    long read;
     try {
       read = channel.read(buffer);
-      LOG.log(Level.INFO, "Read size: " + read);
+      metrics.read(read);
     } catch (IOException e) {
       LOG.log(Level.SEVERE, "Error in channel.read ", e);
       return -1;
     }
     if (read < 0) {
       LOG.log(Level.SEVERE, "channel read returned negative " + read);
-      return read;
-    } else {
-      return remaining - read;
     }
+    return read;
   }
 
-  public void forceFlush() {
-    while (!pendingSends.isEmpty()) {
-      int writeState = writeRequest(socketChannel, pendingSends.poll());
-      if (writeState != 0) {
-        return;
-      }
+  private long readFromChannel(SocketChannel channel, ByteBuffer[] buffers) {
+    long read;
+    try {
+      read = channel.read(buffers);
+      metrics.read(read);
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, "Error in channel.read ", e);
+      return -1;
+    }
+    if (read < 0) {
+      LOG.log(Level.SEVERE, "channel read returned negative " + read);
     }
+    return read;
+  }
+
+  /**
+   * Write whatever the channel can take without blocking
+   */
+  public void forceFlush() {
+    write();
   }
 
   public void enableReading() {
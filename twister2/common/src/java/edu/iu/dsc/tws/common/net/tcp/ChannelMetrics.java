@@ -0,0 +1,224 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.common.net.tcp;
+
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single connection to a peer. These are updated by the progress thread and can be
+ * read from any other thread, a value read may be slightly behind the progress thread.
+ */
+public class ChannelMetrics {
+  private final SocketAddress peer;
+
+  private final LongAdder bytesWritten = new LongAdder();
+
+  private final LongAdder bytesRead = new LongAdder();
+
+  private final LongAdder messagesWritten = new LongAdder();
+
+  private final LongAdder messagesRead = new LongAdder();
+
+  private final LongAdder writeCalls = new LongAdder();
+
+  private final LongAdder readCalls = new LongAdder();
+
+  // writes that could not send all the bytes we offered
+  private final LongAdder partialWrites = new LongAdder();
+
+  private final AtomicInteger pendingSends = new AtomicInteger();
+
+  private final AtomicInteger maxPendingSends = new AtomicInteger();
+
+  private final AtomicInteger pendingReceives = new AtomicInteger();
+
+  private final AtomicInteger maxPendingReceives = new AtomicInteger();
+
+  private final ConcurrentHashMap<Integer, EdgeMetrics> edges = new ConcurrentHashMap<>();
+
+  ChannelMetrics(SocketAddress peer) {
+    this.peer = peer;
+  }
+
+  /**
+   * Counters of a single edge on this connection
+   */
+  public static class EdgeMetrics {
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder messagesWritten = new LongAdder();
+
+    private final LongAdder messagesRead = new LongAdder();
+
+    public long getBytesWritten() {
+      return bytesWritten.sum();
+    }
+
+    public long getBytesRead() {
+      return bytesRead.sum();
+    }
+
+    public long getMessagesWritten() {
+      return messagesWritten.sum();
+    }
+
+    public long getMessagesRead() {
+      return messagesRead.sum();
+    }
+
+    @Override
+    public String toString() {
+      return "EdgeMetrics{"
+          + "bytesWritten=" + bytesWritten
+          + ", bytesRead=" + bytesRead
+          + ", messagesWritten=" + messagesWritten
+          + ", messagesRead=" + messagesRead
+          + '}';
+    }
+  }
+
+  void write(long bytes, boolean partial) {
+    writeCalls.increment();
+    bytesWritten.add(bytes);
+    if (partial) {
+      partialWrites.increment();
+    }
+  }
+
+  void read(long bytes) {
+    readCalls.increment();
+    if (bytes > 0) {
+      bytesRead.add(bytes);
+    }
+  }
+
+  void messageWritten(int edge, int length) {
+    messagesWritten.increment();
+    EdgeMetrics e = getEdge(edge);
+    e.messagesWritten.increment();
+    e.bytesWritten.add(length);
+  }
+
+  void messageRead(int edge, int length) {
+    messagesRead.increment();
+    EdgeMetrics e = getEdge(edge);
+    e.messagesRead.increment();
+    e.bytesRead.add(length);
+  }
+
+  void pendingSends(int depth) {
+    pendingSends.set(depth);
+    updateMax(maxPendingSends, depth);
+  }
+
+  void pendingReceives(int depth) {
+    pendingReceives.set(depth);
+    updateMax(maxPendingReceives, depth);
+  }
+
+  private EdgeMetrics getEdge(int edge) {
+    EdgeMetrics e = edges.get(edge);
+    if (e == null) {
+      e = new EdgeMetrics();
+      EdgeMetrics existing = edges.putIfAbsent(edge, e);
+      if (existing != null) {
+        e = existing;
+      }
+    }
+    return e;
+  }
+
+  private static void updateMax(AtomicInteger max, int value) {
+    int current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  public SocketAddress getPeer() {
+    return peer;
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten.sum();
+  }
+
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  public long getMessagesWritten() {
+    return messagesWritten.sum();
+  }
+
+  public long getMessagesRead() {
+    return messagesRead.sum();
+  }
+
+  public long getWriteCalls() {
+    return writeCalls.sum();
+  }
+
+  public long getReadCalls() {
+    return readCalls.sum();
+  }
+
+  public long getPartialWrites() {
+    return partialWrites.sum();
+  }
+
+  public int getPendingSends() {
+    return pendingSends.get();
+  }
+
+  public int getMaxPendingSends() {
+    return maxPendingSends.get();
+  }
+
+  public int getPendingReceives() {
+    return pendingReceives.get();
+  }
+
+  public int getMaxPendingReceives() {
+    return maxPendingReceives.get();
+  }
+
+  public Map<Integer, EdgeMetrics> getEdges() {
+    return Collections.unmodifiableMap(edges);
+  }
+
+  @Override
+  public String toString() {
+    return "ChannelMetrics{"
+        + "peer=" + peer
+        + ", bytesWritten=" + bytesWritten
+        + ", bytesRead=" + bytesRead
+        + ", messagesWritten=" + messagesWritten
+        + ", messagesRead=" + messagesRead
+        + ", writeCalls=" + writeCalls
+        + ", readCalls=" + readCalls
+        + ", partialWrites=" + partialWrites
+        + ", pendingSends=" + pendingSends
+        + ", maxPendingSends=" + maxPendingSends
+        + ", pendingReceives=" + pendingReceives
+        + ", maxPendingReceives=" + maxPendingReceives
+        + ", edges=" + edges
+        + '}';
+  }
+}
@@ -25,6 +25,8 @@ public class Progress {
 
   private Selector selector;
 
+  private TCPMetrics metrics = new TCPMetrics();
+
   public Progress() {
     try {
       selector = Selector.open();
@@ -35,7 +37,8 @@ public class Progress {
 
   public void loop() {
     try {
-      selector.selectNow();
+      int ready = selector.selectNow();
+      metrics.select(ready);
 
       handleSelectedKeys();
     } catch (IOException e) {
@@ -75,6 +78,10 @@ public class Progress {
     }
   }
 
+  public TCPMetrics getMetrics() {
+    return metrics;
+  }
+
   public void registerRead(SelectableChannel channel, SelectHandler callback)
       throws ClosedChannelException {
     assert channel.keyFor(selector) == null
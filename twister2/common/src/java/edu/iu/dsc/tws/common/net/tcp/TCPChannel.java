@@ -164,6 +164,40 @@ public class TCPChannel {
     looper.loop();
   }
 
+  /**
+   * Get the metrics of all the connections of this channel
+   * @return the metrics
+   */
+  public TCPMetrics getMetrics() {
+    return looper.getMetrics();
+  }
+
+  /**
+   * Get the metrics of the connection we use to send messages to a worker
+   * @param procId the worker
+   * @return the metrics or null if we are not connected to the worker
+   */
+  public ChannelMetrics getSendMetrics(int procId) {
+    SocketChannel ch = clientChannel.get(procId);
+    if (ch == null) {
+      return null;
+    }
+    return looper.getMetrics().getChannelMetrics(ch);
+  }
+
+  /**
+   * Get the metrics of the connection we use to receive messages from a worker
+   * @param procId the worker
+   * @return the metrics or null if the worker is not connected to us
+   */
+  public ChannelMetrics getReceiveMetrics(int procId) {
+    SocketChannel ch = serverChannel.get(procId);
+    if (ch == null) {
+      return null;
+    }
+    return looper.getMetrics().getChannelMetrics(ch);
+  }
+
   private void sendHelloMessage(int destProcId, SocketChannel sc) {
     ByteBuffer buffer = helloSendByteBuffers.remove(0);
     buffer.putInt(thisInfo.getProcId());
@@ -223,7 +257,6 @@ public class TCPChannel {
 
     @Override
     public void onSendComplete(SocketChannel channel, TCPRequest writeRequest) {
-      LOG.log(Level.INFO, "Server send complete");
       writeRequest.setComplete(true);
     }
   }
@@ -253,13 +286,11 @@ public class TCPChannel {
 
     @Override
     public void onReceiveComplete(SocketChannel channel, TCPRequest readRequest) {
-      LOG.log(Level.INFO, "Client received message");
       readRequest.setComplete(true);
     }
 
     @Override
     public void onSendComplete(SocketChannel channel, TCPRequest writeRequest) {
-      LOG.log(Level.INFO, "Client send complete");
       writeRequest.setComplete(true);
       if (writeRequest.getEdge() == -1) {
         ByteBuffer buffer = writeRequest.getByteBuffer();
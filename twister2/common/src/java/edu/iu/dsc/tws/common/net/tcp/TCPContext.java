@@ -32,6 +32,10 @@ public class TCPContext extends Context {
   public static final String NETWORK_HOSTNAME = "twister2.tcp.hostname";
   public static final String NETWORK_PORT = "twister2.tcp.port";
 
+  public static final int DEFAULT_WRITE_BATCH_SIZE = 64 * 1024;
+
+  public static final int DEFAULT_READ_BATCH_SIZE = 64 * 1024;
+
   public static int getNetworkWriteBatchSize(Config cfg, int def) {
     return cfg.getIntegerValue(TWISTER2_WRITE_SIZE, def);
   }
@@ -0,0 +1,90 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.common.net.tcp;
+
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the connections handled by a single progress loop. We keep a {@link ChannelMetrics}
+ * for each connection and count the selector wakeups of the loop. The progress loop updates
+ * these while other threads read them.
+ */
+public class TCPMetrics {
+  private final ConcurrentHashMap<SocketChannel, ChannelMetrics> channels =
+      new ConcurrentHashMap<>();
+
+  private final LongAdder selects = new LongAdder();
+
+  // number of selects that returned at least one ready key
+  private final LongAdder selectWakeups = new LongAdder();
+
+  private final LongAdder selectedKeys = new LongAdder();
+
+  void select(int ready) {
+    selects.increment();
+    if (ready > 0) {
+      selectWakeups.increment();
+      selectedKeys.add(ready);
+    }
+  }
+
+  ChannelMetrics register(SocketChannel channel) {
+    ChannelMetrics metrics = channels.get(channel);
+    if (metrics == null) {
+      metrics = new ChannelMetrics(channel.socket().getRemoteSocketAddress());
+      ChannelMetrics existing = channels.putIfAbsent(channel, metrics);
+      if (existing != null) {
+        metrics = existing;
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * Get the metrics of a connection
+   * @param channel the socket channel
+   * @return the metrics or null if this channel is not known
+   */
+  public ChannelMetrics getChannelMetrics(SocketChannel channel) {
+    return channels.get(channel);
+  }
+
+  public List<ChannelMetrics> getChannelMetrics() {
+    return new ArrayList<>(channels.values());
+  }
+
+  public long getSelects() {
+    return selects.sum();
+  }
+
+  public long getSelectWakeups() {
+    return selectWakeups.sum();
+  }
+
+  public long getSelectedKeys() {
+    return selectedKeys.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "TCPMetrics{"
+        + "selects=" + selects
+        + ", selectWakeups=" + selectWakeups
+        + ", selectedKeys=" + selectedKeys
+        + ", channels=" + channels.values()
+        + '}';
+  }
+}
@@ -26,6 +26,7 @@ package edu.iu.dsc.tws.comms.api;
 import java.util.Queue;
 
 import edu.iu.dsc.tws.comms.mpi.MPIBuffer;
+import edu.iu.dsc.tws.comms.mpi.MPIBufferArena;
 import edu.iu.dsc.tws.comms.mpi.MPIMessage;
 import edu.iu.dsc.tws.comms.mpi.MPIMessageListener;
 
@@ -35,4 +36,10 @@ public interface TWSChannel {
   boolean receiveMessage(int rank, int stream,
                          MPIMessageListener callback, Queue<MPIBuffer> receiveBuffers);
   void progress();
+
+  /**
+   * The worker wide buffer arena, operations using this channel lease their buffers from it
+   * @return the buffer arena
+   */
+  MPIBufferArena getBufferArena();
 }
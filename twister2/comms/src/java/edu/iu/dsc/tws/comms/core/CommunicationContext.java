@@ -12,6 +12,7 @@
 package edu.iu.dsc.tws.comms.core;
 
 import java.nio.ByteOrder;
+import java.util.List;
 
 import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.common.config.Context;
@@ -25,6 +26,7 @@ public class CommunicationContext extends Context {
   public static final String MPI_COMMUNICATION_TYPE = "mpi";
   public static final String TCP_COMMUNICATION_TYPE = "mpi";
   public static final String DEFAULT_COMMUNICATION_TYPE = MPI_COMMUNICATION_TYPE;
+  public static final String KRYO_REGISTERED_CLASSES = "network.kryo.registered.classes";
 
   public static String communicationClass(Config cfg) {
     return cfg.getStringValue(DATAFLOW_COMMUNICATION_CLASS);
@@ -41,4 +43,11 @@ public class CommunicationContext extends Context {
   public static String communicationType(Config cfg) {
     return cfg.getStringValue(COMMUNICATION_TYPE, MPI_COMMUNICATION_TYPE);
   }
+
+  /**
+   * The classes to register with kryo, in the order of registration
+   */
+  public static List<String> kryoRegisteredClasses(Config cfg) {
+    return cfg.getStringList(KRYO_REGISTERED_CLASSES);
+  }
 }
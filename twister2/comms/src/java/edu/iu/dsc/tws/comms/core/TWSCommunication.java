@@ -108,6 +108,11 @@ public interface TWSCommunication {
                               Set<Integer> sourceTasks, Set<Integer> destTasks,
                               MessageReceiver receiver);
 
+  DataFlowOperation partition(Map<String, Object> properties, MessageType type,
+                              MessageType keyType, int edge1,
+                              Set<Integer> sourceTasks, Set<Integer> destTasks,
+                              MessageReceiver receiver, ReduceFunction combineFunction);
+
   DataFlowOperation reduce(Map<String, Object> properties, MessageType type, int edge,
                               Set<Integer> sourceTasks, int destTask,
                               MessageReceiver reduceReceiver, MessageReceiver partialReceiver,
@@ -20,6 +20,7 @@ import edu.iu.dsc.tws.common.net.NetworkInfo;
 import edu.iu.dsc.tws.common.net.tcp.TCPChannel;
 import edu.iu.dsc.tws.common.util.ReflectionUtils;
 import edu.iu.dsc.tws.comms.api.TWSChannel;
+import edu.iu.dsc.tws.comms.mpi.ProgressThreadChannel;
 import edu.iu.dsc.tws.comms.mpi.TWSMPIChannel;
 import edu.iu.dsc.tws.comms.tcp.TWSTCPChannel;
 
@@ -47,7 +48,8 @@ public final class TWSNetwork {
     try {
       dataFlowTWSCommunication = ReflectionUtils.newInstance(communicationClass);
       LOG.log(Level.FINE, "Created communication with class: " + communicationClass);
-      this.channel = new TWSMPIChannel(config, MPI.COMM_WORLD, workerId);
+      this.channel = ProgressThreadChannel.wrap(config,
+          new TWSMPIChannel(config, MPI.COMM_WORLD, workerId));
     } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
       LOG.severe("Failed to load the communications class: " + communicationClass);
       throw new RuntimeException(e);
@@ -65,9 +67,11 @@ public final class TWSNetwork {
       LOG.log(Level.FINE, "Created communication with class: " + communicationClass);
       String commType = CommunicationContext.communicationType(config);
       if (CommunicationContext.MPI_COMMUNICATION_TYPE.equals(commType)) {
-        this.channel = new TWSMPIChannel(config, MPI.COMM_WORLD, workerId);
+        this.channel = ProgressThreadChannel.wrap(config,
+            new TWSMPIChannel(config, MPI.COMM_WORLD, workerId));
       } else if (CommunicationContext.TCP_COMMUNICATION_TYPE.equals(commType)) {
-        this.channel = new TWSTCPChannel(config, workerId, new TCPChannel(config, networkInfo));
+        this.channel = ProgressThreadChannel.wrap(config,
+            new TWSTCPChannel(config, workerId, new TCPChannel(config, networkInfo)));
       }
     } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
       LOG.severe("Failed to load the communications class: " + communicationClass);
@@ -84,7 +88,8 @@ public final class TWSNetwork {
     try {
       dataFlowTWSCommunication = ReflectionUtils.newInstance(communicationClass);
       LOG.log(Level.FINE, "Created communication with class: " + communicationClass);
-      this.channel = new TWSMPIChannel(config, MPI.COMM_WORLD, taskPlan.getThisExecutor());
+      this.channel = ProgressThreadChannel.wrap(config,
+          new TWSMPIChannel(config, MPI.COMM_WORLD, taskPlan.getThisExecutor()));
       dataFlowTWSCommunication.init(config, taskPlan, channel);
     } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
       LOG.severe("Failed to load the communications class: " + communicationClass);
@@ -0,0 +1,323 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import edu.iu.dsc.tws.common.config.Config;
+
+/**
+ * A worker wide pool of off-heap buffers shared by all the operations using a channel.
+ *
+ * Buffers are grouped in to size classes, starting from the minimum size and doubling up to
+ * the configured network buffer size. A buffer is leased for an edge and returned to the
+ * free list of its size class when released, so that an idle edge doesn't hold any memory.
+ * Each edge can be limited to a quota of bytes and we keep track of the current and the peak
+ * usage of every edge. The receive buffers of an edge are accounted separately with their own
+ * quota, so that buffers waiting for incoming messages cannot starve the sends of the edge.
+ */
+public class MPIBufferArena {
+  private static final Logger LOG = Logger.getLogger(MPIBufferArena.class.getName());
+
+  /**
+   * Capacity of each size class
+   */
+  private final int[] classCapacities;
+
+  /**
+   * Free buffers of each size class
+   */
+  private final List<Queue<MPIBuffer>> freeBuffers;
+
+  /**
+   * Maximum number of bytes an edge can lease at a given time, 0 means no limit
+   */
+  private final long edgeQuota;
+
+  /**
+   * Maximum number of bytes an edge can lease for receives at a given time, 0 means no limit
+   */
+  private final long receiveQuota;
+
+  /**
+   * Maximum number of bytes leased from the arena at a given time, 0 means no limit
+   */
+  private final long maxBytes;
+
+  /**
+   * Total bytes currently leased
+   */
+  private final AtomicLong leasedBytes = new AtomicLong(0);
+
+  /**
+   * Total bytes allocated by the arena, including the free buffers
+   */
+  private final AtomicLong allocatedBytes = new AtomicLong(0);
+
+  /**
+   * Usage of the edges
+   */
+  private final Map<Integer, EdgeUsage> edgeUsages = new ConcurrentHashMap<>();
+
+  /**
+   * Receive usage of the edges
+   */
+  private final Map<Integer, EdgeUsage> receiveUsages = new ConcurrentHashMap<>();
+
+  /**
+   * Keeps track of the buffers used by an edge
+   */
+  public static final class EdgeUsage {
+    private final AtomicLong currentBytes = new AtomicLong(0);
+    private final AtomicLong peakBytes = new AtomicLong(0);
+    private final AtomicLong currentBuffers = new AtomicLong(0);
+    private final AtomicLong peakBuffers = new AtomicLong(0);
+
+    private boolean reserve(long bytes, long quota) {
+      while (true) {
+        long current = currentBytes.get();
+        if (quota > 0 && current + bytes > quota) {
+          return false;
+        }
+        if (currentBytes.compareAndSet(current, current + bytes)) {
+          updatePeak(peakBytes, current + bytes);
+          updatePeak(peakBuffers, currentBuffers.incrementAndGet());
+          return true;
+        }
+      }
+    }
+
+    private void free(long bytes) {
+      currentBytes.addAndGet(-bytes);
+      currentBuffers.decrementAndGet();
+    }
+
+    public long getCurrentBytes() {
+      return currentBytes.get();
+    }
+
+    public long getPeakBytes() {
+      return peakBytes.get();
+    }
+
+    public long getCurrentBuffers() {
+      return currentBuffers.get();
+    }
+
+    public long getPeakBuffers() {
+      return peakBuffers.get();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("current %d bytes (%d buffers) peak %d bytes (%d buffers)",
+          currentBytes.get(), currentBuffers.get(), peakBytes.get(), peakBuffers.get());
+    }
+  }
+
+  public MPIBufferArena(Config cfg) {
+    this(MPIContext.bufferArenaMinBufferSize(cfg), MPIContext.bufferSize(cfg),
+        MPIContext.bufferArenaEdgeQuota(cfg), MPIContext.bufferArenaReceiveQuota(cfg),
+        MPIContext.bufferArenaMaxBytes(cfg));
+  }
+
+  public MPIBufferArena(int minBufferSize, int maxBufferSize, long quota, long max) {
+    this(minBufferSize, maxBufferSize, quota, 0, max);
+  }
+
+  public MPIBufferArena(int minBufferSize, int maxBufferSize, long quota, long recvQuota,
+                        long max) {
+    if (minBufferSize <= 0 || maxBufferSize < minBufferSize) {
+      throw new IllegalArgumentException(String.format(
+          "Invalid buffer sizes for the arena, min %d max %d", minBufferSize, maxBufferSize));
+    }
+    int classes = 1;
+    long size = minBufferSize;
+    while (size < maxBufferSize) {
+      size = size << 1;
+      classes++;
+    }
+
+    this.classCapacities = new int[classes];
+    this.freeBuffers = new ArrayList<>(classes);
+    for (int i = 0; i < classes; i++) {
+      classCapacities[i] = (int) Math.min((long) minBufferSize << i, maxBufferSize);
+      freeBuffers.add(new ConcurrentLinkedQueue<>());
+    }
+    this.edgeQuota = quota;
+    this.receiveQuota = recvQuota;
+    this.maxBytes = max;
+  }
+
+  /**
+   * Lease a buffer which can hold at least the given number of bytes.
+   *
+   * @param edge the edge leasing the buffer
+   * @param size minimum capacity of the buffer
+   * @return the buffer or null if the edge quota or the arena limit is reached
+   */
+  public MPIBuffer lease(int edge, int size) {
+    return lease(edge, size, false);
+  }
+
+  /**
+   * Lease a buffer which can hold at least the given number of bytes.
+   *
+   * @param edge the edge leasing the buffer
+   * @param size minimum capacity of the buffer
+   * @param receive true if the buffer is used to receive, it is counted in the receive quota
+   * @return the buffer or null if the quota or the arena limit is reached
+   */
+  public MPIBuffer lease(int edge, int size, boolean receive) {
+    int sizeClass = sizeClass(size);
+    if (sizeClass < 0) {
+      throw new IllegalArgumentException(String.format(
+          "Requested buffer size %d is larger than the maximum buffer size %d",
+          size, classCapacities[classCapacities.length - 1]));
+    }
+    int capacity = classCapacities[sizeClass];
+
+    EdgeUsage usage = receive ? getReceiveUsage(edge) : getUsage(edge);
+    if (!usage.reserve(capacity, receive ? receiveQuota : edgeQuota)) {
+      return null;
+    }
+
+    long leased = leasedBytes.addAndGet(capacity);
+    if (maxBytes > 0 && leased > maxBytes) {
+      leasedBytes.addAndGet(-capacity);
+      usage.free(capacity);
+      return null;
+    }
+
+    MPIBuffer buffer = freeBuffers.get(sizeClass).poll();
+    if (buffer == null) {
+      buffer = new MPIBuffer(capacity);
+      allocatedBytes.addAndGet(capacity);
+    }
+    buffer.getByteBuffer().clear();
+    buffer.setSize(0);
+    return buffer;
+  }
+
+  /**
+   * Return a buffer leased by the edge back to the arena
+   *
+   * @param edge the edge that leased the buffer
+   * @param buffer the buffer
+   */
+  public void release(int edge, MPIBuffer buffer) {
+    release(edge, buffer, false);
+  }
+
+  /**
+   * Return a buffer leased by the edge back to the arena
+   *
+   * @param edge the edge that leased the buffer
+   * @param buffer the buffer
+   * @param receive true if the buffer was leased to receive
+   */
+  public void release(int edge, MPIBuffer buffer, boolean receive) {
+    int capacity = buffer.getCapacity();
+    EdgeUsage usage = receive ? receiveUsages.get(edge) : edgeUsages.get(edge);
+    if (usage == null) {
+      throw new RuntimeException("Releasing a buffer to an unknown edge: " + edge);
+    }
+    usage.free(capacity);
+    leasedBytes.addAndGet(-capacity);
+
+    int sizeClass = sizeClass(capacity);
+    buffer.getByteBuffer().clear();
+    buffer.setSize(0);
+    if (sizeClass >= 0 && classCapacities[sizeClass] == capacity) {
+      freeBuffers.get(sizeClass).offer(buffer);
+    } else {
+      // this buffer is not from the arena, let it be garbage collected
+      LOG.fine(String.format("Dropping buffer with capacity %d on edge %d", capacity, edge));
+    }
+  }
+
+  /**
+   * Get the usage of an edge
+   *
+   * @param edge the edge
+   * @return usage
+   */
+  public EdgeUsage getUsage(int edge) {
+    return edgeUsages.computeIfAbsent(edge, e -> new EdgeUsage());
+  }
+
+  /**
+   * Get the receive usage of an edge
+   *
+   * @param edge the edge
+   * @return usage
+   */
+  public EdgeUsage getReceiveUsage(int edge) {
+    return receiveUsages.computeIfAbsent(edge, e -> new EdgeUsage());
+  }
+
+  public Map<Integer, EdgeUsage> getEdgeUsages() {
+    return edgeUsages;
+  }
+
+  public Map<Integer, EdgeUsage> getReceiveUsages() {
+    return receiveUsages;
+  }
+
+  public long getLeasedBytes() {
+    return leasedBytes.get();
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * Index of the smallest size class that can hold the given number of bytes
+   */
+  private int sizeClass(int size) {
+    for (int i = 0; i < classCapacities.length; i++) {
+      if (classCapacities[i] >= size) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void updatePeak(AtomicLong peak, long value) {
+    long current = peak.get();
+    while (value > current && !peak.compareAndSet(current, value)) {
+      current = peak.get();
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("allocated %d bytes leased %d bytes",
+        allocatedBytes.get(), leasedBytes.get()));
+    for (Map.Entry<Integer, EdgeUsage> e : edgeUsages.entrySet()) {
+      sb.append(", edge ").append(e.getKey()).append(": ").append(e.getValue());
+    }
+    for (Map.Entry<Integer, EdgeUsage> e : receiveUsages.entrySet()) {
+      sb.append(", edge ").append(e.getKey()).append(" receive: ").append(e.getValue());
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,117 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.AbstractQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A queue view of the buffers an edge can lease from the {@link MPIBufferArena}.
+ *
+ * Polling the queue leases a new buffer from the arena and offering a buffer returns it to the
+ * arena. This allows the serializers and the channels to use the arena in place of a
+ * pre-allocated queue of buffers. At most limit buffers are leased through a view at a time.
+ * A receive view leases from the receive quota of the edge.
+ *
+ * A plain poll leases a buffer of the full buffer size, while {@link #poll(int)} leases from
+ * the smallest size class of the arena that can hold the requested bytes.
+ */
+public class MPIBufferArenaQueue extends AbstractQueue<MPIBuffer> {
+  private final MPIBufferArena arena;
+
+  private final int edge;
+
+  private final int bufferSize;
+
+  private final int limit;
+
+  private final boolean receive;
+
+  private final AtomicInteger leased = new AtomicInteger(0);
+
+  public MPIBufferArenaQueue(MPIBufferArena arena, int edge, int bufferSize, int limit) {
+    this(arena, edge, bufferSize, limit, false);
+  }
+
+  public MPIBufferArenaQueue(MPIBufferArena arena, int edge, int bufferSize, int limit,
+                             boolean receive) {
+    this.arena = arena;
+    this.edge = edge;
+    this.bufferSize = bufferSize;
+    this.limit = limit;
+    this.receive = receive;
+  }
+
+  @Override
+  public boolean offer(MPIBuffer buffer) {
+    if (leased.decrementAndGet() < 0) {
+      leased.incrementAndGet();
+      return false;
+    }
+    arena.release(edge, buffer, receive);
+    return true;
+  }
+
+  @Override
+  public MPIBuffer poll() {
+    return poll(bufferSize);
+  }
+
+  /**
+   * Lease a buffer which can hold the given number of bytes, a size larger than the buffer
+   * size of the view gets a buffer of the full size
+   *
+   * @param size the number of bytes needed
+   * @return the buffer or null if no more buffers can be leased
+   */
+  public MPIBuffer poll(int size) {
+    int current = leased.get();
+    while (current < limit) {
+      if (leased.compareAndSet(current, current + 1)) {
+        MPIBuffer buffer = arena.lease(edge, Math.min(Math.max(size, 1), bufferSize), receive);
+        if (buffer == null) {
+          leased.decrementAndGet();
+        }
+        return buffer;
+      }
+      current = leased.get();
+    }
+    return null;
+  }
+
+  /**
+   * Buffers are only created when polled, so there is nothing to peek
+   */
+  @Override
+  public MPIBuffer peek() {
+    return null;
+  }
+
+  @Override
+  public Iterator<MPIBuffer> iterator() {
+    return Collections.emptyIterator();
+  }
+
+  /**
+   * The number of buffers that can still be leased through this view
+   */
+  @Override
+  public int size() {
+    return limit - leased.get();
+  }
+
+  public int getEdge() {
+    return edge;
+  }
+}
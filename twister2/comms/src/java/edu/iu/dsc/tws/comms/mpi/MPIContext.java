@@ -23,10 +23,27 @@ public class MPIContext extends CommunicationContext {
   private static final String SEND_BUFFERS_COUNT = "network.mpi.sendBuffer.count";
   private static final String BCAST_BUFFERS_COUNT = "network.mpi.bcast.sendBuffer.count";
   private static final String RECEIVE_BUFFERS_COUNT = "network.mpi.receiveBuffer.count";
+  private static final String RECEIVE_BUFFERS_OUTSTANDING =
+      "network.mpi.receiveBuffer.outstanding";
   private static final String DISTINCT_ROUTS = "network.mpi.routing.distinct.routes";
   private static final String SEND_PENDING_MAX = "network.mpi.send.pending.max";
   private static final String NETWORK_CHANNEL_PENDING_SIZE = "network.channel.mpi.pending.size";
   private static final String NETWORK_STORAGE_PATH = "network.storage.path";
+  private static final String FORWARD_SERIALIZED = "network.mpi.forward.serialized";
+  private static final String BUFFER_ARENA_ENABLED = "network.buffer.arena.enabled";
+  private static final String BUFFER_ARENA_MIN_SIZE = "network.buffer.arena.min.size";
+  private static final String BUFFER_ARENA_EDGE_QUOTA = "network.buffer.arena.edge.quota";
+  private static final String BUFFER_ARENA_RECEIVE_QUOTA = "network.buffer.arena.receive.quota";
+  private static final String BUFFER_ARENA_MAX_BYTES = "network.buffer.arena.max.bytes";
+  private static final String PROGRESS_THREAD_ENABLED = "network.progress.thread.enabled";
+  private static final String PROGRESS_THREAD_SPIN_COUNT = "network.progress.thread.spin.count";
+  private static final String PROGRESS_THREAD_PARK_NANOS = "network.progress.thread.park.nanos";
+  private static final String BATCH_ENABLED = "network.batch.enabled";
+  private static final String BATCH_MAX_COUNT = "network.batch.max.count";
+  private static final String BATCH_MAX_BYTES = "network.batch.max.bytes";
+  private static final String BATCH_LINGER_NANOS = "network.batch.linger.nanos";
+  private static final String COMBINER_MAX_KEYS = "network.combiner.max.keys";
+  private static final String COMBINER_LINGER_NANOS = "network.combiner.linger.nanos";
 
   public static final int DEFAULT_PATH = 0;
 
@@ -47,6 +64,10 @@ public class MPIContext extends CommunicationContext {
     return cfg.getIntegerValue(RECEIVE_BUFFERS_COUNT, 32);
   }
 
+  public static int receiveBufferOutstanding(Config cfg) {
+    return cfg.getIntegerValue(RECEIVE_BUFFERS_OUTSTANDING, 2);
+  }
+
   public static int sendPendingMax(Config cfg) {
     return cfg.getIntegerValue(SEND_PENDING_MAX, 16);
   }
@@ -58,5 +79,64 @@ public class MPIContext extends CommunicationContext {
   public static String networkStoragePath(Config cfg) {
     return cfg.getStringValue(NETWORK_STORAGE_PATH);
   }
-}
 
+  public static boolean forwardSerialized(Config cfg) {
+    return cfg.getBooleanValue(FORWARD_SERIALIZED, true);
+  }
+
+  public static boolean bufferArenaEnabled(Config cfg) {
+    return cfg.getBooleanValue(BUFFER_ARENA_ENABLED, true);
+  }
+
+  public static int bufferArenaMinBufferSize(Config cfg) {
+    return Math.min(cfg.getIntegerValue(BUFFER_ARENA_MIN_SIZE, 4096), bufferSize(cfg));
+  }
+
+  public static long bufferArenaEdgeQuota(Config cfg) {
+    return cfg.getLongValue(BUFFER_ARENA_EDGE_QUOTA, 0);
+  }
+
+  public static long bufferArenaReceiveQuota(Config cfg) {
+    return cfg.getLongValue(BUFFER_ARENA_RECEIVE_QUOTA, 0);
+  }
+
+  public static long bufferArenaMaxBytes(Config cfg) {
+    return cfg.getLongValue(BUFFER_ARENA_MAX_BYTES, 0);
+  }
+
+  public static boolean progressThreadEnabled(Config cfg) {
+    return cfg.getBooleanValue(PROGRESS_THREAD_ENABLED, false);
+  }
+
+  public static int progressThreadSpinCount(Config cfg) {
+    return cfg.getIntegerValue(PROGRESS_THREAD_SPIN_COUNT, 10000);
+  }
+
+  public static long progressThreadParkNanos(Config cfg) {
+    return cfg.getLongValue(PROGRESS_THREAD_PARK_NANOS, 100000);
+  }
+
+  public static boolean batchEnabled(Config cfg) {
+    return cfg.getBooleanValue(BATCH_ENABLED, false);
+  }
+
+  public static int batchMaxCount(Config cfg) {
+    return cfg.getIntegerValue(BATCH_MAX_COUNT, 128);
+  }
+
+  public static long batchMaxBytes(Config cfg) {
+    return cfg.getLongValue(BATCH_MAX_BYTES, 64 * 1024);
+  }
+
+  public static long batchLingerNanos(Config cfg) {
+    return cfg.getLongValue(BATCH_LINGER_NANOS, 1000000);
+  }
+
+  public static int combinerMaxKeys(Config cfg) {
+    return cfg.getIntegerValue(COMBINER_MAX_KEYS, 8192);
+  }
+
+  public static long combinerLingerNanos(Config cfg) {
+    return cfg.getLongValue(COMBINER_LINGER_NANOS, 1000000);
+  }
+}
@@ -16,7 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -34,6 +33,8 @@ import edu.iu.dsc.tws.comms.api.TWSChannel;
 import edu.iu.dsc.tws.comms.core.TaskPlan;
 import edu.iu.dsc.tws.comms.mpi.io.MPIMessageDeSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MPIMessageSerializer;
+import edu.iu.dsc.tws.comms.mpi.io.MPIMultiMessageDeserializer;
+import edu.iu.dsc.tws.comms.mpi.io.MPIMultiMessageSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MessageDeSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MessageSerializer;
 import edu.iu.dsc.tws.comms.routing.BinaryTreeRouter;
@@ -56,17 +57,27 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
   private int executor;
   private int edge;
   private MessageType type;
-  private Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>>
+  private Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>>
       pendingSendMessagesPerSource = new HashMap<>();
   private Lock lock = new ReentrantLock();
 
   private Map<Integer, RoutingParameters> routingParametersCache = new HashMap<>();
 
+  /**
+   * Forward the received buffers to the children instead of serializing the message again
+   */
+  private boolean forwardSerialized;
+
+  /**
+   * Packs the small messages of the source together, null if batching is not enabled
+   */
+  private MPIMessageBatcher batcher;
+
   public MPIDataFlowBroadcast(TWSChannel channel, int src, Set<Integer> dests,
                               MessageReceiver finalRcvr) {
     this.source = src;
     this.destinations = dests;
-    this.finalReceiver = finalRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
 
     this.delegete = new MPIDataFlowOperation(channel);
   }
@@ -96,7 +107,19 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
   }
 
   public boolean receiveMessage(MPIMessage currentMessage, Object object) {
-    MessageHeader header = currentMessage.getHeader();
+    final MessageHeader header = currentMessage.getHeader();
+    if (batcher != null) {
+      final int target = router.mainTaskOfExecutor(instancePlan.getThisExecutor(),
+          MPIContext.DEFAULT_PATH);
+      return batcher.deliver(header.getSourceId(), target, header.getFlags(), object,
+          new MPIMessageBatcher.Receiver() {
+            @Override
+            public boolean onMessage(Object m, int f) {
+              return finalReceiver.onMessage(header.getSourceId(), MPIContext.DEFAULT_PATH,
+                  target, f, m);
+            }
+          });
+    }
 
     // we always receive to the main task
 //    LOG.info(String.format("%d received message from %d", instancePlan.getThisExecutor(),
@@ -124,6 +147,7 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
     this.type = t;
     this.edge = ed;
     this.executor = tPlan.getThisExecutor();
+    this.forwardSerialized = MPIContext.forwardSerialized(cfg);
     // we will only have one distinct route
     router = new BinaryTreeRouter(cfg, tPlan, source, destinations);
 
@@ -142,14 +166,21 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
     Map<Integer, MessageSerializer> serializerMap = new HashMap<>();
     Map<Integer, MessageDeSerializer> deSerializerMap = new HashMap<>();
 
+    // batches are framed as multi messages
+    boolean batch = MPIContext.batchEnabled(cfg);
+
     Set<Integer> srcs = router.sendQueueIds();
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer()));
+      if (batch) {
+        serializerMap.put(s, new MPIMultiMessageSerializer(new KryoSerializer(cfg), executor));
+      } else {
+        serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer(cfg)));
+      }
     }
 
     int maxReceiveBuffers = MPIContext.receiveBufferCount(cfg);
@@ -161,11 +192,16 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
     for (int e : execs) {
       int capacity = maxReceiveBuffers * 2 * receiveExecutorsSize;
       Queue<Pair<Object, MPIMessage>> pendingReceiveMessages =
-          new ArrayBlockingQueue<Pair<Object, MPIMessage>>(
+          new MPSCQueue<Pair<Object, MPIMessage>>(
               capacity);
       pendingReceiveMessagesPerSource.put(e, pendingReceiveMessages);
-      pendingReceiveDeSerializations.put(e, new ArrayBlockingQueue<MPIMessage>(capacity));
-      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer()));
+      pendingReceiveDeSerializations.put(e, new MPSCQueue<MPIMessage>(capacity));
+      if (batch) {
+        deSerializerMap.put(e, new MPIMultiMessageDeserializer(new KryoSerializer(cfg),
+            executor));
+      } else {
+        deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer(cfg)));
+      }
     }
 
     for (Integer s : srcs) {
@@ -176,6 +212,10 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
         router.receivingExecutors(), router.isLastReceiver(), this,
         pendingSendMessagesPerSource, pendingReceiveMessagesPerSource,
         pendingReceiveDeSerializations, serializerMap, deSerializerMap, false);
+
+    if (batch) {
+      batcher = new MPIMessageBatcher(cfg, delegete);
+    }
   }
 
   @Override
@@ -185,12 +225,31 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
 
   @Override
   public boolean send(int src, Object message, int flags) {
-    return delegete.sendMessage(src, message, 0, flags, sendRoutingParameters(src, 0));
+    int s = routingSource(src);
+    if (batcher != null) {
+      return batcher.send(s, message, 0, flags, sendRoutingParameters(s, 0));
+    }
+    return delegete.sendMessage(s, message, 0, flags, sendRoutingParameters(s, 0));
   }
 
   @Override
   public boolean send(int src, Object message, int flags, int dest) {
-    return delegete.sendMessage(src, message, dest, flags, sendRoutingParameters(src, 0));
+    int s = routingSource(src);
+    if (batcher != null) {
+      return batcher.send(s, message, dest, flags, sendRoutingParameters(s, 0));
+    }
+    return delegete.sendMessage(s, message, dest, flags, sendRoutingParameters(s, 0));
+  }
+
+  /**
+   * The tree only has send queues for the main task of this executor, a source that is not a
+   * node of the tree sends through the main task
+   */
+  private int routingSource(int src) {
+    if (pendingSendMessagesPerSource.containsKey(src)) {
+      return src;
+    }
+    return router.mainTaskOfExecutor(instancePlan.getThisExecutor(), MPIContext.DEFAULT_PATH);
   }
 
   @Override
@@ -201,6 +260,9 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
   @Override
   public void progress() {
     try {
+      if (batcher != null) {
+        batcher.progress();
+      }
       delegete.progress();
       if (lock.tryLock()) {
         try {
@@ -215,6 +277,27 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
     }
   }
 
+  /**
+   * The number of messages the source can send before it has to wait for the receivers
+   */
+  public int sendCapacity(int src) {
+    return delegete.sendCapacity(routingSource(src));
+  }
+
+  /**
+   * Whether there are messages in the operation that need to be progressed
+   */
+  public boolean hasPending() {
+    return delegete.hasPending() || (batcher != null && batcher.hasPending());
+  }
+
+  /**
+   * The number of messages waiting to be sent by the sources of this executor
+   */
+  public int pendingSendCount() {
+    return delegete.pendingSendCount();
+  }
+
   public boolean passMessageDownstream(Object object, MPIMessage currentMessage) {
     int src = router.mainTaskOfExecutor(instancePlan.getThisExecutor(), MPIContext.DEFAULT_PATH);
     RoutingParameters routingParameters;
@@ -224,17 +307,28 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
       routingParameters = sendRoutingParameters(src, MPIContext.DEFAULT_PATH);
     }
 
-    ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+    MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
         pendingSendMessagesPerSource.get(src);
 
-    MPIMessage mpiMessage = new MPIMessage(src, type, MPIMessageDirection.OUT, delegete);
-
     // create a send message to keep track of the serialization
     // at the intial stage the sub-edge is 0
     int di = -1;
     if (routingParameters.getExternalRoutes().size() > 0) {
       di = routingParameters.getDestinationId();
     }
+
+    // if we need to send the message out, we reuse the received buffers instead of
+    // serializing the object again. internal routes still get the de-serialized object
+    boolean forward = forwardSerialized && routingParameters.getExternalRoutes().size() > 0
+        && currentMessage.isComplete();
+    MPIMessage mpiMessage;
+    if (forward) {
+      currentMessage.incrementRefCount();
+      mpiMessage = delegete.buildForwardMessage(src, di, currentMessage);
+    } else {
+      mpiMessage = new MPIMessage(src, type, MPIMessageDirection.OUT, delegete);
+    }
+
     MPISendMessage sendMessage = new MPISendMessage(src, mpiMessage,
         currentMessage.getHeader().getEdge(),
         di, MPIContext.DEFAULT_PATH, currentMessage.getHeader().getFlags(),
@@ -242,8 +336,13 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
         routingParameters.getExternalRoutes());
 
     // now try to put this into pending
-    return pendingSendMessages.offer(
+    boolean offer = pendingSendMessages.offer(
         new ImmutablePair<Object, MPISendMessage>(object, sendMessage));
+    if (!offer && forward) {
+      // we will try again, give up the hold on the received message
+      currentMessage.release();
+    }
+    return offer;
   }
 
   public RoutingParameters sendRoutingParameters(int s, int path) {
@@ -284,7 +383,16 @@ public class MPIDataFlowBroadcast implements DataFlowOperation, MPIMessageReceiv
   }
 
   @Override
-  public boolean receiveSendInternally(int src, int t, int path, int flags, Object message) {
+  public boolean receiveSendInternally(final int src, final int t, final int path,
+                                       int flags, Object message) {
+    if (batcher != null) {
+      return batcher.deliver(src, t, flags, message, new MPIMessageBatcher.Receiver() {
+        @Override
+        public boolean onMessage(Object m, int f) {
+          return finalReceiver.onMessage(src, path, t, f, m);
+        }
+      });
+    }
     return finalReceiver.onMessage(src, path, t, flags, message);
   }
 
@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -109,8 +108,8 @@ public class MPIDataFlowGather implements DataFlowOperation, MPIMessageReceiver
     this.index = indx;
     this.sources = sources;
     this.destination = destination;
-    this.finalReceiver = finalRcvr;
-    this.partialReceiver = partialRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
+    this.partialReceiver = TargetSynchronizedReceiver.wrap(partialRcvr);
     this.pathToUse = p;
     this.keyType = kt;
     this.instancePlan = taskPlan;
@@ -276,7 +275,7 @@ public class MPIDataFlowGather implements DataFlowOperation, MPIMessageReceiver
       this.finalReceiver.init(cfg, this, receiveExpectedTaskIds());
     }
 
-    Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
+    Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
         new HashMap<>();
     Map<Integer, Queue<Pair<Object, MPIMessage>>> pendingReceiveMessagesPerSource = new HashMap<>();
     Map<Integer, Queue<MPIMessage>> pendingReceiveDeSerializations = new HashMap<>();
@@ -286,11 +285,11 @@ public class MPIDataFlowGather implements DataFlowOperation, MPIMessageReceiver
     Set<Integer> srcs = router.sendQueueIds();
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      serializerMap.put(s, new MPIMultiMessageSerializer(new KryoSerializer(), executor));
+      serializerMap.put(s, new MPIMultiMessageSerializer(new KryoSerializer(cfg), executor));
     }
 
     int maxReceiveBuffers = MPIContext.receiveBufferCount(cfg);
@@ -303,10 +302,10 @@ public class MPIDataFlowGather implements DataFlowOperation, MPIMessageReceiver
     for (int e : execs) {
       int capacity = maxReceiveBuffers * 2 * receiveExecutorsSize;
       Queue<Pair<Object, MPIMessage>> pendingReceiveMessages =
-          new ArrayBlockingQueue<Pair<Object, MPIMessage>>(capacity);
+          new MPSCQueue<Pair<Object, MPIMessage>>(capacity);
       pendingReceiveMessagesPerSource.put(e, pendingReceiveMessages);
-      pendingReceiveDeSerializations.put(e, new ArrayBlockingQueue<MPIMessage>(capacity));
-      deSerializerMap.put(e, new MPIMultiMessageDeserializer(new KryoSerializer(), executor));
+      pendingReceiveDeSerializations.put(e, new MPSCQueue<MPIMessage>(capacity));
+      deSerializerMap.put(e, new MPIMultiMessageDeserializer(new KryoSerializer(cfg), executor));
     }
 
     Set<Integer> sourcesOfThisExec = TaskPlanUtils.getTasksOfThisExecutor(taskPlan, sources);
@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -81,7 +80,7 @@ public class MPIDataFlowLoadBalance implements DataFlowOperation, MPIMessageRece
       destinationIndex.put(s, 0);
     }
 
-    this.finalReceiver = finalRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
     this.finalReceiverProgress = new AtomicBoolean(false);
   }
 
@@ -134,7 +133,7 @@ public class MPIDataFlowLoadBalance implements DataFlowOperation, MPIMessageRece
       this.finalReceiver.init(cfg, this, receiveExpectedTaskIds());
     }
 
-    Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
+    Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
         new HashMap<>();
     Map<Integer, Queue<Pair<Object, MPIMessage>>> pendingReceiveMessagesPerSource = new HashMap<>();
     Map<Integer, Queue<MPIMessage>> pendingReceiveDeSerializations = new HashMap<>();
@@ -144,11 +143,11 @@ public class MPIDataFlowLoadBalance implements DataFlowOperation, MPIMessageRece
     Set<Integer> srcs = TaskPlanUtils.getTasksOfThisExecutor(taskPlan, sources);
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer()));
+      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer(cfg)));
     }
 
     int maxReceiveBuffers = MPIContext.receiveBufferCount(cfg);
@@ -160,11 +159,11 @@ public class MPIDataFlowLoadBalance implements DataFlowOperation, MPIMessageRece
     for (int e : execs) {
       int capacity = maxReceiveBuffers * 2 * receiveExecutorsSize;
       Queue<Pair<Object, MPIMessage>> pendingReceiveMessages =
-          new ArrayBlockingQueue<Pair<Object, MPIMessage>>(
+          new MPSCQueue<Pair<Object, MPIMessage>>(
               capacity);
       pendingReceiveMessagesPerSource.put(e, pendingReceiveMessages);
-      pendingReceiveDeSerializations.put(e, new ArrayBlockingQueue<MPIMessage>(capacity));
-      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer()));
+      pendingReceiveDeSerializations.put(e, new MPSCQueue<MPIMessage>(capacity));
+      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer(cfg)));
     }
 
     delegete.init(cfg, t, taskPlan, edge,
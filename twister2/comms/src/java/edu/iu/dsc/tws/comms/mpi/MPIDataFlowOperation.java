@@ -20,8 +20,6 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import com.google.common.primitives.Ints;
@@ -42,12 +40,12 @@ import edu.iu.dsc.tws.comms.mpi.io.SerializeState;
 import edu.iu.dsc.tws.comms.mpi.io.types.DataSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.types.KeySerializer;
 import edu.iu.dsc.tws.comms.utils.KryoSerializer;
+import edu.iu.dsc.tws.comms.utils.KryoSerializerPool;
 import edu.iu.dsc.tws.comms.utils.MessageTypeUtils;
 import edu.iu.dsc.tws.data.fs.Path;
 import edu.iu.dsc.tws.data.memory.MemoryManager;
 import edu.iu.dsc.tws.data.memory.MemoryManagerContext;
 import edu.iu.dsc.tws.data.memory.OperationMemoryManager;
-import edu.iu.dsc.tws.data.memory.lmdb.LMDBMemoryManager;
 
 public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageReleaseCallback {
   private static final Logger LOG = Logger.getLogger(MPIDataFlowOperation.class.getName());
@@ -67,7 +65,6 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
   protected MessageType type;
   protected MessageType keyType = MessageType.BYTE;
   protected boolean isKeyed = false;
-  protected Lock lock = new ReentrantLock();
 
   protected int executor;
   /**
@@ -80,11 +77,16 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
    */
   protected Map<Integer, Queue<MPIBuffer>> receiveBuffers;
 
+  /**
+   * The worker wide buffer arena, null if the operation uses its own buffers
+   */
+  protected MPIBufferArena bufferArena;
+
   /**
    * Pending send messages
    */
 //  protected Queue<Pair<Object, MPISendMessage>> pendingSendMessages;
-  protected Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>>
+  protected Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>>
       pendingSendMessagesPerSource;
 
   /**
@@ -98,7 +100,8 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
    */
   private Map<Integer, MPIMessage> currentMessages = new HashMap<>();
 
-  protected KryoSerializer kryoSerializer;
+  // serializers used when writing to the store, sources can be progressed by different threads
+  protected KryoSerializerPool kryoSerializerPool;
 
   protected boolean debug;
 
@@ -174,7 +177,7 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
   public void init(Config cfg, MessageType messageType, TaskPlan plan,
                    int graphEdge, Set<Integer> recvExecutors,
                    boolean lastReceiver, MPIMessageReceiver msgReceiver,
-                   Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>>
+                   Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>>
                        pendingSendPerSource,
                    Map<Integer, Queue<Pair<Object, MPIMessage>>> pRMPS,
                    Map<Integer, Queue<MPIMessage>> pendingReceiveDesrialize,
@@ -202,9 +205,19 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     int sendBufferSize = MPIContext.bufferSize(config);
 
 //    LOG.info(String.format("%d Send buffer size: %d", executor, sendBufferSize));
-    this.sendBuffers = new ArrayBlockingQueue<MPIBuffer>(noOfSendBuffers);
-    for (int i = 0; i < noOfSendBuffers; i++) {
-      sendBuffers.offer(new MPIBuffer(sendBufferSize));
+    this.bufferArena = null;
+    if (MPIContext.bufferArenaEnabled(config)) {
+      this.bufferArena = channel.getBufferArena();
+    }
+    if (bufferArena != null) {
+      // the send buffers are leased from the arena when serializing
+      this.sendBuffers = new MPIBufferArenaQueue(bufferArena, edge,
+          sendBufferSize, noOfSendBuffers);
+    } else {
+      this.sendBuffers = new ArrayBlockingQueue<MPIBuffer>(noOfSendBuffers);
+      for (int i = 0; i < noOfSendBuffers; i++) {
+        sendBuffers.offer(new MPIBuffer(sendBufferSize));
+      }
     }
     this.receiveBuffers = new HashMap<>();
 
@@ -256,9 +269,16 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     int receiveBufferSize = MPIContext.bufferSize(config);
 //    LOG.info(String.format("%d Receive buffer size: %d", executor, receiveBufferSize));
     for (Integer recv : receivingExecutors) {
-      Queue<MPIBuffer> recvList = new LinkedBlockingQueue<>();
-      for (int i = 0; i < maxReceiveBuffers; i++) {
-        recvList.add(new MPIBuffer(receiveBufferSize));
+      Queue<MPIBuffer> recvList;
+      if (bufferArena != null) {
+        // the channel leases these lazily, only a few receives are posted at a time
+        recvList = new MPIBufferArenaQueue(bufferArena, edge,
+            receiveBufferSize, maxReceiveBuffers, true);
+      } else {
+        recvList = new LinkedBlockingQueue<>();
+        for (int i = 0; i < maxReceiveBuffers; i++) {
+          recvList.add(new MPIBuffer(receiveBufferSize));
+        }
       }
       // register with the channel
       LOG.fine(instancePlan.getThisExecutor() + " Register to receive from: " + recv);
@@ -266,19 +286,21 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
       receiveBuffers.put(recv, recvList);
     }
 
-    // configure the send sendBuffers
-    int sendBufferSize = MPIContext.bufferSize(config);
-    int sendBufferCount = MPIContext.sendBuffersCount(config);
-    for (int i = 0; i < sendBufferCount; i++) {
-      MPIBuffer buffer = new MPIBuffer(sendBufferSize);
-      sendBuffers.offer(buffer);
+    // configure the send sendBuffers, the arena creates the send buffers on demand
+    if (bufferArena == null) {
+      int sendBufferSize = MPIContext.bufferSize(config);
+      int sendBufferCount = MPIContext.sendBuffersCount(config);
+      for (int i = 0; i < sendBufferCount; i++) {
+        MPIBuffer buffer = new MPIBuffer(sendBufferSize);
+        sendBuffers.offer(buffer);
+      }
     }
   }
 
   public boolean sendMessagePartial(int source, Object object, int path,
                                     int flags, RoutingParameters routingParameters) {
     // for partial sends we use minus value to find the correct queue
-    ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+    MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
         pendingSendMessagesPerSource.get(source * -1 - 1);
     if (pendingSendMessages.remainingCapacity() > 0) {
       MPIMessage mpiMessage = new MPIMessage(source, type, MPIMessageDirection.OUT, this);
@@ -298,7 +320,6 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
       if (!ret) {
         partialSendAttempts++;
       } else {
-        ((TWSMPIChannel) channel).setDebug(false);
         partialSendAttempts = 0;
         sendsPartialOfferred++;
       }
@@ -309,7 +330,7 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
 
   public boolean sendMessage(int source, Object message, int path,
                              int flags, RoutingParameters routingParameters) {
-    ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+    MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
         pendingSendMessagesPerSource.get(source);
     if (pendingSendMessages.remainingCapacity() > 0) {
       MPIMessage mpiMessage = new MPIMessage(source, type, MPIMessageDirection.OUT, this);
@@ -328,7 +349,6 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
       if (!offer) {
         sendAttempts++;
       } else {
-        ((TWSMPIChannel) channel).setDebug(false);
         sendAttempts = 0;
         sendsOfferred++;
       }
@@ -337,6 +357,20 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     return false;
   }
 
+  /**
+   * Hand a message to the receiver of a target in this executor
+   */
+  private boolean receiveSendInternally(MPISendMessage mpiSendMessage, int target,
+                                        Object messageObject) {
+    return receiver.receiveSendInternally(mpiSendMessage.getSource(), target,
+        mpiSendMessage.getPath(), mpiSendMessage.getFlags(), messageObject);
+  }
+
+  /**
+   * Progress the pending sends of a source. Only the thread that owns the source through the
+   * send progression tracker calls this, so the queue needs no locking. The receivers of the
+   * operation serialize the messages of a target, see {@link TargetSynchronizedReceiver}.
+   */
   private void sendProgress(Queue<Pair<Object, MPISendMessage>> pendingSendMessages, int sendId) {
     boolean canProgress = true;
     while (pendingSendMessages.size() > 0 && canProgress) {
@@ -354,20 +388,13 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
           boolean receiveAccepted;
           if (isStoreBased && isLastReceiver) {
             serializeAndWriteToMemoryManager(mpiSendMessage, messageObject);
-            receiveAccepted = receiver.receiveSendInternally(
-                mpiSendMessage.getSource(), inRoutes.get(i), mpiSendMessage.getPath(),
-                mpiSendMessage.getFlags(), operationMemoryManager);
+            receiveAccepted = receiveSendInternally(mpiSendMessage, inRoutes.get(i),
+                operationMemoryManager);
             //send memory manager as reply
             //mpiSendMessage.setSerializationState();
           } else {
-            lock.lock();
-            try {
-              receiveAccepted = receiver.receiveSendInternally(
-                  mpiSendMessage.getSource(), inRoutes.get(i), mpiSendMessage.getPath(),
-                  mpiSendMessage.getFlags(), messageObject);
-            } finally {
-              lock.unlock();
-            }
+            receiveAccepted = receiveSendInternally(mpiSendMessage, inRoutes.get(i),
+                messageObject);
           }
 
           if (!receiveAccepted) {
@@ -440,20 +467,13 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
         boolean receiveAccepted;
         if (isStoreBased && isLastReceiver) {
           serializeAndWriteToMemoryManager(mpiSendMessage, messageObject);
-          receiveAccepted = receiver.receiveSendInternally(
-              mpiSendMessage.getSource(), inRoutes.get(i), mpiSendMessage.getPath(),
-              mpiSendMessage.getFlags(), operationMemoryManager);
+          receiveAccepted = receiveSendInternally(mpiSendMessage, inRoutes.get(i),
+              operationMemoryManager);
           //send memory manager as reply
           //mpiSendMessage.setSerializationState();
         } else {
-          lock.lock();
-          try {
-            receiveAccepted = receiver.receiveSendInternally(
-                mpiSendMessage.getSource(), inRoutes.get(i), mpiSendMessage.getPath(),
-                mpiSendMessage.getFlags(), messageObject);
-          } finally {
-            lock.unlock();
-          }
+          receiveAccepted = receiveSendInternally(mpiSendMessage, inRoutes.get(i),
+              messageObject);
         }
 
         if (!receiveAccepted) {
@@ -541,6 +561,11 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
   }
 
 
+  /**
+   * Pass the received messages of a source to the receiver. Only the thread that owns the source
+   * through the receive progression tracker calls this, so the queue needs no locking. The
+   * receivers of the operation serialize the messages of a target.
+   */
   private void receiveProgress(Queue<Pair<Object, MPIMessage>> pendingReceiveMessages) {
     while (pendingReceiveMessages.size() > 0) {
       Pair<Object, MPIMessage> pair = pendingReceiveMessages.peek();
@@ -552,37 +577,32 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
         currentMessage.incrementRefCount();
       }
 
-      lock.lock();
-      try {
-        if (state == MPIMessage.ReceivedState.DOWN || state == MPIMessage.ReceivedState.INIT) {
-          currentMessage.setReceivedState(MPIMessage.ReceivedState.DOWN);
-          if (!receiver.passMessageDownstream(object, currentMessage)) {
-            break;
-          }
+      if (state == MPIMessage.ReceivedState.DOWN || state == MPIMessage.ReceivedState.INIT) {
+        currentMessage.setReceivedState(MPIMessage.ReceivedState.DOWN);
+        if (!receiver.passMessageDownstream(object, currentMessage)) {
+          break;
+        }
 
-          if (currentMessage.getReceivedState() != MPIMessage.ReceivedState.RECEIVE) {
-            currentMessage.release();
-          }
-          currentMessage.setReceivedState(MPIMessage.ReceivedState.RECEIVE);
-          if (!receiver.receiveMessage(currentMessage, object)) {
-            break;
-          }
-          //currentMessage.release();
-          pendingReceiveMessages.poll();
-        } else if (state == MPIMessage.ReceivedState.RECEIVE) {
-          currentMessage.setReceivedState(MPIMessage.ReceivedState.RECEIVE);
+        if (currentMessage.getReceivedState() != MPIMessage.ReceivedState.RECEIVE) {
+          currentMessage.release();
+        }
+        currentMessage.setReceivedState(MPIMessage.ReceivedState.RECEIVE);
+        if (!receiver.receiveMessage(currentMessage, object)) {
+          break;
+        }
+        //currentMessage.release();
+        pendingReceiveMessages.poll();
+      } else if (state == MPIMessage.ReceivedState.RECEIVE) {
+        currentMessage.setReceivedState(MPIMessage.ReceivedState.RECEIVE);
 
-          if (currentMessage.getReceivedState() != MPIMessage.ReceivedState.RECEIVE) {
-            currentMessage.release();
-          }
-          if (!receiver.receiveMessage(currentMessage, object)) {
-            break;
-          }
-          //currentMessage.release();
-          pendingReceiveMessages.poll();
+        if (currentMessage.getReceivedState() != MPIMessage.ReceivedState.RECEIVE) {
+          currentMessage.release();
         }
-      } finally {
-        lock.unlock();
+        if (!receiver.receiveMessage(currentMessage, object)) {
+          break;
+        }
+        //currentMessage.release();
+        pendingReceiveMessages.poll();
       }
     }
   }
@@ -639,6 +659,17 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     if (mpiSendMessage.getSerializationState() == null) {
       mpiSendMessage.setSerializationState(new SerializeState());
     }
+    KryoSerializer kryoSerializer = kryoSerializerPool.borrow();
+    try {
+      writeToMemoryManager(mpiSendMessage, messageObject, kryoSerializer);
+    } finally {
+      kryoSerializerPool.release(kryoSerializer);
+    }
+    return true;
+  }
+
+  private void writeToMemoryManager(MPISendMessage mpiSendMessage, Object messageObject,
+                                    KryoSerializer kryoSerializer) {
 //    ByteBuffer tempData;
 //    ByteBuffer tempKey;
 
@@ -696,7 +727,6 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
       //TODO : need to generate operation key and use it
       operationMemoryManager.put(Ints.toByteArray(key), dataBytes);
     }
-    return true;
   }
 
   /**
@@ -807,6 +837,38 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     }
   }
 
+  /**
+   * Create an outgoing message that reuses the buffers of a received message, so that a message
+   * passed downstream is not serialized again. The received message is kept until all the
+   * sends of the outgoing message are completed.
+   *
+   * @param source the source sending the message
+   * @param destinationId destination identifier to put in the header
+   * @param received the received message, it should be complete
+   * @return the outgoing message, which is already serialized
+   */
+  public MPIMessage buildForwardMessage(int source, int destinationId, MPIMessage received) {
+    MessageHeader receivedHeader = received.getHeader();
+    MPIMessage forward = new MPIMessage(source, type, MPIMessageDirection.OUT,
+        message -> received.release());
+    for (MPIBuffer buffer : received.getBuffers()) {
+      forward.addBuffer(buffer);
+    }
+    // the header is in the first buffer, update the source and the destination
+    ByteBuffer headerBuffer = received.getBuffers().get(0).getByteBuffer();
+    headerBuffer.putInt(0, source);
+    headerBuffer.putInt(8, destinationId);
+
+    MessageHeader.Builder builder = MessageHeader.newBuilder(source,
+        receivedHeader.getEdge(), receivedHeader.getLength());
+    builder.destination(destinationId);
+    builder.flags(receivedHeader.getFlags());
+    forward.setHeader(builder.build());
+    forward.setHeaderSize(received.getHeaderSize());
+    forward.setComplete(true);
+    return forward;
+  }
+
   private boolean sendMessageToTarget(MPIMessage mpiMessage, int i) {
     mpiMessage.incrementRefCount();
     int e = instancePlan.getExecutorForChannel(i);
@@ -843,7 +905,7 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
         completionListener.completed(message.getOriginatingId());
       }
     } else if (MPIMessageDirection.OUT == message.getMessageDirection()) {
-      ArrayBlockingQueue<MPIBuffer> queue = (ArrayBlockingQueue<MPIBuffer>) sendBuffers;
+      Queue<MPIBuffer> queue = sendBuffers;
       for (MPIBuffer buffer : message.getBuffers()) {
         // we need to reset the buffer so it can be used again
         buffer.getByteBuffer().clear();
@@ -856,9 +918,8 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
               "%d send count %d receive %d send release %d receive release %d %s %d %d",
               executor, sendCount, receiveCount, sendBufferReleaseCount,
               receiveBufferReleaseCount, s, sendsOfferred, sendsPartialOfferred));
-          ((TWSMPIChannel) channel).setDebug(true);
-          throw new RuntimeException(String.format("%d Buffer release failed for source %d %d %d",
-              executor, message.getOriginatingId(), queue.size(), queue.remainingCapacity()));
+          throw new RuntimeException(String.format("%d Buffer release failed for source %d %d",
+              executor, message.getOriginatingId(), queue.size()));
         }
         sendBufferReleaseCount++;
       }
@@ -897,6 +958,66 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
     }
   }
 
+  /**
+   * Usage of the buffer arena by this operation
+   * @return the usage or null if the operation doesn't use the arena
+   */
+  public MPIBufferArena.EdgeUsage getBufferUsage() {
+    if (bufferArena == null) {
+      return null;
+    }
+    return bufferArena.getUsage(edge);
+  }
+
+  /**
+   * The number of messages a source can send before its pending sends are full. The pending
+   * sends only drain when the receivers accept the messages, so this is the credit the source
+   * has with the rest of the data flow.
+   *
+   * @param source the source task
+   * @return the remaining capacity, 0 if the source doesn't belong to this executor
+   */
+  public int sendCapacity(int source) {
+    MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+        pendingSendMessagesPerSource.get(source);
+    if (pendingSendMessages == null) {
+      return 0;
+    }
+    return pendingSendMessages.remainingCapacity();
+  }
+
+  /**
+   * The number of messages waiting to be sent by the sources of this executor
+   */
+  public int pendingSendCount() {
+    int count = 0;
+    for (Queue<Pair<Object, MPISendMessage>> q : pendingSendMessagesPerSource.values()) {
+      count += q.size();
+    }
+    return count;
+  }
+
+  /**
+   * The number of received messages waiting to be deserialized or accepted by the receiver
+   */
+  public int pendingReceiveCount() {
+    int count = 0;
+    for (Queue<Pair<Object, MPIMessage>> q : pendingReceiveMessagesPerSource.values()) {
+      count += q.size();
+    }
+    for (Queue<MPIMessage> q : pendingReceiveDeSerializations.values()) {
+      count += q.size();
+    }
+    return count;
+  }
+
+  /**
+   * Whether there are sends or receives that need to be progressed
+   */
+  public boolean hasPending() {
+    return pendingSendCount() > 0 || pendingReceiveCount() > 0;
+  }
+
   public TaskPlan getInstancePlan() {
     return instancePlan;
   }
@@ -931,13 +1052,13 @@ public class MPIDataFlowOperation implements MPIMessageListener, MPIMessageRelea
   public void setStoreBased(boolean storeBased) {
     isStoreBased = storeBased;
     if (isStoreBased) {
-      //TODO : need to load this from config file, both the type of memory manager and the datapath
+      //TODO : need to load the datapath from config file
       //TODO : need to make the memory manager available globally
       opertionID = (int) System.currentTimeMillis();
-      this.kryoSerializer = new KryoSerializer();
+      this.kryoSerializerPool = new KryoSerializerPool(config);
       Path dataPath = new Path(MPIContext.networkStoragePath(config)
           + " /lmdbdatabase_" + this.executor);
-      this.memoryManager = new LMDBMemoryManager(dataPath);
+      this.memoryManager = MemoryManagerContext.memoryManager(config, dataPath);
       if (!isKeyed) {
         this.operationMemoryManager = memoryManager.addOperation(opertionID,
             MessageTypeUtils.toDataMessageType(type));
@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -34,10 +33,13 @@ import edu.iu.dsc.tws.comms.api.DataFlowOperation;
 import edu.iu.dsc.tws.comms.api.MessageHeader;
 import edu.iu.dsc.tws.comms.api.MessageReceiver;
 import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.comms.api.ReduceFunction;
 import edu.iu.dsc.tws.comms.api.TWSChannel;
 import edu.iu.dsc.tws.comms.core.TaskPlan;
 import edu.iu.dsc.tws.comms.mpi.io.MPIMessageDeSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MPIMessageSerializer;
+import edu.iu.dsc.tws.comms.mpi.io.MPIMultiMessageDeserializer;
+import edu.iu.dsc.tws.comms.mpi.io.MPIMultiMessageSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MessageDeSerializer;
 import edu.iu.dsc.tws.comms.mpi.io.MessageSerializer;
 import edu.iu.dsc.tws.comms.routing.PartitionRouter;
@@ -76,6 +78,18 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
   private Table<Integer, Integer, RoutingParameters> routingParamCache = HashBasedTable.create();
   private Lock lock = new ReentrantLock();
 
+  /**
+   * Packs the small messages to a destination together, null if batching is not enabled
+   */
+  private MPIMessageBatcher batcher;
+
+  /**
+   * Combines the values of the same key before sending, null if no combine function is given
+   */
+  private MPIMessageCombiner combiner;
+
+  private ReduceFunction combineFunction;
+
   /**
    * A place holder for keeping the internal and external destinations
    */
@@ -94,6 +108,18 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
     this.type = type;
   }
 
+  /**
+   * Create a keyed partition that combines the values of a key at the source with the combine
+   * function before sending them
+   */
+  public MPIDataFlowPartition(TWSChannel channel, Set<Integer> sourceTasks, Set<Integer> destTasks,
+                              MessageReceiver receiver, PartitionStratergy partitionStratergy,
+                              MessageType type, MessageType keyType,
+                              ReduceFunction combineFunction) {
+    this(channel, sourceTasks, destTasks, receiver, partitionStratergy, type, keyType);
+    this.combineFunction = combineFunction;
+  }
+
   public MPIDataFlowPartition(TWSChannel channel, Set<Integer> srcs,
                               Set<Integer> dests, MessageReceiver finalRcvr,
                               PartitionStratergy stratergy) {
@@ -108,7 +134,7 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
       destinationIndex.put(s, 0);
     }
 
-    this.finalReceiver = finalRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
   }
 
   public MPIDataFlowPartition(TWSChannel channel, Set<Integer> srcs,
@@ -126,7 +152,7 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
       destinationIndex.put(s, 0);
     }
 
-    this.finalReceiver = finalRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
   }
 
 
@@ -168,21 +194,29 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
       this.finalReceiver.init(cfg, this, receiveExpectedTaskIds());
     }
 
-    Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
+    Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
         new HashMap<>();
     Map<Integer, Queue<Pair<Object, MPIMessage>>> pendingReceiveMessagesPerSource = new HashMap<>();
     Map<Integer, Queue<MPIMessage>> pendingReceiveDeSerializations = new HashMap<>();
     Map<Integer, MessageSerializer> serializerMap = new HashMap<>();
     Map<Integer, MessageDeSerializer> deSerializerMap = new HashMap<>();
 
+    // batches are framed as multi messages, we don't batch keyed messages
+    boolean batch = MPIContext.batchEnabled(cfg) && !isKeyed;
+
     Set<Integer> srcs = TaskPlanUtils.getTasksOfThisExecutor(taskPlan, sources);
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer()));
+      if (batch) {
+        serializerMap.put(s, new MPIMultiMessageSerializer(new KryoSerializer(cfg),
+            taskPlan.getThisExecutor()));
+      } else {
+        serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer(cfg)));
+      }
     }
 
     int maxReceiveBuffers = MPIContext.receiveBufferCount(cfg);
@@ -194,11 +228,16 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
     for (int e : execs) {
       int capacity = maxReceiveBuffers * 2 * receiveExecutorsSize;
       Queue<Pair<Object, MPIMessage>> pendingReceiveMessages =
-          new ArrayBlockingQueue<Pair<Object, MPIMessage>>(
+          new MPSCQueue<Pair<Object, MPIMessage>>(
               capacity);
       pendingReceiveMessagesPerSource.put(e, pendingReceiveMessages);
-      pendingReceiveDeSerializations.put(e, new ArrayBlockingQueue<MPIMessage>(capacity));
-      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer()));
+      pendingReceiveDeSerializations.put(e, new MPSCQueue<MPIMessage>(capacity));
+      if (batch) {
+        deSerializerMap.put(e, new MPIMultiMessageDeserializer(new KryoSerializer(cfg),
+            taskPlan.getThisExecutor()));
+      } else {
+        deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer(cfg)));
+      }
     }
 
     for (int src : srcs) {
@@ -214,6 +253,15 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
         pendingSendMessagesPerSource, pendingReceiveMessagesPerSource,
         pendingReceiveDeSerializations, serializerMap, deSerializerMap, isKeyed);
     delegete.setKeyType(keyType);
+
+    if (batch) {
+      batcher = new MPIMessageBatcher(cfg, delegete);
+    }
+
+    if (isKeyed && combineFunction != null) {
+      combineFunction.init(cfg, this, receiveExpectedTaskIds());
+      combiner = new MPIMessageCombiner(cfg, delegete, combineFunction);
+    }
   }
 
   @Override
@@ -228,17 +276,35 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
 
   @Override
   public boolean send(int source, Object message, int flags) {
+    if (combiner != null) {
+      return combiner.send(source, message, 0, flags, sendRoutingParameters(source, 0));
+    }
+    if (batcher != null) {
+      return batcher.send(source, message, 0, flags, sendRoutingParameters(source, 0));
+    }
     return delegete.sendMessage(source, message, 0, flags, sendRoutingParameters(source, 0));
   }
 
   @Override
   public boolean send(int source, Object message, int flags, int dest) {
+    if (combiner != null) {
+      return combiner.send(source, message, dest, flags, sendRoutingParameters(source, dest));
+    }
+    if (batcher != null) {
+      return batcher.send(source, message, dest, flags, sendRoutingParameters(source, dest));
+    }
     return delegete.sendMessage(source, message, dest, flags, sendRoutingParameters(source, dest));
   }
 
   @Override
   public void progress() {
     try {
+      if (batcher != null) {
+        batcher.progress();
+      }
+      if (combiner != null) {
+        combiner.progress();
+      }
       delegete.progress();
       if (lock.tryLock()) {
         try {
@@ -253,6 +319,28 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
     }
   }
 
+  /**
+   * The number of messages the source can send before it has to wait for the receivers
+   */
+  public int sendCapacity(int src) {
+    return delegete.sendCapacity(src);
+  }
+
+  /**
+   * Whether there are messages in the operation that need to be progressed
+   */
+  public boolean hasPending() {
+    return delegete.hasPending() || (batcher != null && batcher.hasPending())
+        || (combiner != null && combiner.hasPending());
+  }
+
+  /**
+   * The number of messages waiting to be sent by the sources of this executor
+   */
+  public int pendingSendCount() {
+    return delegete.pendingSendCount();
+  }
+
   @Override
   public void close() {
   }
@@ -314,7 +402,16 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
     }
   }
 
-  public boolean receiveSendInternally(int source, int t, int path, int flags, Object message) {
+  public boolean receiveSendInternally(final int source, final int t, final int path,
+                                       int flags, Object message) {
+    if (batcher != null) {
+      return batcher.deliver(source, t, flags, message, new MPIMessageBatcher.Receiver() {
+        @Override
+        public boolean onMessage(Object m, int f) {
+          return finalReceiver.onMessage(source, path, t, f, m);
+        }
+      });
+    }
     // okay this must be for the
     return finalReceiver.onMessage(source, path, t, flags, message);
   }
@@ -337,7 +434,17 @@ public class MPIDataFlowPartition implements DataFlowOperation, MPIMessageReceiv
   }
 
   public boolean receiveMessage(MPIMessage currentMessage, Object object) {
-    MessageHeader header = currentMessage.getHeader();
+    final MessageHeader header = currentMessage.getHeader();
+    if (batcher != null) {
+      return batcher.deliver(header.getSourceId(), header.getDestinationIdentifier(),
+          header.getFlags(), object, new MPIMessageBatcher.Receiver() {
+            @Override
+            public boolean onMessage(Object m, int f) {
+              return finalReceiver.onMessage(header.getSourceId(), MPIContext.DEFAULT_PATH,
+                  header.getDestinationIdentifier(), f, m);
+            }
+          });
+    }
     return finalReceiver.onMessage(header.getSourceId(), MPIContext.DEFAULT_PATH,
         header.getDestinationIdentifier(), header.getFlags(), object);
   }
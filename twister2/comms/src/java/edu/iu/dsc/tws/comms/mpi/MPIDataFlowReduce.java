@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -87,8 +86,8 @@ public class MPIDataFlowReduce implements DataFlowOperation, MPIMessageReceiver
     this.index = indx;
     this.sources = sources;
     this.destination = destination;
-    this.finalReceiver = finalRcvr;
-    this.partialReceiver = partialRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
+    this.partialReceiver = TargetSynchronizedReceiver.wrap(partialRcvr);
     this.pathToUse = p;
     this.delegete = new MPIDataFlowOperation(channel);
     this.finalReceiverProgress = new AtomicBoolean(false);
@@ -268,7 +267,7 @@ public class MPIDataFlowReduce implements DataFlowOperation, MPIMessageReceiver
     LOG.log(Level.FINE, String.format("%d reduce sources %s dest %d send tasks: %s",
         executor, sources, destination, router.sendQueueIds()));
 
-    Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
+    Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
         new HashMap<>();
     Map<Integer, Queue<Pair<Object, MPIMessage>>> pendingReceiveMessagesPerSource = new HashMap<>();
     Map<Integer, Queue<MPIMessage>> pendingReceiveDeSerializations = new HashMap<>();
@@ -278,11 +277,11 @@ public class MPIDataFlowReduce implements DataFlowOperation, MPIMessageReceiver
     Set<Integer> srcs = router.sendQueueIds();
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer()));
+      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer(cfg)));
     }
 
     int maxReceiveBuffers = MPIContext.receiveBufferCount(cfg);
@@ -294,11 +293,11 @@ public class MPIDataFlowReduce implements DataFlowOperation, MPIMessageReceiver
     for (int e : execs) {
       int capacity = maxReceiveBuffers * 2 * receiveExecutorsSize;
       Queue<Pair<Object, MPIMessage>> pendingReceiveMessages =
-          new ArrayBlockingQueue<Pair<Object, MPIMessage>>(
+          new MPSCQueue<Pair<Object, MPIMessage>>(
               capacity);
       pendingReceiveMessagesPerSource.put(e, pendingReceiveMessages);
-      pendingReceiveDeSerializations.put(e, new ArrayBlockingQueue<MPIMessage>(capacity));
-      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer()));
+      pendingReceiveDeSerializations.put(e, new MPSCQueue<MPIMessage>(capacity));
+      deSerializerMap.put(e, new MPIMessageDeSerializer(new KryoSerializer(cfg)));
     }
 
     Set<Integer> sourcesOfThisExec = TaskPlanUtils.getTasksOfThisExecutor(taskPlan, sources);
@@ -16,7 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,7 +56,7 @@ public class MPIDirectDataFlowCommunication implements DataFlowOperation, MPIMes
                                         MessageReceiver finalRcvr) {
     this.sources = srcs;
     this.destination = dest;
-    this.finalReceiver = finalRcvr;
+    this.finalReceiver = TargetSynchronizedReceiver.wrap(finalRcvr);
     this.delegete = new MPIDataFlowOperation(channel);
   }
 
@@ -113,7 +112,7 @@ public class MPIDirectDataFlowCommunication implements DataFlowOperation, MPIMes
       this.finalReceiver.init(cfg, this, receiveExpectedTaskIds());
     }
 
-    Map<Integer, ArrayBlockingQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
+    Map<Integer, MPSCQueue<Pair<Object, MPISendMessage>>> pendingSendMessagesPerSource =
         new HashMap<>();
     Map<Integer, Queue<Pair<Object, MPIMessage>>> pendingReceiveMessagesPerSource = new HashMap<>();
     Map<Integer, Queue<MPIMessage>> pendingReceiveDeSerializations = new HashMap<>();
@@ -123,16 +122,16 @@ public class MPIDirectDataFlowCommunication implements DataFlowOperation, MPIMes
     Set<Integer> srcs = TaskPlanUtils.getTasksOfThisExecutor(taskPlan, sources);
     for (int s : srcs) {
       // later look at how not to allocate pairs for this each time
-      ArrayBlockingQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
-          new ArrayBlockingQueue<Pair<Object, MPISendMessage>>(
+      MPSCQueue<Pair<Object, MPISendMessage>> pendingSendMessages =
+          new MPSCQueue<Pair<Object, MPISendMessage>>(
               MPIContext.sendPendingMax(cfg));
       pendingSendMessagesPerSource.put(s, pendingSendMessages);
-      pendingReceiveDeSerializations.put(s, new ArrayBlockingQueue<MPIMessage>(
+      pendingReceiveDeSerializations.put(s, new MPSCQueue<MPIMessage>(
           MPIContext.sendPendingMax(cfg)));
-      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer()));
+      serializerMap.put(s, new MPIMessageSerializer(new KryoSerializer(cfg)));
     }
 
-    MessageDeSerializer messageDeSerializer = new MPIMessageDeSerializer(new KryoSerializer());
+    MessageDeSerializer messageDeSerializer = new MPIMessageDeSerializer(new KryoSerializer(cfg));
     deSerializerMap.put(destination, messageDeSerializer);
     delegete.init(cfg, t, taskPlan, edge, router.receivingExecutors(),
         isLastReceiver(), this, pendingSendMessagesPerSource,
@@ -13,6 +13,7 @@ package edu.iu.dsc.tws.comms.mpi;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import edu.iu.dsc.tws.comms.api.MessageHeader;
@@ -27,9 +28,10 @@ public class MPIMessage {
 
   /**
    * Keeps the number of references to this message
-   * The resources associated with the message is released when refcount becomes 0
+   * The resources associated with the message is released when refcount becomes 0.
+   * The message can be released by the channel while the owner of the source is still using it
    */
-  private int refCount;
+  private final AtomicInteger refCount = new AtomicInteger(0);
 
   /**
    * Type of the message, weather request or send
@@ -86,7 +88,6 @@ public class MPIMessage {
   public MPIMessage(int originatingId, MessageType messageType,
                     MPIMessageDirection messageDirection,
                     MPIMessageReleaseCallback releaseListener) {
-    this.refCount = 0;
     this.messageDirection = messageDirection;
     this.releaseListener = releaseListener;
     this.originatingId = originatingId;
@@ -100,13 +101,11 @@ public class MPIMessage {
   }
 
   public int incrementRefCount() {
-    refCount++;
-    return refCount;
+    return refCount.incrementAndGet();
   }
 
   public int incrementRefCount(int count) {
-    refCount += count;
-    return refCount;
+    return refCount.addAndGet(count);
   }
 
   public MPIMessageDirection getMessageDirection() {
@@ -114,14 +113,13 @@ public class MPIMessage {
   }
 
   public boolean doneProcessing() {
-    return refCount == 0;
+    return refCount.get() == 0;
   }
   /**
    * Release the allocated resources to this buffer.
    */
   public void release() {
-    refCount--;
-    if (refCount == 0) {
+    if (refCount.decrementAndGet() == 0) {
       releaseListener.release(this);
     }
   }
@@ -0,0 +1,265 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.MessageFlags;
+
+/**
+ * Packs the small messages of a source going to the same destination in to a single message.
+ *
+ * A batch is sent as a list, which is framed by the MPIMultiMessageSerializer, and is marked
+ * with {@link MessageFlags#FLAGS_MULTI_MSG} so that a list sent by the user is not mistaken for
+ * a batch. Messages are batched by their destination and path, so every message of a batch has
+ * the path the batch is sent with. A batch is flushed when it reaches the configured number of
+ * messages or bytes, when a message with flags is added, or when the first message in it has
+ * waited for the linger time. Because a message with flags always ends a batch, the flags of a
+ * batch belong to its last message.
+ *
+ * On the receiving side {@link #deliver(int, int, int, Object, Receiver)} hands the messages of
+ * a batch to the receiver one by one, remembering how far it got if the receiver does not
+ * accept a message.
+ */
+public class MPIMessageBatcher {
+  /**
+   * Accepts the messages of a received batch
+   */
+  public interface Receiver {
+    boolean onMessage(Object message, int flags);
+  }
+
+  private final MPIDataFlowOperation delegate;
+
+  private final int maxCount;
+
+  private final long maxBytes;
+
+  private final long lingerNanos;
+
+  /**
+   * The batches by source and the destination and path of the batch
+   */
+  private final ConcurrentHashMap<Integer, ConcurrentHashMap<Long, Batch>> batches =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Partially delivered batches, by source and target
+   */
+  private final Map<Long, Cursor> cursors = new ConcurrentHashMap<>();
+
+  private static final class Batch {
+    private final int source;
+    private final int path;
+    private final RoutingParameters routing;
+    private List<Object> messages = new ArrayList<>();
+    private long bytes;
+    private int flags;
+    private long firstNanos;
+
+    private Batch(int source, int path, RoutingParameters routing) {
+      this.source = source;
+      this.path = path;
+      this.routing = routing;
+    }
+  }
+
+  private static final class Cursor {
+    private final Object batch;
+    private final int index;
+
+    private Cursor(Object batch, int index) {
+      this.batch = batch;
+      this.index = index;
+    }
+  }
+
+  public MPIMessageBatcher(Config cfg, MPIDataFlowOperation op) {
+    this.delegate = op;
+    this.maxCount = MPIContext.batchMaxCount(cfg);
+    this.maxBytes = MPIContext.batchMaxBytes(cfg);
+    this.lingerNanos = MPIContext.batchLingerNanos(cfg);
+  }
+
+  /**
+   * Add a message to the batch of its destination
+   *
+   * @return true if the message is accepted
+   */
+  public boolean send(int source, Object message, int path, int flags,
+                      RoutingParameters routing) {
+    Batch batch = getBatch(source, path, routing);
+    synchronized (batch) {
+      // the batch is waiting to be sent, either full or ended by a message with flags. We
+      // don't take more messages until it is sent, so a batch never grows past the limits
+      if (isFull(batch) && !flush(batch)) {
+        return false;
+      }
+
+      if (batch.messages.isEmpty()) {
+        batch.firstNanos = System.nanoTime();
+      }
+      batch.messages.add(message);
+      batch.bytes += estimateSize(message);
+      batch.flags = flags;
+
+      if (isFull(batch)) {
+        // if the operation cannot take it now, we will try again later
+        flush(batch);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Flush the batches that have waited for the linger time
+   */
+  public void progress() {
+    long now = System.nanoTime();
+    for (ConcurrentHashMap<Long, Batch> sourceBatches : batches.values()) {
+      for (Batch batch : sourceBatches.values()) {
+        synchronized (batch) {
+          if (!batch.messages.isEmpty()
+              && (isFull(batch) || now - batch.firstNanos >= lingerNanos)) {
+            flush(batch);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Whether messages are waiting in a batch to be sent or in a partially delivered batch
+   */
+  public boolean hasPending() {
+    if (!cursors.isEmpty()) {
+      return true;
+    }
+    for (ConcurrentHashMap<Long, Batch> sourceBatches : batches.values()) {
+      for (Batch batch : sourceBatches.values()) {
+        synchronized (batch) {
+          if (!batch.messages.isEmpty()) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Hand the messages of a received batch to the receiver. Messages from a source to a target
+   * are delivered in order, so if the receiver does not accept a message we will be called
+   * again with the same batch and continue from that message.
+   *
+   * @return true if all the messages are accepted
+   */
+  public boolean deliver(int source, int target, int flags, Object object, Receiver receiver) {
+    if ((flags & MessageFlags.FLAGS_MULTI_MSG) != MessageFlags.FLAGS_MULTI_MSG) {
+      return receiver.onMessage(object, flags);
+    }
+
+    int batchFlags = flags & ~MessageFlags.FLAGS_MULTI_MSG;
+    List<?> messages = (List<?>) object;
+    long key = ((long) source << 32) | (target & 0xFFFFFFFFL);
+    Cursor cursor = cursors.get(key);
+    int start = 0;
+    if (cursor != null && cursor.batch == object) {
+      start = cursor.index;
+    }
+
+    for (int i = start; i < messages.size(); i++) {
+      // only the last message of a batch can have flags
+      int f = i == messages.size() - 1 ? batchFlags : 0;
+      if (!receiver.onMessage(messages.get(i), f)) {
+        cursors.put(key, new Cursor(object, i));
+        return false;
+      }
+    }
+    if (cursor != null) {
+      cursors.remove(key);
+    }
+    return true;
+  }
+
+  private Batch getBatch(int source, int path, RoutingParameters routing) {
+    ConcurrentHashMap<Long, Batch> sourceBatches = batches.get(source);
+    if (sourceBatches == null) {
+      sourceBatches = new ConcurrentHashMap<>();
+      ConcurrentHashMap<Long, Batch> existing = batches.putIfAbsent(source, sourceBatches);
+      if (existing != null) {
+        sourceBatches = existing;
+      }
+    }
+
+    // messages with different paths never share a batch, the path is sent once for the batch
+    long key = ((long) routing.getDestinationId() << 32) | (path & 0xFFFFFFFFL);
+    Batch batch = sourceBatches.get(key);
+    if (batch == null) {
+      batch = new Batch(source, path, routing);
+      Batch existing = sourceBatches.putIfAbsent(key, batch);
+      if (existing != null) {
+        batch = existing;
+      }
+    }
+    return batch;
+  }
+
+  private boolean flush(Batch batch) {
+    if (batch.messages.isEmpty()) {
+      return true;
+    }
+    if (delegate.sendMessage(batch.source, batch.messages, batch.path,
+        batch.flags | MessageFlags.FLAGS_MULTI_MSG, batch.routing)) {
+      // the operation owns the list now
+      batch.messages = new ArrayList<>();
+      batch.bytes = 0;
+      batch.flags = 0;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * A batch is full when it has reached the message or byte limit, or is ended by a message
+   * with flags
+   */
+  private boolean isFull(Batch batch) {
+    return batch.flags != 0 || batch.messages.size() >= maxCount || batch.bytes >= maxBytes;
+  }
+
+  /**
+   * Estimate the serialized size of a message, messages of unknown size are only counted
+   */
+  private static long estimateSize(Object message) {
+    if (message instanceof byte[]) {
+      return ((byte[]) message).length;
+    } else if (message instanceof int[]) {
+      return ((int[]) message).length * 4L;
+    } else if (message instanceof long[]) {
+      return ((long[]) message).length * 8L;
+    } else if (message instanceof double[]) {
+      return ((double[]) message).length * 8L;
+    } else if (message instanceof short[]) {
+      return ((short[]) message).length * 2L;
+    } else if (message instanceof char[]) {
+      return ((char[]) message).length * 2L;
+    } else if (message instanceof String) {
+      return ((String) message).length() * 2L;
+    }
+    return 0;
+  }
+}
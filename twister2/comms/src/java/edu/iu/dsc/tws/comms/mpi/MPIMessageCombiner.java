@@ -0,0 +1,253 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.comms.api.ReduceFunction;
+import edu.iu.dsc.tws.comms.mpi.io.KeyedContent;
+
+/**
+ * Combines the keyed messages of a source before they are sent, folding the values of the same
+ * key going to the same destination with a reduce function.
+ *
+ * Each source has an open addressing hash table of a bounded number of keys. The table is sent
+ * when it is full, when the first key in it has waited for the linger time, or when a message
+ * with flags marks the end of the stream. The message with flags is not combined and is sent
+ * after the table, so it stays the last message. Messages that are not keyed are not combined
+ * either. While a table is being sent no new messages are accepted from that source, and the
+ * rest of the table is sent in {@link #progress()}.
+ */
+public class MPIMessageCombiner {
+  private final MPIDataFlowOperation delegate;
+
+  private final ReduceFunction function;
+
+  private final int maxKeys;
+
+  private final int capacity;
+
+  private final long lingerNanos;
+
+  private final ConcurrentHashMap<Integer, Table> tables = new ConcurrentHashMap<>();
+
+  private final class Table {
+    private final int source;
+    private final Object[] keys = new Object[capacity];
+    private final Object[] values = new Object[capacity];
+    private final int[] paths = new int[capacity];
+    private final RoutingParameters[] routes = new RoutingParameters[capacity];
+    private MessageType keyType;
+    private MessageType contentType;
+    private int count;
+    // when the first key of the table was added
+    private long firstNanos;
+    // true while the table is being sent, the next slot to send is flushIndex
+    private boolean flushing;
+    private int flushIndex;
+
+    private Table(int source) {
+      this.source = source;
+    }
+  }
+
+  public MPIMessageCombiner(Config cfg, MPIDataFlowOperation op, ReduceFunction reduceFunction) {
+    this.delegate = op;
+    this.function = reduceFunction;
+    this.maxKeys = MPIContext.combinerMaxKeys(cfg);
+    // keep the load factor at most half
+    this.capacity = Integer.highestOneBit(Math.max(maxKeys, 1)) << 2;
+    this.lingerNanos = MPIContext.combinerLingerNanos(cfg);
+  }
+
+  /**
+   * Combine a keyed message, other messages are sent as they are
+   *
+   * @return true if the message is accepted
+   */
+  public boolean send(int source, Object message, int path, int flags,
+                      RoutingParameters routing) {
+    Table table = getTable(source);
+    synchronized (table) {
+      if (table.flushing && !flush(table)) {
+        return false;
+      }
+
+      if (flags != 0) {
+        // the end of the stream, send what we have and then this message
+        table.flushing = true;
+        return flush(table) && delegate.sendMessage(source, message, path, flags, routing);
+      }
+
+      if (!(message instanceof KeyedContent)) {
+        return delegate.sendMessage(source, message, path, flags, routing);
+      }
+      return combine(table, (KeyedContent) message, path, routing);
+    }
+  }
+
+  private boolean combine(Table table, KeyedContent message, int path,
+                          RoutingParameters routing) {
+    Object key = message.getSource();
+    int slot = find(table, key, path);
+    if (table.keys[slot] != null) {
+      table.values[slot] = function.reduce(table.values[slot], message.getObject());
+      return true;
+    }
+
+    if (table.count >= maxKeys) {
+      table.flushing = true;
+      if (!flush(table)) {
+        return false;
+      }
+      slot = find(table, key, path);
+    }
+    table.keys[slot] = key;
+    table.values[slot] = message.getObject();
+    table.paths[slot] = path;
+    table.routes[slot] = routing;
+    if (table.count == 0) {
+      table.firstNanos = System.nanoTime();
+    }
+    table.keyType = message.getKeyType();
+    table.contentType = message.getContentType();
+    table.count++;
+    return true;
+  }
+
+  /**
+   * Continue sending the tables that could not be sent completely and send the tables that have
+   * waited for the linger time
+   */
+  public void progress() {
+    long now = System.nanoTime();
+    for (Table table : tables.values()) {
+      synchronized (table) {
+        if (!table.flushing && table.count > 0 && now - table.firstNanos >= lingerNanos) {
+          table.flushing = true;
+        }
+        if (table.flushing) {
+          flush(table);
+        }
+      }
+    }
+  }
+
+  /**
+   * Whether there are combined messages waiting to be sent
+   */
+  public boolean hasPending() {
+    for (Table table : tables.values()) {
+      synchronized (table) {
+        if (table.flushing || table.count > 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private Table getTable(int source) {
+    Table table = tables.get(source);
+    if (table == null) {
+      table = new Table(source);
+      Table existing = tables.putIfAbsent(source, table);
+      if (existing != null) {
+        table = existing;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Send the entries of the table, the slots are cleared as they are sent
+   * @return true if the table is empty
+   */
+  private boolean flush(Table table) {
+    for (int i = table.flushIndex; i < capacity; i++) {
+      if (table.keys[i] == null) {
+        continue;
+      }
+      KeyedContent content = new KeyedContent(table.keys[i], table.values[i],
+          table.keyType, table.contentType);
+      if (!delegate.sendMessage(table.source, content, table.paths[i], 0, table.routes[i])) {
+        table.flushIndex = i;
+        return false;
+      }
+      table.keys[i] = null;
+      table.values[i] = null;
+      table.routes[i] = null;
+    }
+    table.count = 0;
+    table.flushIndex = 0;
+    table.flushing = false;
+    return true;
+  }
+
+  /**
+   * Find the slot of the key going to the path, or the empty slot to put it
+   */
+  private int find(Table table, Object key, int path) {
+    int mask = capacity - 1;
+    int slot = hash(key, path) & mask;
+    while (table.keys[slot] != null
+        && !(table.paths[slot] == path && keyEquals(table.keys[slot], key))) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int hash(Object key, int path) {
+    int h;
+    if (key instanceof byte[]) {
+      h = Arrays.hashCode((byte[]) key);
+    } else if (key instanceof int[]) {
+      h = Arrays.hashCode((int[]) key);
+    } else if (key instanceof long[]) {
+      h = Arrays.hashCode((long[]) key);
+    } else if (key instanceof short[]) {
+      h = Arrays.hashCode((short[]) key);
+    } else if (key instanceof char[]) {
+      h = Arrays.hashCode((char[]) key);
+    } else if (key instanceof double[]) {
+      h = Arrays.hashCode((double[]) key);
+    } else if (key instanceof Object[]) {
+      h = Arrays.deepHashCode((Object[]) key);
+    } else {
+      h = key.hashCode();
+    }
+    h = h * 31 + path;
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean keyEquals(Object a, Object b) {
+    if (a instanceof byte[] && b instanceof byte[]) {
+      return Arrays.equals((byte[]) a, (byte[]) b);
+    } else if (a instanceof int[] && b instanceof int[]) {
+      return Arrays.equals((int[]) a, (int[]) b);
+    } else if (a instanceof long[] && b instanceof long[]) {
+      return Arrays.equals((long[]) a, (long[]) b);
+    } else if (a instanceof short[] && b instanceof short[]) {
+      return Arrays.equals((short[]) a, (short[]) b);
+    } else if (a instanceof char[] && b instanceof char[]) {
+      return Arrays.equals((char[]) a, (char[]) b);
+    } else if (a instanceof double[] && b instanceof double[]) {
+      return Arrays.equals((double[]) a, (double[]) b);
+    } else if (a instanceof Object[] && b instanceof Object[]) {
+      return Arrays.deepEquals((Object[]) a, (Object[]) b);
+    }
+    return a.equals(b);
+  }
+}
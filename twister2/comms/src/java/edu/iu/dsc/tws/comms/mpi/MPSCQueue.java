@@ -0,0 +1,94 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded, lock-free queue used for the pending messages of a source.
+ *
+ * Any number of threads can offer to the queue, while the messages are taken out by the
+ * thread that currently owns the source through the {@link ProgressionTracker}. Unlike an
+ * ArrayBlockingQueue no lock is taken on either side.
+ *
+ * @param <T> type of the elements
+ */
+public class MPSCQueue<T> extends AbstractQueue<T> {
+  private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+
+  // number of slots taken, including the elements that are being added
+  private final AtomicInteger reserved = new AtomicInteger(0);
+
+  // number of elements visible to the consumer
+  private final AtomicInteger count = new AtomicInteger(0);
+
+  private final int capacity;
+
+  public MPSCQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  @Override
+  public boolean offer(T t) {
+    if (t == null) {
+      throw new NullPointerException("Null elements are not allowed");
+    }
+    // reserve a slot before adding the element
+    int r = reserved.get();
+    while (r < capacity) {
+      if (reserved.compareAndSet(r, r + 1)) {
+        queue.offer(t);
+        // the element is visible only after this point
+        count.incrementAndGet();
+        return true;
+      }
+      r = reserved.get();
+    }
+    return false;
+  }
+
+  @Override
+  public T poll() {
+    T t = queue.poll();
+    if (t != null) {
+      count.decrementAndGet();
+      reserved.decrementAndGet();
+    }
+    return t;
+  }
+
+  @Override
+  public T peek() {
+    return queue.peek();
+  }
+
+  @Override
+  public int size() {
+    return count.get();
+  }
+
+  public int remainingCapacity() {
+    return capacity - reserved.get();
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return queue.iterator();
+  }
+}
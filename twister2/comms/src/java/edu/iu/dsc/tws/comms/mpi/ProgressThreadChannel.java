@@ -0,0 +1,285 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.TWSChannel;
+
+import mpi.MPI;
+import mpi.MPIException;
+
+/**
+ * A channel that progresses an underlying channel from a dedicated thread.
+ *
+ * The progress thread is the only thread calling progress of the underlying channel, so it owns
+ * the selector or the MPI progress. It spins for a configurable number of idle iterations before
+ * parking, and wakes up when a task posts a send or a receive. The send and receive completions
+ * are handed to the task threads through lock-free queues and the callbacks are called when a
+ * task thread calls {@link #progress()}, so the operations see the callbacks on the same
+ * threads as before.
+ *
+ * With MPI the progress thread calls MPI at the same time as the other threads of the worker, so
+ * MPI has to be initialized with MPI.THREAD_MULTIPLE. Otherwise the MPI channel is progressed in
+ * line as before. The progress threads have to be stopped with {@link #stopAll()} before MPI is
+ * finalized.
+ */
+public class ProgressThreadChannel implements TWSChannel {
+  private static final Logger LOG = Logger.getLogger(ProgressThreadChannel.class.getName());
+
+  /**
+   * The channels with a running progress thread
+   */
+  private static final Set<ProgressThreadChannel> RUNNING = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The channel we progress
+   */
+  private final TWSChannel channel;
+
+  /**
+   * Completed sends and receives waiting to be handed to the task threads
+   */
+  private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Number of idle iterations before we park the progress thread
+   */
+  private final int spinCount;
+
+  /**
+   * Maximum time to park the progress thread
+   */
+  private final long parkNanos;
+
+  private final Thread progressThread;
+
+  private volatile boolean running = true;
+
+  // true when a task has posted work after the last progress iteration
+  private volatile boolean signalled = false;
+
+  private volatile boolean parked = false;
+
+  // set if the underlying channel failed while progressing
+  private volatile Throwable error;
+
+  // completions posted by the progress thread, only accessed by that thread
+  private long completionsPosted = 0;
+
+  private static final class Completion {
+    private final int id;
+    private final int stream;
+    private final MPIMessageListener callback;
+    private final MPIBuffer buffer;
+    private final MPIMessage message;
+
+    private Completion(int id, int stream, MPIMessageListener callback,
+                       MPIBuffer buffer, MPIMessage message) {
+      this.id = id;
+      this.stream = stream;
+      this.callback = callback;
+      this.buffer = buffer;
+      this.message = message;
+    }
+  }
+
+  /**
+   * Listens to the underlying channel from the progress thread and queues the completions
+   */
+  private final class CompletionListener implements MPIMessageListener {
+    private final MPIMessageListener callback;
+
+    private CompletionListener(MPIMessageListener callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void onReceiveComplete(int id, int stream, MPIBuffer message) {
+      completions.offer(new Completion(id, stream, callback, message, null));
+      completionsPosted++;
+    }
+
+    @Override
+    public void onSendComplete(int id, int stream, MPIMessage message) {
+      completions.offer(new Completion(id, stream, callback, null, message));
+      completionsPosted++;
+    }
+  }
+
+  public ProgressThreadChannel(Config config, TWSChannel channel) {
+    this.channel = channel;
+    this.spinCount = MPIContext.progressThreadSpinCount(config);
+    this.parkNanos = MPIContext.progressThreadParkNanos(config);
+
+    this.progressThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        progressLoop();
+      }
+    }, "twister2-network-progress");
+    this.progressThread.setDaemon(true);
+    RUNNING.add(this);
+    this.progressThread.start();
+  }
+
+  /**
+   * Wrap the channel with a progress thread if it is enabled in the configuration
+   * @param config configuration
+   * @param channel the channel
+   * @return the channel to be used by the operations
+   */
+  public static TWSChannel wrap(Config config, TWSChannel channel) {
+    if (MPIContext.progressThreadEnabled(config)) {
+      return new ProgressThreadChannel(config, channel);
+    }
+    return channel;
+  }
+
+  /**
+   * Wrap the MPI channel with a progress thread if it is enabled in the configuration and MPI
+   * supports calls from multiple threads at the same time
+   * @param config configuration
+   * @param channel the channel
+   * @return the channel to be used by the operations
+   */
+  public static TWSChannel wrap(Config config, TWSMPIChannel channel) {
+    if (!MPIContext.progressThreadEnabled(config)) {
+      return channel;
+    }
+    int provided;
+    try {
+      provided = MPI.queryThread();
+    } catch (MPIException e) {
+      throw new RuntimeException("Failed to query the MPI thread level", e);
+    }
+    if (provided < MPI.THREAD_MULTIPLE) {
+      LOG.warning(String.format("MPI thread level %d does not support a progress thread, "
+          + "progressing the network in line", provided));
+      return channel;
+    }
+    return new ProgressThreadChannel(config, channel);
+  }
+
+  /**
+   * Stop the progress threads of all the channels, this should be called before MPI is finalized
+   */
+  public static void stopAll() {
+    for (ProgressThreadChannel c : RUNNING) {
+      c.stop();
+    }
+  }
+
+  @Override
+  public boolean sendMessage(int id, MPIMessage message, MPIMessageListener callback) {
+    boolean offer = channel.sendMessage(id, message, new CompletionListener(callback));
+    if (offer) {
+      signal();
+    }
+    return offer;
+  }
+
+  @Override
+  public boolean receiveMessage(int rank, int stream, MPIMessageListener callback,
+                                Queue<MPIBuffer> receiveBuffers) {
+    boolean added = channel.receiveMessage(rank, stream, new CompletionListener(callback),
+        receiveBuffers);
+    if (added) {
+      signal();
+    }
+    return added;
+  }
+
+  /**
+   * Hand the completed sends and receives to the calling thread
+   */
+  @Override
+  public void progress() {
+    if (error != null) {
+      throw new RuntimeException("Network progress thread failed", error);
+    }
+
+    Completion c = completions.poll();
+    if (c == null) {
+      return;
+    }
+    while (c != null) {
+      if (c.message != null) {
+        c.callback.onSendComplete(c.id, c.stream, c.message);
+      } else {
+        c.callback.onReceiveComplete(c.id, c.stream, c.buffer);
+      }
+      c = completions.poll();
+    }
+    // receive buffers may have been released, let the progress thread post them
+    signal();
+  }
+
+  @Override
+  public MPIBufferArena getBufferArena() {
+    return channel.getBufferArena();
+  }
+
+  /**
+   * Stop the progress thread, the pending completions are not handed over after this
+   */
+  public void stop() {
+    running = false;
+    LockSupport.unpark(progressThread);
+    try {
+      progressThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    RUNNING.remove(this);
+  }
+
+  private void signal() {
+    signalled = true;
+    if (parked) {
+      LockSupport.unpark(progressThread);
+    }
+  }
+
+  private void progressLoop() {
+    int idle = 0;
+    try {
+      while (running) {
+        long before = completionsPosted;
+        channel.progress();
+
+        if (completionsPosted != before || signalled) {
+          signalled = false;
+          idle = 0;
+        } else if (++idle >= spinCount) {
+          parked = true;
+          // a task may have signalled before we set the flag
+          if (!signalled) {
+            LockSupport.parkNanos(this, parkNanos);
+          }
+          parked = false;
+          idle = 0;
+        }
+      }
+    } catch (Throwable t) {
+      LOG.log(Level.SEVERE, "Network progress thread failed", t);
+      error = t;
+    }
+  }
+}
@@ -11,12 +11,33 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.comms.mpi;
 
-import java.util.Queue;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+/**
+ * Hands out the items to be progressed, so that an item is progressed by only one thread at a
+ * time. Ownership of an item is claimed atomically by {@link #next()} and given up by
+ * {@link #finish(int)}, allowing multiple threads to progress different items concurrently
+ * without taking a lock.
+ */
 public class ProgressionTracker {
-  private Queue<Integer> progressItems;
+  private static final int FREE = 0;
+  private static final int OWNED = 1;
+
+  // the items to progress
+  private int[] items;
+
+  // index of each item in the items array
+  private Map<Integer, Integer> itemIndexes;
+
+  // ownership of each item
+  private AtomicIntegerArray owners;
+
+  // where to start looking for the next item, so that items are progressed in a round robin
+  private AtomicInteger cursor = new AtomicInteger(0);
 
   private boolean canProgress;
 
@@ -24,32 +45,43 @@ public class ProgressionTracker {
     if (items.size() == 0) {
       canProgress = false;
     } else {
-
       canProgress = true;
-      this.progressItems = new ArrayBlockingQueue<>(items.size());
+      this.items = new int[items.size()];
+      this.itemIndexes = new HashMap<>();
+      this.owners = new AtomicIntegerArray(items.size());
+      int index = 0;
       for (int i : items) {
-        progressItems.offer(i);
+        this.items[index] = i;
+        this.itemIndexes.put(i, index);
+        index++;
       }
     }
   }
 
+  /**
+   * Claim the next free item
+   * @return the item or Integer.MIN_VALUE if all the items are being progressed
+   */
   public int next() {
-    if (progressItems.size() > 0) {
-      Integer next = progressItems.poll();
-      if (next == null) {
-        return Integer.MIN_VALUE;
-      } else {
-        return next;
+    int size = items.length;
+    int start = (cursor.getAndIncrement() & Integer.MAX_VALUE) % size;
+    for (int i = 0; i < size; i++) {
+      int index = (start + i) % size;
+      if (owners.compareAndSet(index, FREE, OWNED)) {
+        return items[index];
       }
-    } else {
-      return Integer.MIN_VALUE;
     }
+    return Integer.MIN_VALUE;
   }
 
+  /**
+   * Give up the ownership of an item claimed through next
+   * @param item the item
+   */
   public void finish(int item) {
-    boolean offer = progressItems.offer(item);
-    if (!offer) {
-      throw new RuntimeException("We should always accept");
+    Integer index = itemIndexes.get(item);
+    if (index == null || !owners.compareAndSet(index, OWNED, FREE)) {
+      throw new RuntimeException("Finishing an item that is not being progressed: " + item);
     }
   }
 
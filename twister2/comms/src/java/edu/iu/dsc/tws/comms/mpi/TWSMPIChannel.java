@@ -12,10 +12,13 @@
 package edu.iu.dsc.tws.comms.mpi;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -54,6 +57,7 @@ public class TWSMPIChannel implements TWSChannel {
   private class MPIRequest {
     Request request;
     MPIBuffer buffer;
+    boolean complete;
 
     MPIRequest(Request request, MPIBuffer buffer) {
       this.request = request;
@@ -117,6 +121,31 @@ public class TWSMPIChannel implements TWSChannel {
    */
   private List<MPISendRequests> waitForCompletionSends;
 
+  /**
+   * The buffers shared by the operations using this channel
+   */
+  private MPIBufferArena bufferArena;
+
+  /**
+   * The outstanding send requests tested together in a progress call
+   */
+  private Request[] testRequests = new Request[0];
+
+  /**
+   * The send request corresponding to each of the tested requests
+   */
+  private MPIRequest[] testOwners = new MPIRequest[0];
+
+  /**
+   * Ranks with a message that is not yet fully sent, later messages to these ranks wait
+   */
+  private Set<Integer> incompleteRanks = new HashSet<>();
+
+  /**
+   * Maximum number of receives posted to a rank at a time, the rest of the buffers are leased
+   * only when these complete
+   */
+  private int maxOutstandingReceives;
 
   public TWSMPIChannel(Config config, Intracomm comm, int exec) {
     this.comm = comm;
@@ -125,6 +154,8 @@ public class TWSMPIChannel implements TWSChannel {
     this.registeredReceives = Collections.synchronizedList(new ArrayList<>(1024));
     this.waitForCompletionSends = Collections.synchronizedList(new ArrayList<>(1024));
     this.executor = exec;
+    this.bufferArena = new MPIBufferArena(config);
+    this.maxOutstandingReceives = Math.max(1, MPIContext.receiveBufferOutstanding(config));
   }
 
   /**
@@ -177,13 +208,15 @@ public class TWSMPIChannel implements TWSChannel {
   }
 
   private void postReceive(MPIReceiveRequests requests) {
-    MPIBuffer byteBuffer = requests.availableBuffers.poll();
-    while (byteBuffer != null) {
+    while (requests.pendingRequests.size() < maxOutstandingReceives) {
+      MPIBuffer byteBuffer = requests.availableBuffers.poll();
+      if (byteBuffer == null) {
+        break;
+      }
       // post the receive
       pendingReceiveCount++;
       Request request = postReceive(requests.rank, requests.edge, byteBuffer);
       requests.pendingRequests.add(new MPIRequest(request, byteBuffer));
-      byteBuffer = requests.availableBuffers.poll();
     }
   }
 
@@ -203,6 +236,79 @@ public class TWSMPIChannel implements TWSChannel {
     }
   }
 
+  @Override
+  public MPIBufferArena getBufferArena() {
+    return bufferArena;
+  }
+
+  /**
+   * Test all the outstanding sends at once, so that a send to a slow peer does not hold back the
+   * completion of sends to other peers. The completions of a single peer are reported in the
+   * order the messages were posted.
+   */
+  private void testSends() {
+    int count = 0;
+    for (int i = 0; i < waitForCompletionSends.size(); i++) {
+      count += waitForCompletionSends.get(i).pendingSends.size();
+    }
+
+    if (count > 0) {
+      // testSome takes the whole array, so it needs to be of the exact size
+      if (testRequests.length != count) {
+        testRequests = new Request[count];
+        testOwners = new MPIRequest[count];
+      }
+      int index = 0;
+      for (int i = 0; i < waitForCompletionSends.size(); i++) {
+        List<MPIRequest> pending = waitForCompletionSends.get(i).pendingSends;
+        for (int j = 0; j < pending.size(); j++) {
+          MPIRequest r = pending.get(j);
+          testRequests[index] = r.request;
+          testOwners[index] = r;
+          index++;
+        }
+      }
+
+      try {
+        int[] completed = Request.testSome(testRequests);
+        if (completed != null) {
+          for (int c : completed) {
+            testOwners[c].complete = true;
+            completedSendCount++;
+          }
+        }
+      } catch (MPIException e) {
+        throw new RuntimeException("Failed to test the sends", e);
+      } finally {
+        Arrays.fill(testRequests, null);
+        Arrays.fill(testOwners, null);
+      }
+    }
+
+    incompleteRanks.clear();
+    Iterator<MPISendRequests> sendRequestsIterator = waitForCompletionSends.iterator();
+    while (sendRequestsIterator.hasNext()) {
+      MPISendRequests sendRequests = sendRequestsIterator.next();
+      Iterator<MPIRequest> requestIterator = sendRequests.pendingSends.iterator();
+      while (requestIterator.hasNext()) {
+        if (requestIterator.next().complete) {
+          requestIterator.remove();
+        }
+      }
+
+      // if the message if fully sent and the earlier messages to the same rank are complete,
+      // lets call the callback
+      if (sendRequests.pendingSends.size() == 0
+          && !incompleteRanks.contains(sendRequests.rank)) {
+        sendRequests.callback.onSendComplete(sendRequests.rank,
+            sendRequests.edge, sendRequests.message);
+        sendRequestsIterator.remove();
+      } else {
+        incompleteRanks.add(sendRequests.rank);
+      }
+    }
+  }
+
   private boolean debug = false;
 
   public void setDebug(boolean deb) {
@@ -237,36 +343,7 @@ public class TWSMPIChannel implements TWSChannel {
       }
     }
 
-    Iterator<MPISendRequests> sendRequestsIterator = waitForCompletionSends.iterator();
-    boolean canProgress = true;
-    while (sendRequestsIterator.hasNext() && canProgress) {
-      MPISendRequests sendRequests = sendRequestsIterator.next();
-      Iterator<MPIRequest> requestIterator = sendRequests.pendingSends.iterator();
-      while (requestIterator.hasNext()) {
-        MPIRequest r = requestIterator.next();
-        try {
-          Status status = r.request.testStatus();
-          // this request has finished
-          if (status != null) {
-            completedSendCount++;
-            requestIterator.remove();
-          } else {
-            canProgress = false;
-            break;
-          }
-        } catch (MPIException e) {
-          throw new RuntimeException("Failed to complete the send to: " + sendRequests.rank, e);
-        }
-      }
-
-      // if the message if fully sent, lets call the callback
-      // ideally we should be able to call for each finish of the buffer
-      if (sendRequests.pendingSends.size() == 0) {
-        sendRequests.callback.onSendComplete(sendRequests.rank,
-            sendRequests.edge, sendRequests.message);
-        sendRequestsIterator.remove();
-      }
-    }
+    testSends();
 
     if (false) {
       LOG.info(String.format(
@@ -0,0 +1,84 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.DataFlowOperation;
+import edu.iu.dsc.tws.comms.api.MessageReceiver;
+
+/**
+ * Serializes the messages delivered to the same target of a receiver.
+ *
+ * The sources of an operation are progressed by different threads at the same time. The
+ * receivers keep the state of a target in plain maps, so the messages of a target are handed
+ * to the receiver one at a time, while the messages of different targets are delivered
+ * concurrently.
+ */
+public final class TargetSynchronizedReceiver implements MessageReceiver {
+  private final MessageReceiver receiver;
+
+  private final Map<Integer, Lock> targetLocks = new ConcurrentHashMap<>();
+
+  private TargetSynchronizedReceiver(MessageReceiver receiver) {
+    this.receiver = receiver;
+  }
+
+  /**
+   * Wrap a receiver, a null receiver stays null
+   *
+   * @param receiver the receiver
+   * @return the wrapped receiver
+   */
+  public static MessageReceiver wrap(MessageReceiver receiver) {
+    if (receiver == null || receiver instanceof TargetSynchronizedReceiver) {
+      return receiver;
+    }
+    return new TargetSynchronizedReceiver(receiver);
+  }
+
+  @Override
+  public void init(Config cfg, DataFlowOperation op, Map<Integer, List<Integer>> expectedIds) {
+    for (Integer target : expectedIds.keySet()) {
+      targetLocks.put(target, new ReentrantLock());
+    }
+    receiver.init(cfg, op, expectedIds);
+  }
+
+  @Override
+  public boolean onMessage(int source, int path, int target, int flags, Object object) {
+    Lock lock = targetLocks.get(target);
+    if (lock == null) {
+      lock = targetLocks.computeIfAbsent(target, t -> new ReentrantLock());
+    }
+    lock.lock();
+    try {
+      return receiver.onMessage(source, path, target, flags, object);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void progress() {
+    receiver.progress();
+  }
+
+  public MessageReceiver getReceiver() {
+    return receiver;
+  }
+}
@@ -19,6 +19,7 @@ import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.comms.api.MessageHeader;
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.comms.mpi.MPIBuffer;
+import edu.iu.dsc.tws.comms.mpi.MPIBufferArenaQueue;
 import edu.iu.dsc.tws.comms.mpi.MPIMessage;
 import edu.iu.dsc.tws.comms.mpi.MPISendMessage;
 import edu.iu.dsc.tws.comms.mpi.io.types.DataSerializer;
@@ -39,6 +40,9 @@ public class MPIMessageSerializer implements MessageSerializer {
   private static final int MAX_SUB_MESSAGE_HEADER_SPACE = 4 + 4;
   // for s normal message we only put the length
   private static final int NORMAL_SUB_MESSAGE_HEADER_SIZE = 4;
+  // room left for the length fields when sizing a buffer for a message, the copies need a few
+  // bytes more than the length fields themselves before they write them
+  private static final int BUFFER_SIZE_MARGIN = 16;
 
   public MPIMessageSerializer(KryoSerializer kryoSerializer) {
     this.serializer = kryoSerializer;
@@ -66,7 +70,7 @@ public class MPIMessageSerializer implements MessageSerializer {
 
     while (sendBuffers.size() > 0 && sendMessage.serializedState()
         != MPISendMessage.SendState.SERIALIZED) {
-      MPIBuffer buffer = sendBuffers.poll();
+      MPIBuffer buffer = nextBuffer(message, sendMessage);
 
       if (buffer == null) {
         break;
@@ -111,6 +115,43 @@ public class MPIMessageSerializer implements MessageSerializer {
     return sendMessage;
   }
 
+  /**
+   * Get the next buffer for the message. When the buffers are leased from the arena, the first
+   * buffer of a message is leased from the smallest size class that can hold the whole message,
+   * so that small messages don't take full sized buffers from the quota of the edge.
+   */
+  private MPIBuffer nextBuffer(Object message, MPISendMessage sendMessage) {
+    if (!(sendBuffers instanceof MPIBufferArenaQueue)
+        || (sendMessage.serializedState() != MPISendMessage.SendState.INIT
+        && sendMessage.serializedState() != MPISendMessage.SendState.SENT_INTERNALLY)) {
+      return sendBuffers.poll();
+    }
+
+    SerializeState state = sendMessage.getSerializationState();
+    MessageType type = sendMessage.getMPIMessage().getType();
+    int size;
+    if (type == MessageType.BUFFER) {
+      size = HEADER_SIZE + ((MPIBuffer) message).getSize();
+    } else if (!keyed) {
+      size = HEADER_SIZE + BUFFER_SIZE_MARGIN
+          + DataSerializer.serializeData(message, type, state, serializer);
+    } else {
+      KeyedContent keyedContent = (KeyedContent) message;
+      size = HEADER_SIZE + BUFFER_SIZE_MARGIN
+          + KeySerializer.serializeKey(keyedContent.getSource(), keyedContent.getKeyType(),
+          state, serializer)
+          + DataSerializer.serializeData(keyedContent.getObject(), type, state, serializer);
+    }
+
+    MPIBuffer buffer = ((MPIBufferArenaQueue) sendBuffers).poll(size);
+    if (buffer == null) {
+      // the serialized bytes may be overwritten by the next message, serialize them again
+      state.setData(null);
+      state.setKey(null);
+    }
+    return buffer;
+  }
+
   private void buildHeader(MPIBuffer buffer, MPISendMessage sendMessage) {
     if (buffer.getCapacity() < 16) {
       throw new RuntimeException("The buffers should be able to hold the complete header");
@@ -23,6 +23,8 @@ public class SerializeState {
   private int bufferNo;
   // the serialized data of the current object
   private byte[] data;
+  // number of valid bytes in data, the array can be larger when it is reused
+  private int dataSize;
   // the total bytes, including the length and task for each message
   private int totalBytes;
   // length header built
@@ -84,6 +86,16 @@ public class SerializeState {
 
   public void setData(byte[] data) {
     this.data = data;
+    this.dataSize = data != null ? data.length : 0;
+  }
+
+  public void setData(byte[] data, int size) {
+    this.data = data;
+    this.dataSize = size;
+  }
+
+  public int getDataSize() {
+    return dataSize;
   }
 
   public boolean isHeaderBuilt() {
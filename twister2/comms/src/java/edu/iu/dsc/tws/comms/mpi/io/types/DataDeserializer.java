@@ -48,6 +48,8 @@ public final class DataDeserializer {
         return deserializeInteger(buffers, length);
       case DOUBLE:
         return deserializeDouble(buffers, length);
+      case LONG:
+        return deserializeLong(buffers, length);
       case SHORT:
         return deserializeShort(buffers, length);
       case BYTE:
@@ -69,6 +71,8 @@ public final class DataDeserializer {
         return deserializeInteger(buffers, length);
       case DOUBLE:
         return deserializeDouble(buffers, length);
+      case LONG:
+        return deserializeLong(buffers, length);
       case SHORT:
         return deserializeShort(buffers, length);
       case BYTE:
@@ -179,87 +183,81 @@ public final class DataDeserializer {
     int copiedDoubles = 0;
     while (copiedDoubles < noOfDoubles) {
       ByteBuffer byteBuffer = buffers.get(bufferIndex).getByteBuffer();
-      int remaining = byteBuffer.remaining();
-      if (remaining >= 8) {
-        returnDoubles[copiedDoubles] = byteBuffer.getDouble();
-        copiedDoubles++;
+      // the serializer only writes whole values to a buffer, so we can copy all of them at once
+      int canCopy = Math.min(byteBuffer.remaining() / 8, noOfDoubles - copiedDoubles);
+      if (canCopy > 0) {
+        byteBuffer.asDoubleBuffer().get(returnDoubles, copiedDoubles, canCopy);
+        byteBuffer.position(byteBuffer.position() + canCopy * 8);
+        copiedDoubles += canCopy;
       } else {
-        bufferIndex++;
+        bufferIndex = nextReadBuffer(buffers, bufferIndex, "doubles");
       }
     }
     return returnDoubles;
   }
 
   public static int[] deserializeInteger(List<MPIBuffer> buffers, int byteLength) {
-    int noOfDoubles = byteLength / 4;
-    int[] returnDoubles = new int[noOfDoubles];
+    int noOfInts = byteLength / 4;
+    int[] returnInts = new int[noOfInts];
     int bufferIndex = 0;
-    for (int i = 0; i < noOfDoubles; i++) {
+    int copiedInts = 0;
+    while (copiedInts < noOfInts) {
       ByteBuffer byteBuffer = buffers.get(bufferIndex).getByteBuffer();
-      int remaining = byteBuffer.remaining();
-      if (remaining >= 4) {
-        returnDoubles[i] = byteBuffer.getInt();
+      int canCopy = Math.min(byteBuffer.remaining() / 4, noOfInts - copiedInts);
+      if (canCopy > 0) {
+        byteBuffer.asIntBuffer().get(returnInts, copiedInts, canCopy);
+        byteBuffer.position(byteBuffer.position() + canCopy * 4);
+        copiedInts += canCopy;
       } else {
-        bufferIndex = getReadBuffer(buffers, 4, bufferIndex);
-        if (bufferIndex < 0) {
-          throw new RuntimeException("We should always have the ints");
-        }
+        bufferIndex = nextReadBuffer(buffers, bufferIndex, "ints");
       }
     }
-    return returnDoubles;
+    return returnInts;
   }
 
   public static short[] deserializeShort(List<MPIBuffer> buffers, int byteLength) {
-    int noOfDoubles = byteLength / 2;
-    short[] returnDoubles = new short[noOfDoubles];
+    int noOfShorts = byteLength / 2;
+    short[] returnShorts = new short[noOfShorts];
     int bufferIndex = 0;
-    for (int i = 0; i < noOfDoubles; i++) {
+    int copiedShorts = 0;
+    while (copiedShorts < noOfShorts) {
       ByteBuffer byteBuffer = buffers.get(bufferIndex).getByteBuffer();
-      int remaining = byteBuffer.remaining();
-      if (remaining >= 2) {
-        returnDoubles[i] = byteBuffer.getShort();
+      int canCopy = Math.min(byteBuffer.remaining() / 2, noOfShorts - copiedShorts);
+      if (canCopy > 0) {
+        byteBuffer.asShortBuffer().get(returnShorts, copiedShorts, canCopy);
+        byteBuffer.position(byteBuffer.position() + canCopy * 2);
+        copiedShorts += canCopy;
       } else {
-        bufferIndex = getReadBuffer(buffers, 4, bufferIndex);
-        if (bufferIndex < 0) {
-          throw new RuntimeException("We should always have the shorts");
-        }
+        bufferIndex = nextReadBuffer(buffers, bufferIndex, "shorts");
       }
     }
-    return returnDoubles;
+    return returnShorts;
   }
 
   public static long[] deserializeLong(List<MPIBuffer> buffers, int byteLength) {
-    int noOfDoubles = byteLength / 8;
-    long[] returnDoubles = new long[noOfDoubles];
+    int noOfLongs = byteLength / 8;
+    long[] returnLongs = new long[noOfLongs];
     int bufferIndex = 0;
-    for (int i = 0; i < noOfDoubles; i++) {
+    int copiedLongs = 0;
+    while (copiedLongs < noOfLongs) {
       ByteBuffer byteBuffer = buffers.get(bufferIndex).getByteBuffer();
-      int remaining = byteBuffer.remaining();
-      if (remaining >= 8) {
-        returnDoubles[i] = byteBuffer.getLong();
+      int canCopy = Math.min(byteBuffer.remaining() / 8, noOfLongs - copiedLongs);
+      if (canCopy > 0) {
+        byteBuffer.asLongBuffer().get(returnLongs, copiedLongs, canCopy);
+        byteBuffer.position(byteBuffer.position() + canCopy * 8);
+        copiedLongs += canCopy;
       } else {
-        bufferIndex = getReadBuffer(buffers, 8, bufferIndex);
-        if (bufferIndex < 0) {
-          throw new RuntimeException("We should always have the longs");
-        }
+        bufferIndex = nextReadBuffer(buffers, bufferIndex, "longs");
       }
     }
-    return returnDoubles;
+    return returnLongs;
   }
 
-  private static int getReadBuffer(List<MPIBuffer> bufs, int size,
-                                   int currentBufferIndex) {
-
-    for (int i = currentBufferIndex; i < bufs.size(); i++) {
-      ByteBuffer byteBuffer = bufs.get(i).getByteBuffer();
-      // now check if we need to go to the next buffer
-      if (byteBuffer.remaining() > size) {
-        // if we are at the end we need to move to next
-        byteBuffer.rewind();
-        return i;
-      }
+  private static int nextReadBuffer(List<MPIBuffer> bufs, int currentBufferIndex, String type) {
+    int next = currentBufferIndex + 1;
+    if (next >= bufs.size()) {
+      throw new RuntimeException("We should always have the " + type);
     }
-    return -1;
+    return next;
   }
-
 }
@@ -12,8 +12,11 @@
 package edu.iu.dsc.tws.comms.mpi.io.types;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 
+import com.esotericsoftware.kryo.io.Output;
+
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.comms.mpi.io.SerializeState;
 import edu.iu.dsc.tws.comms.utils.KryoSerializer;
@@ -39,10 +42,11 @@ public final class DataSerializer {
         return ((double[]) content).length * 8;
       case OBJECT:
         if (state.getData() == null) {
-          byte[] serialize = serializer.serialize(content);
-          state.setData(serialize);
+          // the bytes stay in the serializer until they are copied to the buffers
+          Output output = serializer.serializeToOutput(content);
+          state.setData(output.getBuffer(), output.position());
         }
-        return state.getData().length;
+        return state.getDataSize();
       case BYTE:
         if (state.getData() == null) {
           state.setData((byte[]) content);
@@ -124,6 +128,9 @@ public final class DataSerializer {
         if (state.getData() == null) {
           byte[] serialize = serializer.serialize(content);
           state.setData(serialize);
+        } else if (state.getDataSize() != state.getData().length) {
+          // the data is in a reused buffer, we need our own copy
+          state.setData(Arrays.copyOf(state.getData(), state.getDataSize()));
         }
         return state.getData();
       case BYTE:
@@ -155,27 +162,23 @@ public final class DataSerializer {
   }
 
   private static void copyIntegers(int[] data, ByteBuffer dataBuffer) {
-    for (int i : data) {
-      dataBuffer.putInt(i);
-    }
+    dataBuffer.asIntBuffer().put(data);
+    dataBuffer.position(dataBuffer.position() + data.length * 4);
   }
 
   private static void copyShorts(short[] data, ByteBuffer dataBuffer) {
-    for (short i : data) {
-      dataBuffer.putShort(i);
-    }
+    dataBuffer.asShortBuffer().put(data);
+    dataBuffer.position(dataBuffer.position() + data.length * 2);
   }
 
   private static void copyLongs(long[] data, ByteBuffer dataBuffer) {
-    for (long i : data) {
-      dataBuffer.putLong(i);
-    }
+    dataBuffer.asLongBuffer().put(data);
+    dataBuffer.position(dataBuffer.position() + data.length * 8);
   }
 
   private static void copyDoubles(double[] data, ByteBuffer dataBuffer) {
-    for (double i : data) {
-      dataBuffer.putDouble(i);
-    }
+    dataBuffer.asDoubleBuffer().put(data);
+    dataBuffer.position(dataBuffer.position() + data.length * 8);
   }
 
 
@@ -197,8 +200,8 @@ public final class DataSerializer {
         return copyDoubles((double[]) data, targetBuffer, state);
       case OBJECT:
         if (state.getData() == null) {
-          byte[] serialize = serializer.serialize(data);
-          state.setData(serialize);
+          Output output = serializer.serializeToOutput(data);
+          state.setData(output.getBuffer(), output.position());
         }
         return copyDataBytes(targetBuffer, state);
       case BYTE:
@@ -231,9 +234,9 @@ public final class DataSerializer {
     int canCopy = (remainingCapacity > remainingToCopy ? remainingToCopy : remainingCapacity) / 8;
     // copy
     int offSet = bytesCopied / 8;
-    for (int i = 0; i < canCopy; i++) {
-      targetBuffer.putLong(data[i + offSet]);
-    }
+    // bulk copy through a view of the buffer, the view starts at the current position
+    targetBuffer.asLongBuffer().put(data, offSet, canCopy);
+    targetBuffer.position(targetBuffer.position() + canCopy * 8);
     totalBytes += canCopy * 8;
     // we set the tolal bytes copied so far
     state.setTotalBytes(totalBytes);
@@ -257,9 +260,8 @@ public final class DataSerializer {
     int canCopy = (remainingCapacity > remainingToCopy ? remainingToCopy : remainingCapacity) / 2;
     // copy
     int offSet = bytesCopied / 2;
-    for (int i = 0; i < canCopy; i++) {
-      targetBuffer.putShort(data[i + offSet]);
-    }
+    targetBuffer.asShortBuffer().put(data, offSet, canCopy);
+    targetBuffer.position(targetBuffer.position() + canCopy * 2);
     totalBytes += canCopy * 2;
     // we set the tolal bytes copied so far
     state.setTotalBytes(totalBytes);
@@ -282,9 +284,8 @@ public final class DataSerializer {
     int canCopy = (remainingCapacity > remainingToCopy ? remainingToCopy : remainingCapacity) / 8;
     // copy
     int offSet = bytesCopied / 8;
-    for (int i = 0; i < canCopy; i++) {
-      targetBuffer.putDouble(data[i + offSet]);
-    }
+    targetBuffer.asDoubleBuffer().put(data, offSet, canCopy);
+    targetBuffer.position(targetBuffer.position() + canCopy * 8);
     totalBytes += canCopy * 8;
     // we set the tolal bytes copied so far
     state.setTotalBytes(totalBytes);
@@ -307,9 +308,8 @@ public final class DataSerializer {
     int canCopy = (remainingCapacity > remainingToCopy ? remainingToCopy : remainingCapacity) / 4;
     // copy
     int offSet = bytesCopied / 4;
-    for (int i = 0; i < canCopy; i++) {
-      targetBuffer.putInt(data[i + offSet]);
-    }
+    targetBuffer.asIntBuffer().put(data, offSet, canCopy);
+    targetBuffer.position(targetBuffer.position() + canCopy * 4);
     totalBytes += canCopy * 4;
     // we set the tolal bytes copied so far
     state.setTotalBytes(totalBytes);
@@ -330,7 +330,7 @@ public final class DataSerializer {
     int bytesCopied = state.getBytesCopied();
 
     byte[] data = state.getData();
-    int remainingToCopy = data.length - bytesCopied;
+    int remainingToCopy = state.getDataSize() - bytesCopied;
     int canCopy = remainingCapacity > remainingToCopy ? remainingToCopy : remainingCapacity;
     // copy
     targetBuffer.put(data, bytesCopied, canCopy);
@@ -0,0 +1,102 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+
+/**
+ * Reads a spill file written in blocks one block at a time. The buffer of a block is reused for
+ * the next block, so only one block of a file is in memory at a time.
+ */
+public class BlockReader {
+  private final FileChannel channel;
+
+  private final SpillCodec codec;
+
+  private final ByteBuffer header = ByteBuffer.allocate(FileLoader.BLOCK_HEADER_SIZE);
+
+  private ByteBuffer compressed = ByteBuffer.allocate(0);
+
+  private byte[] block = new byte[0];
+
+  private long position;
+
+  /**
+   * Open a spill file
+   * @param fileName name of the file
+   * @param codec the codec used to write the file
+   * @param position the offset of the first block to read
+   */
+  public BlockReader(String fileName, SpillCodec codec, long position) throws IOException {
+    this.channel = new RandomAccessFile(Paths.get(fileName).toString(), "r").getChannel();
+    this.codec = codec;
+    this.position = position;
+  }
+
+  /**
+   * Read and decompress the next block, the returned buffer is valid until the next call
+   * @return the block or null at the end of the file
+   */
+  public ByteBuffer next() throws IOException {
+    if (position >= channel.size()) {
+      return null;
+    }
+
+    header.clear();
+    readFully(header, position);
+    header.flip();
+    int compressedLength = header.getInt();
+    int length = header.getInt();
+
+    if (compressed.capacity() < compressedLength) {
+      compressed = ByteBuffer.allocate(compressedLength);
+    }
+    compressed.clear();
+    compressed.limit(compressedLength);
+    readFully(compressed, position + FileLoader.BLOCK_HEADER_SIZE);
+
+    if (block.length < length) {
+      block = new byte[length];
+    }
+    codec.decompress(compressed.array(), 0, compressedLength, block, 0, length);
+    position += FileLoader.BLOCK_HEADER_SIZE + compressedLength;
+    return ByteBuffer.wrap(block, 0, length);
+  }
+
+  private void readFully(ByteBuffer buffer, long start) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, start + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of the spill file");
+      }
+    }
+  }
+
+  /**
+   * The offset of the next block
+   */
+  public long position() {
+    return position;
+  }
+
+  public long size() throws IOException {
+    return channel.size();
+  }
+
+  public void close() throws IOException {
+    channel.close();
+  }
+}
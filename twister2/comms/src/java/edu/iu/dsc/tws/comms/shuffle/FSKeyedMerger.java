@@ -11,15 +11,19 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.comms.shuffle;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
 
@@ -62,11 +66,6 @@ public class FSKeyedMerger {
    */
   private List<KeyValue> recordsInMemory = new ArrayList<>();
 
-  /**
-   * The deserialized objects in memory
-   */
-  private List<KeyValue> objectsInMemory = new ArrayList<>();
-
   /**
    * The number of total bytes in each file part written to disk
    */
@@ -92,6 +91,21 @@ public class FSKeyedMerger {
    */
   private Comparator<Object> keyComparator;
 
+  /**
+   * Writes the full segments to disk
+   */
+  private SpillWriter spillWriter;
+
+  /**
+   * Compresses the blocks of the spill files
+   */
+  private SpillCodec codec;
+
+  /**
+   * Size of a spill file block before compression
+   */
+  private int blockSize;
+
   private Lock lock = new ReentrantLock();
   private Condition notFull = lock.newCondition();
 
@@ -110,6 +124,44 @@ public class FSKeyedMerger {
   public FSKeyedMerger(int maxBytesInMemory, int maxRecsInMemory,
                        String dir, String opName, MessageType kType,
                        MessageType dType, Comparator<Object> kComparator) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, kType, dType, kComparator,
+        FSMerger.DEFAULT_SEGMENTS);
+  }
+
+  /**
+   * Create the merger with the spill options in the configuration
+   */
+  public FSKeyedMerger(Config cfg, int maxBytesInMemory, int maxRecsInMemory,
+                       String dir, String opName, MessageType kType,
+                       MessageType dType, Comparator<Object> kComparator) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, kType, dType, kComparator,
+        ShuffleContext.spillSegments(cfg), ShuffleContext.spillCodec(cfg),
+        ShuffleContext.spillBlockSize(cfg));
+  }
+
+  /**
+   * Create the merger
+   * @param segments the number of segments kept in memory, one is filled while the others are
+   * waiting to be written to disk
+   */
+  public FSKeyedMerger(int maxBytesInMemory, int maxRecsInMemory,
+                       String dir, String opName, MessageType kType,
+                       MessageType dType, Comparator<Object> kComparator, int segments) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, kType, dType, kComparator, segments,
+        new NoOpSpillCodec(), FileLoader.DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create the merger
+   * @param segments the number of segments kept in memory, one is filled while the others are
+   * waiting to be written to disk
+   * @param spillCodec the codec to compress the spill files
+   * @param spillBlockSize the size of a spill file block before compression
+   */
+  public FSKeyedMerger(int maxBytesInMemory, int maxRecsInMemory,
+                       String dir, String opName, MessageType kType,
+                       MessageType dType, Comparator<Object> kComparator, int segments,
+                       SpillCodec spillCodec, int spillBlockSize) {
     this.maxBytesToKeepInMemory = maxBytesInMemory;
     this.maxRecordsInMemory = maxRecsInMemory;
     this.folder = dir;
@@ -118,6 +170,9 @@ public class FSKeyedMerger {
     this.dataType = dType;
     this.keyComparator = kComparator;
     this.kryoSerializer = new KryoMemorySerializer();
+    this.spillWriter = new SpillWriter("twister2-spill-" + opName, Math.max(segments - 1, 1));
+    this.codec = spillCodec;
+    this.blockSize = spillBlockSize;
   }
 
   /**
@@ -132,12 +187,17 @@ public class FSKeyedMerger {
 
     lock.lock();
     try {
+      // when the writer already has all the other segments, wait for one of them to be
+      // written before starting a new segment
+      while (isFull() && !spill()) {
+        spillWriter.awaitSpace();
+      }
+
       recordsInMemory.add(new KeyValue(key, data));
       bytesLength.add(length);
 
       numOfBytesInMemory += length;
-      if (numOfBytesInMemory > maxBytesToKeepInMemory
-          || recordsInMemory.size() > maxRecordsInMemory) {
+      if (isFull()) {
         notFull.signal();
       }
     } finally {
@@ -146,43 +206,58 @@ public class FSKeyedMerger {
   }
 
   public void switchToReading() {
+    // wait until the segments are written
+    spillWriter.finish();
     status = FSStatus.READING;
-    // lets convert the in-memory data to objects
-    deserializeObjects();
-  }
-
-  private void deserializeObjects() {
-    for (int i = 0; i < recordsInMemory.size(); i++) {
-      KeyValue kv = recordsInMemory.get(i);
-      Object o = kryoSerializer.deserialize((byte[]) kv.getValue());
-      objectsInMemory.add(new KeyValue(kv.getKey(), o));
-    }
   }
 
   /**
-   * This method saves the data to file system
+   * This method hands the records in memory to the writer if it is time to save them
    */
   public void run() {
     lock.lock();
     try {
-      // it is time to write
-      if (numOfBytesInMemory > maxBytesToKeepInMemory
-          || recordsInMemory.size() > maxRecordsInMemory) {
-        // save the bytes to disk
-        int totalSize = FileLoader.saveKeyValues(recordsInMemory, bytesLength,
-            numOfBytesInMemory, getSaveFileName(noOfFileWritten), keyType, kryoSerializer);
-        filePartBytes.add(totalSize);
-
-        recordsInMemory.clear();
-        bytesLength.clear();
-        noOfFileWritten++;
-        numOfBytesInMemory = 0;
+      // if the writer is busy the segment is handed over by the next add or run
+      if (isFull()) {
+        spill();
       }
     } finally {
       lock.unlock();
     }
   }
 
+  private boolean isFull() {
+    return numOfBytesInMemory > maxBytesToKeepInMemory
+        || recordsInMemory.size() > maxRecordsInMemory;
+  }
+
+  /**
+   * Submit the current segment to the writer and start a new one, must be called with the lock
+   * @return false if the writer cannot take more segments
+   */
+  private boolean spill() {
+    final List<KeyValue> records = recordsInMemory;
+    final List<Integer> sizes = bytesLength;
+    final String fileName = getSaveFileName(noOfFileWritten);
+    boolean submitted = spillWriter.submit(new Runnable() {
+      @Override
+      public void run() {
+        int totalSize = FileLoader.saveKeyValues(records, sizes, fileName,
+            keyType, kryoSerializer, codec, blockSize);
+        filePartBytes.add(totalSize);
+      }
+    });
+    if (!submitted) {
+      return false;
+    }
+
+    recordsInMemory = new ArrayList<>();
+    bytesLength = new ArrayList<>();
+    noOfFileWritten++;
+    numOfBytesInMemory = 0;
+    return true;
+  }
+
   /**
    * This method gives the values
    */
@@ -191,78 +266,66 @@ public class FSKeyedMerger {
     return new FSIterator();
   }
 
+  /**
+   * Reads the file parts in the order they were written and then the records in memory, which
+   * is the order the records were added. Records are deserialized one at a time and only one
+   * block of a file part is kept in memory.
+   */
   private class FSIterator implements Iterator<KeyValue> {
-    // the current file index
-    private int currentFileIndex = 0;
-    // Index of the current file
-    private int currentIndex = 0;
-    // the iterator for list of bytes in memory
-    private Iterator<KeyValue> it;
-    // the current values
-    private List<KeyValue> openValue;
-
-    FSIterator() {
-      it = objectsInMemory.iterator();
-    }
+    // index of the next record in memory
+    private int memoryIndex = 0;
+    // the next file part to open
+    private int nextFilePart = 0;
+    // reader of the open file part, null if no part is open
+    private BlockReader reader;
+    // the current block of the open file part
+    private ByteBuffer block;
 
     @Override
     public boolean hasNext() {
-      // we are reading from in memory
-      boolean next;
-      if (currentFileIndex == 0) {
-        next = it.hasNext();
-        if (!next) {
-          // we need to open the first file part
-          if (noOfFileWritten > 0) {
-            // we will read the opened one next
-            openFilePart();
-          } else {
-            // no file parts written, end of iteration
-            return false;
-          }
-        } else {
-          return true;
-        }
-      }
-
-      if (currentFileIndex > 0) {
-        if (currentIndex < openValue.size()) {
-          return true;
-        } else {
-          if (currentFileIndex < noOfFileWritten - 1) {
-            openFilePart();
-            return true;
-          } else {
-            return false;
-          }
-        }
-      }
-      return false;
-    }
-
-
-    private void openFilePart() {
-      // lets read the bytes from the file
-      openValue = FileLoader.readFile(getSaveFileName(currentFileIndex), keyType,
-          dataType, kryoSerializer);
-      currentFileIndex++;
-      currentIndex = 0;
+      return nextBlock() || memoryIndex < recordsInMemory.size();
     }
 
     @Override
     public KeyValue next() {
-      // we are reading from in memory
-      if (currentFileIndex == 0) {
-        return it.next();
+      if (nextBlock()) {
+        int keySize = block.getInt();
+        Object key = FileLoader.deserialize(keyType, kryoSerializer, block, keySize);
+        int dataSize = block.getInt();
+        Object value = FileLoader.deserialize(dataType, kryoSerializer, block, dataSize);
+        return new KeyValue(key, value);
       }
-
-      if (currentFileIndex > 0) {
-        KeyValue kv = openValue.get(currentIndex);
-        currentIndex++;
-        return kv;
+      if (memoryIndex < recordsInMemory.size()) {
+        KeyValue kv = recordsInMemory.get(memoryIndex++);
+        return new KeyValue(kv.getKey(), kryoSerializer.deserialize((byte[]) kv.getValue()));
       }
+      throw new NoSuchElementException();
+    }
 
-      return null;
+    /**
+     * Make sure the current block has a record, opening the next file part if needed
+     * @return false if there are no more records
+     */
+    private boolean nextBlock() {
+      try {
+        while (block == null || !block.hasRemaining()) {
+          if (reader != null) {
+            block = reader.next();
+            if (block != null) {
+              continue;
+            }
+            reader.close();
+            reader = null;
+          }
+          if (nextFilePart >= noOfFileWritten) {
+            return false;
+          }
+          reader = new BlockReader(getSaveFileName(nextFilePart++), codec, 0);
+        }
+        return true;
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to read the file part", e);
+      }
     }
   }
 
@@ -16,14 +16,26 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
 
+/**
+ * Sorts the added records by the key, spilling sorted parts to the disk when the memory limits
+ * are reached, and gives the records back in key order by merging the parts.
+ *
+ * INTEGER, LONG, STRING and BYTE keys are kept in serialized form in a packed buffer. Without a
+ * key comparator they are compared as normalized bytes, which is their natural order. With a
+ * key comparator the keys are compared as objects with the comparator. Keys are returned in
+ * the form they were added, an Integer or a Long, or an array. Other key types are sorted as
+ * objects with the key comparator.
+ */
 public class FSKeyedSortedMerger {
   private static final Logger LOG = Logger.getLogger(FSKeyedSortedMerger.class.getName());
   /**
@@ -92,6 +104,36 @@ public class FSKeyedSortedMerger {
    */
   private Comparator<Object> keyComparator;
 
+  /**
+   * Whether the records are kept in packed buffers
+   */
+  private boolean rawKeys;
+
+  /**
+   * Whether the integer and long keys are added as Integer and Long instead of arrays
+   */
+  private boolean scalarKeys;
+
+  /**
+   * The records in memory when the records are packed
+   */
+  private PackedRecords packedRecords;
+
+  /**
+   * The buffer to swap with the records in memory while a part is written to disk
+   */
+  private PackedRecords spillRecords;
+
+  /**
+   * Compresses the blocks of the spill files
+   */
+  private SpillCodec codec;
+
+  /**
+   * Size of a spill file block before compression
+   */
+  private int blockSize;
+
   private Lock lock = new ReentrantLock();
   private Condition notFull = lock.newCondition();
 
@@ -110,6 +152,29 @@ public class FSKeyedSortedMerger {
   public FSKeyedSortedMerger(int maxBytesInMemory, int maxRecsInMemory,
                        String dir, String opName, MessageType kType,
                        MessageType dType, Comparator<Object> kComparator) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, kType, dType, kComparator,
+        new NoOpSpillCodec(), FileLoader.DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create the merger with the spill options in the configuration
+   */
+  public FSKeyedSortedMerger(Config cfg, int maxBytesInMemory, int maxRecsInMemory,
+                             String dir, String opName, MessageType kType,
+                             MessageType dType, Comparator<Object> kComparator) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, kType, dType, kComparator,
+        ShuffleContext.spillCodec(cfg), ShuffleContext.spillBlockSize(cfg));
+  }
+
+  /**
+   * Create the merger
+   * @param spillCodec the codec to compress the spill files
+   * @param spillBlockSize the size of a spill file block before compression
+   */
+  public FSKeyedSortedMerger(int maxBytesInMemory, int maxRecsInMemory,
+                             String dir, String opName, MessageType kType,
+                             MessageType dType, Comparator<Object> kComparator,
+                             SpillCodec spillCodec, int spillBlockSize) {
     this.maxBytesToKeepInMemory = maxBytesInMemory;
     this.maxRecordsInMemory = maxRecsInMemory;
     this.folder = dir;
@@ -118,6 +183,11 @@ public class FSKeyedSortedMerger {
     this.dataType = dType;
     this.keyComparator = kComparator;
     this.kryoSerializer = new KryoMemorySerializer();
+    this.rawKeys = NormalizedKeys.isSupported(kType);
+    this.packedRecords = new PackedRecords(kComparator);
+    this.spillRecords = new PackedRecords(kComparator);
+    this.codec = spillCodec;
+    this.blockSize = spillBlockSize;
   }
 
   /**
@@ -130,6 +200,11 @@ public class FSKeyedSortedMerger {
       throw new RuntimeException("Cannot add after switching to reading");
     }
 
+    if (rawKeys) {
+      addRecord(key, data, length);
+      return;
+    }
+
     lock.lock();
     try {
       recordsInMemory.add(new KeyValue(key, data, keyComparator));
@@ -145,8 +220,31 @@ public class FSKeyedSortedMerger {
     }
   }
 
+  private void addRecord(Object key, byte[] data, int length) {
+    byte[] keyBytes = NormalizedKeys.encode(key, keyType);
+    lock.lock();
+    try {
+      if (packedRecords.count() == 0 && noOfFileWritten == 0) {
+        scalarKeys = NormalizedKeys.isScalar(key);
+      }
+      packedRecords.add(key, keyBytes, data, length);
+
+      numOfBytesInMemory += length;
+      if (numOfBytesInMemory > maxBytesToKeepInMemory
+          || packedRecords.count() > maxRecordsInMemory) {
+        notFull.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public void switchToReading() {
     status = FSStatus.READING;
+    if (rawKeys) {
+      packedRecords.sort();
+      return;
+    }
     // lets convert the in-memory data to objects
     deserializeObjects();
     // lets sort the in-memory objects
@@ -165,41 +263,145 @@ public class FSKeyedSortedMerger {
    * This method saves the data to file system
    */
   public void run() {
+    if (rawKeys) {
+      spillRecords();
+      return;
+    }
+
     List<KeyValue> list;
+    List<Integer> sizes;
     lock.lock();
     try {
+      // it is time to write
+      if (numOfBytesInMemory <= maxBytesToKeepInMemory
+          && recordsInMemory.size() <= maxRecordsInMemory) {
+        return;
+      }
       list = recordsInMemory;
+      sizes = bytesLength;
       recordsInMemory = new ArrayList<>();
+      bytesLength = new ArrayList<>();
+      numOfBytesInMemory = 0;
     } finally {
       lock.unlock();
     }
 
-    // it is time to write
-    if (numOfBytesInMemory > maxBytesToKeepInMemory
-        || recordsInMemory.size() > maxRecordsInMemory) {
-      // first sort the values
-      Collections.sort(list);
+    // first sort the values, keeping the sizes with their records
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < list.size(); i++) {
+      order.add(i);
+    }
+    final List<KeyValue> records = list;
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return records.get(o1).compareTo(records.get(o2));
+      }
+    });
+    List<KeyValue> sorted = new ArrayList<>(list.size());
+    List<Integer> sortedSizes = new ArrayList<>(list.size());
+    for (int i : order) {
+      sorted.add(list.get(i));
+      sortedSizes.add(sizes.get(i));
+    }
 
-      // save the bytes to disk
-      int totalSize = FileLoader.saveKeyValues(recordsInMemory, bytesLength,
-          numOfBytesInMemory, getSaveFileName(noOfFileWritten), keyType, kryoSerializer);
-      filePartBytes.add(totalSize);
+    // save the bytes to disk
+    int totalSize = FileLoader.saveKeyValues(sorted, sortedSizes,
+        getSaveFileName(noOfFileWritten), keyType, kryoSerializer, codec, blockSize);
+    filePartBytes.add(totalSize);
+    noOfFileWritten++;
+  }
 
-      recordsInMemory.clear();
-      bytesLength.clear();
-      noOfFileWritten++;
+  private void spillRecords() {
+    PackedRecords records;
+    lock.lock();
+    try {
+      if (numOfBytesInMemory <= maxBytesToKeepInMemory
+          && packedRecords.count() <= maxRecordsInMemory) {
+        return;
+      }
+      // swap the buffers so that we can keep adding while writing
+      records = packedRecords;
+      packedRecords = spillRecords;
       numOfBytesInMemory = 0;
+    } finally {
+      lock.unlock();
     }
+
+    records.sort();
+    int totalSize = FileLoader.saveSortedRecords(records, getSaveFileName(noOfFileWritten),
+        codec, blockSize);
+    filePartBytes.add(totalSize);
+    noOfFileWritten++;
+
+    records.clear();
+    spillRecords = records;
   }
 
   /**
    * This method gives the values
    */
   public Iterator<KeyValue> readIterator() {
+    if (rawKeys) {
+      return new MergeIterator();
+    }
     // lets start with first file
     return new FSIterator();
   }
 
+  /**
+   * Merge the file parts and the records in memory in key order
+   */
+  private class MergeIterator implements Iterator<KeyValue> {
+    private final SortedRun[] runs;
+
+    private final LoserTree tree;
+
+    private boolean closed = false;
+
+    MergeIterator() {
+      runs = new SortedRun[noOfFileWritten + 1];
+      for (int i = 0; i < noOfFileWritten; i++) {
+        runs[i] = SortedRun.fromFile(getSaveFileName(i), codec, keyType, scalarKeys,
+            keyComparator);
+      }
+      runs[noOfFileWritten] = SortedRun.fromMemory(packedRecords, keyType, scalarKeys);
+      tree = new LoserTree(runs);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (tree.winner() >= 0) {
+        return true;
+      }
+      close();
+      return false;
+    }
+
+    @Override
+    public KeyValue next() {
+      int w = tree.winner();
+      if (w < 0) {
+        throw new NoSuchElementException();
+      }
+      SortedRun run = runs[w];
+      KeyValue kv = new KeyValue(run.getKey(),
+          kryoSerializer.deserialize(run.getData()));
+      run.advance();
+      tree.replay();
+      return kv;
+    }
+
+    private void close() {
+      if (!closed) {
+        for (SortedRun run : runs) {
+          run.close();
+        }
+        closed = true;
+      }
+    }
+  }
+
   private class FSIterator implements Iterator<KeyValue> {
     // the current file index
     private int currentFileIndex = 0;
@@ -253,7 +455,7 @@ public class FSKeyedSortedMerger {
     private void openFilePart() {
       // lets read the bytes from the file
       openValue = FileLoader.readFile(getSaveFileName(currentFileIndex), keyType,
-          dataType, kryoSerializer);
+          dataType, kryoSerializer, codec);
       currentFileIndex++;
       currentIndex = 0;
     }
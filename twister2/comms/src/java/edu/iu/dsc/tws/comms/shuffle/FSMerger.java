@@ -11,13 +11,17 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.comms.shuffle;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
 
@@ -26,6 +30,11 @@ import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
  * sorting as in the keyed case
  */
 public class FSMerger {
+  /**
+   * Number of segments in memory by default, one is filled while the other is written
+   */
+  public static final int DEFAULT_SEGMENTS = 2;
+
   /**
    * Maximum bytes to keep in memory
    */
@@ -62,11 +71,6 @@ public class FSMerger {
    */
   private List<byte[]> bytesInMemory = new ArrayList<>();
 
-  /**
-   * The deserialized objects in memory
-   */
-  private List<Object> objectsInMemory = new ArrayList<>();
-
   /**
    * The number of total bytes in each file part written to disk
    */
@@ -82,6 +86,21 @@ public class FSMerger {
    */
   private MessageType valueType;
 
+  /**
+   * Writes the full segments to disk
+   */
+  private SpillWriter spillWriter;
+
+  /**
+   * Compresses the blocks of the spill files
+   */
+  private SpillCodec codec;
+
+  /**
+   * Size of a spill file block before compression
+   */
+  private int blockSize;
+
   private Lock lock = new ReentrantLock();
   private Condition notFull = lock.newCondition();
 
@@ -99,12 +118,49 @@ public class FSMerger {
 
   public FSMerger(int maxBytesInMemory, int maxRecsInMemory,
                   String dir, String opName, MessageType vType) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, vType, DEFAULT_SEGMENTS);
+  }
+
+  /**
+   * Create the merger with the spill options in the configuration
+   */
+  public FSMerger(Config cfg, int maxBytesInMemory, int maxRecsInMemory,
+                  String dir, String opName, MessageType vType) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, vType,
+        ShuffleContext.spillSegments(cfg), ShuffleContext.spillCodec(cfg),
+        ShuffleContext.spillBlockSize(cfg));
+  }
+
+  /**
+   * Create the merger
+   * @param segments the number of segments kept in memory, one is filled while the others are
+   * waiting to be written to disk
+   */
+  public FSMerger(int maxBytesInMemory, int maxRecsInMemory,
+                  String dir, String opName, MessageType vType, int segments) {
+    this(maxBytesInMemory, maxRecsInMemory, dir, opName, vType, segments,
+        new NoOpSpillCodec(), FileLoader.DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create the merger
+   * @param segments the number of segments kept in memory, one is filled while the others are
+   * waiting to be written to disk
+   * @param spillCodec the codec to compress the spill files
+   * @param spillBlockSize the size of a spill file block before compression
+   */
+  public FSMerger(int maxBytesInMemory, int maxRecsInMemory,
+                  String dir, String opName, MessageType vType, int segments,
+                  SpillCodec spillCodec, int spillBlockSize) {
     this.maxBytesToKeepInMemory = maxBytesInMemory;
     this.maxRecordsInMemory = maxRecsInMemory;
     this.folder = dir;
     this.operationName = opName;
     this.valueType = vType;
     this.kryoSerializer = new KryoMemorySerializer();
+    this.spillWriter = new SpillWriter("twister2-spill-" + opName, Math.max(segments - 1, 1));
+    this.codec = spillCodec;
+    this.blockSize = spillBlockSize;
   }
 
   /**
@@ -119,12 +175,17 @@ public class FSMerger {
 
     lock.lock();
     try {
+      // when the writer already has all the other segments, wait for one of them to be
+      // written before starting a new segment
+      while (isFull() && !spill()) {
+        spillWriter.awaitSpace();
+      }
+
       bytesInMemory.add(data);
       bytesLength.add(length);
 
       numOfBytesInMemory += length;
-      if (numOfBytesInMemory > maxBytesToKeepInMemory
-          || bytesInMemory.size() > maxRecordsInMemory) {
+      if (isFull()) {
         notFull.signal();
       }
     } finally {
@@ -133,40 +194,56 @@ public class FSMerger {
   }
 
   public void switchToReading() {
+    // wait until the segments are written
+    spillWriter.finish();
     status = FSStatus.READING;
-    deserializeObjects();
-  }
-
-  private void deserializeObjects() {
-    for (int i = 0; i < bytesInMemory.size(); i++) {
-      Object o = kryoSerializer.deserialize(bytesInMemory.get(i));
-      objectsInMemory.add(o);
-    }
   }
 
   /**
-   * This method saves the data to file system
+   * This method hands the records in memory to the writer if it is time to save them
    */
   public void run() {
     lock.lock();
     try {
-      // it is time to write
-      if (numOfBytesInMemory > maxBytesToKeepInMemory
-          || bytesInMemory.size() > maxRecordsInMemory) {
-        // save the bytes to disk
-        FileLoader.saveObjects(bytesInMemory, bytesLength,
-            numOfBytesInMemory, getSaveFileName(noOfFileWritten));
-
-        bytesInMemory.clear();
-        bytesLength.clear();
-        noOfFileWritten++;
-        numOfBytesInMemory = 0;
+      // if the writer is busy the segment is handed over by the next add or run
+      if (isFull()) {
+        spill();
       }
     } finally {
       lock.unlock();
     }
   }
 
+  private boolean isFull() {
+    return numOfBytesInMemory > maxBytesToKeepInMemory
+        || bytesInMemory.size() > maxRecordsInMemory;
+  }
+
+  /**
+   * Submit the current segment to the writer and start a new one, must be called with the lock
+   * @return false if the writer cannot take more segments
+   */
+  private boolean spill() {
+    final List<byte[]> records = bytesInMemory;
+    final List<Integer> sizes = bytesLength;
+    final String fileName = getSaveFileName(noOfFileWritten);
+    boolean submitted = spillWriter.submit(new Runnable() {
+      @Override
+      public void run() {
+        FileLoader.saveObjects(records, sizes, fileName, codec, blockSize);
+      }
+    });
+    if (!submitted) {
+      return false;
+    }
+
+    bytesInMemory = new ArrayList<>();
+    bytesLength = new ArrayList<>();
+    noOfFileWritten++;
+    numOfBytesInMemory = 0;
+    return true;
+  }
+
   /**
    * This method gives the values
    */
@@ -175,76 +252,62 @@ public class FSMerger {
     return new FSIterator();
   }
 
+  /**
+   * Reads the file parts in the order they were written and then the records in memory, which
+   * is the order the records were added. Records are deserialized one at a time and only one
+   * block of a file part is kept in memory.
+   */
   private class FSIterator implements Iterator<Object> {
-    // the current file index
-    private int currentFileIndex = 0;
-    // Index of the current file
-    private int currentIndex = 0;
-    // the iterator for list of bytes in memory
-    private Iterator<Object> it;
-    // the current open values
-    private List<Object> openValues;
-
-    FSIterator() {
-      it = objectsInMemory.iterator();
-    }
+    // index of the next record in memory
+    private int memoryIndex = 0;
+    // the next file part to open
+    private int nextFilePart = 0;
+    // reader of the open file part, null if no part is open
+    private BlockReader reader;
+    // the current block of the open file part
+    private ByteBuffer block;
 
     @Override
     public boolean hasNext() {
-      // we are reading from in memory
-      boolean next;
-      if (currentFileIndex == 0) {
-        next = it.hasNext();
-        if (!next) {
-          // we need to open the first file part
-          if (noOfFileWritten > 0) {
-            openFilePart();
-          } else {
-            // no file parts written, end of iteration
-            return false;
-          }
-        } else {
-          return true;
-        }
-      }
-
-      if (currentFileIndex > 0) {
-        if (currentIndex < openValues.size()) {
-          return true;
-        } else {
-          if (currentFileIndex < noOfFileWritten - 1) {
-            openFilePart();
-            return true;
-          } else {
-            return false;
-          }
-        }
-      }
-      return false;
-    }
-
-    private void openFilePart() {
-      // lets read the bytes from the file
-      openValues = FileLoader.readFile(getSaveFileName(currentFileIndex),
-          valueType, kryoSerializer);
-      currentFileIndex++;
-      currentIndex = 0;
+      return nextBlock() || memoryIndex < bytesInMemory.size();
     }
 
     @Override
     public Object next() {
-      // we are reading from in memory
-      if (currentFileIndex == 0) {
-        return it.next();
+      if (nextBlock()) {
+        int dataSize = block.getInt();
+        return FileLoader.deserialize(valueType, kryoSerializer, block, dataSize);
       }
-
-      if (currentFileIndex > 0) {
-        Object data = openValues.get(currentIndex);
-        currentIndex++;
-        return data;
+      if (memoryIndex < bytesInMemory.size()) {
+        return kryoSerializer.deserialize(bytesInMemory.get(memoryIndex++));
       }
+      throw new NoSuchElementException();
+    }
 
-      return null;
+    /**
+     * Make sure the current block has a record, opening the next file part if needed
+     * @return false if there are no more records
+     */
+    private boolean nextBlock() {
+      try {
+        while (block == null || !block.hasRemaining()) {
+          if (reader != null) {
+            block = reader.next();
+            if (block != null) {
+              continue;
+            }
+            reader.close();
+            reader = null;
+          }
+          if (nextFilePart >= noOfFileWritten) {
+            return false;
+          }
+          reader = new BlockReader(getSaveFileName(nextFilePart++), codec, 0);
+        }
+        return true;
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to read the file part", e);
+      }
     }
   }
 
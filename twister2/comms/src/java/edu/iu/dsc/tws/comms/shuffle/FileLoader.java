@@ -30,6 +30,16 @@ import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
 public final class FileLoader {
   private static final Logger LOG = Logger.getLogger(FileLoader.class.getName());
 
+  /**
+   * Size of the blocks of the spill files before compression
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  /**
+   * A block starts with its compressed and original lengths
+   */
+  static final int BLOCK_HEADER_SIZE = 8;
+
   private FileLoader() {
   }
 
@@ -43,7 +53,9 @@ public final class FileLoader {
                                  long size, String outFileName) {
     try {
       FileChannel rwChannel = new RandomAccessFile(outFileName, "rw").getChannel();
-      ByteBuffer os = rwChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      // each record is written with its length
+      ByteBuffer os = rwChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+          size + records.size() * 4);
       for (int i = 0; i < records.size(); i++) {
         byte[] r = records.get(i);
         os.putInt(sizes.get(i));
@@ -79,28 +91,11 @@ public final class FileLoader {
         }
       } else {
         for (KeyValue record : records) {
-          if (keyType == MessageType.BYTE) {
-            byte[] key = (byte[]) record.getKey();
-            totalSize += key.length;
-          } else if (keyType == MessageType.DOUBLE) {
-            double[] d = (double[]) record.getKey();
-            totalSize += d.length * 8;
-          } else if (keyType == MessageType.INTEGER) {
-            int[] d = (int[]) record.getKey();
-            totalSize += d.length * 4;
-          } else if (keyType == MessageType.LONG) {
-            long[] d = (long[]) record.getKey();
-            totalSize += d.length * 8;
-          } else if (keyType == MessageType.CHAR) {
-            char[] d = (char[]) record.getKey();
-            totalSize += d.length;
-          } else if (keyType == MessageType.SHORT) {
-            short[] d = (short[]) record.getKey();
-            totalSize += d.length * 2;
-          }
+          totalSize += keySize(keyType, record.getKey());
         }
       }
-      totalSize += size;
+      // the key and the data are written with their lengths
+      totalSize += size + records.size() * 8;
 
       FileChannel rwChannel = new RandomAccessFile(outFileName, "rw").getChannel();
       ByteBuffer os = rwChannel.map(FileChannel.MapMode.READ_WRITE, 0, totalSize);
@@ -108,45 +103,8 @@ public final class FileLoader {
         KeyValue keyValue = records.get(i);
         byte[] r = (byte[]) keyValue.getValue();
         // serialize key with its length
-        if (keyType == MessageType.OBJECT) {
-          byte[] src = byteKeys.get(i);
-          os.putInt(src.length);
-          os.put(src);
-        } else if (keyType == MessageType.BYTE) {
-          byte[] key = (byte[]) keyValue.getKey();
-          os.putInt(key.length);
-          os.put(key);
-        } else if (keyType == MessageType.DOUBLE) {
-          double[] kd = (double[]) keyValue.getKey();
-          os.putInt(kd.length);
-          for (double d : kd) {
-            os.putDouble(d);
-          }
-        } else if (keyType == MessageType.INTEGER) {
-          int[] kd = (int[]) keyValue.getKey();
-          os.putInt(kd.length);
-          for (int d : kd) {
-            os.putInt(d);
-          }
-        } else if (keyType == MessageType.LONG) {
-          long[] kd = (long[]) keyValue.getKey();
-          os.putInt(kd.length);
-          for (long d : kd) {
-            os.putLong(d);
-          }
-        } else if (keyType == MessageType.CHAR) {
-          char[] kd = (char[]) keyValue.getKey();
-          os.putInt(kd.length);
-          for (char d : kd) {
-            os.putChar(d);
-          }
-        } else if (keyType == MessageType.SHORT) {
-          short[] kd = (short[]) keyValue.getKey();
-          os.putInt(kd.length);
-          for (short d : kd) {
-            os.putShort(d);
-          }
-        }
+        writeKey(os, keyType, keyValue.getKey(),
+            keyType == MessageType.OBJECT ? byteKeys.get(i) : null);
         os.putInt(sizes.get(i));
         os.put(r, 0, sizes.get(i));
       }
@@ -158,6 +116,164 @@ public final class FileLoader {
     }
   }
 
+  /**
+   * Save the list of records to the file system in compressed blocks. A block holds whole
+   * records, so a file can be read from any block boundary.
+   * @param records records to be written
+   * @param sizes sizes of the records
+   * @param outFileName out file name
+   * @param codec the codec to compress the blocks
+   * @param blockSize size of a block before compression
+   * @return the number of bytes written
+   */
+  public static int saveObjects(List<byte[]> records, List<Integer> sizes, String outFileName,
+                                SpillCodec codec, int blockSize) {
+    try {
+      BlockWriter writer = new BlockWriter(outFileName, codec, blockSize);
+      for (int i = 0; i < records.size(); i++) {
+        int recordSize = sizes.get(i);
+        ByteBuffer os = writer.reserve(4 + recordSize);
+        os.putInt(recordSize);
+        os.put(records.get(i), 0, recordSize);
+      }
+      return writer.close();
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, "Failed write to disc", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Save the list of key values to the file system in compressed blocks. A block holds whole
+   * records, so a file can be read from any block boundary.
+   * @param records records to be written
+   * @param sizes sizes of the values
+   * @param outFileName out file name
+   * @param codec the codec to compress the blocks
+   * @param blockSize size of a block before compression
+   * @return the number of bytes written
+   */
+  public static int saveKeyValues(List<KeyValue> records, List<Integer> sizes,
+                                  String outFileName, MessageType keyType,
+                                  KryoMemorySerializer serializer,
+                                  SpillCodec codec, int blockSize) {
+    try {
+      BlockWriter writer = new BlockWriter(outFileName, codec, blockSize);
+      for (int i = 0; i < records.size(); i++) {
+        KeyValue keyValue = records.get(i);
+        byte[] objectKey = null;
+        int keySize;
+        if (keyType == MessageType.OBJECT) {
+          objectKey = serializer.serialize(keyValue.getKey());
+          keySize = objectKey.length;
+        } else {
+          keySize = keySize(keyType, keyValue.getKey());
+        }
+
+        int recordSize = sizes.get(i);
+        ByteBuffer os = writer.reserve(8 + keySize + recordSize);
+        writeKey(os, keyType, keyValue.getKey(), objectKey);
+        os.putInt(recordSize);
+        os.put((byte[]) keyValue.getValue(), 0, recordSize);
+      }
+      return writer.close();
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, "Failed write to disc", e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * The number of bytes needed for a key, not including its length
+   */
+  private static int keySize(MessageType keyType, Object key) {
+    if (keyType == MessageType.BYTE) {
+      return ((byte[]) key).length;
+    } else if (keyType == MessageType.DOUBLE) {
+      return ((double[]) key).length * 8;
+    } else if (keyType == MessageType.INTEGER) {
+      return ((int[]) key).length * 4;
+    } else if (keyType == MessageType.LONG) {
+      return ((long[]) key).length * 8;
+    } else if (keyType == MessageType.CHAR) {
+      return ((char[]) key).length * 2;
+    } else if (keyType == MessageType.SHORT) {
+      return ((short[]) key).length * 2;
+    }
+    return 0;
+  }
+
+  /**
+   * Write the key with its length
+   * @param objectKey the serialized key if the key type is object
+   */
+  private static void writeKey(ByteBuffer os, MessageType keyType, Object key,
+                               byte[] objectKey) {
+    if (keyType == MessageType.OBJECT) {
+      os.putInt(objectKey.length);
+      os.put(objectKey);
+    } else if (keyType == MessageType.BYTE) {
+      byte[] kd = (byte[]) key;
+      os.putInt(kd.length);
+      os.put(kd);
+    } else if (keyType == MessageType.DOUBLE) {
+      double[] kd = (double[]) key;
+      os.putInt(kd.length);
+      for (double d : kd) {
+        os.putDouble(d);
+      }
+    } else if (keyType == MessageType.INTEGER) {
+      int[] kd = (int[]) key;
+      os.putInt(kd.length);
+      for (int d : kd) {
+        os.putInt(d);
+      }
+    } else if (keyType == MessageType.LONG) {
+      long[] kd = (long[]) key;
+      os.putInt(kd.length);
+      for (long d : kd) {
+        os.putLong(d);
+      }
+    } else if (keyType == MessageType.CHAR) {
+      char[] kd = (char[]) key;
+      os.putInt(kd.length);
+      for (char d : kd) {
+        os.putChar(d);
+      }
+    } else if (keyType == MessageType.SHORT) {
+      short[] kd = (short[]) key;
+      os.putInt(kd.length);
+      for (short d : kd) {
+        os.putShort(d);
+      }
+    }
+  }
+
+  /**
+   * Save the packed records to the file system in their sorted order, in compressed blocks
+   * @param records the sorted records
+   * @param outFileName out file name
+   * @param codec the codec to compress the blocks
+   * @param blockSize size of a block before compression
+   * @return the number of bytes written
+   */
+  public static int saveSortedRecords(PackedRecords records, String outFileName,
+                                      SpillCodec codec, int blockSize) {
+    try {
+      BlockWriter writer = new BlockWriter(outFileName, codec, blockSize);
+      byte[] src = records.getBuffer().array();
+      for (int i = 0; i < records.count(); i++) {
+        int offset = records.offset(i);
+        int recordSize = records.recordSize(offset);
+        writer.reserve(recordSize).put(src, offset, recordSize);
+      }
+      return writer.close();
+    } catch (IOException e) {
+      LOG.log(Level.SEVERE, "Failed write to disc", e);
+      throw new RuntimeException(e);
+    }
+  }
+
   public static List<KeyValue> readFile(String fileName, MessageType keyType,
                                         MessageType dataType, KryoMemorySerializer deserializer) {
     String outFileName = Paths.get(fileName).toString();
@@ -212,8 +328,93 @@ public final class FileLoader {
     }
   }
 
-  private static Object deserialize(MessageType dataType, KryoMemorySerializer deserializer,
-                                    ByteBuffer os, int dataSize) {
+  /**
+   * Read a file saved in compressed blocks
+   */
+  public static List<KeyValue> readFile(String fileName, MessageType keyType,
+                                        MessageType dataType, KryoMemorySerializer deserializer,
+                                        SpillCodec codec) {
+    try {
+      BlockReader reader = new BlockReader(fileName, codec, 0);
+      List<KeyValue> keyValues = new ArrayList<>();
+      ByteBuffer block = reader.next();
+      while (block != null) {
+        readKeyValues(block, keyValues, keyType, dataType, deserializer);
+        block = reader.next();
+      }
+      reader.close();
+      return keyValues;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Read a file saved in compressed blocks
+   */
+  public static List<Object> readFile(String fileName, MessageType dataType,
+                                      KryoMemorySerializer deserializer, SpillCodec codec) {
+    try {
+      BlockReader reader = new BlockReader(fileName, codec, 0);
+      List<Object> values = new ArrayList<>();
+      ByteBuffer block = reader.next();
+      while (block != null) {
+        while (block.hasRemaining()) {
+          int dataSize = block.getInt();
+          values.add(deserialize(dataType, deserializer, block, dataSize));
+        }
+        block = reader.next();
+      }
+      reader.close();
+      return values;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Read the blocks of a file saved in compressed blocks, starting from a block boundary
+   * until at least max size bytes of the file are read
+   * @return the key values, the offset of the next block and the size of the file
+   */
+  public static Triple<List<KeyValue>, Long, Long> openFilePart(String fileName, long startOffSet,
+                                                                int maxSize, MessageType keyType,
+                                                                MessageType dataType,
+                                                                KryoMemorySerializer deserializer,
+                                                                SpillCodec codec) {
+    try {
+      BlockReader reader = new BlockReader(fileName, codec, startOffSet);
+      List<KeyValue> keyValues = new ArrayList<>();
+      while (reader.position() - startOffSet < maxSize) {
+        ByteBuffer block = reader.next();
+        if (block == null) {
+          break;
+        }
+        readKeyValues(block, keyValues, keyType, dataType, deserializer);
+      }
+      long fileSize = reader.size();
+      reader.close();
+      return new ImmutableTriple<>(keyValues, reader.position(), fileSize);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void readKeyValues(ByteBuffer block, List<KeyValue> keyValues,
+                                    MessageType keyType, MessageType dataType,
+                                    KryoMemorySerializer deserializer) {
+    while (block.hasRemaining()) {
+      int keySize = block.getInt();
+      Object key = deserialize(keyType, deserializer, block, keySize);
+
+      int dataSize = block.getInt();
+      Object value = deserialize(dataType, deserializer, block, dataSize);
+      keyValues.add(new KeyValue(key, value));
+    }
+  }
+
+  static Object deserialize(MessageType dataType, KryoMemorySerializer deserializer,
+                            ByteBuffer os, int dataSize) {
     Object data = null;
     if (dataType == MessageType.OBJECT) {
       byte[] bytes = new byte[dataSize];
@@ -342,4 +543,82 @@ public final class FileLoader {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Writes records to a file in blocks, each block is written as the compressed length, the
+   * original length and the compressed bytes
+   */
+  private static final class BlockWriter {
+    private final FileChannel channel;
+
+    private final SpillCodec codec;
+
+    private final int blockSize;
+
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+
+    private ByteBuffer block;
+
+    private byte[] compressed = new byte[0];
+
+    private int written = 0;
+
+    private BlockWriter(String fileName, SpillCodec codec, int blockSize) throws IOException {
+      this.channel = new RandomAccessFile(fileName, "rw").getChannel();
+      // the file may be left from an earlier run
+      this.channel.truncate(0);
+      this.codec = codec;
+      this.blockSize = blockSize;
+      this.block = ByteBuffer.allocate(blockSize);
+    }
+
+    /**
+     * Get the buffer to write a record of the given size
+     */
+    private ByteBuffer reserve(int size) throws IOException {
+      if (block.position() > 0 && block.remaining() < size) {
+        flush();
+      }
+      // a record larger than a block gets a block of its own
+      if (block.remaining() < size) {
+        block = ByteBuffer.allocate(size);
+      }
+      return block;
+    }
+
+    private void flush() throws IOException {
+      int length = block.position();
+      if (length == 0) {
+        return;
+      }
+
+      int maxLength = codec.maxCompressedLength(length);
+      if (compressed.length < maxLength) {
+        compressed = new byte[maxLength];
+      }
+      int compressedLength = codec.compress(block.array(), 0, length, compressed, 0);
+
+      header.clear();
+      header.putInt(compressedLength);
+      header.putInt(length);
+      header.flip();
+      ByteBuffer body = ByteBuffer.wrap(compressed, 0, compressedLength);
+      ByteBuffer[] buffers = new ByteBuffer[]{header, body};
+      while (body.hasRemaining()) {
+        channel.write(buffers);
+      }
+      written += BLOCK_HEADER_SIZE + compressedLength;
+
+      block.clear();
+      if (block.capacity() > blockSize) {
+        block = ByteBuffer.allocate(blockSize);
+      }
+    }
+
+    private int close() throws IOException {
+      flush();
+      channel.close();
+      return written;
+    }
+  }
 }
@@ -0,0 +1,94 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+/**
+ * A tournament tree of losers for merging k sorted runs. The internal nodes keep the loser of
+ * the match played at that node, so after the winner advances only the matches on the path from
+ * its leaf to the root are replayed, which takes log k comparisons and no allocations.
+ *
+ * Runs with equal keys are ordered by their index so the merge is stable.
+ */
+public class LoserTree {
+  private final SortedRun[] runs;
+
+  /**
+   * Index of the losing run at each internal node, the overall winner is kept at 0
+   */
+  private final int[] losers;
+
+  public LoserTree(SortedRun[] runs) {
+    this.runs = runs;
+    int k = runs.length;
+    this.losers = new int[Math.max(k, 1)];
+    if (k == 0) {
+      losers[0] = -1;
+      return;
+    }
+
+    // play all the matches bottom up, leaves are at k to 2k - 1
+    int[] winners = new int[2 * k];
+    for (int i = 0; i < k; i++) {
+      winners[k + i] = i;
+    }
+    for (int node = k - 1; node >= 1; node--) {
+      int left = winners[2 * node];
+      int right = winners[2 * node + 1];
+      if (beats(left, right)) {
+        winners[node] = left;
+        losers[node] = right;
+      } else {
+        winners[node] = right;
+        losers[node] = left;
+      }
+    }
+    losers[0] = k == 1 ? 0 : winners[1];
+  }
+
+  /**
+   * The run with the smallest current record
+   * @return the run index or -1 if all the runs are exhausted
+   */
+  public int winner() {
+    int w = losers[0];
+    if (w < 0 || runs[w].isExhausted()) {
+      return -1;
+    }
+    return w;
+  }
+
+  /**
+   * Replay the matches of the winner after it has advanced to its next record
+   */
+  public void replay() {
+    int w = losers[0];
+    for (int node = (w + runs.length) / 2; node >= 1; node /= 2) {
+      if (beats(losers[node], w)) {
+        int t = losers[node];
+        losers[node] = w;
+        w = t;
+      }
+    }
+    losers[0] = w;
+  }
+
+  private boolean beats(int a, int b) {
+    if (runs[a].isExhausted()) {
+      return false;
+    }
+    if (runs[b].isExhausted()) {
+      return true;
+    }
+    int c = runs[a].compareTo(runs[b]);
+    return c < 0 || (c == 0 && a < b);
+  }
+}
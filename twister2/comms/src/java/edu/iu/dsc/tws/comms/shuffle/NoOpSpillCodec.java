@@ -0,0 +1,34 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+/**
+ * Copies the blocks as they are
+ */
+public class NoOpSpillCodec implements SpillCodec {
+  @Override
+  public int maxCompressedLength(int length) {
+    return length;
+  }
+
+  @Override
+  public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+    System.arraycopy(src, srcOffset, dest, destOffset, length);
+    return length;
+  }
+
+  @Override
+  public void decompress(byte[] src, int srcOffset, int compressedLength,
+                         byte[] dest, int destOffset, int length) {
+    System.arraycopy(src, srcOffset, dest, destOffset, length);
+  }
+}
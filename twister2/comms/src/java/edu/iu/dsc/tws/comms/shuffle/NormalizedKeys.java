@@ -0,0 +1,157 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+
+/**
+ * Encodes keys to bytes so that comparing the bytes as unsigned values gives the order of the
+ * keys. Integers and longs are written big endian with the sign bit flipped, strings as UTF-8
+ * and byte arrays as they are. The first 8 bytes of a key are used as a prefix that can be
+ * compared as a single long.
+ */
+public final class NormalizedKeys {
+  private NormalizedKeys() {
+  }
+
+  /**
+   * Whether the key is a single Integer or Long, which is decoded back to the same type
+   */
+  public static boolean isScalar(Object key) {
+    return key instanceof Integer || key instanceof Long;
+  }
+
+  /**
+   * Whether the keys of this type can be compared as bytes
+   * @param keyType key type
+   * @return true if supported
+   */
+  public static boolean isSupported(MessageType keyType) {
+    return keyType == MessageType.INTEGER || keyType == MessageType.LONG
+        || keyType == MessageType.STRING || keyType == MessageType.BYTE;
+  }
+
+  /**
+   * Encode a key
+   * @param key the key, an int, int[], long, long[], String or byte[] according to the type
+   * @param keyType key type
+   * @return the encoded bytes
+   */
+  public static byte[] encode(Object key, MessageType keyType) {
+    if (keyType == MessageType.INTEGER) {
+      int[] ints = key instanceof Integer ? new int[]{(Integer) key} : (int[]) key;
+      ByteBuffer buffer = ByteBuffer.allocate(ints.length * 4);
+      for (int i : ints) {
+        buffer.putInt(i ^ Integer.MIN_VALUE);
+      }
+      return buffer.array();
+    } else if (keyType == MessageType.LONG) {
+      long[] longs = key instanceof Long ? new long[]{(Long) key} : (long[]) key;
+      ByteBuffer buffer = ByteBuffer.allocate(longs.length * 8);
+      for (long l : longs) {
+        buffer.putLong(l ^ Long.MIN_VALUE);
+      }
+      return buffer.array();
+    } else if (keyType == MessageType.STRING) {
+      return ((String) key).getBytes(StandardCharsets.UTF_8);
+    } else if (keyType == MessageType.BYTE) {
+      return (byte[]) key;
+    }
+    throw new RuntimeException("Un-supported key type: " + keyType);
+  }
+
+  /**
+   * Decode a key, integers and longs are returned as arrays
+   * @param buffer the buffer with the key
+   * @param position position of the key
+   * @param length length of the key in bytes
+   * @param keyType key type
+   * @return the key
+   */
+  public static Object decode(ByteBuffer buffer, int position, int length, MessageType keyType) {
+    return decode(buffer, position, length, keyType, false);
+  }
+
+  /**
+   * Decode a key
+   * @param buffer the buffer with the key
+   * @param position position of the key
+   * @param length length of the key in bytes
+   * @param keyType key type
+   * @param scalar return an integer or long key as an Integer or a Long instead of an array
+   * @return the key
+   */
+  public static Object decode(ByteBuffer buffer, int position, int length, MessageType keyType,
+                              boolean scalar) {
+    if (scalar && keyType == MessageType.INTEGER) {
+      return buffer.getInt(position) ^ Integer.MIN_VALUE;
+    } else if (scalar && keyType == MessageType.LONG) {
+      return buffer.getLong(position) ^ Long.MIN_VALUE;
+    } else if (keyType == MessageType.INTEGER) {
+      int[] ints = new int[length / 4];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = buffer.getInt(position + i * 4) ^ Integer.MIN_VALUE;
+      }
+      return ints;
+    } else if (keyType == MessageType.LONG) {
+      long[] longs = new long[length / 8];
+      for (int i = 0; i < longs.length; i++) {
+        longs[i] = buffer.getLong(position + i * 8) ^ Long.MIN_VALUE;
+      }
+      return longs;
+    }
+
+    byte[] bytes = new byte[length];
+    ByteBuffer src = buffer.duplicate();
+    src.position(position);
+    src.get(bytes);
+    if (keyType == MessageType.STRING) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
+  /**
+   * The first 8 bytes of the key as a long, padded with zeros. Compare with
+   * {@link Long#compareUnsigned(long, long)}
+   */
+  public static long prefix(ByteBuffer buffer, int position, int length) {
+    long prefix = 0;
+    for (int i = 0; i < 8; i++) {
+      prefix <<= 8;
+      if (i < length) {
+        prefix |= buffer.get(position + i) & 0xFF;
+      }
+    }
+    return prefix;
+  }
+
+  /**
+   * Compare two encoded keys byte by byte, a key is smaller than the longer keys it is a
+   * prefix of
+   */
+  public static int compare(ByteBuffer a, int aPosition, int aLength,
+                            ByteBuffer b, int bPosition, int bLength) {
+    int length = Math.min(aLength, bLength);
+    for (int i = 0; i < length; i++) {
+      int x = a.get(aPosition + i) & 0xFF;
+      int y = b.get(bPosition + i) & 0xFF;
+      if (x != y) {
+        return x - y;
+      }
+    }
+    return aLength - bLength;
+  }
+}
@@ -0,0 +1,251 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Serialized records packed in to a single byte array. Each record is written as the key length,
+ * the encoded key, the data length and the data, which is also the layout of a spill file.
+ *
+ * The records are sorted through an index of record offsets and key prefixes, so sorting only
+ * moves primitives and the full keys are compared only when the prefixes are equal. If a key
+ * comparator is given, the keys are kept as objects as well and compared with the comparator
+ * instead of as bytes.
+ */
+public class PackedRecords {
+  private static final int INITIAL_BYTES = 64 * 1024;
+
+  private static final int INITIAL_RECORDS = 1024;
+
+  // below this size we use insertion sort
+  private static final int INSERTION_SORT_SIZE = 16;
+
+  private byte[] bytes = new byte[INITIAL_BYTES];
+
+  private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+  // number of bytes used
+  private int size;
+
+  private int count;
+
+  private int[] offsets = new int[INITIAL_RECORDS];
+
+  private long[] prefixes = new long[INITIAL_RECORDS];
+
+  /**
+   * The key comparator, null if the keys are compared as bytes
+   */
+  private final Comparator<Object> keyComparator;
+
+  /**
+   * The keys as objects, only kept if there is a key comparator
+   */
+  private Object[] keys;
+
+  public PackedRecords() {
+    this(null);
+  }
+
+  public PackedRecords(Comparator<Object> comparator) {
+    this.keyComparator = comparator;
+    if (comparator != null) {
+      keys = new Object[INITIAL_RECORDS];
+    }
+  }
+
+  /**
+   * Add a record
+   * @param key the encoded key
+   * @param data data
+   * @param length length of the data
+   */
+  public void add(byte[] key, byte[] data, int length) {
+    add(null, key, data, length);
+  }
+
+  /**
+   * Add a record
+   * @param keyObject the key, needed if the keys are compared with a comparator
+   * @param key the encoded key
+   * @param data data
+   * @param length length of the data
+   */
+  public void add(Object keyObject, byte[] key, byte[] data, int length) {
+    int recordSize = 8 + key.length + length;
+    if (size + recordSize > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + recordSize));
+      buffer = ByteBuffer.wrap(bytes);
+    }
+    if (count == offsets.length) {
+      offsets = Arrays.copyOf(offsets, count * 2);
+      prefixes = Arrays.copyOf(prefixes, count * 2);
+      if (keys != null) {
+        keys = Arrays.copyOf(keys, count * 2);
+      }
+    }
+
+    int start = size;
+    buffer.putInt(size, key.length);
+    System.arraycopy(key, 0, bytes, size + 4, key.length);
+    size += 4 + key.length;
+    buffer.putInt(size, length);
+    System.arraycopy(data, 0, bytes, size + 4, length);
+    size += 4 + length;
+
+    offsets[count] = start;
+    prefixes[count] = NormalizedKeys.prefix(buffer, start + 4, key.length);
+    if (keys != null) {
+      keys[count] = keyObject;
+    }
+    count++;
+  }
+
+  /**
+   * Sort the records by the key
+   */
+  public void sort() {
+    sort(0, count - 1);
+  }
+
+  public void clear() {
+    if (keys != null) {
+      Arrays.fill(keys, 0, count, null);
+    }
+    size = 0;
+    count = 0;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public int bytes() {
+    return size;
+  }
+
+  public ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * The offset of the record at the index, in sorted order after sorting
+   */
+  public int offset(int index) {
+    return offsets[index];
+  }
+
+  /**
+   * The key object of the record at the index, null if the keys are compared as bytes
+   */
+  public Object key(int index) {
+    return keys != null ? keys[index] : null;
+  }
+
+  public Comparator<Object> getKeyComparator() {
+    return keyComparator;
+  }
+
+  /**
+   * Size of the record starting at the offset, including the lengths
+   */
+  public int recordSize(int offset) {
+    int keyLength = buffer.getInt(offset);
+    return 8 + keyLength + buffer.getInt(offset + 4 + keyLength);
+  }
+
+  private int compare(int i, int j) {
+    if (keyComparator != null) {
+      return keyComparator.compare(keys[i], keys[j]);
+    }
+    int c = Long.compareUnsigned(prefixes[i], prefixes[j]);
+    if (c != 0) {
+      return c;
+    }
+    int a = offsets[i];
+    int b = offsets[j];
+    return NormalizedKeys.compare(buffer, a + 4, buffer.getInt(a),
+        buffer, b + 4, buffer.getInt(b));
+  }
+
+  private void swap(int i, int j) {
+    int o = offsets[i];
+    offsets[i] = offsets[j];
+    offsets[j] = o;
+    long p = prefixes[i];
+    prefixes[i] = prefixes[j];
+    prefixes[j] = p;
+    if (keys != null) {
+      Object k = keys[i];
+      keys[i] = keys[j];
+      keys[j] = k;
+    }
+  }
+
+  /**
+   * Quick sort with three way partitioning, so records with equal keys are partitioned once
+   * and many equal keys do not make the sort quadratic
+   */
+  private void sort(int low, int high) {
+    while (high - low >= INSERTION_SORT_SIZE) {
+      // median of three as the pivot, moved to low
+      int mid = (low + high) >>> 1;
+      if (compare(mid, low) < 0) {
+        swap(mid, low);
+      }
+      if (compare(high, low) < 0) {
+        swap(high, low);
+      }
+      if (compare(high, mid) < 0) {
+        swap(high, mid);
+      }
+      swap(low, mid);
+
+      // records in [low, lt) are smaller than the pivot, [lt, i) equal and (gt, high] larger,
+      // the record at lt is always equal to the pivot
+      int lt = low;
+      int gt = high;
+      int i = low + 1;
+      while (i <= gt) {
+        int c = compare(i, lt);
+        if (c < 0) {
+          swap(lt, i);
+          lt++;
+          i++;
+        } else if (c > 0) {
+          swap(i, gt);
+          gt--;
+        } else {
+          i++;
+        }
+      }
+
+      // recurse in to the smaller part to bound the stack depth
+      if (lt - low < high - gt) {
+        sort(low, lt - 1);
+        low = gt + 1;
+      } else {
+        sort(gt + 1, high);
+        high = lt - 1;
+      }
+    }
+
+    for (int i = low + 1; i <= high; i++) {
+      for (int j = i; j > low && compare(j, j - 1) < 0; j--) {
+        swap(j, j - 1);
+      }
+    }
+  }
+}
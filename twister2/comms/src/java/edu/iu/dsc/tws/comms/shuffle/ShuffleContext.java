@@ -0,0 +1,52 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.core.CommunicationContext;
+
+/**
+ * Read the configuration options of the shuffle spills
+ */
+public class ShuffleContext extends CommunicationContext {
+  private static final String SPILL_SEGMENTS = "network.shuffle.spill.segments";
+  private static final String SPILL_CODEC = "network.shuffle.spill.codec";
+  private static final String SPILL_BLOCK_SIZE = "network.shuffle.spill.block.size";
+
+  public static final String CODEC_NONE = "none";
+  public static final String CODEC_LZ4 = "lz4";
+
+  public static int spillSegments(Config cfg) {
+    return cfg.getIntegerValue(SPILL_SEGMENTS, FSMerger.DEFAULT_SEGMENTS);
+  }
+
+  public static String spillCodecName(Config cfg) {
+    return cfg.getStringValue(SPILL_CODEC, CODEC_NONE);
+  }
+
+  /**
+   * Create the codec for the spill files
+   */
+  public static SpillCodec spillCodec(Config cfg) {
+    String codec = spillCodecName(cfg);
+    if (CODEC_LZ4.equals(codec)) {
+      return new LZ4SpillCodec();
+    } else if (CODEC_NONE.equals(codec)) {
+      return new NoOpSpillCodec();
+    }
+    throw new RuntimeException("Un-supported spill codec: " + codec);
+  }
+
+  public static int spillBlockSize(Config cfg) {
+    return cfg.getIntegerValue(SPILL_BLOCK_SIZE, FileLoader.DEFAULT_BLOCK_SIZE);
+  }
+}
@@ -0,0 +1,172 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+
+/**
+ * A sorted sequence of packed records, either a spill file or the sorted records in memory.
+ * The run points to its current record, which is compared with the current records of other
+ * runs without deserializing them. If there is a key comparator the current key is decoded
+ * once and compared with the comparator.
+ *
+ * A spill file is read one block at a time, so only the current block of a run is in memory.
+ */
+public class SortedRun {
+  private ByteBuffer buffer;
+
+  // the sorted records in memory, null if reading a file
+  private final PackedRecords records;
+
+  // the blocks of the spill file, null if reading from memory
+  private final BlockReader reader;
+
+  private final MessageType keyType;
+
+  // whether integer and long keys are returned as Integer and Long
+  private final boolean scalarKeys;
+
+  private final Comparator<Object> keyComparator;
+
+  // next record index in memory
+  private int next;
+
+  // position of the current record, -1 if the run is exhausted
+  private int current = -1;
+
+  private int keyLength;
+
+  private long prefix;
+
+  // the current key, only set if there is a key comparator
+  private Object key;
+
+  private SortedRun(ByteBuffer buffer, PackedRecords records, BlockReader reader,
+                    MessageType keyType, boolean scalarKeys, Comparator<Object> comparator) {
+    this.buffer = buffer;
+    this.records = records;
+    this.reader = reader;
+    this.keyType = keyType;
+    this.scalarKeys = scalarKeys;
+    this.keyComparator = comparator;
+    advance();
+  }
+
+  public static SortedRun fromMemory(PackedRecords sorted, MessageType keyType,
+                                     boolean scalarKeys) {
+    return new SortedRun(sorted.getBuffer(), sorted, null, keyType, scalarKeys,
+        sorted.getKeyComparator());
+  }
+
+  /**
+   * Read a spill file written by {@link FileLoader#saveSortedRecords}
+   */
+  public static SortedRun fromFile(String fileName, SpillCodec codec, MessageType keyType,
+                                   boolean scalarKeys, Comparator<Object> comparator) {
+    try {
+      return new SortedRun(null, null, new BlockReader(fileName, codec, 0), keyType,
+          scalarKeys, comparator);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to open the file " + fileName, e);
+    }
+  }
+
+  /**
+   * Move to the next record
+   * @return false if there are no more records
+   */
+  public boolean advance() {
+    if (records != null) {
+      if (next >= records.count()) {
+        current = -1;
+        return false;
+      }
+      current = records.offset(next);
+      key = records.key(next);
+      next++;
+    } else {
+      if (buffer == null || !buffer.hasRemaining()) {
+        buffer = nextBlock();
+        if (buffer == null) {
+          current = -1;
+          return false;
+        }
+      }
+      current = buffer.position();
+      int length = buffer.getInt(current);
+      buffer.position(current + 8 + length + buffer.getInt(current + 4 + length));
+    }
+    keyLength = buffer.getInt(current);
+    prefix = NormalizedKeys.prefix(buffer, current + 4, keyLength);
+    if (keyComparator != null && records == null) {
+      key = NormalizedKeys.decode(buffer, current + 4, keyLength, keyType, scalarKeys);
+    }
+    return true;
+  }
+
+  private ByteBuffer nextBlock() {
+    try {
+      return reader.next();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read the file", e);
+    }
+  }
+
+  public boolean isExhausted() {
+    return current < 0;
+  }
+
+  /**
+   * Compare the current records of the two runs
+   */
+  public int compareTo(SortedRun other) {
+    if (keyComparator != null) {
+      return keyComparator.compare(key, other.key);
+    }
+    int c = Long.compareUnsigned(prefix, other.prefix);
+    if (c != 0) {
+      return c;
+    }
+    return NormalizedKeys.compare(buffer, current + 4, keyLength,
+        other.buffer, other.current + 4, other.keyLength);
+  }
+
+  public Object getKey() {
+    if (key != null) {
+      return key;
+    }
+    return NormalizedKeys.decode(buffer, current + 4, keyLength, keyType, scalarKeys);
+  }
+
+  public byte[] getData() {
+    int position = current + 4 + keyLength;
+    byte[] data = new byte[buffer.getInt(position)];
+    ByteBuffer src = buffer.duplicate();
+    src.position(position + 4);
+    src.get(data);
+    return data;
+  }
+
+  public void close() {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to close the file", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,37 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+/**
+ * Compresses the blocks of a spill file
+ */
+public interface SpillCodec {
+  /**
+   * The maximum size of the compressed data
+   * @param length length of the data
+   * @return maximum compressed length
+   */
+  int maxCompressedLength(int length);
+
+  /**
+   * Compress the data
+   * @return the length of the compressed data
+   */
+  int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset);
+
+  /**
+   * Decompress the data
+   * @param length the length of the data before compression
+   */
+  void decompress(byte[] src, int srcOffset, int compressedLength,
+                  byte[] dest, int destOffset, int length);
+}
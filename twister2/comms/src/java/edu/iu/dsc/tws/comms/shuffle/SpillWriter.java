@@ -0,0 +1,168 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes full in-memory segments to disk from a dedicated thread, so the threads adding records
+ * only swap segments instead of waiting for the disk.
+ *
+ * At most a fixed number of segments can wait for the writer. When that many are pending,
+ * {@link #submit(Runnable)} returns false and the caller has to keep the records until a
+ * segment is written, which bounds the memory used for spilling. {@link #awaitSpace()} blocks
+ * the caller until the writer can take a segment again.
+ */
+public class SpillWriter {
+  private static final Logger LOG = Logger.getLogger(SpillWriter.class.getName());
+
+  /**
+   * Tells the writer thread to stop
+   */
+  private static final Runnable STOP = new Runnable() {
+    @Override
+    public void run() {
+    }
+  };
+
+  private final String name;
+
+  private final int maxPending;
+
+  private final BlockingQueue<Runnable> spills = new LinkedBlockingQueue<>();
+
+  // number of spills submitted and not yet written, guarded by this
+  private int pending = 0;
+
+  private Thread writerThread;
+
+  // set if a spill failed
+  private volatile Throwable error;
+
+  /**
+   * Create a writer
+   * @param name name of the writer thread
+   * @param maxPending maximum number of segments waiting to be written
+   */
+  public SpillWriter(String name, int maxPending) {
+    this.name = name;
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Submit a spill to be written in the order of submission
+   * @param spill writes a segment
+   * @return false if the maximum number of segments are already waiting
+   */
+  public synchronized boolean submit(Runnable spill) {
+    checkError();
+    if (pending >= maxPending) {
+      return false;
+    }
+
+    if (writerThread == null) {
+      writerThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          writeLoop();
+        }
+      }, name);
+      writerThread.setDaemon(true);
+      writerThread.start();
+    }
+    pending++;
+    spills.add(spill);
+    return true;
+  }
+
+  /**
+   * Wait until the writer can take another segment
+   */
+  public synchronized void awaitSpace() {
+    while (pending >= maxPending && error == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the spills", e);
+      }
+    }
+    checkError();
+  }
+
+  /**
+   * Whether a submit would be rejected at the moment
+   */
+  public synchronized boolean isFull() {
+    return pending >= maxPending;
+  }
+
+  /**
+   * Wait until the submitted spills are written and stop the writer thread
+   */
+  public void finish() {
+    Thread thread;
+    synchronized (this) {
+      while (pending > 0 && error == null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Interrupted while waiting for the spills", e);
+        }
+      }
+      thread = writerThread;
+      writerThread = null;
+    }
+    checkError();
+
+    if (thread != null) {
+      spills.add(STOP);
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void checkError() {
+    if (error != null) {
+      throw new RuntimeException("Failed to spill to disk", error);
+    }
+  }
+
+  private void writeLoop() {
+    try {
+      while (true) {
+        Runnable spill = spills.take();
+        if (spill == STOP) {
+          return;
+        }
+        spill.run();
+        synchronized (this) {
+          pending--;
+          notifyAll();
+        }
+      }
+    } catch (Throwable t) {
+      LOG.log(Level.SEVERE, "Failed to spill to disk", t);
+      synchronized (this) {
+        error = t;
+        notifyAll();
+      }
+    }
+  }
+}
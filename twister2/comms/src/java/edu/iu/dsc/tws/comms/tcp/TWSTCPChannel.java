@@ -27,6 +27,8 @@ import edu.iu.dsc.tws.common.net.tcp.TCPRequest;
 import edu.iu.dsc.tws.common.net.tcp.TCPStatus;
 import edu.iu.dsc.tws.comms.api.TWSChannel;
 import edu.iu.dsc.tws.comms.mpi.MPIBuffer;
+import edu.iu.dsc.tws.comms.mpi.MPIBufferArena;
+import edu.iu.dsc.tws.comms.mpi.MPIContext;
 import edu.iu.dsc.tws.comms.mpi.MPIMessage;
 import edu.iu.dsc.tws.comms.mpi.MPIMessageListener;
 
@@ -106,12 +108,24 @@ public class TWSTCPChannel implements TWSChannel {
 
   private TCPChannel comm;
 
+  /**
+   * The buffers shared by the operations using this channel
+   */
+  private MPIBufferArena bufferArena;
+
+  /**
+   * Maximum number of receives posted to a rank at a time
+   */
+  private int maxOutstandingReceives;
+
   public TWSTCPChannel(Config config, int exec, TCPChannel net) {
     this.pendingSends = new ArrayBlockingQueue<TCPSendRequests>(1024);
     this.registeredReceives = Collections.synchronizedList(new ArrayList<>(1024));
     this.waitForCompletionSends = Collections.synchronizedList(new ArrayList<>(1024));
     this.executor = exec;
     this.comm = net;
+    this.bufferArena = new MPIBufferArena(config);
+    this.maxOutstandingReceives = Math.max(1, MPIContext.receiveBufferOutstanding(config));
   }
 
   /**
@@ -153,7 +167,8 @@ public class TWSTCPChannel implements TWSChannel {
     for (int i = 0; i < message.getBuffers().size(); i++) {
       sendCount++;
       MPIBuffer buffer = message.getBuffers().get(i);
-      TCPRequest request = comm.iSend(buffer.getByteBuffer(), buffer.getSize(),
+      // the same buffers can be sent to many targets at once, so each send gets its own view
+      TCPRequest request = comm.iSend(buffer.getByteBuffer().duplicate(), buffer.getSize(),
           requests.rank, message.getHeader().getEdge());
       // register to the loop to make progress on the send
       requests.pendingSends.add(new Request(request, buffer));
@@ -161,6 +176,9 @@ public class TWSTCPChannel implements TWSChannel {
   }
 
   private void postReceive(TCPReceiveRequests requests) {
+    if (requests.pendingRequests.size() >= maxOutstandingReceives) {
+      return;
+    }
     MPIBuffer byteBuffer = requests.availableBuffers.poll();
     if (byteBuffer != null) {
       // post the receive
@@ -180,6 +198,11 @@ public class TWSTCPChannel implements TWSChannel {
     return comm.iRecv(byteBuffer.getByteBuffer(), byteBuffer.getCapacity(), rank, stream);
   }
 
+  @Override
+  public MPIBufferArena getBufferArena() {
+    return bufferArena;
+  }
+
   private int completedReceives = 0;
   /**
    * Progress the communications that are pending
@@ -12,40 +12,116 @@
 package edu.iu.dsc.tws.comms.utils;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.core.CommunicationContext;
+
+/**
+ * Kryo based serializer. An instance is not thread safe, a thread should own the instance
+ * it uses or borrow one from a {@link KryoSerializerPool}.
+ */
 public class KryoSerializer {
+  private static final int INITIAL_BUFFER_SIZE = 2000;
+
+  private static final int MAX_BUFFER_SIZE = 2000000000;
+
+  // we don't keep the reused output buffer around if it grows beyond this
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final int INPUT_BUFFER_SIZE = 4096;
+
   private Kryo kryo;
   private Output kryoOut;
   private Input kryoIn;
 
+  // output reused across messages, the bytes are valid until the next serializeToOutput
+  private Output reusedOut;
+
+  // input reused for reading from streams
+  private Input streamIn;
+
   public KryoSerializer() {
     kryo = new Kryo();
     kryo.setReferences(false);
-    kryoOut = new Output(2000, 2000000000);
+    kryoOut = new Output(INITIAL_BUFFER_SIZE, MAX_BUFFER_SIZE);
     kryoIn = new Input(1);
+    reusedOut = new Output(INITIAL_BUFFER_SIZE, MAX_BUFFER_SIZE);
+    streamIn = new Input(INPUT_BUFFER_SIZE);
+  }
+
+  /**
+   * Create a serializer with the classes registered in the configuration
+   */
+  public KryoSerializer(Config cfg) {
+    this();
+    if (cfg != null) {
+      registerClasses(CommunicationContext.kryoRegisteredClasses(cfg));
+    }
   }
 
   public void init(Map<String, Object> config) {
   }
 
+  /**
+   * Register the classes with kryo, all the workers must register the same classes in
+   * the same order
+   *
+   * @param classNames fully qualified class names
+   */
+  public void registerClasses(List<String> classNames) {
+    if (classNames == null) {
+      return;
+    }
+    for (String name : classNames) {
+      try {
+        kryo.register(Class.forName(name));
+      } catch (ClassNotFoundException e) {
+        throw new RuntimeException("Failed to register the class for serialization: " + name, e);
+      }
+    }
+  }
+
   public byte[] serialize(Object object) {
     kryoOut.clear();
     kryo.writeClassAndObject(kryoOut, object);
     return kryoOut.toBytes();
   }
 
+  /**
+   * Serialize the object without copying the bytes out of kryo. The serialized bytes are
+   * from 0 to the position of the returned output and are overwritten by the next call to
+   * this method.
+   *
+   * @param object the object
+   * @return the output holding the serialized bytes
+   */
+  public Output serializeToOutput(Object object) {
+    if (reusedOut.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+      reusedOut.setBuffer(new byte[INITIAL_BUFFER_SIZE], MAX_BUFFER_SIZE);
+    }
+    reusedOut.clear();
+    kryo.writeClassAndObject(reusedOut, object);
+    return reusedOut;
+  }
+
   public Object deserialize(byte[] input) {
     kryoIn.setBuffer(input);
     return kryo.readClassAndObject(kryoIn);
   }
 
   public Object deserialize(InputStream inputStream) {
-    Input input = new Input(inputStream);
-    return kryo.readClassAndObject(input);
+    streamIn.setInputStream(inputStream);
+    try {
+      return kryo.readClassAndObject(streamIn);
+    } finally {
+      // don't hold on to the stream
+      streamIn.setInputStream(null);
+    }
   }
 }
@@ -0,0 +1,53 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import edu.iu.dsc.tws.common.config.Config;
+
+/**
+ * A thread safe pool of serializers. Creating a kryo instance is expensive, so threads that
+ * serialize now and then borrow a serializer and return it when they are done.
+ */
+public class KryoSerializerPool {
+  private final Queue<KryoSerializer> serializers = new ConcurrentLinkedQueue<>();
+
+  private final Config config;
+
+  public KryoSerializerPool(Config cfg) {
+    this.config = cfg;
+  }
+
+  /**
+   * Borrow a serializer, a new one is created if none is free
+   *
+   * @return the serializer
+   */
+  public KryoSerializer borrow() {
+    KryoSerializer serializer = serializers.poll();
+    if (serializer == null) {
+      serializer = new KryoSerializer(config);
+    }
+    return serializer;
+  }
+
+  /**
+   * Return a serializer to the pool, it should not be used after this
+   *
+   * @param serializer the serializer
+   */
+  public void release(KryoSerializer serializer) {
+    serializers.offer(serializer);
+  }
+}
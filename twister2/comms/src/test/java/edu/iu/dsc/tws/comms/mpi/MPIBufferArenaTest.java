@@ -0,0 +1,172 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.comms.mpi.io.MPIMessageSerializer;
+import edu.iu.dsc.tws.comms.utils.KryoSerializer;
+
+public class MPIBufferArenaTest {
+
+  @Test
+  public void testLeaseSmallestSizeClass() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    Assert.assertEquals(1024, arena.lease(0, 1).getCapacity());
+    Assert.assertEquals(1024, arena.lease(0, 1024).getCapacity());
+    Assert.assertEquals(2048, arena.lease(0, 1025).getCapacity());
+    Assert.assertEquals(8192, arena.lease(0, 8000).getCapacity());
+    Assert.assertEquals(1024 + 1024 + 2048 + 8192, arena.getLeasedBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLeaseLargerThanMaximum() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    arena.lease(0, 8193);
+  }
+
+  @Test
+  public void testReleasedBuffersAreReused() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    MPIBuffer buffer = arena.lease(0, 100);
+    buffer.setSize(100);
+    arena.release(0, buffer);
+    Assert.assertEquals(0, arena.getLeasedBytes());
+
+    MPIBuffer again = arena.lease(1, 1000);
+    Assert.assertSame(buffer, again);
+    Assert.assertEquals(0, again.getSize());
+    Assert.assertEquals(1024, arena.getAllocatedBytes());
+  }
+
+  @Test
+  public void testEdgeQuota() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 2048, 0);
+    MPIBuffer first = arena.lease(0, 1024);
+    Assert.assertNotNull(arena.lease(0, 1024));
+    Assert.assertNull(arena.lease(0, 1024));
+    // other edges have their own quota
+    Assert.assertNotNull(arena.lease(1, 1024));
+
+    arena.release(0, first);
+    Assert.assertNotNull(arena.lease(0, 1024));
+    Assert.assertEquals(2048, arena.getUsage(0).getPeakBytes());
+    Assert.assertEquals(2, arena.getUsage(0).getPeakBuffers());
+  }
+
+  @Test
+  public void testReceiveQuotaIsSeparate() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 1024, 2048, 0);
+    Assert.assertNotNull(arena.lease(0, 1024));
+    Assert.assertNull(arena.lease(0, 1024));
+
+    // receives are not limited by the sends of the edge
+    MPIBuffer receive = arena.lease(0, 1024, true);
+    Assert.assertNotNull(receive);
+    Assert.assertNotNull(arena.lease(0, 1024, true));
+    Assert.assertNull(arena.lease(0, 1024, true));
+    Assert.assertEquals(1024, arena.getUsage(0).getCurrentBytes());
+    Assert.assertEquals(2048, arena.getReceiveUsage(0).getCurrentBytes());
+
+    arena.release(0, receive, true);
+    Assert.assertEquals(1024, arena.getReceiveUsage(0).getCurrentBytes());
+    Assert.assertEquals(1024, arena.getUsage(0).getCurrentBytes());
+  }
+
+  @Test
+  public void testArenaLimit() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 3072);
+    Assert.assertNotNull(arena.lease(0, 2048));
+    Assert.assertNotNull(arena.lease(1, 1024, true));
+    Assert.assertNull(arena.lease(2, 1024));
+    Assert.assertEquals(0, arena.getUsage(2).getCurrentBytes());
+    Assert.assertEquals(3072, arena.getLeasedBytes());
+  }
+
+  @Test
+  public void testQueueLimit() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    MPIBufferArenaQueue queue = new MPIBufferArenaQueue(arena, 0, 2048, 2, true);
+    Assert.assertEquals(2, queue.size());
+    MPIBuffer first = queue.poll();
+    Assert.assertNotNull(first);
+    Assert.assertNotNull(queue.poll());
+    Assert.assertNull(queue.poll());
+    Assert.assertEquals(0, queue.size());
+    Assert.assertEquals(4096, arena.getReceiveUsage(0).getCurrentBytes());
+    Assert.assertEquals(0, arena.getUsage(0).getCurrentBytes());
+
+    Assert.assertTrue(queue.offer(first));
+    Assert.assertEquals(1, queue.size());
+    Assert.assertEquals(2048, arena.getReceiveUsage(0).getCurrentBytes());
+    Assert.assertNotNull(queue.poll());
+  }
+
+  @Test
+  public void testQueueRejectsBuffersItDidNotLease() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    MPIBufferArenaQueue queue = new MPIBufferArenaQueue(arena, 0, 2048, 2);
+    Assert.assertFalse(queue.offer(new MPIBuffer(2048)));
+    Assert.assertEquals(2, queue.size());
+  }
+
+  @Test
+  public void testQueueGivesBackLeaseWhenArenaIsFull() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 2048, 0);
+    MPIBufferArenaQueue queue = new MPIBufferArenaQueue(arena, 0, 2048, 4);
+    Assert.assertNotNull(queue.poll());
+    Assert.assertNull(queue.poll());
+    Assert.assertEquals(3, queue.size());
+  }
+
+  @Test
+  public void testQueueLeasesBySize() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    MPIBufferArenaQueue queue = new MPIBufferArenaQueue(arena, 0, 4096, 4);
+    Assert.assertEquals(1024, queue.poll(100).getCapacity());
+    Assert.assertEquals(2048, queue.poll(2000).getCapacity());
+    // never larger than the buffer size of the view
+    Assert.assertEquals(4096, queue.poll(8000).getCapacity());
+    Assert.assertEquals(4096, queue.poll().getCapacity());
+    Assert.assertEquals(1024 + 2048 + 4096 + 4096, arena.getUsage(0).getCurrentBytes());
+  }
+
+  @Test
+  public void testSerializerLeasesBufferForMessageSize() {
+    MPIBufferArena arena = new MPIBufferArena(1024, 8192, 0, 0);
+    MPIBufferArenaQueue queue = new MPIBufferArenaQueue(arena, 0, 8192, 4);
+    MPIMessageSerializer serializer = new MPIMessageSerializer(new KryoSerializer());
+    serializer.init(Config.newBuilder().build(), queue, false);
+
+    MPISendMessage small = sendMessage(MessageType.INTEGER);
+    serializer.build(new int[10], small);
+    Assert.assertTrue(small.getMPIMessage().isComplete());
+    Assert.assertEquals(1, small.getMPIMessage().getBuffers().size());
+    Assert.assertEquals(1024, small.getMPIMessage().getBuffers().get(0).getCapacity());
+
+    MPISendMessage large = sendMessage(MessageType.INTEGER);
+    serializer.build(new int[1000], large);
+    Assert.assertTrue(large.getMPIMessage().isComplete());
+    Assert.assertEquals(1, large.getMPIMessage().getBuffers().size());
+    Assert.assertEquals(4096, large.getMPIMessage().getBuffers().get(0).getCapacity());
+  }
+
+  private static MPISendMessage sendMessage(MessageType type) {
+    MPIMessage message = new MPIMessage(0, type, MPIMessageDirection.OUT, null);
+    return new MPISendMessage(0, message, 0, -1, 0, 0, new HashSet<>(), new HashSet<>());
+  }
+}
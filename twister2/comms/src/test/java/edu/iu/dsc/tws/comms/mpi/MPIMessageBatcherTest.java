@@ -0,0 +1,166 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.MessageFlags;
+
+public class MPIMessageBatcherTest {
+
+  private static final class Collector implements MPIMessageBatcher.Receiver {
+    private final List<Object> messages = new ArrayList<>();
+    private final List<Integer> flags = new ArrayList<>();
+    private int capacity = Integer.MAX_VALUE;
+
+    @Override
+    public boolean onMessage(Object message, int f) {
+      if (messages.size() >= capacity) {
+        return false;
+      }
+      messages.add(message);
+      flags.add(f);
+      return true;
+    }
+  }
+
+  private static Config config(int count) {
+    return Config.newBuilder()
+        .put("network.batch.max.count", count)
+        .put("network.batch.max.bytes", 1L << 20)
+        .put("network.batch.linger.nanos", Long.MAX_VALUE)
+        .build();
+  }
+
+  private static RoutingParameters routing(int destination) {
+    return new RoutingParameters(new HashSet<Integer>(), new HashSet<Integer>(), destination);
+  }
+
+  @Test
+  public void testBatchIsMarked() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(2), op);
+    Assert.assertTrue(batcher.send(0, "a", 1, 0, routing(1)));
+    Assert.assertTrue(batcher.hasPending());
+    Assert.assertTrue(batcher.send(0, "b", 1, 0, routing(1)));
+
+    Assert.assertEquals(1, op.messages.size());
+    Assert.assertEquals(Arrays.asList("a", "b"), op.messages.get(0));
+    Assert.assertEquals(1, (int) op.paths.get(0));
+    Assert.assertEquals(MessageFlags.FLAGS_MULTI_MSG, (int) op.flags.get(0));
+    Assert.assertFalse(batcher.hasPending());
+  }
+
+  @Test
+  public void testFlagsEndBatch() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(10), op);
+    batcher.send(0, "a", 0, 0, routing(1));
+    batcher.send(0, "b", 0, MessageFlags.FLAGS_LAST, routing(1));
+
+    Assert.assertEquals(1, op.messages.size());
+    int flags = op.flags.get(0);
+    Assert.assertEquals(MessageFlags.FLAGS_LAST | MessageFlags.FLAGS_MULTI_MSG, flags);
+
+    Collector collector = new Collector();
+    Assert.assertTrue(batcher.deliver(0, 1, flags, op.messages.get(0), collector));
+    Assert.assertEquals(Arrays.<Object>asList("a", "b"), collector.messages);
+    Assert.assertEquals(Arrays.asList(0, MessageFlags.FLAGS_LAST), collector.flags);
+  }
+
+  @Test
+  public void testPathsAreNotMixed() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(2), op);
+    batcher.send(0, "a", 1, 0, routing(1));
+    batcher.send(0, "b", 2, 0, routing(1));
+    Assert.assertTrue(op.messages.isEmpty());
+
+    batcher.send(0, "c", 2, 0, routing(1));
+    Assert.assertEquals(1, op.messages.size());
+    Assert.assertEquals(2, (int) op.paths.get(0));
+    Assert.assertEquals(Arrays.asList("b", "c"), op.messages.get(0));
+
+    batcher.send(0, "d", 1, 0, routing(1));
+    Assert.assertEquals(2, op.messages.size());
+    Assert.assertEquals(1, (int) op.paths.get(1));
+    Assert.assertEquals(Arrays.asList("a", "d"), op.messages.get(1));
+  }
+
+  @Test
+  public void testUserListIsNotBatch() {
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(2), new RecordingOperation());
+    List<String> list = Arrays.asList("a", "b");
+    Collector collector = new Collector();
+    Assert.assertTrue(batcher.deliver(0, 1, MessageFlags.FLAGS_LAST, list, collector));
+    Assert.assertEquals(1, collector.messages.size());
+    Assert.assertSame(list, collector.messages.get(0));
+    Assert.assertEquals(MessageFlags.FLAGS_LAST, (int) collector.flags.get(0));
+  }
+
+  @Test
+  public void testPartialDeliveryResumes() {
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(4), new RecordingOperation());
+    List<String> batch = Arrays.asList("a", "b", "c");
+    Collector collector = new Collector();
+    collector.capacity = 2;
+    Assert.assertFalse(batcher.deliver(0, 1, MessageFlags.FLAGS_MULTI_MSG, batch, collector));
+    Assert.assertTrue(batcher.hasPending());
+
+    collector.capacity = Integer.MAX_VALUE;
+    Assert.assertTrue(batcher.deliver(0, 1, MessageFlags.FLAGS_MULTI_MSG, batch, collector));
+    Assert.assertEquals(Arrays.<Object>asList("a", "b", "c"), collector.messages);
+    Assert.assertFalse(batcher.hasPending());
+  }
+
+  @Test
+  public void testRefusedFlushIsRetried() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageBatcher batcher = new MPIMessageBatcher(config(1), op);
+    op.capacity = 0;
+    Assert.assertTrue(batcher.send(0, "a", 0, 0, routing(1)));
+    Assert.assertFalse(batcher.send(0, "b", 0, 0, routing(1)));
+
+    op.capacity = Integer.MAX_VALUE;
+    batcher.progress();
+    Assert.assertEquals(1, op.messages.size());
+    Assert.assertEquals(Arrays.asList("a"), op.messages.get(0));
+  }
+
+  @Test
+  public void testFullBatchRefusesUntilFlushed() {
+    RecordingOperation op = new RecordingOperation();
+    Config cfg = Config.newBuilder()
+        .put("network.batch.max.count", 100)
+        .put("network.batch.max.bytes", 8L)
+        .put("network.batch.linger.nanos", Long.MAX_VALUE)
+        .build();
+    MPIMessageBatcher batcher = new MPIMessageBatcher(cfg, op);
+    op.capacity = 0;
+    Assert.assertTrue(batcher.send(0, new byte[8], 0, 0, routing(1)));
+    // the batch has reached the byte limit and could not be sent
+    Assert.assertFalse(batcher.send(0, new byte[8], 0, 0, routing(1)));
+    Assert.assertFalse(batcher.send(0, new byte[8], 0, 0, routing(1)));
+
+    op.capacity = Integer.MAX_VALUE;
+    Assert.assertTrue(batcher.send(0, new byte[8], 0, 0, routing(1)));
+    Assert.assertEquals(2, op.messages.size());
+    Assert.assertEquals(1, ((List<?>) op.messages.get(0)).size());
+  }
+}
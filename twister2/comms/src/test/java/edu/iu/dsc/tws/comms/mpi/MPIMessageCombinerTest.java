@@ -0,0 +1,143 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.DataFlowOperation;
+import edu.iu.dsc.tws.comms.api.MessageFlags;
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.comms.api.ReduceFunction;
+import edu.iu.dsc.tws.comms.mpi.io.KeyedContent;
+
+public class MPIMessageCombinerTest {
+
+  private static final class Sum implements ReduceFunction {
+    @Override
+    public void init(Config cfg, DataFlowOperation op,
+                     Map<Integer, List<Integer>> expectedIds) {
+    }
+
+    @Override
+    public Object reduce(Object t1, Object t2) {
+      return (Integer) t1 + (Integer) t2;
+    }
+  }
+
+  private static Config config(int maxKeys, long lingerNanos) {
+    return Config.newBuilder()
+        .put("network.combiner.max.keys", maxKeys)
+        .put("network.combiner.linger.nanos", lingerNanos)
+        .build();
+  }
+
+  private static RoutingParameters routing() {
+    return new RoutingParameters(new HashSet<Integer>(), new HashSet<Integer>(), 1);
+  }
+
+  private static KeyedContent keyed(String key, int value) {
+    return new KeyedContent(key, value, MessageType.STRING, MessageType.INTEGER);
+  }
+
+  private static Map<Object, Object> sent(RecordingOperation op) {
+    Map<Object, Object> values = new HashMap<>();
+    for (Object m : op.messages) {
+      KeyedContent kc = (KeyedContent) m;
+      values.put(kc.getSource(), kc.getObject());
+    }
+    return values;
+  }
+
+  @Test
+  public void testCombineSameKey() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageCombiner combiner = new MPIMessageCombiner(config(2, Long.MAX_VALUE), op,
+        new Sum());
+    Assert.assertTrue(combiner.send(0, keyed("a", 1), 0, 0, routing()));
+    Assert.assertTrue(combiner.send(0, keyed("a", 2), 0, 0, routing()));
+    Assert.assertTrue(combiner.send(0, keyed("b", 3), 0, 0, routing()));
+    Assert.assertTrue(op.messages.isEmpty());
+    Assert.assertTrue(combiner.hasPending());
+
+    // the third key does not fit, the table is sent first
+    Assert.assertTrue(combiner.send(0, keyed("c", 4), 0, 0, routing()));
+    Map<Object, Object> values = sent(op);
+    Assert.assertEquals(2, values.size());
+    Assert.assertEquals(3, values.get("a"));
+    Assert.assertEquals(3, values.get("b"));
+    Assert.assertTrue(combiner.hasPending());
+  }
+
+  @Test
+  public void testFlagsSentLast() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageCombiner combiner = new MPIMessageCombiner(config(16, Long.MAX_VALUE), op,
+        new Sum());
+    combiner.send(0, keyed("a", 1), 0, 0, routing());
+    combiner.send(0, keyed("b", 1), 0, 0, routing());
+    Object last = keyed("c", 1);
+    Assert.assertTrue(combiner.send(0, last, 0, MessageFlags.FLAGS_LAST, routing()));
+
+    Assert.assertEquals(3, op.messages.size());
+    Assert.assertSame(last, op.messages.get(2));
+    Assert.assertEquals(MessageFlags.FLAGS_LAST, (int) op.flags.get(2));
+    Assert.assertFalse(combiner.hasPending());
+  }
+
+  @Test
+  public void testMessageThatIsNotKeyed() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageCombiner combiner = new MPIMessageCombiner(config(16, Long.MAX_VALUE), op,
+        new Sum());
+    Assert.assertTrue(combiner.send(0, "plain", 0, 0, routing()));
+    Assert.assertEquals(1, op.messages.size());
+    Assert.assertEquals("plain", op.messages.get(0));
+    Assert.assertFalse(combiner.hasPending());
+  }
+
+  @Test
+  public void testLingerFlush() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageCombiner combiner = new MPIMessageCombiner(config(16, 0), op, new Sum());
+    combiner.send(0, keyed("a", 1), 0, 0, routing());
+    combiner.send(0, keyed("a", 1), 0, 0, routing());
+    combiner.progress();
+    Assert.assertEquals(2, sent(op).get("a"));
+    Assert.assertFalse(combiner.hasPending());
+  }
+
+  @Test
+  public void testPartialFlushIsContinued() {
+    RecordingOperation op = new RecordingOperation();
+    MPIMessageCombiner combiner = new MPIMessageCombiner(config(16, Long.MAX_VALUE), op,
+        new Sum());
+    combiner.send(0, keyed("a", 1), 0, 0, routing());
+    combiner.send(0, keyed("b", 1), 0, 0, routing());
+    op.capacity = 1;
+    Assert.assertFalse(combiner.send(0, keyed("c", 1), 0, MessageFlags.FLAGS_LAST, routing()));
+    Assert.assertTrue(combiner.hasPending());
+    // no new messages while the table is being sent
+    Assert.assertFalse(combiner.send(0, keyed("d", 1), 0, 0, routing()));
+
+    op.capacity = Integer.MAX_VALUE;
+    combiner.progress();
+    Assert.assertFalse(combiner.hasPending());
+    Assert.assertEquals(2, op.messages.size());
+  }
+}
@@ -0,0 +1,104 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MPSCQueueTest {
+
+  @Test
+  public void testBounded() {
+    MPSCQueue<Integer> queue = new MPSCQueue<>(2);
+    Assert.assertTrue(queue.offer(1));
+    Assert.assertTrue(queue.offer(2));
+    Assert.assertFalse(queue.offer(3));
+    Assert.assertEquals(2, queue.size());
+    Assert.assertEquals(0, queue.remainingCapacity());
+
+    Assert.assertEquals(Integer.valueOf(1), queue.peek());
+    Assert.assertEquals(Integer.valueOf(1), queue.poll());
+    Assert.assertEquals(1, queue.remainingCapacity());
+    Assert.assertTrue(queue.offer(3));
+    Assert.assertEquals(Integer.valueOf(2), queue.poll());
+    Assert.assertEquals(Integer.valueOf(3), queue.poll());
+    Assert.assertNull(queue.poll());
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullElement() {
+    new MPSCQueue<Integer>(2).offer(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    new MPSCQueue<Integer>(0);
+  }
+
+  /**
+   * Many producers offer while a single consumer polls, every element should be taken exactly
+   * once and the elements of a producer should come out in the order they were offered
+   */
+  @Test
+  public void testConcurrentProducers() throws InterruptedException {
+    final int producers = 4;
+    final int perProducer = 20000;
+    final MPSCQueue<int[]> queue = new MPSCQueue<>(64);
+    final CountDownLatch start = new CountDownLatch(1);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      Thread t = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < perProducer; i++) {
+            while (!queue.offer(new int[]{producer, i})) {
+              Thread.yield();
+            }
+          }
+        }
+      });
+      t.start();
+      threads.add(t);
+    }
+
+    start.countDown();
+    int[] next = new int[producers];
+    int received = 0;
+    while (received < producers * perProducer) {
+      Assert.assertTrue(queue.size() <= 64);
+      int[] e = queue.poll();
+      if (e == null) {
+        continue;
+      }
+      Assert.assertEquals(next[e[0]], e[1]);
+      next[e[0]]++;
+      received++;
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    Assert.assertNull(queue.poll());
+    Assert.assertEquals(64, queue.remainingCapacity());
+  }
+}
@@ -0,0 +1,74 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProgressionTrackerTest {
+
+  @Test
+  public void testEmpty() {
+    ProgressionTracker tracker = new ProgressionTracker(Collections.<Integer>emptySet());
+    Assert.assertFalse(tracker.canProgress());
+  }
+
+  @Test
+  public void testItemIsOwnedByOne() {
+    Set<Integer> items = new HashSet<>(Arrays.asList(3, 5, 7));
+    ProgressionTracker tracker = new ProgressionTracker(items);
+    Assert.assertTrue(tracker.canProgress());
+
+    Set<Integer> claimed = new HashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      int item = tracker.next();
+      Assert.assertTrue(items.contains(item));
+      Assert.assertTrue(claimed.add(item));
+    }
+    // everything is being progressed
+    Assert.assertEquals(Integer.MIN_VALUE, tracker.next());
+
+    tracker.finish(5);
+    Assert.assertEquals(5, tracker.next());
+  }
+
+  @Test
+  public void testRoundRobin() {
+    Set<Integer> items = new HashSet<>(Arrays.asList(1, 2, 3, 4));
+    ProgressionTracker tracker = new ProgressionTracker(items);
+    Set<Integer> seen = new HashSet<>();
+    for (int i = 0; i < items.size(); i++) {
+      int item = tracker.next();
+      tracker.finish(item);
+      seen.add(item);
+    }
+    Assert.assertEquals(items, seen);
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testFinishWithoutOwning() {
+    ProgressionTracker tracker = new ProgressionTracker(new HashSet<>(Arrays.asList(1, 2)));
+    tracker.finish(1);
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testFinishUnknownItem() {
+    ProgressionTracker tracker = new ProgressionTracker(new HashSet<>(Arrays.asList(1, 2)));
+    tracker.next();
+    tracker.finish(10);
+  }
+}
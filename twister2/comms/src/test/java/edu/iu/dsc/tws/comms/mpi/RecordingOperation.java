@@ -0,0 +1,42 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An operation which records the messages sent through it instead of sending them. It accepts
+ * messages until capacity messages are recorded.
+ */
+final class RecordingOperation extends MPIDataFlowOperation {
+  final List<Object> messages = new ArrayList<>();
+  final List<Integer> paths = new ArrayList<>();
+  final List<Integer> flags = new ArrayList<>();
+  int capacity = Integer.MAX_VALUE;
+
+  RecordingOperation() {
+    super(null);
+  }
+
+  @Override
+  public boolean sendMessage(int source, Object message, int path,
+                             int f, RoutingParameters routingParameters) {
+    if (messages.size() >= capacity) {
+      return false;
+    }
+    messages.add(message);
+    paths.add(path);
+    flags.add(f);
+    return true;
+  }
+}
@@ -0,0 +1,153 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.mpi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.DataFlowOperation;
+import edu.iu.dsc.tws.comms.api.MessageReceiver;
+
+public class TargetSynchronizedReceiverTest {
+
+  /**
+   * Counts the messages of each target in a plain map, like the receivers of the operations
+   */
+  private static class CountingReceiver implements MessageReceiver {
+    private final Map<Integer, Integer> counts = new HashMap<>();
+    private final Map<Integer, AtomicInteger> inside = new HashMap<>();
+    private final AtomicBoolean overlapped = new AtomicBoolean(false);
+
+    @Override
+    public void init(Config cfg, DataFlowOperation op, Map<Integer, List<Integer>> expectedIds) {
+      for (Integer target : expectedIds.keySet()) {
+        counts.put(target, 0);
+        inside.put(target, new AtomicInteger(0));
+      }
+    }
+
+    @Override
+    public boolean onMessage(int source, int path, int target, int flags, Object object) {
+      if (inside.get(target).incrementAndGet() > 1) {
+        overlapped.set(true);
+      }
+      counts.put(target, counts.get(target) + 1);
+      inside.get(target).decrementAndGet();
+      return true;
+    }
+
+    @Override
+    public void progress() {
+    }
+  }
+
+  private static Map<Integer, List<Integer>> expectedIds(int... targets) {
+    Map<Integer, List<Integer>> ids = new HashMap<>();
+    for (int t : targets) {
+      ids.put(t, Arrays.asList(0, 1, 2, 3));
+    }
+    return ids;
+  }
+
+  @Test
+  public void testMessagesOfTargetAreSerialized() throws InterruptedException {
+    final CountingReceiver counting = new CountingReceiver();
+    final MessageReceiver receiver = TargetSynchronizedReceiver.wrap(counting);
+    receiver.init(Config.newBuilder().build(), null, expectedIds(0, 1));
+
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int s = 0; s < 4; s++) {
+      final int source = s;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < 10000; i++) {
+            receiver.onMessage(source, 0, i % 2, 0, i);
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertFalse(counting.overlapped.get());
+    Assert.assertEquals(20000, (int) counting.counts.get(0));
+    Assert.assertEquals(20000, (int) counting.counts.get(1));
+  }
+
+  @Test
+  public void testTargetsAreDeliveredConcurrently() throws Exception {
+    final CyclicBarrier bothInside = new CyclicBarrier(2);
+    final MessageReceiver receiver = TargetSynchronizedReceiver.wrap(new MessageReceiver() {
+      @Override
+      public void init(Config cfg, DataFlowOperation op,
+                       Map<Integer, List<Integer>> expectedIds) {
+      }
+
+      @Override
+      public boolean onMessage(int source, int path, int target, int flags, Object object) {
+        // both targets have to be inside the receiver at the same time to get past this
+        try {
+          bothInside.await(10, TimeUnit.SECONDS);
+          return true;
+        } catch (Exception e) {
+          return false;
+        }
+      }
+
+      @Override
+      public void progress() {
+      }
+    });
+    receiver.init(Config.newBuilder().build(), null, expectedIds(0, 1));
+
+    final AtomicBoolean other = new AtomicBoolean(false);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        other.set(receiver.onMessage(1, 0, 1, 0, "b"));
+      }
+    });
+    thread.start();
+    Assert.assertTrue(receiver.onMessage(0, 0, 0, 0, "a"));
+    thread.join();
+    Assert.assertTrue(other.get());
+  }
+
+  @Test
+  public void testWrap() {
+    Assert.assertNull(TargetSynchronizedReceiver.wrap(null));
+    MessageReceiver wrapped = TargetSynchronizedReceiver.wrap(new CountingReceiver());
+    Assert.assertSame(wrapped, TargetSynchronizedReceiver.wrap(wrapped));
+  }
+}
@@ -0,0 +1,80 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
+
+public class FSKeyedSortedMergerTest {
+
+  private static FSKeyedSortedMerger create(Comparator<Object> comparator) throws IOException {
+    File dir = Files.createTempDirectory("sorted-merger").toFile();
+    new File(dir, "op").mkdirs();
+    // spill every 10 records in small blocks
+    return new FSKeyedSortedMerger(Integer.MAX_VALUE, 10, dir.getPath(), "op",
+        MessageType.INTEGER, MessageType.OBJECT, comparator, new NoOpSpillCodec(), 128);
+  }
+
+  private static void addAll(FSKeyedSortedMerger merger, int count) {
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    for (int i = 0; i < count; i++) {
+      int key = (i * 17) % count;
+      byte[] data = serializer.serialize("v" + key);
+      merger.add(key, data, data.length);
+      merger.run();
+    }
+  }
+
+  @Test
+  public void testMergeSpilledParts() throws IOException {
+    FSKeyedSortedMerger merger = create(null);
+    addAll(merger, 101);
+    merger.switchToReading();
+
+    Iterator<KeyValue> it = merger.readIterator();
+    for (int i = 0; i < 101; i++) {
+      Assert.assertTrue(it.hasNext());
+      KeyValue kv = it.next();
+      Assert.assertEquals(i, kv.getKey());
+      Assert.assertEquals("v" + i, kv.getValue());
+    }
+    Assert.assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testKeyComparatorIsUsed() throws IOException {
+    FSKeyedSortedMerger merger = create(new Comparator<Object>() {
+      @Override
+      public int compare(Object o1, Object o2) {
+        return ((Integer) o2).compareTo((Integer) o1);
+      }
+    });
+    addAll(merger, 101);
+    merger.switchToReading();
+
+    Iterator<KeyValue> it = merger.readIterator();
+    for (int i = 100; i >= 0; i--) {
+      Assert.assertTrue(it.hasNext());
+      Assert.assertEquals(i, it.next().getKey());
+    }
+    Assert.assertFalse(it.hasNext());
+  }
+}
@@ -0,0 +1,99 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
+
+public class FSMergerTest {
+
+  private static String folder() throws IOException {
+    File dir = Files.createTempDirectory("merger").toFile();
+    new File(dir, "op").mkdirs();
+    return dir.getPath();
+  }
+
+  @Test
+  public void testRecordsInAddOrder() throws IOException {
+    FSMerger merger = new FSMerger(Integer.MAX_VALUE, 10, folder(), "op",
+        MessageType.OBJECT, 2, new LZ4SpillCodec(), 64);
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    for (int i = 0; i < 55; i++) {
+      byte[] data = serializer.serialize(i);
+      merger.add(data, data.length);
+      merger.run();
+    }
+    merger.switchToReading();
+
+    Iterator<Object> it = merger.readIterator();
+    for (int i = 0; i < 55; i++) {
+      Assert.assertTrue(it.hasNext());
+      Assert.assertEquals(i, it.next());
+    }
+    Assert.assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testKeyedRecordsInAddOrder() throws IOException {
+    FSKeyedMerger merger = new FSKeyedMerger(Integer.MAX_VALUE, 10, folder(), "op",
+        MessageType.INTEGER, MessageType.OBJECT, new Comparator<Object>() {
+          @Override
+          public int compare(Object o1, Object o2) {
+            return Integer.compare(((int[]) o1)[0], ((int[]) o2)[0]);
+          }
+        }, 2, new NoOpSpillCodec(), 64);
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    for (int i = 0; i < 55; i++) {
+      byte[] data = serializer.serialize("v" + i);
+      merger.add(new int[]{i}, data, data.length);
+      merger.run();
+    }
+    merger.switchToReading();
+
+    Iterator<KeyValue> it = merger.readIterator();
+    for (int i = 0; i < 55; i++) {
+      Assert.assertTrue(it.hasNext());
+      KeyValue kv = it.next();
+      Assert.assertArrayEquals(new int[]{i}, (int[]) kv.getKey());
+      Assert.assertEquals("v" + i, kv.getValue());
+    }
+    Assert.assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testAddWaitsForWriter() throws IOException {
+    // a single segment in memory, every spill has to be written before the next segment
+    FSMerger merger = new FSMerger(Integer.MAX_VALUE, 2, folder(), "op",
+        MessageType.OBJECT, 1, new NoOpSpillCodec(), 64);
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    for (int i = 0; i < 100; i++) {
+      byte[] data = serializer.serialize(i);
+      merger.add(data, data.length);
+    }
+    merger.switchToReading();
+
+    Iterator<Object> it = merger.readIterator();
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, it.next());
+    }
+    Assert.assertFalse(it.hasNext());
+  }
+}
@@ -0,0 +1,118 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+
+public class LoserTreeTest {
+
+  private static SortedRun memoryRun(int... keys) {
+    PackedRecords records = new PackedRecords();
+    for (int key : keys) {
+      records.add(NormalizedKeys.encode(key, MessageType.INTEGER), new byte[]{(byte) key}, 1);
+    }
+    records.sort();
+    return SortedRun.fromMemory(records, MessageType.INTEGER, true);
+  }
+
+  private static List<Object> merge(SortedRun[] runs) {
+    LoserTree tree = new LoserTree(runs);
+    List<Object> keys = new ArrayList<>();
+    int w;
+    while ((w = tree.winner()) >= 0) {
+      keys.add(runs[w].getKey());
+      runs[w].advance();
+      tree.replay();
+    }
+    return keys;
+  }
+
+  @Test
+  public void testMergeRuns() {
+    SortedRun[] runs = {memoryRun(5, 1, 9), memoryRun(2, 8), memoryRun(), memoryRun(3, 4, 7, 6)};
+    List<Object> expected = new ArrayList<>();
+    for (int i = 1; i <= 9; i++) {
+      expected.add(i);
+    }
+    Assert.assertEquals(expected, merge(runs));
+  }
+
+  @Test
+  public void testSingleRun() {
+    Assert.assertEquals(3, merge(new SortedRun[]{memoryRun(3, 1, 2)}).size());
+  }
+
+  @Test
+  public void testNoRuns() {
+    Assert.assertEquals(-1, new LoserTree(new SortedRun[0]).winner());
+  }
+
+  @Test
+  public void testEqualKeysInRunOrder() {
+    SortedRun[] runs = {memoryRun(1, 2), memoryRun(1, 2), memoryRun(1)};
+    LoserTree tree = new LoserTree(runs);
+    List<Integer> order = new ArrayList<>();
+    int w;
+    while ((w = tree.winner()) >= 0) {
+      order.add(w);
+      runs[w].advance();
+      tree.replay();
+    }
+    List<Integer> expected = new ArrayList<>();
+    Collections.addAll(expected, 0, 1, 2, 0, 1);
+    Assert.assertEquals(expected, order);
+  }
+
+  @Test
+  public void testMergeSpillFiles() throws IOException {
+    File dir = Files.createTempDirectory("loser-tree").toFile();
+    SpillCodec codec = new NoOpSpillCodec();
+    SortedRun[] runs = new SortedRun[3];
+    for (int r = 0; r < runs.length; r++) {
+      PackedRecords records = new PackedRecords();
+      for (int i = 0; i < 100; i++) {
+        int key = i * runs.length + r;
+        records.add(NormalizedKeys.encode(key, MessageType.INTEGER), new byte[]{(byte) key}, 1);
+      }
+      records.sort();
+      String file = new File(dir, "part_" + r).getPath();
+      // small blocks so a run is read over many blocks
+      FileLoader.saveSortedRecords(records, file, codec, 64);
+      runs[r] = SortedRun.fromFile(file, codec, MessageType.INTEGER, true, null);
+    }
+
+    LoserTree tree = new LoserTree(runs);
+    int expected = 0;
+    int w;
+    while ((w = tree.winner()) >= 0) {
+      Assert.assertEquals(expected, runs[w].getKey());
+      Assert.assertEquals((byte) expected, runs[w].getData()[0]);
+      expected++;
+      runs[w].advance();
+      tree.replay();
+    }
+    Assert.assertEquals(300, expected);
+    for (SortedRun run : runs) {
+      run.close();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.comms.api.MessageType;
+
+public class PackedRecordsTest {
+
+  private static int keyAt(PackedRecords records, int index) {
+    ByteBuffer buffer = records.getBuffer();
+    int offset = records.offset(index);
+    return (Integer) NormalizedKeys.decode(buffer, offset + 4, buffer.getInt(offset),
+        MessageType.INTEGER, true);
+  }
+
+  private static void addInt(PackedRecords records, int key) {
+    records.add(key, NormalizedKeys.encode(key, MessageType.INTEGER), new byte[]{(byte) key}, 1);
+  }
+
+  @Test
+  public void testSortIntegers() {
+    PackedRecords records = new PackedRecords();
+    Random random = new Random(7);
+    int[] keys = new int[1000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextInt();
+      addInt(records, keys[i]);
+    }
+    records.sort();
+
+    Arrays.sort(keys);
+    for (int i = 0; i < keys.length; i++) {
+      Assert.assertEquals(keys[i], keyAt(records, i));
+    }
+  }
+
+  @Test
+  public void testSortManyEqualKeys() {
+    PackedRecords records = new PackedRecords();
+    Random random = new Random(11);
+    int[] keys = new int[100000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextInt(3) - 1;
+      addInt(records, keys[i]);
+    }
+    records.sort();
+
+    Arrays.sort(keys);
+    for (int i = 0; i < keys.length; i++) {
+      Assert.assertEquals(keys[i], keyAt(records, i));
+    }
+  }
+
+  @Test
+  public void testSortStrings() {
+    PackedRecords records = new PackedRecords();
+    String[] keys = {"pear", "apple", "apples", "", "banana", "app", "zebra", "apple"};
+    for (String key : keys) {
+      records.add(NormalizedKeys.encode(key, MessageType.STRING), new byte[0], 0);
+    }
+    records.sort();
+
+    Arrays.sort(keys);
+    ByteBuffer buffer = records.getBuffer();
+    for (int i = 0; i < keys.length; i++) {
+      int offset = records.offset(i);
+      Assert.assertEquals(keys[i], NormalizedKeys.decode(buffer, offset + 4,
+          buffer.getInt(offset), MessageType.STRING));
+    }
+  }
+
+  @Test
+  public void testSortWithComparator() {
+    Comparator<Object> reverse = new Comparator<Object>() {
+      @Override
+      public int compare(Object o1, Object o2) {
+        return ((Integer) o2).compareTo((Integer) o1);
+      }
+    };
+    PackedRecords records = new PackedRecords(reverse);
+    Integer[] keys = new Integer[100];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = (i * 37) % 101 - 50;
+      addInt(records, keys[i]);
+    }
+    records.sort();
+
+    Arrays.sort(keys, Collections.reverseOrder());
+    for (int i = 0; i < keys.length; i++) {
+      Assert.assertEquals(keys[i], records.key(i));
+      Assert.assertEquals((int) keys[i], keyAt(records, i));
+    }
+  }
+
+  @Test
+  public void testDataFollowsKey() {
+    PackedRecords records = new PackedRecords();
+    for (int i = 20; i > 0; i--) {
+      addInt(records, i);
+    }
+    records.sort();
+
+    ByteBuffer buffer = records.getBuffer();
+    for (int i = 0; i < 20; i++) {
+      int offset = records.offset(i);
+      int keyLength = buffer.getInt(offset);
+      Assert.assertEquals(4, keyLength);
+      Assert.assertEquals(1, buffer.getInt(offset + 4 + keyLength));
+      Assert.assertEquals(i + 1, buffer.get(offset + 8 + keyLength));
+      Assert.assertEquals(13, records.recordSize(offset));
+    }
+  }
+
+  @Test
+  public void testDecodeScalarKeys() {
+    byte[] intKey = NormalizedKeys.encode(-5, MessageType.INTEGER);
+    Assert.assertEquals(-5, NormalizedKeys.decode(ByteBuffer.wrap(intKey), 0, intKey.length,
+        MessageType.INTEGER, true));
+    Assert.assertArrayEquals(new int[]{-5}, (int[]) NormalizedKeys.decode(
+        ByteBuffer.wrap(intKey), 0, intKey.length, MessageType.INTEGER, false));
+
+    byte[] longKey = NormalizedKeys.encode(Long.MIN_VALUE, MessageType.LONG);
+    Assert.assertEquals(Long.MIN_VALUE, NormalizedKeys.decode(ByteBuffer.wrap(longKey), 0,
+        longKey.length, MessageType.LONG, true));
+  }
+
+  @Test
+  public void testNegativeKeysOrderBeforePositive() {
+    byte[] a = NormalizedKeys.encode(-1, MessageType.INTEGER);
+    byte[] b = NormalizedKeys.encode(1, MessageType.INTEGER);
+    Assert.assertTrue(NormalizedKeys.compare(ByteBuffer.wrap(a), 0, a.length,
+        ByteBuffer.wrap(b), 0, b.length) < 0);
+  }
+}
@@ -0,0 +1,159 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Triple;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.comms.api.MessageType;
+import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
+
+public class SpillCodecTest {
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (i % 7);
+    }
+    return data;
+  }
+
+  private static void assertRoundTrip(SpillCodec codec) {
+    byte[] src = data(10000);
+    byte[] compressed = new byte[codec.maxCompressedLength(src.length) + 3];
+    int length = codec.compress(src, 0, src.length, compressed, 3);
+    Assert.assertTrue(length <= codec.maxCompressedLength(src.length));
+
+    byte[] dest = new byte[src.length + 5];
+    codec.decompress(compressed, 3, length, dest, 5, src.length);
+    for (int i = 0; i < src.length; i++) {
+      Assert.assertEquals(src[i], dest[i + 5]);
+    }
+  }
+
+  private static String tempFile() throws IOException {
+    File file = Files.createTempFile("spill", ".part").toFile();
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testNoOpRoundTrip() {
+    assertRoundTrip(new NoOpSpillCodec());
+  }
+
+  @Test
+  public void testLZ4RoundTrip() {
+    assertRoundTrip(new LZ4SpillCodec());
+  }
+
+  @Test
+  public void testCodecFromConfig() {
+    Assert.assertTrue(ShuffleContext.spillCodec(Config.newBuilder().build())
+        instanceof NoOpSpillCodec);
+    Config cfg = Config.newBuilder().put("network.shuffle.spill.codec", "lz4").build();
+    Assert.assertTrue(ShuffleContext.spillCodec(cfg) instanceof LZ4SpillCodec);
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testUnknownCodec() {
+    ShuffleContext.spillCodec(Config.newBuilder()
+        .put("network.shuffle.spill.codec", "zip").build());
+  }
+
+  @Test
+  public void testObjectsInBlocks() throws IOException {
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    List<byte[]> records = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      byte[] r = serializer.serialize("record-" + i);
+      records.add(r);
+      sizes.add(r.length);
+    }
+
+    SpillCodec codec = new LZ4SpillCodec();
+    String file = tempFile();
+    // blocks much smaller than the records so the records are written in many blocks
+    int written = FileLoader.saveObjects(records, sizes, file, codec, 256);
+    Assert.assertEquals(new File(file).length(), written);
+
+    List<Object> values = FileLoader.readFile(file, MessageType.OBJECT, serializer, codec);
+    Assert.assertEquals(500, values.size());
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals("record-" + i, values.get(i));
+    }
+  }
+
+  @Test
+  public void testRecordLargerThanBlock() throws IOException {
+    List<byte[]> records = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    records.add(data(10));
+    records.add(data(5000));
+    records.add(data(20));
+    for (byte[] r : records) {
+      sizes.add(r.length);
+    }
+
+    SpillCodec codec = new NoOpSpillCodec();
+    String file = tempFile();
+    FileLoader.saveObjects(records, sizes, file, codec, 64);
+    List<Object> values = FileLoader.readFile(file, MessageType.BYTE, null, codec);
+    Assert.assertEquals(3, values.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertArrayEquals(records.get(i), (byte[]) values.get(i));
+    }
+  }
+
+  @Test
+  public void testOpenFilePartByBlocks() throws IOException {
+    KryoMemorySerializer serializer = new KryoMemorySerializer();
+    List<KeyValue> records = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      byte[] value = serializer.serialize(i);
+      records.add(new KeyValue(new int[]{i}, value));
+      sizes.add(value.length);
+    }
+
+    SpillCodec codec = new LZ4SpillCodec();
+    String file = tempFile();
+    int written = FileLoader.saveKeyValues(records, sizes, file, MessageType.INTEGER,
+        serializer, codec, 128);
+
+    // read the file a few blocks at a time, each read starts at the block it stopped at
+    int next = 0;
+    long offset = 0;
+    while (offset < written) {
+      Triple<List<KeyValue>, Long, Long> part = FileLoader.openFilePart(file, offset, 300,
+          MessageType.INTEGER, MessageType.OBJECT, serializer, codec);
+      Assert.assertEquals(written, (long) part.getRight());
+      Assert.assertTrue(part.getMiddle() > offset);
+      for (KeyValue kv : part.getLeft()) {
+        Assert.assertArrayEquals(new int[]{next}, (int[]) kv.getKey());
+        Assert.assertEquals(next, kv.getValue());
+        next++;
+      }
+      offset = part.getMiddle();
+    }
+    Assert.assertEquals(200, next);
+  }
+}
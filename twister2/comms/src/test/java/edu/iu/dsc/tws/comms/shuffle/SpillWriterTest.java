@@ -0,0 +1,149 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.comms.shuffle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpillWriterTest {
+
+  /**
+   * A spill which waits until it is released
+   */
+  private static final class BlockedSpill implements Runnable {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void run() {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static Runnable failing() {
+    return new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException("disk full");
+      }
+    };
+  }
+
+  @Test
+  public void testSpillsAreWrittenInOrder() {
+    SpillWriter writer = new SpillWriter("spill-order", 4);
+    final List<Integer> written = Collections.synchronizedList(new ArrayList<Integer>());
+    int submitted = 0;
+    while (submitted < 100) {
+      final int n = submitted;
+      if (writer.submit(new Runnable() {
+        @Override
+        public void run() {
+          written.add(n);
+        }
+      })) {
+        submitted++;
+      } else {
+        writer.awaitSpace();
+      }
+    }
+    writer.finish();
+
+    Assert.assertEquals(100, written.size());
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, (int) written.get(i));
+    }
+  }
+
+  @Test
+  public void testSubmitIsRejectedWhenFull() throws InterruptedException {
+    SpillWriter writer = new SpillWriter("spill-full", 2);
+    BlockedSpill first = new BlockedSpill();
+    Assert.assertTrue(writer.submit(first));
+    Assert.assertTrue(first.started.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(writer.submit(new BlockedSpill()));
+
+    Assert.assertTrue(writer.isFull());
+    Assert.assertFalse(writer.submit(new BlockedSpill()));
+
+    first.release.countDown();
+    writer.awaitSpace();
+    Assert.assertFalse(writer.isFull());
+  }
+
+  @Test
+  public void testAwaitSpaceBlocksUntilWritten() throws InterruptedException {
+    final SpillWriter writer = new SpillWriter("spill-wait", 1);
+    BlockedSpill spill = new BlockedSpill();
+    Assert.assertTrue(writer.submit(spill));
+
+    final AtomicBoolean returned = new AtomicBoolean(false);
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        writer.awaitSpace();
+        returned.set(true);
+      }
+    });
+    waiter.start();
+    waiter.join(200);
+    Assert.assertFalse(returned.get());
+
+    spill.release.countDown();
+    waiter.join(10000);
+    Assert.assertTrue(returned.get());
+    writer.finish();
+  }
+
+  @Test
+  public void testErrorIsReportedToSubmit() {
+    SpillWriter writer = new SpillWriter("spill-error", 1);
+    Assert.assertTrue(writer.submit(failing()));
+    try {
+      writer.awaitSpace();
+      Assert.fail("The error of the spill should be thrown");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    // the writer does not take spills once one of them failed
+    try {
+      writer.submit(new BlockedSpill());
+      Assert.fail("The error of the spill should be thrown");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testErrorIsReportedToFinish() {
+    SpillWriter writer = new SpillWriter("spill-finish", 2);
+    Assert.assertTrue(writer.submit(failing()));
+    try {
+      writer.finish();
+      Assert.fail("The error of the spill should be thrown");
+    } catch (RuntimeException e) {
+      Assert.assertEquals("disk full", e.getCause().getMessage());
+    }
+  }
+}
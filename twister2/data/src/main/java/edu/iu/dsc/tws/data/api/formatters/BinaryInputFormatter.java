@@ -12,6 +12,7 @@
 package edu.iu.dsc.tws.data.api.formatters;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -81,6 +82,16 @@ public class BinaryInputFormatter extends FileInputFormat<byte[]> {
 
   private transient boolean end;
 
+  /**
+   * The mapped window of the file when the file system supports mapping
+   */
+  private transient MappedRegion region;
+
+  /**
+   * End offset of the split in the file
+   */
+  private transient long splitEnd;
+
   private long offset = -1;
 
   public BinaryInputFormatter(Path filePath) {
@@ -109,7 +120,7 @@ public class BinaryInputFormatter extends FileInputFormat<byte[]> {
   }
 
   public void setBufferSize(int buffSize) {
-    if (bufferSize < 2) {
+    if (buffSize < 2) {
       throw new IllegalArgumentException("Buffer size must be at least 2.");
     }
     this.bufferSize = buffSize;
@@ -274,6 +285,14 @@ public class BinaryInputFormatter extends FileInputFormat<byte[]> {
       this.offset = splitStart;
     }
 
+    if (this.stream.isMappable()) {
+      // records are read in place from the mapped file, no read buffer is filled
+      this.region = new MappedRegion(this.stream, MappedRegion.DEFAULT_WINDOW_SIZE);
+      this.splitEnd = this.splitLength == FileInputFormat.READ_WHOLE_SPLIT_FLAG
+          ? this.region.fileSize() : this.splitStart + this.splitLength;
+      return;
+    }
+
     if (this.splitStart != 0) {
       this.stream.seek(offset);
     }
@@ -298,6 +317,7 @@ public class BinaryInputFormatter extends FileInputFormat<byte[]> {
     this.limit = 0;
     this.overLimit = false;
     this.end = false;
+    this.region = null;
   }
 
   /**
@@ -318,8 +338,44 @@ public class BinaryInputFormatter extends FileInputFormat<byte[]> {
     }
   }
 
+  /**
+   * Reads a single record from a memory mapped region of the binary file, the bytes are copied
+   * straight from the mapped file into the record
+   */
+  public byte[] readRecord(byte[] reusable, ByteBuffer bytes, int readOffset, int numBytes)
+      throws IOException {
+    byte[] target = reusable != null && reusable.length == this.recordLength
+        ? reusable : new byte[this.recordLength];
+    ByteBuffer view = bytes.duplicate();
+    view.position(readOffset);
+    view.get(target, 0, numBytes);
+    return target;
+  }
+
+  /**
+   * Checks whether the current split is at its end.
+   *
+   * @return True, if the split is at its end, false otherwise.
+   */
+  @Override
+  public boolean reachedEnd() {
+    return this.end;
+  }
+
   @Override
   public byte[] nextRecord(byte[] record) throws IOException {
+    if (this.region != null) {
+      if (!this.end && this.offset + this.recordLength <= this.splitEnd
+          && this.region.map(this.offset, this.recordLength)
+          && this.offset + this.recordLength <= this.region.fileSize()) {
+        int recordOffset = this.region.offset(this.offset);
+        this.offset += this.recordLength;
+        return readRecord(record, this.region.buffer(), recordOffset, this.recordLength);
+      }
+      this.end = true;
+      return null;
+    }
+
     if (checkAndBufferRecord()) {
       return readRecord(record, this.readBuffer, this.currOffset, this.currLen);
     } else {
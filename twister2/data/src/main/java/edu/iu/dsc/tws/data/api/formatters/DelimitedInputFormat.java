@@ -12,6 +12,7 @@
 package edu.iu.dsc.tws.data.api.formatters;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.logging.Logger;
@@ -79,6 +80,17 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
 
   private transient boolean end;
 
+  /**
+   * The mapped window of the file when the file system supports mapping, records are read in
+   * place from it instead of through the read buffer
+   */
+  private transient MappedRegion region;
+
+  /**
+   * Records starting at or before this offset belong to the split
+   */
+  private transient long splitEnd;
+
   private long offset = -1;
 
 
@@ -171,8 +183,39 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
   public abstract OT readRecord(OT reuse, byte[] bytes, int readOffset, int numBytes)
       throws IOException;
 
+  /**
+   * This function parses a record from a memory mapped region of the file. The default
+   * implementation copies the bytes and calls {@link #readRecord(Object, byte[], int, int)},
+   * formats that can read the buffer directly should override it to avoid the copy.
+   *
+   * @param reuse An optionally reusable object.
+   * @param bytes The mapped window of the file holding the record.
+   * @param readOffset The offset where to start to read the record data.
+   * @param numBytes The number of bytes that can be read starting at the offset position.
+   * @return Returns the read record if it was successfully deserialized.
+   * @throws IOException if the record could not be read.
+   */
+  public OT readRecord(OT reuse, ByteBuffer bytes, int readOffset, int numBytes)
+      throws IOException {
+    if (this.wrapBuffer.length < numBytes) {
+      this.wrapBuffer = new byte[numBytes];
+    }
+    ByteBuffer view = bytes.duplicate();
+    view.position(readOffset);
+    view.get(this.wrapBuffer, 0, numBytes);
+    return readRecord(reuse, this.wrapBuffer, 0, numBytes);
+  }
+
   @Override
   public OT nextRecord(OT record) throws IOException {
+    if (this.region != null) {
+      if (readMappedLine()) {
+        return readRecord(record, this.region.buffer(), this.currOffset, this.currLen);
+      }
+      this.end = true;
+      return null;
+    }
+
     if (readLine()) {
       return readRecord(record, this.currBuffer, this.currOffset, this.currLen);
     } else {
@@ -221,6 +264,11 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
     initBuffers();
 
     this.offset = splitStart;
+    if (this.stream.isMappable()) {
+      openMapped();
+      return;
+    }
+
     if (this.splitStart != 0) {
       this.stream.seek(offset);
       readLine();
@@ -234,6 +282,93 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
     }
   }
 
+  /**
+   * Reads the split from a mapped window of the file. Skips the partial record at the beginning
+   * of the split the same way as the buffered path.
+   */
+  private void openMapped() throws IOException {
+    this.region = new MappedRegion(this.stream, MappedRegion.DEFAULT_WINDOW_SIZE);
+    this.splitEnd = this.splitLength == FileInputFormat.READ_WHOLE_SPLIT_FLAG
+        ? Long.MAX_VALUE : this.splitStart + this.splitLength;
+    if (this.splitStart != 0) {
+      long delimiterStart = findDelimiter(this.splitStart);
+      if (delimiterStart < 0) {
+        this.end = true;
+        return;
+      }
+      this.offset = delimiterStart + this.delimiter.length;
+      // no record starts within this split
+      if (this.offset > this.splitEnd) {
+        this.end = true;
+      }
+    }
+  }
+
+  /**
+   * Finds the next record in the mapped region starting at the current offset, the record is
+   * left in place and only its position is set as the result
+   */
+  private boolean readMappedLine() throws IOException {
+    if (this.end || this.offset > this.splitEnd || this.offset >= this.region.fileSize()) {
+      return false;
+    }
+
+    long recordStart = this.offset;
+    long delimiterStart = findDelimiter(recordStart);
+    long recordEnd = delimiterStart < 0 ? this.region.fileSize() : delimiterStart;
+    long length = recordEnd - recordStart;
+    if (length > this.lineLengthLimit) {
+      throw new IOException("The record length exceeded the maximum record length ("
+          + this.lineLengthLimit + ").");
+    }
+
+    this.region.map(recordStart, length);
+    this.currOffset = this.region.offset(recordStart);
+    this.currLen = (int) length;
+    this.offset = delimiterStart < 0 ? this.region.fileSize()
+        : delimiterStart + this.delimiter.length;
+    return true;
+  }
+
+  /**
+   * Scans the mapped file for the delimiter
+   *
+   * @param from offset in the file to start the search
+   * @return offset of the first delimiter at or after the given offset or -1 if there is none
+   */
+  private long findDelimiter(long from) throws IOException {
+    long position = from;
+    byte first = this.delimiter[0];
+    while (this.region.map(position, this.delimiter.length)) {
+      ByteBuffer buffer = this.region.buffer();
+      int last = buffer.limit() - this.delimiter.length;
+      for (int i = this.region.offset(position); i <= last; i++) {
+        if (buffer.get(i) == first && delimiterAt(buffer, i)) {
+          return this.region.start() + i;
+        }
+      }
+      if (this.region.end() >= this.region.fileSize()) {
+        return -1;
+      }
+      // continue in the next window, a partial delimiter at the end is checked again
+      position = this.region.start() + last + 1;
+      if (position - from > this.lineLengthLimit) {
+        throw new IOException("The record length exceeded the maximum record length ("
+            + this.lineLengthLimit + ").");
+      }
+    }
+    return -1;
+  }
+
+  private boolean delimiterAt(ByteBuffer buffer, int index) {
+    for (int i = 1; i < this.delimiter.length; i++) {
+      if (buffer.get(index + i) != this.delimiter[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void initBuffers() {
     this.bufferSize = this.bufferSize <= 0 ? DEFAULT_READ_BUFFER_SIZE : this.bufferSize;
 
@@ -437,6 +572,7 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
   public void close() throws IOException {
     this.wrapBuffer = null;
     this.readBuffer = null;
+    this.region = null;
     super.close();
   }
 
@@ -0,0 +1,55 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.common.config.Context;
+
+/**
+ * Configurations of reading file input splits
+ */
+public class FileInputContext extends Context {
+  /**
+   * Number of splits opened and read ahead while the current split is consumed, 0 disables
+   * prefetching
+   */
+  public static final String PREFETCH_DEPTH = "twister2.input.prefetch.depth";
+
+  /**
+   * Number of threads used to open and read ahead the prefetched splits
+   */
+  public static final String PREFETCH_THREADS = "twister2.input.prefetch.threads";
+
+  /**
+   * Number of bytes read ahead from the start of a prefetched split
+   */
+  public static final String READ_AHEAD_SIZE = "twister2.input.read.ahead.size";
+
+  public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
+  /**
+   * The default read ahead size = 1MB.
+   */
+  public static final int DEFAULT_READ_AHEAD_SIZE = 1024 * 1024;
+
+  public static int prefetchDepth(Config cfg) {
+    return cfg.getIntegerValue(PREFETCH_DEPTH, DEFAULT_PREFETCH_DEPTH);
+  }
+
+  public static int prefetchThreads(Config cfg) {
+    return cfg.getIntegerValue(PREFETCH_THREADS, Math.max(1, prefetchDepth(cfg)));
+  }
+
+  public static int readAheadSize(Config cfg) {
+    return cfg.getIntegerValue(READ_AHEAD_SIZE, DEFAULT_READ_AHEAD_SIZE);
+  }
+}
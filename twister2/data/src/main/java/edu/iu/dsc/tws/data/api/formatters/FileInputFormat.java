@@ -93,6 +93,11 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
    */
   protected long openTimeout;
 
+  /**
+   * A split opened ahead of time by a {@link SplitPrefetcher}, used by the next call to open
+   */
+  private transient SplitPrefetcher.PrefetchedSplit prefetched;
+
   public FileInputFormat() {
   }
 
@@ -279,18 +284,29 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
     LOG.log(Level.INFO, "Opening input split " + fileSplit.getPath() + " ["
         + this.splitStart + "," + this.splitLength + "]");
 
-    // open the split in an asynchronous thread
-    final InputSplitOpenThread isot = new InputSplitOpenThread(fileSplit, this.openTimeout);
-    isot.start();
-
-    try {
-      this.stream = isot.waitForCompletion();
-      //TODO L3: Check the need to input stream wrapper ( ex for decoding ).
-      // This is not an initial requirement
-      //this.stream = decorateInputStream(this.stream, fileSplit);
-    } catch (Throwable t) {
-      throw new IOException("Error opening the Input Split " + fileSplit.getPath()
-          + " [" + splitStart + "," + splitLength + "]: " + t.getMessage(), t);
+    if (this.prefetched != null && this.prefetched.getSplit() == fileSplit) {
+      // the split was already opened by the prefetcher
+      this.stream = this.prefetched.getStream();
+      this.prefetched = null;
+    } else {
+      if (this.prefetched != null) {
+        // a different split is opened, the prefetched one is not going to be read
+        this.prefetched.getStream().close();
+        this.prefetched = null;
+      }
+      // open the split in an asynchronous thread
+      final InputSplitOpenThread isot = new InputSplitOpenThread(fileSplit, this.openTimeout);
+      isot.start();
+
+      try {
+        this.stream = isot.waitForCompletion();
+        //TODO L3: Check the need to input stream wrapper ( ex for decoding ).
+        // This is not an initial requirement
+        //this.stream = decorateInputStream(this.stream, fileSplit);
+      } catch (Throwable t) {
+        throw new IOException("Error opening the Input Split " + fileSplit.getPath()
+            + " [" + splitStart + "," + splitLength + "]: " + t.getMessage(), t);
+      }
     }
 
     // get FSDataInputStream
@@ -300,6 +316,23 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
   }
 
 
+  /**
+   * Opens the next split of the task taken from the prefetcher. The split was opened and its
+   * first bytes were read while the previous split was being consumed.
+   *
+   * @param prefetcher the prefetcher of the task
+   * @return false if there are no more splits for the task
+   */
+  public boolean open(SplitPrefetcher prefetcher) throws IOException {
+    SplitPrefetcher.PrefetchedSplit next = prefetcher.next();
+    if (next == null) {
+      return false;
+    }
+    this.prefetched = next;
+    open(next.getSplit());
+    return true;
+  }
+
   @Override
   public boolean reachedEnd() throws IOException {
     return false;
@@ -312,7 +345,10 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
   @Override
   public void close() throws IOException {
-
+    if (this.stream != null) {
+      this.stream.close();
+      this.stream = null;
+    }
   }
 
   /**
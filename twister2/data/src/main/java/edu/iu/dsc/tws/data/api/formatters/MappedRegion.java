@@ -0,0 +1,100 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import edu.iu.dsc.tws.data.fs.FSDataInputStream;
+
+/**
+ * A window of a file mapped into memory, used by the input formats to read records in place
+ * instead of copying them through a read buffer. The window is moved forward as the file is
+ * read, a single mapping is limited to 2GB so large splits are read in several windows.
+ */
+class MappedRegion {
+  /**
+   * The default size of a mapped window = 256MB.
+   */
+  static final int DEFAULT_WINDOW_SIZE = 1024 * 1024 * 256;
+
+  private final FSDataInputStream stream;
+
+  private final long fileSize;
+
+  private final int windowSize;
+
+  private ByteBuffer buffer;
+
+  /**
+   * Offset of the window from the start of the file
+   */
+  private long start;
+
+  MappedRegion(FSDataInputStream stream, int windowSize) throws IOException {
+    this.stream = stream;
+    this.fileSize = stream.size();
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Makes sure the given range of the file is in the mapped window, the range is cut at the end
+   * of the file
+   *
+   * @param position offset of the range from the start of the file
+   * @param length length of the range
+   * @return false if the position is at or after the end of the file
+   */
+  boolean map(long position, long length) throws IOException {
+    if (position >= fileSize) {
+      return false;
+    }
+    long rangeEnd = Math.min(fileSize, position + length);
+    if (buffer != null && position >= start && rangeEnd <= start + buffer.limit()) {
+      return true;
+    }
+
+    long size = Math.min(fileSize - position, Math.max(windowSize, rangeEnd - position));
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Cannot map a record of " + (rangeEnd - position) + " bytes");
+    }
+    this.buffer = stream.map(position, size);
+    this.start = position;
+    return true;
+  }
+
+  /**
+   * The mapped window, positions in the buffer are relative to {@link #start()}
+   */
+  ByteBuffer buffer() {
+    return buffer;
+  }
+
+  long start() {
+    return start;
+  }
+
+  long end() {
+    return start + buffer.limit();
+  }
+
+  long fileSize() {
+    return fileSize;
+  }
+
+  /**
+   * Position of the given file offset in the mapped window
+   */
+  int offset(long position) {
+    return (int) (position - start);
+  }
+}
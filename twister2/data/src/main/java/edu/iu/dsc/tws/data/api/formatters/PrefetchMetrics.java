@@ -0,0 +1,73 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+/**
+ * Counters of a {@link SplitPrefetcher}. These are updated by the thread consuming the splits
+ * without synchronization, values read from other threads may be slightly behind.
+ */
+public class PrefetchMetrics {
+  private long splits;
+
+  // splits that were not ready when the task asked for them
+  private long waits;
+
+  private long waitTimeNanos;
+
+  private long maxWaitTimeNanos;
+
+  private long bytesReadAhead;
+
+  void split(long waitNanos, long readAhead) {
+    splits++;
+    bytesReadAhead += readAhead;
+    if (waitNanos > 0) {
+      waits++;
+      waitTimeNanos += waitNanos;
+      maxWaitTimeNanos = Math.max(maxWaitTimeNanos, waitNanos);
+    }
+  }
+
+  public long getSplits() {
+    return splits;
+  }
+
+  public long getWaits() {
+    return waits;
+  }
+
+  /**
+   * Total time the task was blocked waiting for a split to be opened
+   */
+  public long getWaitTimeNanos() {
+    return waitTimeNanos;
+  }
+
+  public long getMaxWaitTimeNanos() {
+    return maxWaitTimeNanos;
+  }
+
+  public long getBytesReadAhead() {
+    return bytesReadAhead;
+  }
+
+  @Override
+  public String toString() {
+    return "PrefetchMetrics{"
+        + "splits=" + splits
+        + ", waits=" + waits
+        + ", waitTimeNanos=" + waitTimeNanos
+        + ", maxWaitTimeNanos=" + maxWaitTimeNanos
+        + ", bytesReadAhead=" + bytesReadAhead
+        + '}';
+  }
+}
@@ -0,0 +1,142 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import edu.iu.dsc.tws.data.fs.FSDataInputStream;
+
+/**
+ * A stream that serves the bytes read ahead from the start of a split before reading from the
+ * underlying stream. The underlying stream is only moved when a read goes past the read ahead
+ * bytes.
+ */
+class ReadAheadInputStream extends FSDataInputStream {
+  private final FSDataInputStream stream;
+
+  /**
+   * Offset in the file of the first read ahead byte
+   */
+  private final long bufferStart;
+
+  private final byte[] buffer;
+
+  private final int count;
+
+  private long pos;
+
+  /**
+   * Position of the underlying stream, it is left right after the read ahead bytes
+   */
+  private long streamPos;
+
+  ReadAheadInputStream(FSDataInputStream stream, long bufferStart, byte[] buffer, int count) {
+    this.stream = stream;
+    this.bufferStart = bufferStart;
+    this.buffer = buffer;
+    this.count = count;
+    this.pos = bufferStart;
+    this.streamPos = bufferStart + count;
+  }
+
+  /**
+   * Number of bytes read ahead
+   */
+  int getCount() {
+    return count;
+  }
+
+  @Override
+  public void seek(long desired) throws IOException {
+    this.pos = desired;
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return pos;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (inBuffer()) {
+      return buffer[(int) (pos++ - bufferStart)] & 0xFF;
+    }
+    syncStream();
+    int b = stream.read();
+    if (b >= 0) {
+      pos++;
+      streamPos++;
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (inBuffer()) {
+      int n = (int) Math.min(len, bufferStart + count - pos);
+      System.arraycopy(buffer, (int) (pos - bufferStart), b, off, n);
+      pos += n;
+      return n;
+    }
+    syncStream();
+    int read = stream.read(b, off, len);
+    if (read > 0) {
+      pos += read;
+      streamPos += read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    pos += n;
+    return n;
+  }
+
+  @Override
+  public boolean isMappable() {
+    return stream.isMappable();
+  }
+
+  @Override
+  public ByteBuffer map(long position, long length) throws IOException {
+    return stream.map(position, length);
+  }
+
+  @Override
+  public long size() throws IOException {
+    return stream.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    stream.close();
+  }
+
+  private boolean inBuffer() {
+    return pos >= bufferStart && pos < bufferStart + count;
+  }
+
+  private void syncStream() throws IOException {
+    if (streamPos != pos) {
+      stream.seek(pos);
+      streamPos = pos;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.data.fs.FSDataInputStream;
+import edu.iu.dsc.tws.data.fs.FileInputSplit;
+import edu.iu.dsc.tws.data.fs.FileSystem;
+import edu.iu.dsc.tws.data.fs.io.InputSplitAssigner;
+
+/**
+ * Takes the splits of a task from the assigner ahead of time and opens them on a pool of I/O
+ * threads. While the task reads a split the next splits are opened and their first bytes are
+ * read, so the task does not wait for the file system between splits.
+ *
+ * The prefetcher is used by a single task thread, see
+ * {@link FileInputFormat#open(SplitPrefetcher)}.
+ */
+public class SplitPrefetcher {
+  private static final Logger LOG = Logger.getLogger(SplitPrefetcher.class.getName());
+
+  private final InputSplitAssigner assigner;
+
+  private final String host;
+
+  private final int taskId;
+
+  private final int depth;
+
+  private final int readAheadSize;
+
+  private final ExecutorService executor;
+
+  /**
+   * Splits being opened in the order they were taken from the assigner
+   */
+  private final Deque<Future<PrefetchedSplit>> pending = new ArrayDeque<>();
+
+  private final PrefetchMetrics metrics = new PrefetchMetrics();
+
+  private boolean assignerDone;
+
+  public SplitPrefetcher(InputSplitAssigner assigner, String host, int taskId, Config cfg) {
+    this(assigner, host, taskId, FileInputContext.prefetchDepth(cfg),
+        FileInputContext.prefetchThreads(cfg), FileInputContext.readAheadSize(cfg));
+  }
+
+  public SplitPrefetcher(InputSplitAssigner assigner, String host, int taskId,
+                         int depth, int threads, int readAheadSize) {
+    this.assigner = assigner;
+    this.host = host;
+    this.taskId = taskId;
+    this.depth = Math.max(0, depth);
+    this.readAheadSize = Math.max(0, readAheadSize);
+    this.executor = this.depth == 0 ? null
+        : Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "input-prefetch-" + SplitPrefetcher.this.taskId);
+            t.setDaemon(true);
+            return t;
+          }
+        });
+  }
+
+  /**
+   * Get the next split of the task with its opened stream, waiting if it is not ready yet
+   *
+   * @return the next split or null if the assigner has no more splits for this task
+   * @throws IOException if the split could not be opened
+   */
+  public PrefetchedSplit next() throws IOException {
+    if (executor == null) {
+      FileInputSplit split = nextSplit();
+      if (split == null) {
+        return null;
+      }
+      long start = System.nanoTime();
+      PrefetchedSplit prefetched = open(split, 0);
+      metrics.split(System.nanoTime() - start, 0);
+      return prefetched;
+    }
+
+    fill();
+    Future<PrefetchedSplit> future = pending.poll();
+    if (future == null) {
+      return null;
+    }
+    long start = System.nanoTime();
+    boolean ready = future.isDone();
+    PrefetchedSplit prefetched;
+    try {
+      prefetched = future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the input split", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Error opening the input split", cause);
+    }
+    metrics.split(ready ? 0 : System.nanoTime() - start, prefetched.getBytesReadAhead());
+    // keep the pipeline full while the task reads this split
+    fill();
+    return prefetched;
+  }
+
+  public PrefetchMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Stop the I/O threads and close the streams of the splits that were not taken
+   */
+  public void close() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    Future<PrefetchedSplit> future;
+    while ((future = pending.poll()) != null) {
+      try {
+        if (!future.isCancelled()) {
+          future.get().getStream().close();
+        }
+      } catch (Exception e) {
+        LOG.log(Level.FINE, "Failed to close a prefetched split", e);
+      }
+    }
+  }
+
+  private void fill() {
+    while (pending.size() < depth) {
+      final FileInputSplit split = nextSplit();
+      if (split == null) {
+        return;
+      }
+      pending.add(executor.submit(new Callable<PrefetchedSplit>() {
+        @Override
+        public PrefetchedSplit call() throws Exception {
+          return open(split, readAheadSize);
+        }
+      }));
+    }
+  }
+
+  private FileInputSplit nextSplit() {
+    if (assignerDone) {
+      return null;
+    }
+    FileInputSplit split = (FileInputSplit) assigner.getNextInputSplit(host, taskId);
+    if (split == null) {
+      assignerDone = true;
+    }
+    return split;
+  }
+
+  private PrefetchedSplit open(FileInputSplit split, int readAhead) throws IOException {
+    FileSystem fs = FileSystem.get(split.getPath().toUri());
+    FSDataInputStream stream = fs.open(split.getPath());
+    // a mapped split is read straight from the mapping, copying its first bytes is wasted
+    if (readAhead == 0 || stream.isMappable()) {
+      return new PrefetchedSplit(split, stream, 0);
+    }
+
+    try {
+      if (split.getStart() != 0) {
+        stream.seek(split.getStart());
+      }
+      int size = split.getLength() < 0 ? readAhead
+          : (int) Math.min(readAhead, split.getLength());
+      byte[] buffer = new byte[size];
+      int count = 0;
+      while (count < size) {
+        int read = stream.read(buffer, count, size - count);
+        if (read < 0) {
+          break;
+        }
+        count += read;
+      }
+      return new PrefetchedSplit(split,
+          new ReadAheadInputStream(stream, split.getStart(), buffer, count), count);
+    } catch (IOException e) {
+      stream.close();
+      throw e;
+    }
+  }
+
+  /**
+   * A split with its opened stream
+   */
+  public static final class PrefetchedSplit {
+    private final FileInputSplit split;
+
+    private final FSDataInputStream stream;
+
+    private final int bytesReadAhead;
+
+    private PrefetchedSplit(FileInputSplit split, FSDataInputStream stream, int bytesReadAhead) {
+      this.split = split;
+      this.stream = stream;
+      this.bytesReadAhead = bytesReadAhead;
+    }
+
+    public FileInputSplit getSplit() {
+      return split;
+    }
+
+    public FSDataInputStream getStream() {
+      return stream;
+    }
+
+    public int getBytesReadAhead() {
+      return bytesReadAhead;
+    }
+  }
+}
@@ -12,6 +12,7 @@
 package edu.iu.dsc.tws.data.api.formatters;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.logging.Logger;
 
@@ -49,6 +50,7 @@ public class TextInputFormatter extends DelimitedInputFormat<String> {
       throw new IllegalArgumentException("Charset must not be null.");
     }
     this.charsetName = charsetName;
+    this.charset = null;
   }
 
   /**
@@ -56,6 +58,11 @@ public class TextInputFormatter extends DelimitedInputFormat<String> {
    */
   private String charsetName = "UTF-8";
 
+  /**
+   * The charset used to decode records read from a mapped file
+   */
+  private transient Charset charset;
+
   @Override
   public void configure(Config parameters) {
     super.configure(parameters);
@@ -77,6 +84,28 @@ public class TextInputFormatter extends DelimitedInputFormat<String> {
       curNumBytes -= 1;
     }
 
-    return new String(bytes, readOffset, numBytes, this.charsetName);
+    return new String(bytes, readOffset, curNumBytes, this.charsetName);
+  }
+
+  /**
+   * Decodes the record directly from the mapped file without copying it to an array first
+   */
+  @Override
+  public String readRecord(String reusable, ByteBuffer bytes, int readOffset, int numBytes)
+      throws IOException {
+    int curNumBytes = numBytes;
+    if (this.getDelimiter() != null && this.getDelimiter().length == 1
+        && this.getDelimiter()[0] == NEW_LINE && curNumBytes >= 1
+        && bytes.get(readOffset + curNumBytes - 1) == CARRIAGE_RETURN) {
+      curNumBytes -= 1;
+    }
+
+    if (this.charset == null) {
+      this.charset = Charset.forName(this.charsetName);
+    }
+    ByteBuffer view = bytes.duplicate();
+    view.limit(readOffset + curNumBytes);
+    view.position(readOffset);
+    return this.charset.decode(view).toString();
   }
 }
@@ -12,8 +12,10 @@
 
 package edu.iu.dsc.tws.data.fs;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Interface for a data input stream to a file on a {@link FileSystem}.
@@ -41,4 +43,72 @@ public abstract class FSDataInputStream extends InputStream {
    * implementation while accessing the stream's position.
    */
   public abstract long getPos() throws IOException;
+
+  /**
+   * Whether {@link #map(long, long)} memory maps the file, instead of reading the region into
+   * memory
+   *
+   * @return true if the stream supports mapping
+   */
+  public boolean isMappable() {
+    return false;
+  }
+
+  /**
+   * Maps a region of the file into memory for reading. The mapping stays valid after the
+   * stream is closed.
+   *
+   * Streams that cannot map the file read the region into a heap buffer instead, and the
+   * position of the stream is not changed.
+   *
+   * @param position the offset of the region from the start of the file
+   * @param length the length of the region
+   * @return a read only buffer over the region
+   * @throws IOException Thrown if the region cannot be mapped
+   */
+  public ByteBuffer map(long position, long length) throws IOException {
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Cannot read a region of " + length + " bytes into memory");
+    }
+    long current = getPos();
+    byte[] region = new byte[(int) length];
+    try {
+      seek(position);
+      int read = 0;
+      while (read < region.length) {
+        int n = read(region, read, region.length - read);
+        if (n < 0) {
+          throw new EOFException("The region ends after the end of the file");
+        }
+        read += n;
+      }
+    } finally {
+      seek(current);
+    }
+    return ByteBuffer.wrap(region).asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the size of the file the stream reads from
+   *
+   * Streams that do not know the size read to the end of the file to find it, and the position
+   * of the stream is not changed.
+   *
+   * @return size of the file in bytes
+   * @throws IOException Thrown if the size cannot be read
+   */
+  public long size() throws IOException {
+    long current = getPos();
+    long size = current;
+    byte[] skipBuffer = new byte[8192];
+    try {
+      int n;
+      while ((n = read(skipBuffer, 0, skipBuffer.length)) >= 0) {
+        size += n;
+      }
+    } finally {
+      seek(current);
+    }
+    return size;
+  }
 }
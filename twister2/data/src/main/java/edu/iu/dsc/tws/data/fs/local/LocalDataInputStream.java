@@ -15,6 +15,7 @@ package edu.iu.dsc.tws.data.fs.local;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 import edu.iu.dsc.tws.data.fs.FSDataInputStream;
@@ -54,6 +55,21 @@ public class LocalDataInputStream extends FSDataInputStream {
     return this.fileChannel.position();
   }
 
+  @Override
+  public boolean isMappable() {
+    return true;
+  }
+
+  @Override
+  public ByteBuffer map(long position, long length) throws IOException {
+    return this.fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+  }
+
+  @Override
+  public long size() throws IOException {
+    return this.fileChannel.size();
+  }
+
   @Override
   public int read() throws IOException {
     return this.fis.read();
@@ -0,0 +1,428 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Hash index over binary keys that also buffers the values added to each key.
+ *
+ * The key bytes are kept in an off heap slab as [length][bytes] and the values in a second off
+ * heap slab as [previous record][length][bytes], chained from the latest value of a key back to
+ * the first one. The table itself is a set of primitive arrays indexed by slot, so the number of
+ * objects does not grow with the number of keys. Keys are compared byte by byte, no charset
+ * conversion is done.
+ *
+ * Removing a key leaves its bytes in the slabs, a slab is compacted instead of grown when at
+ * least half of it is unused.
+ *
+ * Slots are moved when keys are removed, so a slot is only valid until the next removal.
+ */
+public class BinaryKeyIndex {
+  private static final int EMPTY = -1;
+
+  private static final int NO_VALUE = -1;
+
+  /**
+   * Size of the header of a value record, the offset of the previous record and the length
+   */
+  private static final int VALUE_HEADER = 8;
+
+  private static final int MAX_SLAB_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Offset of the key in the key slab, EMPTY if the slot is free
+   */
+  private int[] keyOffsets;
+
+  private int[] hashes;
+
+  /**
+   * Number of values after which the key is written to the store
+   */
+  private int[] steps;
+
+  /**
+   * Number of values buffered for the key
+   */
+  private int[] counts;
+
+  /**
+   * Total number of value bytes buffered for the key
+   */
+  private int[] sizes;
+
+  /**
+   * Offset of the latest value record of the key, NO_VALUE if there are none
+   */
+  private int[] heads;
+
+  private int mask;
+
+  private int size;
+
+  private ByteBuffer keySlab;
+
+  private int keyEnd;
+
+  private long liveKeyBytes;
+
+  private ByteBuffer valueSlab;
+
+  private int valueEnd;
+
+  private long liveValueBytes;
+
+  public BinaryKeyIndex() {
+    this(MemoryManagerContext.KEY_INDEX_INIT_SLOTS, MemoryManagerContext.KEY_SLAB_INIT_CAP,
+        MemoryManagerContext.VALUE_SLAB_INIT_CAP);
+  }
+
+  public BinaryKeyIndex(int slots, int keySlabSize, int valueSlabSize) {
+    int capacity = Integer.highestOneBit(Math.max(slots, 2) - 1) << 1;
+    allocateTable(capacity);
+    this.keySlab = ByteBuffer.allocateDirect(keySlabSize);
+    this.valueSlab = ByteBuffer.allocateDirect(valueSlabSize);
+  }
+
+  /**
+   * Number of keys in the index
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Number of slots, slots from 0 to capacity - 1 can be checked with {@link #isOccupied(int)}
+   */
+  public int capacity() {
+    return keyOffsets.length;
+  }
+
+  public boolean isOccupied(int slot) {
+    return keyOffsets[slot] != EMPTY;
+  }
+
+  /**
+   * Find the slot of a key, the key is read from its position to its limit
+   *
+   * @return the slot or -1 if the key is not in the index
+   */
+  public int find(ByteBuffer key) {
+    int hash = hash(key);
+    int slot = hash & mask;
+    while (keyOffsets[slot] != EMPTY) {
+      if (hashes[slot] == hash && keyEquals(keyOffsets[slot], key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Add a key that is not in the index
+   *
+   * @param step the number of values after which the key should be written to the store
+   * @return the slot of the key
+   */
+  public int register(ByteBuffer key, int step) {
+    if ((size + 1) * 4L > keyOffsets.length * 3L) {
+      rehash(keyOffsets.length << 1);
+    }
+
+    int length = key.remaining();
+    ensureKeyCapacity(length + 4);
+    int offset = keyEnd;
+    keySlab.putInt(offset, length);
+    for (int i = 0; i < length; i++) {
+      keySlab.put(offset + 4 + i, key.get(key.position() + i));
+    }
+    keyEnd += length + 4;
+    liveKeyBytes += length + 4;
+
+    int hash = hash(key);
+    int slot = hash & mask;
+    while (keyOffsets[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    keyOffsets[slot] = offset;
+    hashes[slot] = hash;
+    steps[slot] = step;
+    counts[slot] = 0;
+    sizes[slot] = 0;
+    heads[slot] = NO_VALUE;
+    size++;
+    return slot;
+  }
+
+  /**
+   * Remove the key in the slot and its buffered values
+   */
+  public void remove(int slot) {
+    liveKeyBytes -= keySlab.getInt(keyOffsets[slot]) + 4;
+    for (int r = heads[slot]; r != NO_VALUE; r = valueSlab.getInt(r)) {
+      liveValueBytes -= valueSlab.getInt(r + 4) + VALUE_HEADER;
+    }
+
+    // shift back the keys that were displaced by this one so no tombstones are needed
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (keyOffsets[next] != EMPTY) {
+      int ideal = hashes[next] & mask;
+      if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+        move(next, hole);
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keyOffsets[hole] = EMPTY;
+    heads[hole] = NO_VALUE;
+    size--;
+  }
+
+  /**
+   * Copy a value to the end of the values buffered for the key
+   */
+  public void addValue(int slot, ByteBuffer value) {
+    int length = value.remaining();
+    ensureValueCapacity(length + VALUE_HEADER);
+    int offset = valueEnd;
+    valueSlab.putInt(offset, heads[slot]);
+    valueSlab.putInt(offset + 4, length);
+    ByteBuffer target = valueSlab.duplicate();
+    target.position(offset + VALUE_HEADER);
+    target.put(value.duplicate());
+    valueEnd += length + VALUE_HEADER;
+    liveValueBytes += length + VALUE_HEADER;
+
+    heads[slot] = offset;
+    counts[slot]++;
+    sizes[slot] += length;
+  }
+
+  /**
+   * Copy the values buffered for the key into a new buffer in the order they were added
+   *
+   * @param extra additional capacity to leave at the end of the buffer
+   * @return a direct buffer positioned after the values
+   */
+  public ByteBuffer copyValues(int slot, int extra) {
+    int total = sizes[slot];
+    ByteBuffer result = ByteBuffer.allocateDirect(total + extra);
+    ByteBuffer source = valueSlab.duplicate();
+    // the chain goes from the latest value back, so fill the buffer from the end
+    int end = total;
+    for (int r = heads[slot]; r != NO_VALUE; r = valueSlab.getInt(r)) {
+      int length = valueSlab.getInt(r + 4);
+      end -= length;
+      source.limit(r + VALUE_HEADER + length);
+      source.position(r + VALUE_HEADER);
+      ByteBuffer target = result.duplicate();
+      target.position(end);
+      target.put(source);
+    }
+    result.position(total);
+    return result;
+  }
+
+  /**
+   * Copy the key into a new direct buffer that is ready to be read
+   */
+  public ByteBuffer copyKey(int slot) {
+    int offset = keyOffsets[slot];
+    int length = keySlab.getInt(offset);
+    ByteBuffer source = keySlab.duplicate();
+    source.limit(offset + 4 + length);
+    source.position(offset + 4);
+    ByteBuffer result = ByteBuffer.allocateDirect(length);
+    result.put(source);
+    result.flip();
+    return result;
+  }
+
+  public int getStep(int slot) {
+    return steps[slot];
+  }
+
+  public int getCount(int slot) {
+    return counts[slot];
+  }
+
+  public void setCount(int slot, int count) {
+    counts[slot] = count;
+  }
+
+  public int getSize(int slot) {
+    return sizes[slot];
+  }
+
+  private void move(int from, int to) {
+    keyOffsets[to] = keyOffsets[from];
+    hashes[to] = hashes[from];
+    steps[to] = steps[from];
+    counts[to] = counts[from];
+    sizes[to] = sizes[from];
+    heads[to] = heads[from];
+  }
+
+  private void allocateTable(int capacity) {
+    keyOffsets = new int[capacity];
+    hashes = new int[capacity];
+    steps = new int[capacity];
+    counts = new int[capacity];
+    sizes = new int[capacity];
+    heads = new int[capacity];
+    Arrays.fill(keyOffsets, EMPTY);
+    mask = capacity - 1;
+  }
+
+  private void rehash(int capacity) {
+    if (capacity <= 0) {
+      throw new RuntimeException("Binary key index cannot hold more than " + size + " keys");
+    }
+    int[] oldOffsets = keyOffsets;
+    int[] oldHashes = hashes;
+    int[] oldSteps = steps;
+    int[] oldCounts = counts;
+    int[] oldSizes = sizes;
+    int[] oldHeads = heads;
+    allocateTable(capacity);
+    for (int i = 0; i < oldOffsets.length; i++) {
+      if (oldOffsets[i] == EMPTY) {
+        continue;
+      }
+      int slot = oldHashes[i] & mask;
+      while (keyOffsets[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      keyOffsets[slot] = oldOffsets[i];
+      hashes[slot] = oldHashes[i];
+      steps[slot] = oldSteps[i];
+      counts[slot] = oldCounts[i];
+      sizes[slot] = oldSizes[i];
+      heads[slot] = oldHeads[i];
+    }
+  }
+
+  private void ensureKeyCapacity(int needed) {
+    if ((long) keyEnd + needed <= keySlab.capacity()) {
+      return;
+    }
+    ByteBuffer slab = ByteBuffer.allocateDirect(newSlabSize(keySlab.capacity(),
+        liveKeyBytes, needed));
+    int end = 0;
+    for (int slot = 0; slot < keyOffsets.length; slot++) {
+      if (keyOffsets[slot] == EMPTY) {
+        continue;
+      }
+      int offset = keyOffsets[slot];
+      int length = keySlab.getInt(offset) + 4;
+      ByteBuffer source = keySlab.duplicate();
+      source.limit(offset + length);
+      source.position(offset);
+      slab.position(end);
+      slab.put(source);
+      keyOffsets[slot] = end;
+      end += length;
+    }
+    keySlab = slab;
+    keyEnd = end;
+  }
+
+  private void ensureValueCapacity(int needed) {
+    if ((long) valueEnd + needed <= valueSlab.capacity()) {
+      return;
+    }
+    ByteBuffer slab = ByteBuffer.allocateDirect(newSlabSize(valueSlab.capacity(),
+        liveValueBytes, needed));
+    int end = 0;
+    long live = 0;
+    for (int slot = 0; slot < keyOffsets.length; slot++) {
+      if (keyOffsets[slot] == EMPTY || heads[slot] == NO_VALUE) {
+        continue;
+      }
+      // the values of a key are merged into a single record
+      int length = sizes[slot];
+      slab.putInt(end, NO_VALUE);
+      slab.putInt(end + 4, length);
+      int valuesEnd = end + VALUE_HEADER + length;
+      for (int r = heads[slot]; r != NO_VALUE; r = valueSlab.getInt(r)) {
+        int recordLength = valueSlab.getInt(r + 4);
+        valuesEnd -= recordLength;
+        ByteBuffer source = valueSlab.duplicate();
+        source.limit(r + VALUE_HEADER + recordLength);
+        source.position(r + VALUE_HEADER);
+        slab.position(valuesEnd);
+        slab.put(source);
+      }
+      heads[slot] = end;
+      end += VALUE_HEADER + length;
+      live += VALUE_HEADER + length;
+    }
+    valueSlab = slab;
+    valueEnd = end;
+    liveValueBytes = live;
+  }
+
+  /**
+   * Keep the size if compacting frees enough space, otherwise double it
+   */
+  private static int newSlabSize(int current, long live, int needed) {
+    long size = current;
+    while (live + needed > size / 2) {
+      size <<= 1;
+    }
+    if (size > MAX_SLAB_SIZE) {
+      if (live + needed > MAX_SLAB_SIZE) {
+        throw new RuntimeException("Binary key index slab cannot grow beyond "
+            + MAX_SLAB_SIZE + " bytes");
+      }
+      size = MAX_SLAB_SIZE;
+    }
+    return (int) size;
+  }
+
+  private boolean keyEquals(int offset, ByteBuffer key) {
+    int length = key.remaining();
+    if (keySlab.getInt(offset) != length) {
+      return false;
+    }
+    int position = key.position();
+    int start = offset + 4;
+    int i = 0;
+    // compare 8 bytes at a time when both buffers read them the same way
+    for (; key.order() == keySlab.order() && i + 8 <= length; i += 8) {
+      if (keySlab.getLong(start + i) != key.getLong(position + i)) {
+        return false;
+      }
+    }
+    for (; i < length; i++) {
+      if (keySlab.get(start + i) != key.get(position + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(ByteBuffer key) {
+    int h = 1;
+    int position = key.position();
+    int limit = key.limit();
+    for (int i = position; i < limit; i++) {
+      h = 31 * h + key.get(i);
+    }
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -27,9 +27,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import edu.iu.dsc.tws.data.fs.Path;
@@ -39,9 +37,9 @@ import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
 
 /**
  * Inserts into the memory store in batches. Only one instance per executor.
+ * The keys and the buffered values of each operation are kept off heap in a {@link BinaryKeyIndex}
+ * and keys are compared as bytes.
  */
-//TODO: need to address the issue of converting bytebuffers to string keys to improve performance
-//TODO: one option would be to implement custom byteBuffer that is comparable
 //TODO : Need to make the BMM work like a normal map. put should replace any exsisting value.
 public class BufferedMemoryManager extends AbstractMemoryManager {
 
@@ -53,26 +51,10 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
   private MemoryManager memoryManager;
 
   /**
-   * Keeps the limits and step sizes for each key that is added
-   * the double array has 2 values 1st contains the limit and the second contains the step size
+   * Keeps the step size, the current submitted count and the ByteBuffers that need to be
+   * written for each key of an operation
    */
-  private Map<Integer, Map<String, Integer>> keyMap;
-
-  /**
-   * Keeps the current submitted count for a given key
-   */
-  private Map<Integer, Map<String, Integer>> keyMapCurrent;
-
-  /**
-   * Keeps the ByteBuffers that need to be written
-   */
-  private Map<Integer, Map<String, LinkedList<ByteBuffer>>> keyMapBuffers;
-
-  /**
-   * Keeps track of the collective size of byte buffers for each key that is currently held
-   * in the keyMapBuffers
-   */
-  private Map<Integer, Map<String, Integer>> keyBufferSizes;
+  private Map<Integer, BinaryKeyIndex> keyIndexes;
 
   public BufferedMemoryManager(Path dataPath) {
     //TODO : This needs to be loaded from a configuration file
@@ -86,10 +68,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
   @Override
   public boolean init() {
 
-    keyMap = new HashMap<Integer, Map<String, Integer>>();
-    keyMapCurrent = new HashMap<Integer, Map<String, Integer>>();
-    keyMapBuffers = new HashMap<Integer, Map<String, LinkedList<ByteBuffer>>>();
-    keyBufferSizes = new HashMap<Integer, Map<String, Integer>>();
+    keyIndexes = new HashMap<Integer, BinaryKeyIndex>();
     operationMap = new HashMap<Integer, OperationMemoryManager>();
     return false;
   }
@@ -99,8 +78,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    String keyString = MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString();
-    return appendBulk(opID, keyString, value);
+    return appendBulk(opID, key, value);
   }
 
   /*@Override
@@ -115,7 +93,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
 
   @Override
   public boolean append(int opID, String key, ByteBuffer value) {
-    return appendBulk(opID, key, value);
+    return appendBulk(opID, toKey(key), value);
   }
 
   /*@Override
@@ -128,8 +106,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    String keyString = MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString();
-    return putBulk(opID, keyString, value);
+    return putBulk(opID, key, value);
   }
 
   @Override
@@ -154,7 +131,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
 
   @Override
   public boolean put(int opID, String key, ByteBuffer value) {
-    return putBulk(opID, key, value);
+    return putBulk(opID, toKey(key), value);
   }
 
   /*@Override
@@ -182,9 +159,8 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    String keyString = MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString();
-    if (keyMap.get(opID).containsKey(keyString)) {
-      flush(opID, keyString);
+    if (keyIndexes.get(opID).find(key) >= 0) {
+      flush(opID, key);
     }
     return memoryManager.get(opID, key);
   }
@@ -200,11 +176,12 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
   }*/
 
   public ByteBuffer get(int opID, String key) {
-    // if the key given is already in the keyMap we need to flush the key
+    // if the key given is already in the key index we need to flush the key
     //TODO: Do we flush the key and get the data from the memory store or do we get what
     //TODO: we can from the keymap and then get the rest of the store
-    if (keyMap.get(opID).containsKey(key)) {
-      flush(opID, key);
+    ByteBuffer keyBuffer = toKey(key);
+    if (keyIndexes.get(opID).find(keyBuffer) >= 0) {
+      flush(opID, keyBuffer);
     }
 
     return memoryManager.get(opID, key);
@@ -245,7 +222,10 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    return containsKey(opID, MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString());
+    if (keyIndexes.get(opID).find(key) >= 0) {
+      return true;
+    }
+    return memoryManager.containsKey(opID, key);
   }
 
   /*@Override
@@ -260,7 +240,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
 
   @Override
   public boolean containsKey(int opID, String key) {
-    if (keyMap.get(opID).containsKey(key)) {
+    if (keyIndexes.get(opID).find(toKey(key)) >= 0) {
       return true;
     }
     return memoryManager.containsKey(opID, key);
@@ -276,7 +256,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    deleteFromBMM(opID, MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString());
+    deleteFromBMM(opID, key);
     return memoryManager.delete(opID, key);
   }
 
@@ -294,7 +274,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
 
   @Override
   public boolean delete(int opID, String key) {
-    deleteFromBMM(opID, key);
+    deleteFromBMM(opID, toKey(key));
     return memoryManager.delete(opID, key);
   }
 
@@ -305,11 +285,12 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     return memoryManager.delete(opID, key);
   }*/
 
-  public void deleteFromBMM(int opID, String key) {
-    keyMap.get(opID).remove(key);
-    keyMapCurrent.get(opID).remove(key);
-    keyMapBuffers.get(opID).remove(key);
-    keyBufferSizes.get(opID).remove(key);
+  public void deleteFromBMM(int opID, ByteBuffer key) {
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    int slot = index.find(key);
+    if (slot >= 0) {
+      index.remove(slot);
+    }
   }
 
   @Override
@@ -319,10 +300,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     }
     OperationMemoryManager temp = new OperationMemoryManager(opID, type, this);
     memoryManager.addOperation(opID, type);
-    keyMap.put(opID, new ConcurrentHashMap<String, Integer>());
-    keyMapCurrent.put(opID, new ConcurrentHashMap<String, Integer>());
-    keyMapBuffers.put(opID, new ConcurrentHashMap<String, LinkedList<ByteBuffer>>());
-    keyBufferSizes.put(opID, new ConcurrentHashMap<String, Integer>());
+    keyIndexes.put(opID, new BinaryKeyIndex());
     operationMap.put(opID, temp);
     return temp;
   }
@@ -335,10 +313,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     }
     OperationMemoryManager temp = new OperationMemoryManager(opID, type, keyType, this);
     memoryManager.addOperation(opID, keyType, type);
-    keyMap.put(opID, new ConcurrentHashMap<String, Integer>());
-    keyMapCurrent.put(opID, new ConcurrentHashMap<String, Integer>());
-    keyMapBuffers.put(opID, new ConcurrentHashMap<String, LinkedList<ByteBuffer>>());
-    keyBufferSizes.put(opID, new ConcurrentHashMap<String, Integer>());
+    keyIndexes.put(opID, new BinaryKeyIndex());
     operationMap.put(opID, temp);
     return temp;
   }
@@ -346,10 +321,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
   @Override
   public boolean removeOperation(int opID) {
     memoryManager.removeOperation(opID);
-    keyMap.remove(opID);
-    keyMapCurrent.remove(opID);
-    keyMapBuffers.remove(opID);
-    keyBufferSizes.remove(opID);
+    keyIndexes.remove(opID);
     operationMap.remove(opID);
     return true;
   }
@@ -362,19 +334,17 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
    * is reached
    * @return true if the key was registered and false if the key is already present
    */
-  public boolean registerKey(int opID, String key, int step) {
+  public boolean registerKey(int opID, ByteBuffer key, int step) {
     //TODO : do we have knowledge of the size of each byteBuffer?
-    if (keyMap.get(opID).containsKey(key)) {
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    if (index.find(key) >= 0) {
       return false;
     }
-    keyMap.get(opID).put(key, step);
-    keyMapCurrent.get(opID).put(key, 0);
-    keyMapBuffers.get(opID).put(key, new LinkedList<ByteBuffer>());
-    keyBufferSizes.get(opID).put(key, 0);
+    index.register(key, step);
     return true;
   }
 
-  public boolean registerKey(int opID, String key) {
+  public boolean registerKey(int opID, ByteBuffer key) {
     return registerKey(opID, key, MemoryManagerContext.BULK_MM_STEP_SIZE);
   }
 
@@ -382,58 +352,59 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
    * Buffers the inputs before submitting it to the store. If the value is already present it
    * will be replaced
    */
-  public boolean putBulk(int opID, String key, ByteBuffer value) {
+  public boolean putBulk(int opID, ByteBuffer key, ByteBuffer value) {
     if (value.position() != 0) {
       value.flip();
     }
-    if (!keyMap.get(opID).containsKey(key) && !memoryManager.containsKey(opID, key)) {
-      registerKey(opID, key, MemoryManagerContext.BULK_MM_STEP_SIZE);
-    } else {
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    if (index.find(key) >= 0 || memoryManager.containsKey(opID, key)) {
       //If the key is already present we need to replace its value so we need to clear the data
       delete(opID, key);
-      registerKey(opID, key, MemoryManagerContext.BULK_MM_STEP_SIZE);
     }
-
-    keyMapCurrent.get(opID).put(key, 1);
-    keyMapBuffers.get(opID).get(key).add(value);
-    keyBufferSizes.get(opID).put(key, keyBufferSizes.get(opID).get(key) + value.limit());
+    int slot = index.register(key, MemoryManagerContext.BULK_MM_STEP_SIZE);
+    index.addValue(slot, value);
     return true;
   }
 
   /**
    * Buffers the inputs before submitting to the store. The new values will be appended to the end
    */
-  public boolean appendBulk(int opID, String key, ByteBuffer value) {
+  public boolean appendBulk(int opID, ByteBuffer key, ByteBuffer value) {
     if (value.position() != 0) {
       value.flip();
     }
-    if (!keyMap.get(opID).containsKey(key)) {
-      registerKey(opID, key, MemoryManagerContext.BULK_MM_STEP_SIZE);
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    int slot = index.find(key);
+    if (slot < 0) {
+      slot = index.register(key, MemoryManagerContext.BULK_MM_STEP_SIZE);
     }
-    //TODO: need to make sure that there are no memory leaks here
     //TODO: do we need to lock on key value? will more than 1 thread submit the same key
-    int step = keyMap.get(opID).get(key);
-    int currentCount = keyMapCurrent.get(opID).get(key);
+    int step = index.getStep(slot);
+    int currentCount = index.getCount(slot);
     // If this is the last value write all the values to store
     if ((currentCount + 1) % step == 0) {
       // write to store if the step has been met
-      flush(opID, key, value);
-      keyMapCurrent.get(opID).put(key, currentCount + 1);
-    } else {
-      keyMapCurrent.get(opID).put(key, currentCount + 1);
-      keyMapBuffers.get(opID).get(key).add(value);
-      keyBufferSizes.get(opID).put(key, keyBufferSizes.get(opID).get(key) + value.limit());
+      return flush(opID, index, slot, value);
     }
-    //TODO : check if the return is correct just a place holder for now
+    index.addValue(slot, value);
     return true;
   }
 
+  /**
+   * Makes sure all the data that is held in the BufferedMemoryManager for the key is pushed into
+   * the memory store
+   */
   @Override
   public boolean flush(int opID, ByteBuffer key) {
     if (key.position() != 0) {
       key.flip();
     }
-    return flush(opID, MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString());
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    int slot = index.find(key);
+    if (slot < 0) {
+      return true;
+    }
+    return flush(opID, index, slot, null);
   }
 
   /*@Override
@@ -446,28 +417,9 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     return flush(opID, new String(Longs.toByteArray(key), java.nio.charset.StandardCharsets.UTF_8));
   }*/
 
-  /**
-   * Makes sure all the data that is held in the BufferedMemoryManager is pushed into the
-   * memory store
-   */
+  @Override
   public boolean flush(int opID, String key) {
-    ByteBuffer temp = ByteBuffer.allocateDirect(keyBufferSizes.get(opID).get(key));
-    LinkedList<ByteBuffer> buffers = keyMapBuffers.get(opID).get(key);
-    while (!buffers.isEmpty()) {
-      temp.put(buffers.poll());
-    }
-    //Since we got all the buffer values reset the size
-    keyMap.get(opID).remove(key);
-    keyMapCurrent.get(opID).remove(key);
-    keyMapBuffers.get(opID).remove(key);
-    keyBufferSizes.get(opID).remove(key);
-    if (memoryManager.containsKey(opID, key)) {
-      return memoryManager.append(opID, key,
-          temp);
-    } else {
-      return memoryManager.put(opID, key,
-          temp);
-    }
+    return flush(opID, toKey(key));
   }
 
   @Override
@@ -477,24 +429,34 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
 
   /**
    * Slight variation of flush for so that the last ByteBuffer does not need to be copied into the
-   * map
+   * index
    *
    * @param key key to flush
    * @param last the last value that needs to be appended to the ByteBuffers that correspond to the
    * given key
    */
-  public boolean flush(int opID, String key, ByteBuffer last) {
-    ByteBuffer temp = ByteBuffer.allocateDirect(keyBufferSizes.get(opID).get(key) + last.limit());
-    LinkedList<ByteBuffer> buffers = keyMapBuffers.get(opID).get(key);
-    while (!buffers.isEmpty()) {
-      temp.put(buffers.poll());
+  public boolean flush(int opID, ByteBuffer key, ByteBuffer last) {
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    int slot = index.find(key);
+    if (slot < 0) {
+      slot = index.register(key, MemoryManagerContext.BULK_MM_STEP_SIZE);
+    }
+    return flush(opID, index, slot, last);
+  }
+
+  /**
+   * Write the values buffered in the slot followed by the last value if given to the store and
+   * remove the key from the index
+   */
+  private boolean flush(int opID, BinaryKeyIndex index, int slot, ByteBuffer last) {
+    ByteBuffer temp = index.copyValues(slot, last == null ? 0 : last.limit());
+    if (last != null) {
+      temp.put(last);
     }
-    temp.put(last);
-    //Since we got all the buffer values reset the size
-    keyMap.get(opID).remove(key);
-    keyMapCurrent.get(opID).remove(key);
-    keyMapBuffers.get(opID).remove(key);
-    keyBufferSizes.get(opID).remove(key);
+    // the store may keep the key until it is written, so it gets its own copy
+    ByteBuffer key = index.copyKey(slot);
+    //Since we got all the buffer values remove the key
+    index.remove(slot);
     if (memoryManager.containsKey(opID, key)) {
       return memoryManager.append(opID, key,
           temp);
@@ -509,11 +471,29 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
    * this must be called before a range of keys will be read as in the iterator methods
    */
   public boolean flushAll(int opID) {
-    for (String s : keyMap.get(opID).keySet()) {
-      flush(opID, s);
+    BinaryKeyIndex index = keyIndexes.get(opID);
+    // removing a key can move the next key into its slot, so only move on from empty slots
+    int slot = 0;
+    while (slot < index.capacity() && index.size() > 0) {
+      if (index.isOccupied(slot)) {
+        flush(opID, index, slot, null);
+      } else {
+        slot++;
+      }
     }
     return true;
   }
+
+  /**
+   * Encode a String key into a direct buffer
+   */
+  private static ByteBuffer toKey(String key) {
+    ByteBuffer temp = MemoryManagerContext.DEFAULT_CHARSET.encode(key);
+    ByteBuffer keyBuffer = ByteBuffer.allocateDirect(temp.limit());
+    keyBuffer.put(temp);
+    keyBuffer.flip();
+    return keyBuffer;
+  }
   /*@Override
   public <T extends Serializable> boolean flush(int opID, T key) {
     return false;
@@ -524,7 +504,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
     if (key.position() != 0) {
       key.flip();
     }
-    return close(opID, MemoryManagerContext.DEFAULT_CHARSET.decode(key).toString());
+    return flush(opID, key);
   }
 
   /*@Override
@@ -544,12 +524,7 @@ public class BufferedMemoryManager extends AbstractMemoryManager {
    */
   @Override
   public boolean close(int opID, String key) {
-    flush(opID, key);
-    keyMap.get(opID).remove(key);
-    keyMapCurrent.get(opID).remove(key);
-    keyMapBuffers.get(opID).remove(key);
-    keyBufferSizes.get(opID).remove(key);
-    return true;
+    return flush(opID, key);
   }
 
   @Override
@@ -13,7 +13,11 @@ package edu.iu.dsc.tws.data.memory;
 
 import java.nio.charset.Charset;
 
+import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.common.config.Context;
+import edu.iu.dsc.tws.data.fs.Path;
+import edu.iu.dsc.tws.data.memory.lmdb.LMDBMemoryManager;
+import edu.iu.dsc.tws.data.memory.mmap.MMapMemoryManager;
 
 /**
  * Created by pulasthi on 1/5/18.
@@ -30,6 +34,49 @@ public class MemoryManagerContext extends Context {
    */
   public static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
+  /**
+   * Initial number of slots in the key index of the Bulk Memory Manager
+   */
+  public static final int KEY_INDEX_INIT_SLOTS = 1024;
+
+  /**
+   * Initial size of the off heap slab that keeps the keys of the Bulk Memory Manager
+   */
+  public static final int KEY_SLAB_INIT_CAP = 1024 * 64;
+
+  /**
+   * Initial size of the off heap slab that keeps the buffered values of the Bulk Memory Manager
+   */
+  public static final int VALUE_SLAB_INIT_CAP = 1024 * 1024;
+
   public static final int TL_DATA_BUFF_INIT_CAP = 1024;
   public static final int TL_KEY_BUFF_INIT_CAP = 256;
+
+  /**
+   * The memory manager implementation used for store based operations, lmdb or mmap
+   */
+  public static final String MEMORY_MANAGER_TYPE = "twister2.memory.manager.type";
+
+  public static final String MEMORY_MANAGER_LMDB = "lmdb";
+
+  public static final String MEMORY_MANAGER_MMAP = "mmap";
+
+  public static String memoryManagerType(Config cfg) {
+    return cfg.getStringValue(MEMORY_MANAGER_TYPE, MEMORY_MANAGER_LMDB);
+  }
+
+  /**
+   * Create the memory manager selected in the configuration
+   *
+   * @param dataPath path to keep the files of the memory manager
+   */
+  public static MemoryManager memoryManager(Config cfg, Path dataPath) {
+    String type = memoryManagerType(cfg);
+    if (MEMORY_MANAGER_MMAP.equals(type)) {
+      return new MMapMemoryManager(dataPath);
+    } else if (MEMORY_MANAGER_LMDB.equals(type)) {
+      return new LMDBMemoryManager(dataPath);
+    }
+    throw new RuntimeException("Unknown memory manager type: " + type);
+  }
 }
@@ -13,127 +13,365 @@ package edu.iu.dsc.tws.data.memory.lmdb;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import org.apache.commons.lang3.tuple.Pair;
-import org.lmdbjava.Cursor;
 import org.lmdbjava.Dbi;
 import org.lmdbjava.Env;
 import org.lmdbjava.Txn;
 
 /**
- * Created by pulasthi on 3/16/18.
+ * Writes the key value pairs of all the operations to LMDB from a single thread.
+ *
+ * The writes are grouped into a write transaction which is committed when the number of puts or
+ * bytes reaches a limit, when the transaction has been open for too long, or when a reader
+ * waits for a write to be visible. The writer parks while there is nothing to write and is woken
+ * up by the next write.
+ *
+ * Every accepted write gets a sequence number, which is assigned together with queuing the write
+ * so the writes are queued in the order of their numbers. The writer keeps the sequence number of
+ * the last write of every key that is not committed yet. A reader of a key waits through
+ * {@link #awaitVisible(int, ByteBuffer)} only if the key has a pending write, so reads of other
+ * keys don't end the transaction early. {@link #awaitVisible()} waits for all the writes accepted
+ * before it, for readers that go over the whole store.
  */
 public class LMDBDataWriter implements Runnable {
+  private static final Logger LOG = Logger.getLogger(LMDBDataWriter.class.getName());
+
+  /**
+   * A pending write
+   */
+  private static final class WriteRequest {
+    private final int opID;
+    private final byte[] key;
+    private final byte[] value;
+    // true if the value is stored with its length in front of it
+    private final boolean withLength;
+    // set when the write is queued
+    private long sequence;
+    private PendingKeys.Key pendingKey;
+
+    private WriteRequest(int opID, byte[] key, byte[] value, boolean withLength) {
+      this.opID = opID;
+      this.key = key;
+      this.value = value;
+      this.withLength = withLength;
+    }
+
+    private int valueLength() {
+      return withLength ? value.length + 4 : value.length;
+    }
+  }
+
+  private final Env<ByteBuffer> envRef;
+  private final Map<Integer, Dbi<ByteBuffer>> dbMapRef;
+
+  private final BlockingQueue<WriteRequest> requests;
+
+  /**
+   * Sequence number of the last write accepted into the queue
+   */
+  private final AtomicLong accepted = new AtomicLong();
+
+  /**
+   * Numbers and queues the writes together
+   */
+  private final Lock submitLock = new ReentrantLock();
+
+  /**
+   * Highest sequence number a reader is waiting on
+   */
+  private final AtomicLong requested = new AtomicLong();
+
+  /**
+   * Sequence number of the last write that is committed, guarded by this
+   */
+  private volatile long committed = 0;
+
+  /**
+   * Sequence number of the last write put into the current transaction, only used by the writer
+   */
+  private long written = 0;
+
+  /**
+   * The keys with writes that are not committed
+   */
+  private final PendingKeys pendingKeys = new PendingKeys();
+
+  /**
+   * Number of transactions committed
+   */
+  private final AtomicLong commits = new AtomicLong();
+
+  /**
+   * The writes in the current transaction, only used by the writer
+   */
+  private final List<WriteRequest> uncommitted = new ArrayList<>();
+
   private ByteBuffer keyBuffer;
-  private ByteBuffer dataBuffer;
-  private int currentDbiCount;
 
-  private Env<ByteBuffer> envRef;
-  private Map<Integer, Dbi<ByteBuffer>> dbMapRef;
-  private Map<Integer, LinkedBlockingDeque<Pair<byte[], byte[]>>> dataQueueMapRef;
+  private volatile Thread writerThread;
+
+  // true while the writer is parked or about to park
+  private volatile boolean idle = false;
 
-  public LMDBDataWriter(Map<Integer, Dbi<ByteBuffer>> dbMap, Map<Integer,
-      LinkedBlockingDeque<Pair<byte[], byte[]>>> dataQueueMap, Env<ByteBuffer> env) {
+  private volatile boolean running = true;
+
+  // set if the writer failed
+  private volatile Throwable error;
+
+  public LMDBDataWriter(Map<Integer, Dbi<ByteBuffer>> dbMap, Env<ByteBuffer> env) {
     this.dbMapRef = dbMap;
-    this.dataQueueMapRef = dataQueueMap;
     this.envRef = env;
-
+    this.requests = new LinkedBlockingQueue<>(
+        LMDBMemoryManagerContext.DEFAULT_WRITE_BUFFER_MAP_SIZE);
     this.keyBuffer = ByteBuffer.allocateDirect(LMDBMemoryManagerContext.KEY_BUFF_INIT_CAP);
-    this.dataBuffer = ByteBuffer.allocateDirect(LMDBMemoryManagerContext.DATA_BUFF_INIT_CAP);
-    this.currentDbiCount = 0;
+  }
 
+  /**
+   * Queue a key value pair of an operation to be written. The value is stored with its length
+   * in front of it. Blocks while the queue of pending writes is full.
+   */
+  public boolean write(int opID, byte[] key, byte[] value) {
+    // the key is kept to track the pending write, so it should not change with the caller
+    return submit(new WriteRequest(opID, key.clone(), value, true));
   }
 
-  @Override
-  public void run() {
+  /**
+   * Queue a key value pair of an operation to be written. The bytes from the position to the
+   * limit of the buffers are copied, so the buffers can be reused once this returns. Blocks
+   * while the queue of pending writes is full.
+   */
+  public boolean write(int opID, ByteBuffer key, ByteBuffer value) {
+    return submit(new WriteRequest(opID, toBytes(key), toBytes(value), false));
+  }
 
-    Txn<ByteBuffer> writeTxn = null;
-    Map<Integer, Cursor<ByteBuffer>> openCoursors = new HashMap<>();
-    List<Integer> opIDs = new ArrayList<>();
-    int opID = 0;
-    Cursor<ByteBuffer> c = null;
-    int count = 0;
-    while (currentDbiCount == 0) {
-      if (dbMapRef.size() > 0 && dataQueueMapRef.size() > 0) {
-        writeTxn = this.envRef.txnWrite();
-        for (Map.Entry<Integer, Dbi<ByteBuffer>> dbiEntry : dbMapRef.entrySet()) {
-          opID = dbiEntry.getKey();
-          c = dbiEntry.getValue().openCursor(writeTxn);
-          currentDbiCount++;
+  /**
+   * Wait until every write accepted before this call is committed and visible to new read
+   * transactions
+   */
+  public void awaitVisible() {
+    checkError();
+    awaitCommitted(accepted.get());
+  }
+
+  /**
+   * Wait until the writes of the key accepted before this call are committed and visible to new
+   * read transactions. Returns straight away if the key has no pending write.
+   *
+   * @param opID the operation
+   * @param key the key from its position to the limit
+   */
+  public void awaitVisible(int opID, ByteBuffer key) {
+    checkError();
+    awaitCommitted(pendingKeys.sequence(opID, key));
+  }
+
+  /**
+   * Number of keys with writes that are not committed
+   */
+  public int getPendingKeys() {
+    return pendingKeys.size();
+  }
+
+  /**
+   * Number of transactions committed so far
+   */
+  public long getCommits() {
+    return commits.get();
+  }
+
+  private void awaitCommitted(long target) {
+    if (committed >= target) {
+      return;
+    }
+
+    long current = requested.get();
+    while (current < target && !requested.compareAndSet(current, target)) {
+      current = requested.get();
+    }
+    wakeUp();
+
+    synchronized (this) {
+      while (committed < target && error == null) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Interrupted while waiting for the LMDB commit", e);
         }
       }
     }
+    checkError();
+  }
 
-    Pair<byte[], byte[]> tempPair = null;
-    LinkedBlockingDeque<Pair<byte[], byte[]>> dataQueue = dataQueueMapRef.get(opID);
+  /**
+   * Write and commit the pending writes and stop the writer thread
+   */
+  public void close() {
+    awaitVisible();
+    running = false;
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    writerThread = Thread.currentThread();
+    Txn<ByteBuffer> writeTxn = null;
+    long txnStart = 0;
+    int pendingPuts = 0;
+    long pendingBytes = 0;
+    try {
+      while (running || !requests.isEmpty()) {
+        WriteRequest request = requests.poll();
+        if (request != null) {
+          if (writeTxn == null) {
+            writeTxn = envRef.txnWrite();
+            txnStart = System.nanoTime();
+          }
+          put(writeTxn, request);
+          uncommitted.add(request);
+          written = request.sequence;
+          pendingPuts++;
+          pendingBytes += request.key.length + request.valueLength();
+        }
 
-    while (true) {
+        if (writeTxn != null && (pendingPuts >= LMDBMemoryManagerContext.COMMIT_MAX_PUTS
+            || pendingBytes >= LMDBMemoryManagerContext.COMMIT_MAX_BYTES
+            || (requested.get() > committed && (written >= requested.get() || request == null))
+            || System.nanoTime() - txnStart >= LMDBMemoryManagerContext.COMMIT_MAX_DELAY_NANOS
+            || (request == null && !running))) {
+          commit(writeTxn);
+          writeTxn = null;
+          pendingPuts = 0;
+          pendingBytes = 0;
+        }
 
-//      if (dbMapRef.size() > currentDbiCount) {
-//        for (Map.Entry<Integer, Dbi<ByteBuffer>> dbiEntry : dbMapRef.entrySet()) {
-//          if (!openCoursors.containsKey(dbiEntry.getKey())) {
-//            openCoursors.put(dbiEntry.getKey(), dbiEntry.getValue().openCursor(writeTxn));
-//            opIDs.add(dbiEntry.getKey());
-//            currentDbiCount++;
-//          }
-//        }
-//      }
-//
-//      if(currentDbiCount == 0){
-//        Thread.yield();
-//      }
-      tempPair = dataQueue.poll();
-      if (tempPair != null) {
-        setupThreadLocalBuffers(tempPair.getKey().length, tempPair.getValue().length);
-        keyBuffer.put(tempPair.getKey());
-        keyBuffer.flip();
-
-        dataBuffer.putInt(tempPair.getValue().length);
-        dataBuffer.put(tempPair.getValue());
-        dataBuffer.flip();
-
-        c.put(keyBuffer, dataBuffer);
-        LMDBMemoryManager.needsCommitWriter = true;
-        count++;
-        if (count % 2000000 == 0 && count > 0) {
-          writeTxn.commit();
-          writeTxn.close();
-          writeTxn = this.envRef.txnWrite();
-          c = dbMapRef.get(opID).openCursor(writeTxn);
-          LMDBMemoryManager.needsCommitWriter = false;
-          LMDBMemoryManager.needsCommitReader = false;
-          System.out.println("added 2  mil to mm");
+        if (request == null) {
+          park(writeTxn != null);
         }
       }
-
-      if (LMDBMemoryManager.needsCommitReader) {
-        writeTxn.commit();
+    } catch (Throwable t) {
+      LOG.log(Level.SEVERE, "Failed to write to LMDB", t);
+      if (writeTxn != null) {
         writeTxn.close();
-        writeTxn = this.envRef.txnWrite();
-        c = dbMapRef.get(opID).openCursor(writeTxn);
-        LMDBMemoryManager.needsCommitWriter = false;
-        LMDBMemoryManager.needsCommitReader = false;
       }
+      synchronized (this) {
+        error = t;
+        notifyAll();
+      }
+    }
+  }
+
+  private boolean submit(WriteRequest request) {
+    checkError();
+    submitLock.lock();
+    try {
+      request.sequence = accepted.get() + 1;
+      // the key is pending before the writer can see the write, so the writer never commits a
+      // write that has not been recorded
+      request.pendingKey = pendingKeys.add(request.opID, request.key, request.sequence);
+      requests.put(request);
+      accepted.set(request.sequence);
+    } catch (InterruptedException e) {
+      pendingKeys.committed(request.pendingKey, request.sequence);
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      submitLock.unlock();
+    }
+    if (idle) {
+      wakeUp();
+    }
+    return true;
+  }
+
+  private void put(Txn<ByteBuffer> txn, WriteRequest request) {
+    Dbi<ByteBuffer> dbi = dbMapRef.get(request.opID);
+    if (dbi == null) {
+      LOG.warning("Dropping a write to operation " + request.opID
+          + " which does not have a corresponding store");
+      return;
+    }
 
+    ByteBuffer key = toKeyBuffer(request.key);
+    // write the value straight into the memory map
+    ByteBuffer reserved = dbi.reserve(txn, key, request.valueLength());
+    if (request.withLength) {
+      reserved.putInt(request.value.length);
     }
+    reserved.put(request.value);
+  }
+
+  private ByteBuffer toKeyBuffer(byte[] key) {
+    if (keyBuffer.capacity() < key.length) {
+      keyBuffer = ByteBuffer.allocateDirect(key.length);
+    }
+    keyBuffer.clear();
+    keyBuffer.put(key);
+    keyBuffer.flip();
+    return keyBuffer;
+  }
 
+  private static byte[] toBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
 
+  private void commit(Txn<ByteBuffer> txn) {
+    txn.commit();
+    txn.close();
+    commits.incrementAndGet();
+    // the writes are visible now, the keys are released before the waiting readers are woken
+    for (WriteRequest request : uncommitted) {
+      pendingKeys.committed(request.pendingKey, request.sequence);
+    }
+    uncommitted.clear();
+    synchronized (this) {
+      committed = written;
+      notifyAll();
+    }
   }
 
-  private void setupThreadLocalBuffers(int keyLength, int dataLength) {
-    int dataLengthTemp = dataLength + 4;
-    if (keyBuffer.capacity() < keyLength) {
-      keyBuffer = ByteBuffer.allocateDirect(keyLength);
+  /**
+   * Park until a write arrives, the timeout makes sure an open transaction is committed in time
+   */
+  private void park(boolean txnOpen) {
+    idle = true;
+    if (requests.isEmpty() && running && requested.get() <= committed) {
+      LockSupport.parkNanos(this, txnOpen ? LMDBMemoryManagerContext.COMMIT_MAX_DELAY_NANOS
+          : LMDBMemoryManagerContext.WRITER_PARK_NANOS);
     }
-    if (dataBuffer.capacity() < dataLengthTemp) {
-      dataBuffer = ByteBuffer.allocateDirect(dataLengthTemp);
+    idle = false;
+  }
+
+  private void wakeUp() {
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
     }
+  }
 
-    dataBuffer.clear();
-    keyBuffer.clear();
+  private void checkError() {
+    if (error != null) {
+      throw new RuntimeException("Failed to write to LMDB", error);
+    }
   }
 }
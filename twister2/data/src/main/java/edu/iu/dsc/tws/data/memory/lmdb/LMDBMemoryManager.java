@@ -15,21 +15,16 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
-import org.lmdbjava.Cursor;
 import org.lmdbjava.CursorIterator;
 import org.lmdbjava.Dbi;
 import org.lmdbjava.Env;
@@ -77,15 +72,14 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 
   private Map<Integer, Dbi<ByteBuffer>> dbMap;
 
-  private Map<Integer, LinkedBlockingDeque<Pair<byte[], byte[]>>> dataQueueMap;
-  protected Lock lock = new ReentrantLock();
+  /**
+   * Writes the puts of all the operations in batched transactions
+   */
+  private LMDBDataWriter dataWriter;
 
   private ByteBuffer keyBuffer;
   private ByteBuffer dataBuffer;
 
-  protected static Boolean needsCommitWriter;
-  protected static Boolean needsCommitReader;
-
 
   /**
    * Stack of read Txn used for reads on this executor.
@@ -97,7 +91,6 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
   //  private ThreadLocal<Txn<ByteBuffer>> threadWriteTxn;
 //  private ThreadLocal<Cursor<ByteBuffer>> threadWriteCursor;
 //  private ThreadLocal<Boolean> threadNeedCommit;
-  private ThreadLocal<ByteBuffer> threadappendBuffer;
 
   public LMDBMemoryManager(Path dataPath) {
     this.lmdbDataPath = dataPath;
@@ -125,14 +118,13 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 
       // The database supports duplicate values for a single key
       db = env.openDbi(LMDBMemoryManagerContext.DB_NAME, MDB_CREATE);
-      dbMap = new HashMap<Integer, Dbi<ByteBuffer>>();
+      dbMap = new ConcurrentHashMap<Integer, Dbi<ByteBuffer>>();
       keyBuffer = ByteBuffer.allocateDirect(LMDBMemoryManagerContext.KEY_BUFF_INIT_CAP);
       dataBuffer = ByteBuffer.allocateDirect(LMDBMemoryManagerContext.DATA_BUFF_INIT_CAP);
-      dataQueueMap = new HashMap<>();
 
-      LMDBMemoryManager.needsCommitReader = false;
-      LMDBMemoryManager.needsCommitWriter = true;
-      Thread writerThread = new Thread(new LMDBDataWriter(dbMap, dataQueueMap, env));
+      dataWriter = new LMDBDataWriter(dbMap, env);
+      Thread writerThread = new Thread(dataWriter, "lmdb-writer");
+      writerThread.setDaemon(true);
       writerThread.start();
       //populate readTxnStack
 //      readTxns = new Stack<>();
@@ -144,7 +136,6 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteTxn = new ThreadLocal<>();
 //      threadWriteCursor = new ThreadLocal<>();
 //      threadNeedCommit = new ThreadLocal<>();
-      threadappendBuffer = new ThreadLocal<>();
     } catch (RuntimeException e) {
       throw new RuntimeException("Error while creating LMDB database at Path "
           + lmdbDataPath.toString(), e);
@@ -190,6 +181,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
     // you need data afterwards, you should copy the bytes to your own buffer.
     //TODO: does the value returned from db.get and tnx.val() have the same data? need to check
 //    Txn<ByteBuffer> txn = requestReadTxn();
+    dataWriter.awaitVisible(opID, key);
     Txn<ByteBuffer> txn = threadReadTxn.get();
     txn.reset();
     txn.renew();
@@ -320,6 +312,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteCursor.set(currentDB.openCursor(threadWriteTxn.get()));
 //      threadNeedCommit.set(false);
 //    }
+    dataWriter.awaitVisible(opID, key);
     Txn<ByteBuffer> txn = threadReadTxn.get();
     txn.reset();
     txn.renew();
@@ -375,19 +368,10 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
       return put(opID, key, value);
     }
 
-    int capacity = results.limit() + value.limit();
-    if (threadappendBuffer.get() == null) {
-      threadappendBuffer.set(ByteBuffer.allocateDirect(
-          LMDBMemoryManagerContext.DEFAULT_APPEND_BUFFER_SIZE));
-    }
-    if (capacity > threadappendBuffer.get().capacity()) {
-      threadappendBuffer.set(ByteBuffer.allocateDirect(capacity * 2));
-    }
-    threadappendBuffer.get().clear();
-    threadappendBuffer.get()
-        .put(results)
+    ByteBuffer appended = ByteBuffer.allocate(results.limit() + value.limit());
+    appended.put(results)
         .put(value);
-    return put(opID, key, threadappendBuffer.get());
+    return put(opID, key, appended);
   }
 
   /*@Override
@@ -417,6 +401,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 
   /**
    * Insert key value pair into the
+   * The buffers are copied by the writer, so they can be reused once this returns
    *
    * @param key the key, must be unver 511 bytes because of limits in LMDB implementaion
    * @param value the value to be added
@@ -453,8 +438,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 
 //    threadWriteCursor.get().put(key, value);
     //  threadNeedCommit.set(true);
-    currentDB.put(key, value);
-    return true;
+    return dataWriter.write(opID, key, value);
   }
 
   /**
@@ -474,12 +458,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      LOG.info("Key size lager than 511 bytes which is the limit for LMDB key values");
 //      return false;
 //    }
-    try {
-      dataQueueMap.get(opID).put(new ImmutablePair<>(key, value));
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    }
-    return true;
+    return dataWriter.write(opID, key, value);
   }
 
   /**
@@ -499,23 +478,19 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
       throw new RuntimeException("LMDB database has not been configured."
           + " Please initialize database");
     }
-    try (Txn<ByteBuffer> tx = env.txnWrite();) {
-      try (Cursor<ByteBuffer> c = currentDB.openCursor(tx);) {
-        for (int i = 0; i < keys.size(); i++) {
-          keys.get(i).rewind();
-          if (keys.get(i).limit() > 511) {
-            LOG.info("Key size lager than 511 bytes which is the limit for LMDB key values");
-            return false;
-          }
-          values.get(i).rewind();
-          c.put(keys.get(i), values.get(i));
-        }
-      } catch (RuntimeException e) {
-        throw new RuntimeException("Error while creating cursor", e);
+    for (int i = 0; i < keys.size(); i++) {
+      keys.get(i).rewind();
+      if (keys.get(i).limit() > 511) {
+        LOG.info("Key size lager than 511 bytes which is the limit for LMDB key values");
+        return false;
+      }
+    }
+    // the pairs go into the same batched transactions as the rest of the writes
+    for (int i = 0; i < keys.size(); i++) {
+      values.get(i).rewind();
+      if (!dataWriter.write(opID, keys.get(i), values.get(i))) {
+        return false;
       }
-      tx.commit();
-    } catch (RuntimeException e) {
-      throw new RuntimeException("Error while creating txn", e);
     }
     return true;
   }
@@ -613,6 +588,8 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteTxn.get().commit();
 //      threadWriteTxn.get().close();
 //    }
+    // apply the pending writes of the key first so they do not bring the key back
+    dataWriter.awaitVisible(opID, key);
     currentDB.delete(key);
 
 //    if (threadNeedCommit.get() != null) {
@@ -664,8 +641,6 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteTxn.get().close();
 //    }
 
-    dataQueueMap.put(opID, new LinkedBlockingDeque<>(
-        LMDBMemoryManagerContext.DEFAULT_WRITE_BUFFER_MAP_SIZE));
     dbMap.put(opID, env.openDbi(String.valueOf(opID), MDB_CREATE));
 //    if (threadNeedCommit.get() != null) {
 //      threadWriteTxn.set(env.txnWrite());
@@ -683,8 +658,6 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteTxn.get().commit();
 //      threadWriteTxn.get().close();
 //    }
-    dataQueueMap.put(opID, new LinkedBlockingDeque<>(
-        LMDBMemoryManagerContext.DEFAULT_WRITE_BUFFER_MAP_SIZE));
     dbMap.put(opID, env.openDbi(String.valueOf(opID), MDB_CREATE));
 
 //    if (threadNeedCommit.get() != null) {
@@ -699,6 +672,7 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
   public boolean removeOperation(int opID) {
     //TODO: lmdb docs say that calling close is normally unnecessary; use with caution. need to
     // later check this to make sure it has been done the correct way
+    dataWriter.awaitVisible();
     dbMap.get(opID).close();
     dbMap.remove(opID);
     return true;
@@ -819,14 +793,8 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteCursor.set(currentDB.openCursor(threadWriteTxn.get()));
 //      threadNeedCommit.set(false);
 //    }
-    lock.lock();
-    if (needsCommitWriter) {
-      needsCommitReader = true;
-      while (needsCommitReader) {
-        // busy wait till commit is done
-      }
-    }
-    lock.unlock();
+    // make the writes done before this call visible to the read txn
+    dataWriter.awaitVisible();
     int limit = 50000;
     int tempCount = 0;
     boolean firstd = true;
@@ -881,14 +849,8 @@ public class LMDBMemoryManager extends AbstractMemoryManager {
 //      threadWriteCursor.set(currentDB.openCursor(threadWriteTxn.get()));
 //      threadNeedCommit.set(false);
 //    }
-    lock.lock();
-    if (needsCommitWriter) {
-      needsCommitReader = true;
-      while (needsCommitReader) {
-        // busy wait till commit is done
-      }
-    }
-    lock.unlock();
+    // make the writes done before this call visible to the read txn
+    dataWriter.awaitVisible();
 
     Txn<ByteBuffer> txn = threadReadTxn.get();
     txn.reset();
@@ -38,6 +38,26 @@ public class LMDBMemoryManagerContext extends Context {
 
   public static final int DEFAULT_WRITE_BUFFER_MAP_SIZE = 5000000;
 
+  /**
+   * Maximum number of puts the writer groups into one transaction before committing
+   */
+  public static final int COMMIT_MAX_PUTS = 500000;
+
+  /**
+   * Maximum number of key and value bytes the writer groups into one transaction
+   */
+  public static final long COMMIT_MAX_BYTES = 1048576L * 64L;
+
+  /**
+   * Maximum time a write transaction is kept open before it is committed, 10ms
+   */
+  public static final long COMMIT_MAX_DELAY_NANOS = 10000000L;
+
+  /**
+   * Time the writer parks when there is nothing to write, it is woken up by the next write
+   */
+  public static final long WRITER_PARK_NANOS = 100000000L;
+
   public static final int DATA_BUFF_INIT_CAP = 128;
 
   public static final int KEY_BUFF_INIT_CAP = 16;
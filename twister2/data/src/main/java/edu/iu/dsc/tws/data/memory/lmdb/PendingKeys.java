@@ -0,0 +1,97 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.lmdb;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the sequence number of the last accepted write of every key that is not committed yet,
+ * so that a read only waits for a commit when the key it reads has a pending write.
+ */
+public class PendingKeys {
+  /**
+   * A key of an operation, compared by the bytes from the position to the limit
+   */
+  public static final class Key {
+    private final int opID;
+    private final ByteBuffer key;
+
+    private Key(int opID, ByteBuffer key) {
+      this.opID = opID;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return opID == other.opID && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * opID + key.hashCode();
+    }
+  }
+
+  private final Map<Key, Long> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Record a write of the key
+   *
+   * @param opID the operation
+   * @param key the key bytes, they are kept so should not be modified
+   * @param sequence sequence number of the write
+   * @return the key to use when the write is committed
+   */
+  public Key add(int opID, byte[] key, long sequence) {
+    Key k = new Key(opID, ByteBuffer.wrap(key));
+    pending.put(k, sequence);
+    return k;
+  }
+
+  /**
+   * The write is committed, the key is no longer pending unless it is written again after it
+   */
+  public void committed(Key key, long sequence) {
+    pending.remove(key, sequence);
+  }
+
+  /**
+   * Sequence number of the last pending write of the key, 0 if the key has no pending write
+   *
+   * @param opID the operation
+   * @param key the key from its position to the limit, it is not modified
+   */
+  public long sequence(int opID, ByteBuffer key) {
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    Long sequence = pending.get(new Key(opID, key));
+    return sequence != null ? sequence : 0;
+  }
+
+  public long sequence(int opID, byte[] key) {
+    return sequence(opID, ByteBuffer.wrap(key));
+  }
+
+  public int size() {
+    return pending.size();
+  }
+}
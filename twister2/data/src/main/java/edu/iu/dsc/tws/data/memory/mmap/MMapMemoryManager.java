@@ -0,0 +1,307 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.mmap;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import edu.iu.dsc.tws.data.fs.Path;
+import edu.iu.dsc.tws.data.memory.AbstractMemoryManager;
+import edu.iu.dsc.tws.data.memory.MemoryManagerContext;
+import edu.iu.dsc.tws.data.memory.OperationMemoryManager;
+import edu.iu.dsc.tws.data.memory.utils.DataMessageType;
+import edu.iu.dsc.tws.data.utils.KryoMemorySerializer;
+import edu.iu.dsc.tws.data.utils.MemoryDeserializer;
+
+/**
+ * Memory Manager implementation in pure Java. Each operation has an append only log kept in
+ * memory mapped files and an in memory index from the keys to their latest records, so no
+ * native library is needed.
+ *
+ * Values are stored in the same layout as in the LMDB memory manager and the iterators return
+ * the keys in the same order, so the two can replace each other.
+ */
+public class MMapMemoryManager extends AbstractMemoryManager {
+
+  private static final Logger LOG = Logger.getLogger(MMapMemoryManager.class.getName());
+
+  /**
+   * Path to keep the memory mapped files for the Memory manager
+   */
+  private Path dataPath;
+
+  private File directory;
+
+  private Map<Integer, OperationLog> logs;
+
+  public MMapMemoryManager(Path dataPath) {
+    this.dataPath = dataPath;
+    init();
+  }
+
+  @Override
+  public boolean init() {
+    if (dataPath == null || dataPath.isNullOrEmpty()) {
+      dataPath = new Path(MMapMemoryManagerContext.DEFAULT_FOLDER_PATH);
+    }
+    directory = new File(dataPath.getPath());
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new RuntimeException("Error while creating the memory manager directory at Path "
+          + dataPath.toString());
+    }
+    logs = new ConcurrentHashMap<>();
+    return true;
+  }
+
+  @Override
+  public boolean append(int opID, ByteBuffer key, ByteBuffer value) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return false;
+    }
+    log.append(flipped(key), flipped(value));
+    return true;
+  }
+
+  @Override
+  public boolean append(int opID, String key, ByteBuffer value) {
+    return append(opID, toKey(key), value);
+  }
+
+  @Override
+  public boolean put(int opID, ByteBuffer key, ByteBuffer value) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return false;
+    }
+    log.put(flipped(key), flipped(value));
+    return true;
+  }
+
+  /**
+   * Insert key value pair, the value is stored with its length in front of it. The bytes are
+   * written straight into the log without an intermediate buffer.
+   */
+  @Override
+  public boolean put(int opID, byte[] key, byte[] data) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return false;
+    }
+    log.put(ByteBuffer.wrap(key), data);
+    return true;
+  }
+
+  @Override
+  public boolean put(int opID, String key, ByteBuffer value) {
+    return put(opID, toKey(key), value);
+  }
+
+  @Override
+  public ByteBuffer get(int opID, ByteBuffer key) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return null;
+    }
+    return log.get(flipped(key));
+  }
+
+  @Override
+  public ByteBuffer get(int opID, String key) {
+    return get(opID, toKey(key));
+  }
+
+  @Override
+  public boolean containsKey(int opID, ByteBuffer key) {
+    OperationLog log = getLog(opID);
+    return log != null && log.containsKey(flipped(key));
+  }
+
+  @Override
+  public boolean containsKey(int opID, String key) {
+    return containsKey(opID, toKey(key));
+  }
+
+  @Override
+  public boolean delete(int opID, ByteBuffer key) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return false;
+    }
+    log.delete(flipped(key));
+    return true;
+  }
+
+  @Override
+  public boolean delete(int opID, String key) {
+    return delete(opID, toKey(key));
+  }
+
+  @Override
+  public OperationMemoryManager addOperation(int opID, DataMessageType type) {
+    logs.put(opID, new OperationLog(directory, opID));
+    return new OperationMemoryManager(opID, type, this);
+  }
+
+  @Override
+  public OperationMemoryManager addOperation(int opID, DataMessageType messageType,
+                                             DataMessageType keyType) {
+    logs.put(opID, new OperationLog(directory, opID));
+    return new OperationMemoryManager(opID, messageType, keyType, this);
+  }
+
+  @Override
+  public boolean removeOperation(int opID) {
+    OperationLog log = logs.remove(opID);
+    if (log == null) {
+      return false;
+    }
+    log.close();
+    return true;
+  }
+
+  /**
+   * The values are written to the log when they are added, so there is nothing to flush
+   */
+  @Override
+  public boolean flush(int opID, ByteBuffer key) {
+    return true;
+  }
+
+  @Override
+  public boolean flush(int opID, String key) {
+    return true;
+  }
+
+  @Override
+  public boolean flush(int opID) {
+    return true;
+  }
+
+  @Override
+  public boolean close(int opID, ByteBuffer key) {
+    return true;
+  }
+
+  @Override
+  public boolean close(int opID, String key) {
+    return true;
+  }
+
+  /**
+   * Returns an iterator over the key value pairs of the operation ordered by key. The records
+   * are read from the log as the iterator advances.
+   */
+  @Override
+  public Iterator<Object> getIterator(int opID, DataMessageType keyType,
+                                      DataMessageType valueType,
+                                      KryoMemorySerializer deSerializer, ByteOrder order) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return null;
+    }
+    return new LogIterator(log, keyType, valueType, deSerializer, order);
+  }
+
+  /**
+   * Returns an iterator over the values of the operation ordered by key
+   */
+  @Override
+  public Iterator<Object> getIterator(int opID, DataMessageType valueType,
+                                      KryoMemorySerializer deSerializer, ByteOrder order) {
+    OperationLog log = getLog(opID);
+    if (log == null) {
+      return null;
+    }
+    return new LogIterator(log, null, valueType, deSerializer, order);
+  }
+
+  public Path getDataPath() {
+    return dataPath;
+  }
+
+  private OperationLog getLog(int opID) {
+    OperationLog log = logs.get(opID);
+    if (log == null) {
+      LOG.info("The given operation does not have a corresponding store specified");
+    }
+    return log;
+  }
+
+  private static ByteBuffer flipped(ByteBuffer buffer) {
+    if (buffer.position() != 0) {
+      buffer.flip();
+    }
+    return buffer;
+  }
+
+  private static ByteBuffer toKey(String key) {
+    return ByteBuffer.wrap(key.getBytes(MemoryManagerContext.DEFAULT_CHARSET));
+  }
+
+  /**
+   * Iterates over a snapshot of the latest records of the keys taken when it is created
+   */
+  private static final class LogIterator implements Iterator<Object> {
+    private final OperationLog log;
+    private final long[] records;
+    private final DataMessageType keyType;
+    private final DataMessageType valueType;
+    private final KryoMemorySerializer deSerializer;
+    private final ByteOrder order;
+    private int index;
+
+    private LogIterator(OperationLog log, DataMessageType keyType, DataMessageType valueType,
+                        KryoMemorySerializer deSerializer, ByteOrder order) {
+      this.log = log;
+      this.records = log.sortedRecords();
+      this.keyType = keyType;
+      this.valueType = valueType;
+      this.deSerializer = deSerializer;
+      this.order = order;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < records.length;
+    }
+
+    @Override
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      long record = records[index++];
+      Object value = MemoryDeserializer.deserializeValue(log.value(record).order(order),
+          valueType, deSerializer);
+      if (keyType == null) {
+        return value;
+      }
+      Object key = MemoryDeserializer.deserializeKey(log.key(record).order(order),
+          keyType, deSerializer);
+      return new ImmutablePair<>(key, value);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("remove");
+    }
+  }
+}
@@ -0,0 +1,35 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.mmap;
+
+import edu.iu.dsc.tws.common.config.Context;
+
+/**
+ * Constants used by the memory mapped memory manager
+ */
+public class MMapMemoryManagerContext extends Context {
+  /**
+   * Size of a log segment file, a record larger than this gets a segment of its own.
+   * value set to 64MB
+   */
+  public static final int SEGMENT_SIZE = 1024 * 1024 * 64;
+
+  /**
+   * Initial number of slots in the key index of an operation
+   */
+  public static final int INDEX_INIT_SLOTS = 1024;
+
+  /**
+   * File path to store the log segments
+   */
+  public static final String DEFAULT_FOLDER_PATH = "/tmp/twister2mmap";
+}
@@ -0,0 +1,407 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.mmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append only log of the key value pairs of one operation, kept in memory mapped segment files,
+ * with an in memory hash index from each key to its latest record.
+ *
+ * A record is [previous record][key length][value length][key][value]. A put writes a record
+ * without a previous record, an append links the new record to the latest record of the key, so
+ * the value of a key is the concatenation of its chain. Replaced and deleted records stay in the
+ * log until the operation is removed.
+ *
+ * A record position is the segment index in the upper 32 bits and the offset in the lower 32.
+ */
+class OperationLog {
+  private static final long NONE = -1L;
+
+  private static final int HEADER = 16;
+
+  private final File directory;
+
+  private final int opID;
+
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  private final List<File> files = new ArrayList<>();
+
+  private MappedByteBuffer current;
+
+  private int currentOffset;
+
+  /**
+   * Position of the latest record of the key in the slot, NONE if the slot is free
+   */
+  private long[] positions;
+
+  private int[] hashes;
+
+  private int mask;
+
+  private int size;
+
+  OperationLog(File directory, int opID) {
+    this.directory = directory;
+    this.opID = opID;
+    allocateIndex(MMapMemoryManagerContext.INDEX_INIT_SLOTS);
+  }
+
+  /**
+   * Store the value, replacing the current value of the key
+   */
+  synchronized void put(ByteBuffer key, ByteBuffer value) {
+    write(key, value, null, false);
+  }
+
+  /**
+   * Store the value with its length in front of it, replacing the current value of the key
+   */
+  synchronized void put(ByteBuffer key, byte[] value) {
+    write(key, null, value, false);
+  }
+
+  /**
+   * Append the value to the current value of the key
+   */
+  synchronized void append(ByteBuffer key, ByteBuffer value) {
+    write(key, value, null, true);
+  }
+
+  /**
+   * The value of the key, a read only view of the log if the value is in a single record
+   *
+   * @return the value or null if the key is not present
+   */
+  synchronized ByteBuffer get(ByteBuffer key) {
+    int slot = find(key);
+    if (slot < 0) {
+      return null;
+    }
+    return value(positions[slot]);
+  }
+
+  synchronized boolean containsKey(ByteBuffer key) {
+    return find(key) >= 0;
+  }
+
+  synchronized boolean delete(ByteBuffer key) {
+    int slot = find(key);
+    if (slot < 0) {
+      return false;
+    }
+    remove(slot);
+    return true;
+  }
+
+  /**
+   * The latest record of every key, ordered by key bytes compared as unsigned values with shorter
+   * keys first on a common prefix, the same order LMDB uses
+   */
+  synchronized long[] sortedRecords() {
+    long[] records = new long[size];
+    int count = 0;
+    for (long position : positions) {
+      if (position != NONE) {
+        records[count++] = position;
+      }
+    }
+    sort(records, 0, count - 1);
+    return records;
+  }
+
+  /**
+   * A read only view of the key of a record
+   */
+  synchronized ByteBuffer key(long position) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+    ByteBuffer key = segment.duplicate();
+    key.limit(offset + HEADER + segment.getInt(offset + 8));
+    key.position(offset + HEADER);
+    return key.slice();
+  }
+
+  /**
+   * The value of a record including the values it was appended to
+   */
+  synchronized ByteBuffer value(long position) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+    long previous = segment.getLong(offset);
+    int keyLength = segment.getInt(offset + 8);
+    int valueLength = segment.getInt(offset + 12);
+    if (previous == NONE) {
+      ByteBuffer value = segment.duplicate();
+      value.limit(offset + HEADER + keyLength + valueLength);
+      value.position(offset + HEADER + keyLength);
+      return value.slice();
+    }
+
+    int total = 0;
+    for (long r = position; r != NONE; r = segment(r).getLong(offset(r))) {
+      total += segment(r).getInt(offset(r) + 12);
+    }
+    // the chain goes from the latest value back, so fill the buffer from the end
+    ByteBuffer result = ByteBuffer.allocate(total);
+    int end = total;
+    for (long r = position; r != NONE; r = segment(r).getLong(offset(r))) {
+      ByteBuffer source = segment(r).duplicate();
+      int o = offset(r);
+      int length = source.getInt(o + 12);
+      int start = o + HEADER + source.getInt(o + 8);
+      source.limit(start + length);
+      source.position(start);
+      end -= length;
+      result.position(end);
+      result.put(source);
+    }
+    result.clear();
+    return result;
+  }
+
+  /**
+   * Drop the segments and delete their files
+   */
+  synchronized void close() {
+    segments.clear();
+    current = null;
+    for (File file : files) {
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+    files.clear();
+    allocateIndex(MMapMemoryManagerContext.INDEX_INIT_SLOTS);
+  }
+
+  private void write(ByteBuffer key, ByteBuffer value, byte[] valueBytes, boolean append) {
+    int slot = find(key);
+    long previous = append && slot >= 0 ? positions[slot] : NONE;
+    int keyLength = key.remaining();
+    int valueLength = valueBytes != null ? valueBytes.length + 4 : value.remaining();
+    long position = reserve(HEADER + keyLength + valueLength);
+    int offset = offset(position);
+
+    current.putLong(offset, previous);
+    current.putInt(offset + 8, keyLength);
+    current.putInt(offset + 12, valueLength);
+    ByteBuffer target = current.duplicate();
+    target.position(offset + HEADER);
+    target.put(key.duplicate());
+    if (valueBytes != null) {
+      target.putInt(valueBytes.length);
+      target.put(valueBytes);
+    } else {
+      target.put(value.duplicate());
+    }
+
+    if (slot >= 0) {
+      positions[slot] = position;
+    } else {
+      insert(key, position);
+    }
+  }
+
+  /**
+   * Reserve space at the end of the log, starting a new segment if the current one is full
+   */
+  private long reserve(int length) {
+    if (current == null || currentOffset + length > current.capacity()) {
+      newSegment(Math.max(length, MMapMemoryManagerContext.SEGMENT_SIZE));
+    }
+    long position = ((long) (segments.size() - 1) << 32) | currentOffset;
+    currentOffset += length;
+    return position;
+  }
+
+  private void newSegment(int segmentSize) {
+    File file = new File(directory, opID + "-" + segments.size() + ".log");
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(segmentSize);
+      current = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to create log segment " + file, e);
+    }
+    segments.add(current);
+    files.add(file);
+    currentOffset = 0;
+  }
+
+  private ByteBuffer segment(long position) {
+    return segments.get((int) (position >>> 32));
+  }
+
+  private static int offset(long position) {
+    return (int) position;
+  }
+
+  private void allocateIndex(int slots) {
+    positions = new long[slots];
+    hashes = new int[slots];
+    Arrays.fill(positions, NONE);
+    mask = slots - 1;
+    size = 0;
+  }
+
+  private int find(ByteBuffer key) {
+    int hash = hash(key);
+    int slot = hash & mask;
+    while (positions[slot] != NONE) {
+      if (hashes[slot] == hash && keyEquals(positions[slot], key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void insert(ByteBuffer key, long position) {
+    if ((size + 1) * 4L > positions.length * 3L) {
+      long[] oldPositions = positions;
+      int[] oldHashes = hashes;
+      if (oldPositions.length << 1 <= 0) {
+        throw new RuntimeException("Operation log index cannot hold more than " + size + " keys");
+      }
+      allocateIndex(oldPositions.length << 1);
+      for (int i = 0; i < oldPositions.length; i++) {
+        if (oldPositions[i] != NONE) {
+          place(oldHashes[i], oldPositions[i]);
+        }
+      }
+    }
+    place(hash(key), position);
+  }
+
+  private void place(int hash, long position) {
+    int slot = hash & mask;
+    while (positions[slot] != NONE) {
+      slot = (slot + 1) & mask;
+    }
+    positions[slot] = position;
+    hashes[slot] = hash;
+    size++;
+  }
+
+  private void remove(int slot) {
+    // shift back the keys that were displaced by this one so no tombstones are needed
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (positions[next] != NONE) {
+      int ideal = hashes[next] & mask;
+      if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+        positions[hole] = positions[next];
+        hashes[hole] = hashes[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    positions[hole] = NONE;
+    size--;
+  }
+
+  private boolean keyEquals(long position, ByteBuffer key) {
+    ByteBuffer segment = segment(position);
+    int offset = offset(position);
+    int length = key.remaining();
+    if (segment.getInt(offset + 8) != length) {
+      return false;
+    }
+    int start = offset + HEADER;
+    int keyStart = key.position();
+    for (int i = 0; i < length; i++) {
+      if (segment.get(start + i) != key.get(keyStart + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int compareKeys(long a, long b) {
+    ByteBuffer segmentA = segment(a);
+    ByteBuffer segmentB = segment(b);
+    int offsetA = offset(a);
+    int offsetB = offset(b);
+    int lengthA = segmentA.getInt(offsetA + 8);
+    int lengthB = segmentB.getInt(offsetB + 8);
+    int length = Math.min(lengthA, lengthB);
+    for (int i = 0; i < length; i++) {
+      int c = (segmentA.get(offsetA + HEADER + i) & 0xFF)
+          - (segmentB.get(offsetB + HEADER + i) & 0xFF);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return lengthA - lengthB;
+  }
+
+  private void sort(long[] records, int low, int high) {
+    while (high - low > 16) {
+      int mid = (low + high) >>> 1;
+      long pivot = records[mid];
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (compareKeys(records[i], pivot) < 0) {
+          i++;
+        }
+        while (compareKeys(records[j], pivot) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          long t = records[i];
+          records[i] = records[j];
+          records[j] = t;
+          i++;
+          j--;
+        }
+      }
+      // recurse into the smaller part to bound the stack
+      if (j - low < high - i) {
+        sort(records, low, j);
+        low = i;
+      } else {
+        sort(records, i, high);
+        high = j;
+      }
+    }
+    for (int i = low + 1; i <= high; i++) {
+      long t = records[i];
+      int j = i - 1;
+      while (j >= low && compareKeys(records[j], t) > 0) {
+        records[j + 1] = records[j];
+        j--;
+      }
+      records[j + 1] = t;
+    }
+  }
+
+  private static int hash(ByteBuffer key) {
+    int h = 1;
+    int limit = key.limit();
+    for (int i = key.position(); i < limit; i++) {
+      h = 31 * h + key.get(i);
+    }
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
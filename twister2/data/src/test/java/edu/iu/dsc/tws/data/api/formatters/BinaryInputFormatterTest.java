@@ -0,0 +1,70 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.data.fs.FileInputSplit;
+import edu.iu.dsc.tws.data.fs.Path;
+
+public class BinaryInputFormatterTest {
+
+  private static Path file(int records, int recordLength) throws IOException {
+    File file = Files.createTempFile("binary", ".bin").toFile();
+    file.deleteOnExit();
+    byte[] data = new byte[records * recordLength];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i / recordLength);
+    }
+    Files.write(file.toPath(), data);
+    return new Path(file.toURI());
+  }
+
+  @Test
+  public void testReachedEndAfterLastRecord() throws IOException {
+    Path path = file(3, 4);
+    BinaryInputFormatter format = new BinaryInputFormatter(path, 4);
+    format.open(new FileInputSplit(0, path, 0, 12, null));
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertFalse(format.reachedEnd());
+      byte[] record = format.nextRecord(null);
+      Assert.assertNotNull(record);
+      Assert.assertEquals(i, record[0]);
+    }
+    Assert.assertNull(format.nextRecord(null));
+    Assert.assertTrue(format.reachedEnd());
+    format.close();
+  }
+
+  @Test
+  public void testReachedEndIsResetForNextSplit() throws IOException {
+    Path path = file(4, 4);
+    BinaryInputFormatter format = new BinaryInputFormatter(path, 4);
+    format.open(new FileInputSplit(0, path, 0, 8, null));
+    while (format.nextRecord(null) != null) {
+      Assert.assertFalse(format.reachedEnd());
+    }
+    Assert.assertTrue(format.reachedEnd());
+    format.close();
+
+    format.open(new FileInputSplit(1, path, 8, 8, null));
+    Assert.assertFalse(format.reachedEnd());
+    Assert.assertEquals(2, format.nextRecord(null)[0]);
+    format.close();
+  }
+}
@@ -0,0 +1,128 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.data.fs.FSDataInputStream;
+import edu.iu.dsc.tws.data.fs.local.LocalDataInputStream;
+
+public class MappedRegionTest {
+
+  /**
+   * A stream over a byte array that cannot be mapped
+   */
+  private static final class ArrayInputStream extends FSDataInputStream {
+    private final byte[] data;
+    private int position;
+
+    private ArrayInputStream(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public void seek(long desired) {
+      position = (int) desired;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public int read() {
+      return position < data.length ? data[position++] & 0xFF : -1;
+    }
+  }
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) i;
+    }
+    return data;
+  }
+
+  private static LocalDataInputStream localStream(byte[] data) throws IOException {
+    File file = Files.createTempFile("mapped-region", ".bin").toFile();
+    file.deleteOnExit();
+    Files.write(file.toPath(), data);
+    return new LocalDataInputStream(file);
+  }
+
+  private static void assertWindow(MappedRegion region, long position) {
+    Assert.assertEquals((byte) position,
+        region.buffer().get(region.offset(position)));
+  }
+
+  private static void assertRegion(FSDataInputStream stream) throws IOException {
+    MappedRegion region = new MappedRegion(stream, 100);
+    Assert.assertEquals(1000, region.fileSize());
+
+    Assert.assertTrue(region.map(0, 10));
+    Assert.assertEquals(0, region.start());
+    Assert.assertEquals(100, region.end());
+    assertWindow(region, 99);
+
+    // inside the window, nothing is mapped again
+    Assert.assertTrue(region.map(50, 50));
+    Assert.assertEquals(0, region.start());
+
+    // crossing the end of the window moves it
+    Assert.assertTrue(region.map(90, 20));
+    Assert.assertEquals(90, region.start());
+    Assert.assertEquals(190, region.end());
+    assertWindow(region, 109);
+
+    // a range larger than the window gets a window of its size
+    Assert.assertTrue(region.map(200, 300));
+    Assert.assertEquals(500, region.end());
+    assertWindow(region, 499);
+
+    // the window is cut at the end of the file
+    Assert.assertTrue(region.map(950, 100));
+    Assert.assertEquals(1000, region.end());
+    assertWindow(region, 999);
+
+    Assert.assertFalse(region.map(1000, 1));
+  }
+
+  @Test
+  public void testMappedFile() throws IOException {
+    LocalDataInputStream stream = localStream(data(1000));
+    Assert.assertTrue(stream.isMappable());
+    assertRegion(stream);
+    stream.close();
+  }
+
+  @Test
+  public void testStreamThatCannotMap() throws IOException {
+    ArrayInputStream stream = new ArrayInputStream(data(1000));
+    stream.seek(123);
+    Assert.assertFalse(stream.isMappable());
+    Assert.assertEquals(1000, stream.size());
+    assertRegion(stream);
+    // reading the regions does not move the stream
+    Assert.assertEquals(123, stream.getPos());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRegionAfterEndOfStream() throws IOException {
+    new ArrayInputStream(data(10)).map(5, 10);
+  }
+}
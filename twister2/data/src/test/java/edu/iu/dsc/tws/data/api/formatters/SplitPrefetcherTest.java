@@ -0,0 +1,137 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.api.formatters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.data.fs.FileInputSplit;
+import edu.iu.dsc.tws.data.fs.Path;
+import edu.iu.dsc.tws.data.fs.io.InputSplit;
+import edu.iu.dsc.tws.data.fs.io.InputSplitAssigner;
+
+public class SplitPrefetcherTest {
+
+  /**
+   * Hands out the splits in order
+   */
+  private static final class ListAssigner implements InputSplitAssigner {
+    private final List<FileInputSplit> splits;
+    private int next;
+
+    private ListAssigner(List<FileInputSplit> splits) {
+      this.splits = splits;
+    }
+
+    @Override
+    public InputSplit getNextInputSplit(String host, int taskId) {
+      return next < splits.size() ? splits.get(next++) : null;
+    }
+  }
+
+  private static final class BytesFormat extends FileInputFormat<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Integer nextRecord(Integer reuse) throws IOException {
+      return this.stream.read();
+    }
+  }
+
+  private static List<FileInputSplit> splits(int files, int splitsPerFile, int splitLength)
+      throws IOException {
+    List<FileInputSplit> splits = new ArrayList<>();
+    int num = 0;
+    for (int f = 0; f < files; f++) {
+      File file = Files.createTempFile("prefetch", ".bin").toFile();
+      file.deleteOnExit();
+      byte[] data = new byte[splitsPerFile * splitLength];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (byte) (f * 50 + i / splitLength);
+      }
+      Files.write(file.toPath(), data);
+      for (int s = 0; s < splitsPerFile; s++) {
+        splits.add(new FileInputSplit(num++, new Path(file.toURI()),
+            s * splitLength, splitLength, null));
+      }
+    }
+    return splits;
+  }
+
+  private static void assertSplits(SplitPrefetcher prefetcher, List<FileInputSplit> splits)
+      throws IOException {
+    for (FileInputSplit split : splits) {
+      SplitPrefetcher.PrefetchedSplit prefetched = prefetcher.next();
+      Assert.assertNotNull(prefetched);
+      Assert.assertSame(split, prefetched.getSplit());
+      prefetched.getStream().close();
+    }
+    Assert.assertNull(prefetcher.next());
+    Assert.assertNull(prefetcher.next());
+  }
+
+  @Test
+  public void testSplitsInAssignerOrder() throws IOException {
+    List<FileInputSplit> splits = splits(3, 2, 16);
+    SplitPrefetcher prefetcher = new SplitPrefetcher(new ListAssigner(splits), null, 0,
+        2, 2, 8);
+    assertSplits(prefetcher, splits);
+    Assert.assertEquals(6, prefetcher.getMetrics().getSplits());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testWithoutPrefetching() throws IOException {
+    List<FileInputSplit> splits = splits(2, 2, 16);
+    SplitPrefetcher prefetcher = new SplitPrefetcher(new ListAssigner(splits), null, 0,
+        0, 1, 8);
+    assertSplits(prefetcher, splits);
+    prefetcher.close();
+  }
+
+  @Test
+  public void testMappableStreamIsNotReadAhead() throws IOException {
+    List<FileInputSplit> splits = splits(1, 1, 16);
+    SplitPrefetcher prefetcher = new SplitPrefetcher(new ListAssigner(splits), null, 0,
+        1, 1, 8);
+    SplitPrefetcher.PrefetchedSplit prefetched = prefetcher.next();
+    Assert.assertEquals(0, prefetched.getBytesReadAhead());
+    Assert.assertFalse(prefetched.getStream() instanceof ReadAheadInputStream);
+    Assert.assertTrue(prefetched.getStream().isMappable());
+    prefetched.getStream().close();
+    prefetcher.close();
+  }
+
+  @Test
+  public void testFormatReadsPrefetchedSplits() throws IOException {
+    List<FileInputSplit> splits = splits(2, 3, 16);
+    SplitPrefetcher prefetcher = new SplitPrefetcher(new ListAssigner(splits), null, 0,
+        2, 1, 8);
+    BytesFormat format = new BytesFormat();
+    for (int f = 0; f < 2; f++) {
+      for (int s = 0; s < 3; s++) {
+        Assert.assertTrue(format.open(prefetcher));
+        // the stream is positioned at the start of the split
+        Assert.assertEquals(f * 50 + s, (int) format.nextRecord(null));
+        format.close();
+      }
+    }
+    Assert.assertFalse(format.open(prefetcher));
+    prefetcher.close();
+  }
+}
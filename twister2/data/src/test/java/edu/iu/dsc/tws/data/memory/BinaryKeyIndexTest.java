@@ -0,0 +1,126 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BinaryKeyIndexTest {
+
+  private static ByteBuffer bytes(String s) {
+    return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String string(ByteBuffer buffer) {
+    byte[] b = new byte[buffer.remaining()];
+    buffer.duplicate().get(b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testRegisterAndFind() {
+    BinaryKeyIndex index = new BinaryKeyIndex(4, 16, 16);
+    Assert.assertEquals(-1, index.find(bytes("a")));
+    int a = index.register(bytes("a"), 3);
+    int b = index.register(bytes("a longer key than eight bytes"), 5);
+    Assert.assertEquals(2, index.size());
+    Assert.assertEquals(a, index.find(bytes("a")));
+    Assert.assertEquals(b, index.find(bytes("a longer key than eight bytes")));
+    Assert.assertEquals(-1, index.find(bytes("a longer key than eight byteS")));
+    Assert.assertEquals(3, index.getStep(a));
+    Assert.assertEquals("a", string(index.copyKey(a)));
+  }
+
+  @Test
+  public void testFindDirectKey() {
+    BinaryKeyIndex index = new BinaryKeyIndex();
+    int slot = index.register(bytes("direct key of some length"), 1);
+    ByteBuffer direct = ByteBuffer.allocateDirect(64);
+    direct.put("xxdirect key of some length".getBytes(StandardCharsets.UTF_8));
+    direct.flip();
+    direct.position(2);
+    Assert.assertEquals(slot, index.find(direct));
+  }
+
+  @Test
+  public void testValuesInAddOrder() {
+    BinaryKeyIndex index = new BinaryKeyIndex(4, 16, 16);
+    int slot = index.register(bytes("k"), 10);
+    index.addValue(slot, bytes("one"));
+    index.addValue(slot, bytes("two"));
+    index.addValue(slot, bytes("three"));
+    Assert.assertEquals(3, index.getCount(slot));
+    Assert.assertEquals(11, index.getSize(slot));
+
+    ByteBuffer values = index.copyValues(slot, 4);
+    Assert.assertEquals(11, values.position());
+    Assert.assertEquals(15, values.capacity());
+    values.flip();
+    Assert.assertEquals("onetwothree", string(values));
+  }
+
+  @Test
+  public void testGrowAndCompact() {
+    // start small so the table is rehashed and the slabs are grown and compacted
+    BinaryKeyIndex index = new BinaryKeyIndex(2, 8, 8);
+    for (int i = 0; i < 1000; i++) {
+      int slot = index.register(bytes("key-" + i), 1);
+      index.addValue(slot, bytes("v" + i));
+      if (i % 2 == 1) {
+        index.remove(index.find(bytes("key-" + (i - 1))));
+      }
+    }
+    Assert.assertEquals(500, index.size());
+    for (int i = 0; i < 1000; i++) {
+      int slot = index.find(bytes("key-" + i));
+      if (i % 2 == 0) {
+        Assert.assertEquals(-1, slot);
+      } else {
+        Assert.assertTrue(slot >= 0);
+        ByteBuffer values = index.copyValues(slot, 0);
+        values.flip();
+        Assert.assertEquals("v" + i, string(values));
+        Assert.assertEquals("key-" + i, string(index.copyKey(slot)));
+      }
+    }
+  }
+
+  @Test
+  public void testRemoveKeepsDisplacedKeys() {
+    BinaryKeyIndex index = new BinaryKeyIndex(64, 1024, 1024);
+    for (int i = 0; i < 40; i++) {
+      index.register(bytes("k" + i), i);
+    }
+    for (int i = 0; i < 40; i += 3) {
+      index.remove(index.find(bytes("k" + i)));
+    }
+    for (int i = 0; i < 40; i++) {
+      int slot = index.find(bytes("k" + i));
+      if (i % 3 == 0) {
+        Assert.assertEquals(-1, slot);
+      } else {
+        Assert.assertEquals(i, index.getStep(slot));
+      }
+    }
+
+    int occupied = 0;
+    for (int slot = 0; slot < index.capacity(); slot++) {
+      if (index.isOccupied(slot)) {
+        occupied++;
+      }
+    }
+    Assert.assertEquals(index.size(), occupied);
+  }
+}
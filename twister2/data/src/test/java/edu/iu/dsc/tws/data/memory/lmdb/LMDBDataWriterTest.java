@@ -0,0 +1,148 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.lmdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lmdbjava.Dbi;
+import org.lmdbjava.DbiFlags;
+import org.lmdbjava.Env;
+import org.lmdbjava.Txn;
+
+public class LMDBDataWriterTest {
+  private static final int OP = 1;
+
+  private File dir;
+
+  private Env<ByteBuffer> env;
+
+  private Dbi<ByteBuffer> dbi;
+
+  private LMDBDataWriter writer;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("lmdb-writer-test").toFile();
+    env = Env.create().setMapSize(64L * 1024 * 1024).setMaxDbs(2).open(dir);
+    dbi = env.openDbi(String.valueOf(OP), DbiFlags.MDB_CREATE);
+    Map<Integer, Dbi<ByteBuffer>> dbMap = new HashMap<>();
+    dbMap.put(OP, dbi);
+    writer = new LMDBDataWriter(dbMap, env);
+    Thread thread = new Thread(writer, "lmdb-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @After
+  public void tearDown() {
+    writer.close();
+    env.close();
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    dir.delete();
+  }
+
+  private static ByteBuffer key(int k) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+    buffer.putInt(k).flip();
+    return buffer;
+  }
+
+  private ByteBuffer read(ByteBuffer key) {
+    try (Txn<ByteBuffer> txn = env.txnRead()) {
+      return dbi.get(txn, key);
+    }
+  }
+
+  @Test
+  public void testWriteIsVisibleToReadOfTheKey() {
+    ByteBuffer key = key(1);
+    ByteBuffer value = ByteBuffer.allocateDirect(4);
+    value.putInt(42).flip();
+    Assert.assertTrue(writer.write(OP, key, value));
+
+    // the buffers are copied, so the caller can reuse them straight away
+    value.putInt(0, 7);
+
+    writer.awaitVisible(OP, key);
+    ByteBuffer stored = read(key);
+    Assert.assertNotNull(stored);
+    Assert.assertEquals(42, stored.getInt(0));
+    Assert.assertEquals(0, writer.getPendingKeys());
+  }
+
+  @Test
+  public void testValueIsStoredWithLength() {
+    Assert.assertTrue(writer.write(OP, new byte[]{0, 0, 0, 2}, new byte[]{5, 6, 7}));
+    writer.awaitVisible(OP, key(2));
+    ByteBuffer stored = read(key(2));
+    Assert.assertEquals(3, stored.getInt(0));
+    Assert.assertEquals(5, stored.get(4));
+  }
+
+  @Test
+  public void testReadOfOtherKeysDoesNotCommit() {
+    int writes = 1000;
+    ByteBuffer value = ByteBuffer.allocateDirect(4);
+    value.putInt(1).flip();
+    ByteBuffer other = key(-1);
+    for (int i = 0; i < writes; i++) {
+      writer.write(OP, key(i), value);
+      // a key without pending writes does not wait for the writer
+      writer.awaitVisible(OP, other);
+    }
+    writer.awaitVisible();
+    // the writes are grouped in transactions instead of one commit for each read
+    Assert.assertTrue("commits " + writer.getCommits(), writer.getCommits() < writes / 10);
+    Assert.assertEquals(0, writer.getPendingKeys());
+    for (int i = 0; i < writes; i++) {
+      Assert.assertNotNull(read(key(i)));
+    }
+  }
+
+  @Test
+  public void testReadOfPendingKeyWaitsForCommit() {
+    ByteBuffer value = ByteBuffer.allocateDirect(4);
+    for (int i = 0; i < 100; i++) {
+      value.clear();
+      value.putInt(i).flip();
+      writer.write(OP, key(i), value);
+      writer.awaitVisible(OP, key(i));
+      Assert.assertEquals(i, read(key(i)).getInt(0));
+    }
+  }
+
+  @Test
+  public void testCommitsAreNotForcedWithoutReads() {
+    ByteBuffer value = ByteBuffer.allocateDirect(4);
+    value.putInt(1).flip();
+    for (int i = 0; i < 1000; i++) {
+      writer.write(OP, key(i), value);
+    }
+    writer.awaitVisible();
+    Assert.assertTrue("commits " + writer.getCommits(), writer.getCommits() < 100);
+    Assert.assertEquals(0, writer.getPendingKeys());
+  }
+}
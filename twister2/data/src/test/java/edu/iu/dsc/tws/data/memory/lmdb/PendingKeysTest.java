@@ -0,0 +1,64 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.lmdb;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PendingKeysTest {
+
+  @Test
+  public void testKeyIsPendingUntilCommitted() {
+    PendingKeys keys = new PendingKeys();
+    Assert.assertEquals(0, keys.sequence(1, new byte[]{1, 2}));
+
+    PendingKeys.Key key = keys.add(1, new byte[]{1, 2}, 5);
+    Assert.assertEquals(5, keys.sequence(1, new byte[]{1, 2}));
+    Assert.assertEquals(1, keys.size());
+
+    keys.committed(key, 5);
+    Assert.assertEquals(0, keys.sequence(1, new byte[]{1, 2}));
+    Assert.assertEquals(0, keys.size());
+  }
+
+  @Test
+  public void testKeysAreComparedByContent() {
+    PendingKeys keys = new PendingKeys();
+    keys.add(1, new byte[]{1, 2, 3}, 7);
+
+    // a direct buffer with the key between its position and limit
+    ByteBuffer direct = ByteBuffer.allocateDirect(8);
+    direct.put((byte) 9).put((byte) 1).put((byte) 2).put((byte) 3).flip();
+    direct.position(1);
+    Assert.assertEquals(7, keys.sequence(1, direct));
+    Assert.assertEquals(1, direct.position());
+
+    Assert.assertEquals(0, keys.sequence(1, new byte[]{1, 2}));
+    Assert.assertEquals(0, keys.sequence(2, new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  public void testRewriteStaysPendingAfterOlderCommit() {
+    PendingKeys keys = new PendingKeys();
+    PendingKeys.Key first = keys.add(1, new byte[]{4}, 1);
+    PendingKeys.Key second = keys.add(1, new byte[]{4}, 2);
+
+    // the first write is committed, the second one is not
+    keys.committed(first, 1);
+    Assert.assertEquals(2, keys.sequence(1, new byte[]{4}));
+
+    keys.committed(second, 2);
+    Assert.assertEquals(0, keys.sequence(1, new byte[]{4}));
+  }
+}
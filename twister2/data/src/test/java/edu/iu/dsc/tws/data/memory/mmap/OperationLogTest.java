@@ -0,0 +1,148 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.data.memory.mmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OperationLogTest {
+  private File directory;
+
+  private OperationLog log;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("operation-log").toFile();
+    log = new OperationLog(directory, 1);
+  }
+
+  @After
+  public void tearDown() {
+    log.close();
+    directory.delete();
+  }
+
+  private static ByteBuffer bytes(String s) {
+    return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ByteBuffer bytes(int... values) {
+    byte[] b = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      b[i] = (byte) values[i];
+    }
+    return ByteBuffer.wrap(b);
+  }
+
+  private static String string(ByteBuffer buffer) {
+    byte[] b = new byte[buffer.remaining()];
+    buffer.duplicate().get(b);
+    return new String(b, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testPutAndGet() {
+    Assert.assertNull(log.get(bytes("a")));
+    log.put(bytes("a"), bytes("first"));
+    log.put(bytes("b"), bytes("second"));
+    Assert.assertEquals("first", string(log.get(bytes("a"))));
+    Assert.assertEquals("second", string(log.get(bytes("b"))));
+
+    log.put(bytes("a"), bytes("replaced"));
+    Assert.assertEquals("replaced", string(log.get(bytes("a"))));
+  }
+
+  @Test
+  public void testPutBytesWithLength() {
+    log.put(bytes("k"), "value".getBytes(StandardCharsets.UTF_8));
+    ByteBuffer value = log.get(bytes("k"));
+    Assert.assertEquals(9, value.remaining());
+    Assert.assertEquals(5, value.getInt(value.position()));
+    value.position(value.position() + 4);
+    Assert.assertEquals("value", string(value));
+  }
+
+  @Test
+  public void testAppend() {
+    log.append(bytes("k"), bytes("one"));
+    log.append(bytes("k"), bytes("two"));
+    log.append(bytes("k"), bytes("three"));
+    Assert.assertEquals("onetwothree", string(log.get(bytes("k"))));
+
+    // a put starts a new chain
+    log.put(bytes("k"), bytes("four"));
+    log.append(bytes("k"), bytes("five"));
+    Assert.assertEquals("fourfive", string(log.get(bytes("k"))));
+  }
+
+  @Test
+  public void testDelete() {
+    log.put(bytes("a"), bytes("1"));
+    Assert.assertTrue(log.containsKey(bytes("a")));
+    Assert.assertTrue(log.delete(bytes("a")));
+    Assert.assertFalse(log.delete(bytes("a")));
+    Assert.assertFalse(log.containsKey(bytes("a")));
+    Assert.assertNull(log.get(bytes("a")));
+  }
+
+  @Test
+  public void testSortedRecords() {
+    log.put(bytes(0x80), bytes("high"));
+    log.put(bytes(0x01, 0x02), bytes("longer"));
+    log.put(bytes(0x01), bytes("shorter"));
+    log.put(bytes(0x00, 0xFF), bytes("low"));
+
+    long[] records = log.sortedRecords();
+    Assert.assertEquals(4, records.length);
+    String[] expected = {"low", "shorter", "longer", "high"};
+    for (int i = 0; i < records.length; i++) {
+      Assert.assertEquals(expected[i], string(log.value(records[i])));
+    }
+    Assert.assertEquals(bytes(0x01, 0x02), log.key(records[2]));
+  }
+
+  @Test
+  public void testManyKeys() {
+    for (int i = 0; i < 5000; i++) {
+      log.put(bytes("key-" + i), bytes("v" + i));
+    }
+    for (int i = 0; i < 5000; i += 2) {
+      Assert.assertTrue(log.delete(bytes("key-" + i)));
+    }
+    for (int i = 0; i < 5000; i++) {
+      ByteBuffer value = log.get(bytes("key-" + i));
+      if (i % 2 == 0) {
+        Assert.assertNull(value);
+      } else {
+        Assert.assertEquals("v" + i, string(value));
+      }
+    }
+    Assert.assertEquals(2500, log.sortedRecords().length);
+  }
+
+  @Test
+  public void testCloseDeletesSegments() {
+    log.put(bytes("a"), bytes("1"));
+    Assert.assertEquals(1, directory.listFiles().length);
+    log.close();
+    Assert.assertEquals(0, directory.listFiles().length);
+    Assert.assertNull(log.get(bytes("a")));
+  }
+}
@@ -0,0 +1,70 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chain of instances fused into one, the head calls the next instance in the chain directly
+ * for every message, so they are always executed together on the same thread
+ */
+public class ChainedInstance implements INodeInstance {
+  /**
+   * The instances in the order of the chain, starting from the head
+   */
+  private List<INodeInstance> instances = new ArrayList<>();
+
+  public ChainedInstance(INodeInstance head) {
+    this.instances.add(head);
+  }
+
+  public void addInstance(INodeInstance instance) {
+    instances.add(instance);
+  }
+
+  @Override
+  public void prepare() {
+    for (INodeInstance instance : instances) {
+      instance.prepare();
+    }
+  }
+
+  /**
+   * Execute the head, which pushes its output through the chain, then let the rest of the chain
+   * progress their own communication operations
+   */
+  @Override
+  public boolean execute() {
+    boolean worked = false;
+    for (INodeInstance instance : instances) {
+      if (instance.isReady()) {
+        worked |= instance.execute();
+      }
+    }
+    return worked;
+  }
+
+  @Override
+  public boolean isReady() {
+    for (INodeInstance instance : instances) {
+      if (instance.isReady()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public List<INodeInstance> getInstances() {
+    return instances;
+  }
+}
@@ -11,23 +11,107 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
+import edu.iu.dsc.tws.executor.comm.IParallelOperation;
 import edu.iu.dsc.tws.task.api.IMessage;
 import edu.iu.dsc.tws.task.api.OutputCollection;
 
+/**
+ * Collects the output of a task into a buffer for each edge, the buffers are handed to the
+ * parallel operations of the edges as batches by {@link #flush(int, Map)}.
+ *
+ * The collection is used only by the thread executing its instance.
+ */
 public class DefaultOutputCollection implements OutputCollection {
   private static final Logger LOG = Logger.getLogger(DefaultOutputCollection.class.getName());
 
-  private BlockingQueue<IMessage> outQueue;
+  /**
+   * Messages of each edge waiting to be sent
+   */
+  private Map<String, List<IMessage>> buffers = new HashMap<>();
 
-  public DefaultOutputCollection(BlockingQueue<IMessage> outQueue) {
-    this.outQueue = outQueue;
+  /**
+   * Instances chained to the edges, messages on these edges are handed to them directly
+   */
+  private Map<String, IChainedInstance> chained;
+
+  /**
+   * The number of buffered messages at which the instance stops taking input
+   */
+  private int batchSize;
+
+  private int pending;
+
+  public DefaultOutputCollection(int batchSize) {
+    this(batchSize, new HashMap<String, IChainedInstance>());
+  }
+
+  public DefaultOutputCollection(int batchSize, Map<String, IChainedInstance> chained) {
+    this.batchSize = batchSize;
+    this.chained = chained;
   }
 
   @Override
   public boolean collect(int edge, IMessage m) {
-    return this.outQueue.offer(m);
+    IChainedInstance next = chained.get(m.edge());
+    if (next != null) {
+      next.process(m);
+      return true;
+    }
+
+    List<IMessage> buffer = buffers.get(m.edge());
+    if (buffer == null) {
+      buffer = new ArrayList<>(batchSize);
+      buffers.put(m.edge(), buffer);
+    }
+    buffer.add(m);
+    pending++;
+    return true;
+  }
+
+  /**
+   * Send the buffered messages of every edge to its operation as one batch, the messages an
+   * operation does not accept stay in the buffer for the next flush
+   *
+   * @param source the task sending the messages
+   * @param ops the operations of the edges
+   * @return the number of messages sent
+   */
+  public int flush(int source, Map<String, IParallelOperation> ops) {
+    if (pending == 0) {
+      return 0;
+    }
+    int total = 0;
+    for (Map.Entry<String, List<IMessage>> e : buffers.entrySet()) {
+      List<IMessage> buffer = e.getValue();
+      if (buffer.isEmpty()) {
+        continue;
+      }
+      int sent = ops.get(e.getKey()).send(source, buffer);
+      if (sent == buffer.size()) {
+        buffer.clear();
+      } else {
+        buffer.subList(0, sent).clear();
+      }
+      pending -= sent;
+      total += sent;
+    }
+    return total;
+  }
+
+  public boolean hasPending() {
+    return pending > 0;
+  }
+
+  /**
+   * Whether enough messages are waiting that the task should not take more input
+   */
+  public boolean isFull() {
+    return pending >= batchSize;
   }
 }
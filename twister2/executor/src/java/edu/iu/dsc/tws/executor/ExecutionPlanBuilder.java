@@ -11,9 +11,12 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -63,6 +66,11 @@ public class ExecutionPlanBuilder implements IExecutor {
   private Table<String, Integer, SourceInstance> sourceInstances = HashBasedTable.create();
   private Table<String, Integer, SinkInstance> sinkInstances = HashBasedTable.create();
 
+  /**
+   * Edges executed by calling the child instance directly, parent task name to edge
+   */
+  private Map<String, Edge> chainedEdges = new HashMap<>();
+
   private TWSNetwork network;
 
   private ResourcePlan resourcePlan;
@@ -100,6 +108,11 @@ public class ExecutionPlanBuilder implements IExecutor {
 
     ExecutionPlan execution = new ExecutionPlan();
     Set<TaskSchedulePlan.TaskInstancePlan> instancePlan = conPlan.getTaskInstances();
+    if (ExecutorContext.taskChaining(cfg)) {
+      findChainedEdges(taskGraph, taskSchedule);
+    }
+    // instances of this worker by global task id
+    Map<Integer, INodeInstance> instances = new LinkedHashMap<>();
     // for each task we are going to create the communications
     for (TaskSchedulePlan.TaskInstancePlan ip : instancePlan) {
       Vertex v = taskGraph.vertex(ip.getTaskName());
@@ -114,6 +127,9 @@ public class ExecutionPlanBuilder implements IExecutor {
         Set<Edge> edges = taskGraph.outEdges(v);
         // now lets create the communication object
         for (Edge e : edges) {
+          if (isChained(v.getName(), e)) {
+            continue;
+          }
           Vertex child = taskGraph.childOfTask(v, e.getName());
           // lets figure out the parents task id
           Set<Integer> srcTasks = taskIdGenerator.getTaskIds(v.getName(),
@@ -135,6 +151,9 @@ public class ExecutionPlanBuilder implements IExecutor {
         Set<Edge> parentEdges = taskGraph.inEdges(v);
         for (Edge e : parentEdges) {
           Vertex parent = taskGraph.getParentOfTask(v, e.getName());
+          if (isChained(parent.getName(), e)) {
+            continue;
+          }
           // lets figure out the parents task id
           Set<Integer> srcTasks = taskIdGenerator.getTaskIds(parent.getName(),
               getTaskIdOfTask(parent.getName(), taskSchedule), taskGraph);
@@ -152,10 +171,15 @@ public class ExecutionPlanBuilder implements IExecutor {
 
       // lets create the instance
       INodeInstance iNodeInstance = createInstances(cfg, ip, v);
-      execution.addNodes(taskIdGenerator.generateGlobalTaskId(
+      instances.put(taskIdGenerator.generateGlobalTaskId(
           v.getName(), ip.getTaskId(), ip.getTaskIndex()), iNodeInstance);
     }
 
+    chainInstances(taskGraph, taskSchedule, instancePlan, instances);
+    for (Map.Entry<Integer, INodeInstance> e : instances.entrySet()) {
+      execution.addNodes(e.getKey(), e.getValue());
+    }
+
     // now lets create the queues and start the execution
     for (Table.Cell<String, String, Communication> cell : parOpTable.cellSet()) {
       Communication c = cell.getValue();
@@ -170,7 +194,7 @@ public class ExecutionPlanBuilder implements IExecutor {
       // lets see weather this comunication belongs to a task instance
       for (Integer i : sourcesOfThisWorker) {
         if (taskInstances.contains(c.getSourceTask(), i)) {
-          TaskInstance taskInstance = taskInstances.get(c.getSourceTasks(), i);
+          TaskInstance taskInstance = taskInstances.get(c.getSourceTask(), i);
           taskInstance.registerOutParallelOperation(c.getEdge().getName(), op);
         } else if (sourceInstances.contains(c.getSourceTask(), i)) {
           SourceInstance sourceInstance = sourceInstances.get(c.getSourceTask(), i);
@@ -184,9 +208,11 @@ public class ExecutionPlanBuilder implements IExecutor {
         if (taskInstances.contains(c.getTargetTask(), i)) {
           TaskInstance taskInstance = taskInstances.get(c.getTargetTask(), i);
           op.register(i, taskInstance.getInQueue());
+          taskInstance.registerInParallelOperation(c.getEdge().getName(), op);
         } else if (sinkInstances.contains(c.getTargetTask(), i)) {
           SinkInstance sourceInstance = sinkInstances.get(c.getTargetTask(), i);
           op.register(i, sourceInstance.getInQueue());
+          sourceInstance.registerInParallelOperation(c.getEdge().getName(), op);
         } else {
           throw new RuntimeException("Not found: " + c.getTargetTask());
         }
@@ -196,12 +222,110 @@ public class ExecutionPlanBuilder implements IExecutor {
 
     // lets start the execution
     ThreadSharingExecutor threadSharingExecutor =
-        new ThreadSharingExecutor(noOfThreads);
+        new ThreadSharingExecutor(cfg, noOfThreads);
     threadSharingExecutor.execute(execution);
 
     return execution;
   }
 
+  /**
+   * Find the edges of the graph that are executed by fusing the instances at the two ends
+   */
+  private void findChainedEdges(DataFlowTaskGraph taskGraph, TaskSchedulePlan taskSchedule) {
+    Set<String> taskNames = new HashSet<>();
+    for (TaskSchedulePlan.ContainerPlan cp : taskSchedule.getContainers()) {
+      for (TaskSchedulePlan.TaskInstancePlan ip : cp.getTaskInstances()) {
+        taskNames.add(ip.getTaskName());
+      }
+    }
+
+    for (String taskName : taskNames) {
+      Vertex v = taskGraph.vertex(taskName);
+      if (v == null) {
+        continue;
+      }
+      for (Edge e : taskGraph.outEdges(v)) {
+        Vertex child = taskGraph.childOfTask(v, e.getName());
+        if (TaskChainer.isChainable(taskGraph, v, child, e, taskSchedule)) {
+          LOG.log(Level.FINE, "Chaining " + v.getName() + " to " + child.getName()
+              + " on edge " + e.getName());
+          chainedEdges.put(v.getName(), e);
+        }
+      }
+    }
+  }
+
+  private boolean isChained(String parentName, Edge e) {
+    return e.equals(chainedEdges.get(parentName));
+  }
+
+  /**
+   * Connect the instances of the chained edges and replace every chain with a single instance
+   * that is executed as one
+   */
+  private void chainInstances(DataFlowTaskGraph taskGraph, TaskSchedulePlan taskSchedule,
+                              Set<TaskSchedulePlan.TaskInstancePlan> instancePlan,
+                              Map<Integer, INodeInstance> instances) {
+    if (chainedEdges.isEmpty()) {
+      return;
+    }
+
+    // global task ids of the instances on a chained edge
+    Set<Integer> chained = new HashSet<>();
+    for (TaskSchedulePlan.TaskInstancePlan ip : instancePlan) {
+      Edge e = chainedEdges.get(ip.getTaskName());
+      if (e == null) {
+        continue;
+      }
+      Vertex v = taskGraph.vertex(ip.getTaskName());
+      Vertex child = taskGraph.childOfTask(v, e.getName());
+      int parentId = taskIdGenerator.generateGlobalTaskId(v.getName(),
+          ip.getTaskId(), ip.getTaskIndex());
+      int childId = taskIdGenerator.generateGlobalTaskId(child.getName(),
+          getTaskIdOfTask(child.getName(), taskSchedule), ip.getTaskIndex());
+
+      INodeInstance parent = instances.get(parentId);
+      IChainedInstance next = (IChainedInstance) instances.get(childId);
+      if (parent instanceof TaskInstance) {
+        ((TaskInstance) parent).registerChainedInstance(e.getName(), next);
+      } else {
+        ((SourceInstance) parent).registerChainedInstance(e.getName(), next);
+      }
+      chained.add(parentId);
+      chained.add(childId);
+    }
+
+    // build the chains from their heads, the instances that are not the child of a chained edge
+    for (TaskSchedulePlan.TaskInstancePlan ip : instancePlan) {
+      int id = taskIdGenerator.generateGlobalTaskId(ip.getTaskName(),
+          ip.getTaskId(), ip.getTaskIndex());
+      if (!chained.contains(id) || isChainChild(taskGraph, ip.getTaskName())) {
+        continue;
+      }
+      ChainedInstance chain = new ChainedInstance(instances.get(id));
+      Vertex v = taskGraph.vertex(ip.getTaskName());
+      Edge e = chainedEdges.get(v.getName());
+      while (e != null) {
+        v = taskGraph.childOfTask(v, e.getName());
+        int childId = taskIdGenerator.generateGlobalTaskId(v.getName(),
+            getTaskIdOfTask(v.getName(), taskSchedule), ip.getTaskIndex());
+        chain.addInstance(instances.remove(childId));
+        e = chainedEdges.get(v.getName());
+      }
+      instances.put(id, chain);
+    }
+  }
+
+  private boolean isChainChild(DataFlowTaskGraph taskGraph, String taskName) {
+    for (Edge e : taskGraph.inEdges(taskName)) {
+      Vertex parent = taskGraph.getParentOfTask(taskGraph.vertex(taskName), e.getName());
+      if (isChained(parent.getName(), e)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Set<Integer> intersectionOfTasks(TaskSchedulePlan.ContainerPlan cp,
                                                 Set<Integer> tasks) {
     Set<Integer> cTasks = taskIdGenerator.getTaskIdsOfContainer(cp);
@@ -223,21 +347,20 @@ public class ExecutionPlanBuilder implements IExecutor {
     int taskId = taskIdGenerator.generateGlobalTaskId(vertex.getName(),
         ip.getTaskId(), ip.getTaskIndex());
     if (newInstance instanceof ITask) {
+      // the queues are bounded by the credits of the input edges
       TaskInstance v = new TaskInstance((ITask) newInstance,
-          new ArrayBlockingQueue<>(1024),
-          new ArrayBlockingQueue<>(1024), cfg, edgeGenerator,
+          new LinkedBlockingQueue<>(), cfg, edgeGenerator,
           vertex.getName(), taskId, ip.getTaskIndex(), vertex.getParallelism());
       taskInstances.put(vertex.getName(), taskId, v);
       return v;
     } else if (newInstance instanceof ISource) {
-      SourceInstance v = new SourceInstance((ISource) newInstance,
-          new ArrayBlockingQueue<>(1024), cfg,
+      SourceInstance v = new SourceInstance((ISource) newInstance, cfg,
           vertex.getName(), taskId, ip.getTaskIndex(), vertex.getParallelism());
       sourceInstances.put(vertex.getName(), taskId, v);
       return v;
     } else if (newInstance instanceof ISink) {
       SinkInstance v = new SinkInstance((ISink) newInstance,
-          new ArrayBlockingQueue<>(1024), cfg);
+          new LinkedBlockingQueue<>(), cfg, taskId);
       sinkInstances.put(vertex.getName(), taskId, v);
       return v;
     } else {
@@ -17,7 +17,54 @@ import edu.iu.dsc.tws.common.config.Context;
 public class ExecutorContext extends Context {
   public static final String THREADS_PER_WORKER = "twister2.exector.worker.threads";
 
+  /**
+   * Maximum time in microseconds an idle executor thread parks before looking for work again
+   */
+  public static final String IDLE_PARK_MAX = "twister2.exector.idle.park.max";
+
+  public static final int DEFAULT_IDLE_PARK_MAX = 1000;
+
+  /**
+   * Number of messages an instance takes from its input or buffers for output at a time
+   */
+  public static final String INSTANCE_BATCH_SIZE = "twister2.exector.instance.batch.size";
+
+  public static final int DEFAULT_INSTANCE_BATCH_SIZE = 1024;
+
+  /**
+   * Number of messages of an edge a target task can have in its queue, a sender waits when the
+   * targets have no credits left
+   */
+  public static final String EDGE_CREDITS = "twister2.exector.edge.credits";
+
+  public static final int DEFAULT_EDGE_CREDITS = 1024;
+
+  /**
+   * Fuse the instances connected by one to one edges in the same container. A chained non keyed
+   * partition edge sends the output of instance i only to instance i of the child, so this is
+   * off unless the job asks for it.
+   */
+  public static final String TASK_CHAINING = "twister2.exector.task.chaining";
+
+  public static final boolean DEFAULT_TASK_CHAINING = false;
+
   public static int threadsPerContainer(Config cfg) {
     return cfg.getIntegerValue(THREADS_PER_WORKER, 1);
   }
+
+  public static int idleParkMax(Config cfg) {
+    return cfg.getIntegerValue(IDLE_PARK_MAX, DEFAULT_IDLE_PARK_MAX);
+  }
+
+  public static int instanceBatchSize(Config cfg) {
+    return cfg.getIntegerValue(INSTANCE_BATCH_SIZE, DEFAULT_INSTANCE_BATCH_SIZE);
+  }
+
+  public static int edgeCredits(Config cfg) {
+    return cfg.getIntegerValue(EDGE_CREDITS, DEFAULT_EDGE_CREDITS);
+  }
+
+  public static boolean taskChaining(Config cfg) {
+    return cfg.getBooleanValue(TASK_CHAINING, DEFAULT_TASK_CHAINING);
+  }
 }
@@ -0,0 +1,33 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import edu.iu.dsc.tws.task.api.IMessage;
+
+/**
+ * An instance that can be called directly by the instance in front of it when the two are
+ * chained, instead of receiving the messages through its input queue
+ */
+public interface IChainedInstance extends INodeInstance {
+  /**
+   * Process a single message on the calling thread
+   *
+   * @param message the message from the upstream instance
+   */
+  void process(IMessage message);
+
+  /**
+   * Whether the instance can process more messages without buffering more output than its
+   * output edges have credits for
+   */
+  boolean hasCapacity();
+}
@@ -12,7 +12,18 @@
 package edu.iu.dsc.tws.executor;
 
 public interface INodeInstance {
-  void execute();
+  /**
+   * Execute the instance once
+   *
+   * @return true if the instance processed any input or produced any output
+   */
+  boolean execute();
 
   void prepare();
+
+  /**
+   * Whether the instance has input to process, pending output or communication operations to
+   * progress. Instances that are not ready are skipped by the executor.
+   */
+  boolean isReady();
 }
@@ -11,14 +11,20 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.executor.comm.IParallelOperation;
+import edu.iu.dsc.tws.executor.comm.Utils;
 import edu.iu.dsc.tws.task.api.IMessage;
 import edu.iu.dsc.tws.task.api.ISink;
 import edu.iu.dsc.tws.task.api.TaskContext;
 
-public class SinkInstance  implements INodeInstance {
+public class SinkInstance  implements IChainedInstance {
   /**
    * The actual task executing
    */
@@ -35,27 +41,75 @@ public class SinkInstance  implements INodeInstance {
    */
   private Config config;
 
+  /**
+   * Messages taken from the input queue in one go
+   */
+  private List<IMessage> inBatch;
+
+  private int batchSize;
+
   /**
    * The globally unique task id
    */
   private int taskId;
 
-  public SinkInstance(ISink task, BlockingQueue<IMessage> inQueue, Config config) {
+  /**
+   * Parallel operations of the input edges, the credits of the input are returned to them
+   */
+  private Map<String, IParallelOperation> inParOps = new HashMap<>();
+
+  public SinkInstance(ISink task, BlockingQueue<IMessage> inQueue, Config config, int tId) {
     this.task = task;
     this.inQueue = inQueue;
     this.config = config;
+    this.taskId = tId;
   }
 
   public void prepare() {
+    batchSize = ExecutorContext.instanceBatchSize(config);
+    inBatch = new ArrayList<>(batchSize);
     task.prepare(config, new TaskContext(0, 0, "", 0));
   }
 
-  public void execute() {
-    while (!inQueue.isEmpty()) {
-      IMessage m = inQueue.poll();
+  public boolean execute() {
+    boolean worked = false;
+    while (inQueue.drainTo(inBatch, batchSize) > 0) {
+      worked = true;
+      Utils.releaseCredits(taskId, inBatch, inParOps);
+      for (int i = 0; i < inBatch.size(); i++) {
+        task.execute(inBatch.get(i));
+      }
+      inBatch.clear();
+    }
 
-      task.execute(m);
+    // the returned credits let the pending receives of the edges go through
+    for (Map.Entry<String, IParallelOperation> e : inParOps.entrySet()) {
+      e.getValue().progress();
     }
+    return worked;
+  }
+
+  public void process(IMessage message) {
+    task.execute(message);
+  }
+
+  /**
+   * A sink does not send anything, so it can always take more messages
+   */
+  public boolean hasCapacity() {
+    return true;
+  }
+
+  /**
+   * The sink is ready when it has input or its input edges have messages to progress. A
+   * message from another worker is pending on its edge once the channel completes its receive.
+   */
+  public boolean isReady() {
+    return !inQueue.isEmpty() || Utils.hasPending(inParOps);
+  }
+
+  public void registerInParallelOperation(String edge, IParallelOperation op) {
+    inParOps.put(edge, op);
   }
 
   public BlockingQueue<IMessage> getInQueue() {
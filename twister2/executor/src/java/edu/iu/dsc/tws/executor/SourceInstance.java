@@ -13,13 +13,11 @@ package edu.iu.dsc.tws.executor;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 
 import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.executor.comm.IParallelOperation;
-import edu.iu.dsc.tws.task.api.IMessage;
+import edu.iu.dsc.tws.executor.comm.Utils;
 import edu.iu.dsc.tws.task.api.ISource;
-import edu.iu.dsc.tws.task.api.OutputCollection;
 import edu.iu.dsc.tws.task.api.TaskContext;
 
 public class SourceInstance implements INodeInstance {
@@ -28,11 +26,6 @@ public class SourceInstance implements INodeInstance {
    */
   private ISource task;
 
-  /**
-   * Output will go throuh a single queue
-   */
-  private BlockingQueue<IMessage> outQueue;
-
   /**
    * The configuration
    */
@@ -41,13 +34,18 @@ public class SourceInstance implements INodeInstance {
   /**
    * The output collection to be used
    */
-  private OutputCollection outputCollection;
+  private DefaultOutputCollection outputCollection;
 
   /**
    * Parallel operations
    */
   private Map<String, IParallelOperation> outParOps = new HashMap<>();
 
+  /**
+   * Instances chained to the output edges, they are called directly with the output
+   */
+  private Map<String, IChainedInstance> chainedInstances = new HashMap<>();
+
   /**
    * The globally unique task id
    */
@@ -59,10 +57,9 @@ public class SourceInstance implements INodeInstance {
 
   private String taskName;
 
-  public SourceInstance(ISource task, BlockingQueue<IMessage> outQueue, Config config, String tName,
+  public SourceInstance(ISource task, Config config, String tName,
                         int tId, int tIndex, int parallel) {
     this.task = task;
-    this.outQueue = outQueue;
     this.config = config;
     this.taskId = tId;
     this.taskIndex = tIndex;
@@ -71,36 +68,57 @@ public class SourceInstance implements INodeInstance {
   }
 
   public void prepare() {
-    outputCollection = new DefaultOutputCollection(outQueue);
+    outputCollection = new DefaultOutputCollection(ExecutorContext.instanceBatchSize(config),
+        chainedInstances);
 
     task.prepare(config, new TaskContext(taskIndex, taskId, taskName,
         parallelism, outputCollection));
   }
 
-  public void execute() {
-    task.run();
-    // now check the output queue
-    while (!outQueue.isEmpty()) {
-      IMessage message = outQueue.poll();
-      if (message != null) {
-        String edge = message.edge();
-
-        // invoke the communication operation
-        IParallelOperation op = outParOps.get(edge);
-        op.send(taskId, message);
-      }
+  public boolean execute() {
+    // the source only produces more once the previous output is sent and the edges have credits
+    boolean worked = outputCollection.flush(taskId, outParOps) > 0;
+    if (!outputCollection.hasPending() && canSend()) {
+      task.run();
+      outputCollection.flush(taskId, outParOps);
+      worked = true;
     }
 
     for (Map.Entry<String, IParallelOperation> e : outParOps.entrySet()) {
       e.getValue().progress();
     }
+    return worked;
+  }
+
+  /**
+   * A source is ready when its edges have credits to take more data, or it has messages that
+   * need to be progressed. A source without credits is not executed, so it doesn't spin while
+   * the downstream catches up.
+   */
+  public boolean isReady() {
+    return outputCollection.hasPending() || canSend() || Utils.hasPending(outParOps);
   }
 
-  public BlockingQueue<IMessage> getOutQueue() {
-    return outQueue;
+  /**
+   * Whether the output edges and the instances chained to them can take more messages
+   */
+  private boolean canSend() {
+    if (!Utils.hasCredits(taskId, outParOps)) {
+      return false;
+    }
+    for (IChainedInstance next : chainedInstances.values()) {
+      if (!next.hasCapacity()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public void registerOutParallelOperation(String edge, IParallelOperation op) {
     outParOps.put(edge, op);
   }
+
+  public void registerChainedInstance(String edge, IChainedInstance instance) {
+    chainedInstances.put(edge, instance);
+  }
 }
@@ -0,0 +1,85 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.iu.dsc.tws.task.api.INode;
+import edu.iu.dsc.tws.task.api.ISink;
+import edu.iu.dsc.tws.task.api.ISource;
+import edu.iu.dsc.tws.task.api.ITask;
+import edu.iu.dsc.tws.task.api.Operations;
+import edu.iu.dsc.tws.task.graph.DataFlowTaskGraph;
+import edu.iu.dsc.tws.task.graph.Edge;
+import edu.iu.dsc.tws.task.graph.Vertex;
+import edu.iu.dsc.tws.tsched.spi.taskschedule.TaskSchedulePlan;
+
+/**
+ * Finds the edges of the task graph that can be executed without a communication operation.
+ * On such an edge instance i of the parent only sends to instance i of the child, which runs in
+ * the same container, so the two instances are fused and the parent calls the child directly.
+ * A partition does not guarantee this, so the edges are only chained when the job enables
+ * {@link ExecutorContext#TASK_CHAINING}.
+ */
+public final class TaskChainer {
+  private TaskChainer() {
+  }
+
+  /**
+   * Check weather an edge can be chained. The edge has to be a non keyed partition, the only
+   * output of the parent and the only input of the child, both tasks have the same parallelism
+   * and every container runs the same task indexes of both.
+   *
+   * @param graph the task graph
+   * @param parent the parent of the edge
+   * @param child the child of the edge
+   * @param edge the edge
+   * @param plan the schedule plan of the job
+   * @return true if the parent and child instances can be fused on this edge
+   */
+  public static boolean isChainable(DataFlowTaskGraph graph, Vertex parent, Vertex child,
+                                    Edge edge, TaskSchedulePlan plan) {
+    if (!Operations.PARTITION.equals(edge.getOperation()) || edge.isKeyed()) {
+      return false;
+    }
+
+    INode parentTask = parent.getTask();
+    INode childTask = child.getTask();
+    if (!(parentTask instanceof ITask || parentTask instanceof ISource)
+        || !(childTask instanceof ITask || childTask instanceof ISink)) {
+      return false;
+    }
+
+    if (parent.getParallelism() != child.getParallelism()
+        || graph.outEdges(parent).size() != 1 || graph.inEdges(child).size() != 1) {
+      return false;
+    }
+
+    for (TaskSchedulePlan.ContainerPlan cp : plan.getContainers()) {
+      if (!taskIndexes(cp, parent.getName()).equals(taskIndexes(cp, child.getName()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Set<Integer> taskIndexes(TaskSchedulePlan.ContainerPlan cp, String taskName) {
+    Set<Integer> indexes = new HashSet<>();
+    for (TaskSchedulePlan.TaskInstancePlan ip : cp.getTaskInstances()) {
+      if (taskName.equals(ip.getTaskName())) {
+        indexes.add(ip.getTaskIndex());
+      }
+    }
+    return indexes;
+  }
+}
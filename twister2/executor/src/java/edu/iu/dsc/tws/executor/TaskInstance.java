@@ -11,21 +11,26 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.BlockingQueue;
 
 import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.executor.comm.IParallelOperation;
+import edu.iu.dsc.tws.executor.comm.Utils;
+import edu.iu.dsc.tws.task.api.IBatchTask;
 import edu.iu.dsc.tws.task.api.IMessage;
 import edu.iu.dsc.tws.task.api.ITask;
-import edu.iu.dsc.tws.task.api.OutputCollection;
 import edu.iu.dsc.tws.task.api.TaskContext;
 
 /**
  * The class represents the instance of the executing task
  */
-public class TaskInstance implements INodeInstance {
+public class TaskInstance implements IChainedInstance {
   /**
    * The actual task executing
    */
@@ -37,11 +42,6 @@ public class TaskInstance implements INodeInstance {
    */
   private BlockingQueue<IMessage> inQueue;
 
-  /**
-   * Output will go throuh a single queue
-   */
-  private BlockingQueue<IMessage> outQueue;
-
   /**
    * The configuration
    */
@@ -50,7 +50,14 @@ public class TaskInstance implements INodeInstance {
   /**
    * The output collection to be used
    */
-  private OutputCollection outputCollection;
+  private DefaultOutputCollection outputCollection;
+
+  /**
+   * Messages taken from the input queue in one go
+   */
+  private List<IMessage> inBatch;
+
+  private int batchSize;
 
   /**
    * The globally unique task id
@@ -68,18 +75,26 @@ public class TaskInstance implements INodeInstance {
    */
   private Map<String, IParallelOperation> outParOps = new HashMap<>();
 
+  /**
+   * Parallel operations of the input edges, the credits of the input are returned to them
+   */
+  private Map<String, IParallelOperation> inParOps = new HashMap<>();
+
+  /**
+   * Instances chained to the output edges, they are called directly with the output
+   */
+  private Map<String, IChainedInstance> chainedInstances = new HashMap<>();
+
   /**
    * The edge generator
    */
   private EdgeGenerator edgeGenerator;
 
-  public TaskInstance(ITask task, BlockingQueue<IMessage> inQueue,
-                      BlockingQueue<IMessage> outQueue, Config config,
+  public TaskInstance(ITask task, BlockingQueue<IMessage> inQueue, Config config,
                       EdgeGenerator eGenerator, String tName,
                       int tId, int tIndex, int parallel) {
     this.task = task;
     this.inQueue = inQueue;
-    this.outQueue = outQueue;
     this.config = config;
     this.edgeGenerator = eGenerator;
     this.taskId = tId;
@@ -89,7 +104,9 @@ public class TaskInstance implements INodeInstance {
   }
 
   public void prepare() {
-    outputCollection = new DefaultOutputCollection(outQueue);
+    batchSize = ExecutorContext.instanceBatchSize(config);
+    outputCollection = new DefaultOutputCollection(batchSize, chainedInstances);
+    inBatch = new ArrayList<>(batchSize);
 
     task.prepare(config, new TaskContext(taskIndex, taskId, taskName, parallelism,
         outputCollection));
@@ -99,35 +116,126 @@ public class TaskInstance implements INodeInstance {
     outParOps.put(edge, op);
   }
 
-  public void execute() {
-    while (!inQueue.isEmpty()) {
-      IMessage m = inQueue.poll();
-
-      task.run(m);
+  public void registerInParallelOperation(String edge, IParallelOperation op) {
+    inParOps.put(edge, op);
+  }
 
-      // now check the output queue
-      while (!outQueue.isEmpty()) {
-        IMessage message = outQueue.poll();
-        if (message != null) {
-          String edge = message.edge();
+  public void registerChainedInstance(String edge, IChainedInstance instance) {
+    chainedInstances.put(edge, instance);
+  }
 
-          // invoke the communication operation
-          IParallelOperation op = outParOps.get(edge);
-          op.send(taskId, message);
-        }
-      }
+  public boolean execute() {
+    // send what is left from the last execution before taking more input
+    boolean worked = outputCollection.flush(taskId, outParOps) > 0;
+    // only take input when the output edges have credits to send the results, messages left
+    // in the batch by the last execution are run first
+    while (!outputCollection.hasPending() && canSend()
+        && (!inBatch.isEmpty() || inQueue.drainTo(inBatch, batchSize) > 0)) {
+      worked = true;
+      List<IMessage> processed = inBatch.subList(0, runBatch());
+      Utils.releaseCredits(taskId, processed, inParOps);
+      processed.clear();
+
+      // now send the output of the batch
+      outputCollection.flush(taskId, outParOps);
     }
 
     for (Map.Entry<String, IParallelOperation> e : outParOps.entrySet()) {
       e.getValue().progress();
     }
+    for (Map.Entry<String, IParallelOperation> e : inParOps.entrySet()) {
+      e.getValue().progress();
+    }
+    return worked;
+  }
+
+  /**
+   * Run the task for the messages of the input batch. The task stops taking messages once its
+   * output reaches the batch size or an instance chained to it has no capacity left, so a
+   * chained instance whose output cannot be sent does not keep buffering it.
+   *
+   * @return the number of messages from the start of the batch that were run
+   */
+  private int runBatch() {
+    BatchIterator messages = new BatchIterator();
+    if (task instanceof IBatchTask) {
+      ((IBatchTask) task).run(messages);
+    } else {
+      while (messages.hasNext()) {
+        task.run(messages.next());
+      }
+    }
+    return messages.index;
+  }
+
+  /**
+   * Run the task for a message from the instance chained in front of it. The instance in front
+   * only calls this while {@link #hasCapacity()} is true.
+   */
+  public void process(IMessage message) {
+    task.run(message);
+    if (outputCollection.isFull()) {
+      outputCollection.flush(taskId, outParOps);
+    }
+  }
+
+  /**
+   * The task is ready when it has input and credits to send the output, or has messages that
+   * need to be progressed. A message from another worker is pending on its edge once the
+   * channel completes its receive, so an idle input edge does not keep the task busy.
+   */
+  public boolean isReady() {
+    return ((!inQueue.isEmpty() || !inBatch.isEmpty()) && canSend())
+        || outputCollection.hasPending()
+        || Utils.hasPending(outParOps) || Utils.hasPending(inParOps);
+  }
+
+  public boolean hasCapacity() {
+    return !outputCollection.isFull() && canSend();
+  }
+
+  /**
+   * Whether the output edges and the instances chained to them can take more messages
+   */
+  private boolean canSend() {
+    if (!Utils.hasCredits(taskId, outParOps)) {
+      return false;
+    }
+    for (IChainedInstance next : chainedInstances.values()) {
+      if (!next.hasCapacity()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public BlockingQueue<IMessage> getInQueue() {
     return inQueue;
   }
 
-  public BlockingQueue<IMessage> getOutQueue() {
-    return outQueue;
+  /**
+   * Iterates the input batch while the task has capacity for more output, the first message is
+   * always given as the capacity was checked before the batch
+   */
+  private class BatchIterator implements Iterator<IMessage> {
+    private int index;
+
+    @Override
+    public boolean hasNext() {
+      return index < inBatch.size() && (index == 0 || hasCapacity());
+    }
+
+    @Override
+    public IMessage next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return inBatch.get(index++);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
   }
 }
@@ -14,48 +14,166 @@ package edu.iu.dsc.tws.executor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import edu.iu.dsc.tws.common.config.Config;
+
+/**
+ * Runs the instances of a worker on a fixed set of threads. Every thread owns a deque of
+ * instances and only executes the ones that are ready. A thread that has no ready instance
+ * steals from the other threads, and parks with an increasing back off if it finds none.
+ *
+ * An instance is always either in one deque or held by one thread, so it never runs on two
+ * threads at the same time.
+ */
 public class ThreadSharingExecutor {
   private static final Logger LOG = Logger.getLogger(ThreadSharingExecutor.class.getName());
 
+  /**
+   * The first park of an idle thread, doubled every idle round up to the maximum
+   */
+  private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
   private int numThreads;
 
-  private BlockingQueue<INodeInstance> tasks;
+  private long maxParkNanos;
+
+  private List<ConcurrentLinkedDeque<INodeInstance>> queues = new ArrayList<>();
 
   private List<Thread> threads = new ArrayList<>();
 
-  public ThreadSharingExecutor(int numThreads) {
+  private volatile boolean running;
+
+  public ThreadSharingExecutor(Config cfg, int numThreads) {
     this.numThreads = numThreads;
+    this.maxParkNanos = Math.max(MIN_PARK_NANOS,
+        TimeUnit.MICROSECONDS.toNanos(ExecutorContext.idleParkMax(cfg)));
   }
 
   public void execute(ExecutionPlan execution) {
     // go through the instances
     Map<Integer, INodeInstance> nodes = execution.getNodes();
-    tasks = new ArrayBlockingQueue<>(nodes.size() * 2);
-    tasks.addAll(nodes.values());
-
-    for (INodeInstance node : tasks) {
+    for (INodeInstance node : nodes.values()) {
       node.prepare();
     }
 
     for (int i = 0; i < numThreads; i++) {
-      Thread t = new Thread(new Worker());
+      queues.add(new ConcurrentLinkedDeque<INodeInstance>());
+    }
+    // spread the instances over the threads, the busy ones will be stolen if this is uneven
+    int next = 0;
+    for (INodeInstance node : nodes.values()) {
+      queues.get(next).offerLast(node);
+      next = (next + 1) % numThreads;
+    }
+
+    running = true;
+    for (int i = 0; i < numThreads; i++) {
+      Thread t = new Thread(new Worker(i), "executor-" + i);
       t.start();
       threads.add(t);
     }
   }
 
+  /**
+   * Stop the threads after they finish the instances they are executing
+   */
+  public void stop() {
+    running = false;
+    for (Thread t : threads) {
+      LockSupport.unpark(t);
+    }
+  }
+
   private class Worker implements Runnable {
+    private final int index;
+
+    private final ConcurrentLinkedDeque<INodeInstance> own;
+
+    Worker(int index) {
+      this.index = index;
+      this.own = queues.get(index);
+    }
+
     @Override
     public void run() {
-      while (true) {
-        INodeInstance nodeInstance = tasks.poll();
-        nodeInstance.execute();
-        tasks.offer(nodeInstance);
+      long parkNanos = MIN_PARK_NANOS;
+      while (running) {
+        try {
+          boolean worked = runOwn();
+          if (!worked) {
+            worked = steal();
+          }
+
+          if (worked) {
+            parkNanos = MIN_PARK_NANOS;
+          } else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(maxParkNanos, parkNanos << 1);
+          }
+        } catch (Throwable t) {
+          LOG.log(Level.SEVERE, "Error in executor thread " + index, t);
+          throw new RuntimeException(t);
+        }
+      }
+    }
+
+    /**
+     * Make one pass over the instances of this thread
+     */
+    private boolean runOwn() {
+      boolean worked = false;
+      int count = own.size();
+      for (int i = 0; i < count; i++) {
+        INodeInstance node = own.pollFirst();
+        if (node == null) {
+          break;
+        }
+        try {
+          if (node.isReady()) {
+            worked |= node.execute();
+          }
+        } finally {
+          own.offerLast(node);
+        }
+      }
+      return worked;
+    }
+
+    /**
+     * Take a ready instance from the back of another thread's deque and keep it in this one
+     */
+    private boolean steal() {
+      for (int i = 1; i < numThreads; i++) {
+        ConcurrentLinkedDeque<INodeInstance> victim = queues.get((index + i) % numThreads);
+        INodeInstance node = victim.pollLast();
+        if (node == null) {
+          continue;
+        }
+        if (!node.isReady()) {
+          victim.offerLast(node);
+          continue;
+        }
+        boolean worked = false;
+        try {
+          worked = node.execute();
+        } finally {
+          // only move the instance if it had work, so idle ones stay where they are
+          if (worked) {
+            own.offerLast(node);
+          } else {
+            victim.offerLast(node);
+          }
+        }
+        if (worked) {
+          return true;
+        }
       }
+      return false;
     }
   }
 }
@@ -19,6 +19,7 @@ import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.comms.api.TWSChannel;
 import edu.iu.dsc.tws.comms.core.TaskPlan;
 import edu.iu.dsc.tws.executor.EdgeGenerator;
+import edu.iu.dsc.tws.executor.ExecutorContext;
 import edu.iu.dsc.tws.task.api.IMessage;
 
 public abstract class AbstractParallelOperation implements IParallelOperation {
@@ -34,11 +35,17 @@ public abstract class AbstractParallelOperation implements IParallelOperation {
 
   protected int partitionEdge;
 
+  /**
+   * Credits of the target tasks of this worker
+   */
+  protected EdgeCredits credits;
+
   public AbstractParallelOperation(Config config, TWSChannel network, TaskPlan tPlan) {
     this.config = config;
     this.taskPlan = tPlan;
     this.channel = network;
     this.outMessages = new HashMap<>();
+    this.credits = new EdgeCredits(ExecutorContext.edgeCredits(config));
   }
 
   @Override
@@ -55,9 +62,46 @@ public abstract class AbstractParallelOperation implements IParallelOperation {
       throw new RuntimeException("Existing queue for target task");
     }
     outMessages.put(targetTask, queue);
+    credits.addTarget(targetTask);
   }
 
   @Override
   public void progress() {
   }
+
+  @Override
+  public int credits(int source) {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public void release(int targetTask, int count) {
+    credits.release(targetTask, count);
+  }
+
+  @Override
+  public boolean hasPending() {
+    return false;
+  }
+
+  @Override
+  public int occupancy() {
+    return credits.queued();
+  }
+
+  /**
+   * Add a received message to the queue of the target if the target has a credit for it
+   *
+   * @return false if the message is not accepted and has to be given again
+   */
+  protected boolean deliver(int target, IMessage message) {
+    if (!credits.acquire(target)) {
+      return false;
+    }
+    if (!outMessages.get(target).offer(message)) {
+      credits.release(target, 1);
+      return false;
+    }
+    return true;
+  }
 }
@@ -51,11 +51,38 @@ public class BroadcastOperation extends AbstractParallelOperation {
     op.send(source, message.getContent(), 0, dest);
   }
 
+  @Override
+  public int send(int source, List<IMessage> messages) {
+    int sent = 0;
+    for (int i = 0; i < messages.size(); i++) {
+      if (!op.send(source, messages.get(i).getContent(), 0)) {
+        break;
+      }
+      sent++;
+    }
+    return sent;
+  }
+
   @Override
   public void progress() {
     op.progress();
   }
 
+  @Override
+  public int credits(int source) {
+    return op.sendCapacity(source);
+  }
+
+  @Override
+  public boolean hasPending() {
+    return op.hasPending();
+  }
+
+  @Override
+  public int occupancy() {
+    return op.pendingSendCount() + credits.queued();
+  }
+
   public class BcastReceiver implements MessageReceiver {
     @Override
     public void init(Config cfg, DataFlowOperation operation,
@@ -66,7 +93,7 @@ public class BroadcastOperation extends AbstractParallelOperation {
     public boolean onMessage(int source, int path, int target, int flags, Object object) {
       TaskMessage msg = new TaskMessage(object,
           edge.getStringMapping(partitionEdge), target);
-      return outMessages.get(target).offer(msg);
+      return deliver(target, msg);
     }
 
     @Override
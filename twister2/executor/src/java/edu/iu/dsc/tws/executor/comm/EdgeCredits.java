@@ -0,0 +1,100 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor.comm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The credits of the target tasks of an edge in this worker. A receiver takes a credit of the
+ * target before adding a message to its queue and refuses the message if there is none, the
+ * target returns the credits as it takes the messages out. A refused message stays in the
+ * pending receives of the operation, so a slow target holds back the senders of the edge
+ * instead of letting its queue grow.
+ *
+ * The targets are added before the execution starts, after that the credits are taken and
+ * returned by different threads.
+ */
+public class EdgeCredits {
+  /**
+   * The number of messages of the edge a target can have in its queue
+   */
+  private final int capacity;
+
+  private final Map<Integer, AtomicInteger> available = new HashMap<>();
+
+  public EdgeCredits(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public void addTarget(int target) {
+    available.put(target, new AtomicInteger(capacity));
+  }
+
+  /**
+   * Take a credit of the target
+   *
+   * @return false if the target has no credits left
+   */
+  public boolean acquire(int target) {
+    AtomicInteger credits = available.get(target);
+    while (true) {
+      int current = credits.get();
+      if (current <= 0) {
+        return false;
+      }
+      if (credits.compareAndSet(current, current - 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Return the credits of the messages the target has taken from its queue. The credits never
+   * go above the capacity, messages that were added to the queue without taking a credit don't
+   * give the target more room.
+   */
+  public void release(int target, int count) {
+    AtomicInteger credits = available.get(target);
+    if (credits == null) {
+      return;
+    }
+    while (true) {
+      int current = credits.get();
+      int next = Math.min(capacity, current + count);
+      if (next == current || credits.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  public int available(int target) {
+    AtomicInteger credits = available.get(target);
+    return credits == null ? 0 : credits.get();
+  }
+
+  /**
+   * The number of messages in the queues of the targets that are not taken out yet
+   */
+  public int queued() {
+    int queued = 0;
+    for (AtomicInteger credits : available.values()) {
+      queued += capacity - credits.get();
+    }
+    return queued;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+}
@@ -11,6 +11,7 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor.comm;
 
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
 import edu.iu.dsc.tws.task.api.IMessage;
@@ -23,7 +24,43 @@ public interface IParallelOperation {
 
   void send(int source, IMessage message, int dest);
 
+  /**
+   * Send a batch of messages in order. The operations still hand the messages to the
+   * communication operation one at a time, messages are only packed together by its message
+   * batcher when that is enabled.
+   *
+   * @param source the source task
+   * @param messages the messages
+   * @return the number of messages accepted from the front of the batch, the rest has to be
+   * sent again
+   */
+  int send(int source, List<IMessage> messages);
+
   void register(int targetTask, BlockingQueue<IMessage> queue);
 
   void progress();
+
+  /**
+   * The number of messages the source can send before it has to wait for the receivers
+   */
+  int credits(int source);
+
+  /**
+   * Return the credits of a target task for the messages it has taken from its queue
+   *
+   * @param targetTask the target task
+   * @param count the number of messages taken
+   */
+  void release(int targetTask, int count);
+
+  /**
+   * Whether the operation has messages that need to be progressed
+   */
+  boolean hasPending();
+
+  /**
+   * The number of messages of the edge in this worker, waiting to be sent or in the queues of
+   * the target tasks
+   */
+  int occupancy();
 }
@@ -11,8 +11,12 @@
 //  limitations under the License.
 package edu.iu.dsc.tws.executor.comm;
 
+import java.util.List;
+import java.util.Map;
+
 import edu.iu.dsc.tws.comms.api.MessageType;
 import edu.iu.dsc.tws.data.api.DataType;
+import edu.iu.dsc.tws.task.api.IMessage;
 
 public final class Utils {
   private Utils() {
@@ -38,4 +42,59 @@ public final class Utils {
         throw new RuntimeException("Un-expected type");
     }
   }
+
+  /**
+   * Whether the source has credits on all its edges
+   */
+  public static boolean hasCredits(int source, Map<String, IParallelOperation> ops) {
+    for (IParallelOperation op : ops.values()) {
+      if (op.credits(source) <= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether any of the operations has messages that need to be progressed
+   */
+  public static boolean hasPending(Map<String, IParallelOperation> ops) {
+    for (IParallelOperation op : ops.values()) {
+      if (op.hasPending()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the credits of the messages a target has taken from its queue to the operations of
+   * their edges
+   */
+  public static void releaseCredits(int target, List<IMessage> messages,
+                                    Map<String, IParallelOperation> ops) {
+    String edge = null;
+    int count = 0;
+    for (int i = 0; i < messages.size(); i++) {
+      String e = messages.get(i).edge();
+      if (!e.equals(edge)) {
+        release(target, edge, count, ops);
+        edge = e;
+        count = 0;
+      }
+      count++;
+    }
+    release(target, edge, count, ops);
+  }
+
+  private static void release(int target, String edge, int count,
+                              Map<String, IParallelOperation> ops) {
+    if (count == 0) {
+      return;
+    }
+    IParallelOperation op = ops.get(edge);
+    if (op != null) {
+      op.release(target, count);
+    }
+  }
 }
@@ -0,0 +1,194 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.executor.comm.AbstractParallelOperation;
+import edu.iu.dsc.tws.executor.comm.IParallelOperation;
+import edu.iu.dsc.tws.task.api.IMessage;
+import edu.iu.dsc.tws.task.api.ITask;
+import edu.iu.dsc.tws.task.api.TaskContext;
+import edu.iu.dsc.tws.task.api.TaskMessage;
+
+public class DefaultOutputCollectionTest {
+
+  /**
+   * Records the batches handed to the operation and accepts up to its capacity of each
+   */
+  private static final class BatchRecordingOperation extends AbstractParallelOperation {
+    private final List<List<Object>> batches = new ArrayList<>();
+    private int capacity = Integer.MAX_VALUE;
+
+    BatchRecordingOperation() {
+      super(Config.newBuilder().build(), null, null);
+    }
+
+    @Override
+    public int send(int source, List<IMessage> messages) {
+      int accepted = Math.min(capacity, messages.size());
+      List<Object> batch = new ArrayList<>();
+      for (int i = 0; i < accepted; i++) {
+        batch.add(messages.get(i).getContent());
+      }
+      if (accepted > 0) {
+        batches.add(batch);
+      }
+      return accepted;
+    }
+
+    private List<Integer> batchSizes() {
+      List<Integer> sizes = new ArrayList<>();
+      for (List<Object> batch : batches) {
+        sizes.add(batch.size());
+      }
+      return sizes;
+    }
+  }
+
+  /**
+   * Writes every input message to the edge
+   */
+  private static final class ForwardTask implements ITask {
+    private static final long serialVersionUID = 1L;
+    private TaskContext context;
+
+    @Override
+    public IMessage execute() {
+      return null;
+    }
+
+    @Override
+    public IMessage execute(IMessage content) {
+      return null;
+    }
+
+    @Override
+    public void run(IMessage content) {
+      context.write("e", content.getContent());
+    }
+
+    @Override
+    public void run() {
+    }
+
+    @Override
+    public void prepare(Config cfg, TaskContext ctx) {
+      this.context = ctx;
+    }
+  }
+
+  private static Map<String, IParallelOperation> ops(IParallelOperation op) {
+    Map<String, IParallelOperation> ops = new HashMap<>();
+    ops.put("e", op);
+    return ops;
+  }
+
+  @Test
+  public void testMessagesAreBufferedUntilFlush() {
+    DefaultOutputCollection collection = new DefaultOutputCollection(8);
+    BatchRecordingOperation op = new BatchRecordingOperation();
+    for (int i = 0; i < 3; i++) {
+      Assert.assertTrue(collection.collect(0, new TaskMessage(i, "e", 0)));
+    }
+    Assert.assertTrue(op.batches.isEmpty());
+    Assert.assertTrue(collection.hasPending());
+
+    Assert.assertEquals(3, collection.flush(0, ops(op)));
+    Assert.assertEquals(Arrays.asList(Arrays.<Object>asList(0, 1, 2)), op.batches);
+    Assert.assertFalse(collection.hasPending());
+    Assert.assertEquals(0, collection.flush(0, ops(op)));
+    Assert.assertEquals(1, op.batches.size());
+  }
+
+  @Test
+  public void testRefusedMessagesStayForNextFlush() {
+    DefaultOutputCollection collection = new DefaultOutputCollection(8);
+    BatchRecordingOperation op = new BatchRecordingOperation();
+    op.capacity = 2;
+    for (int i = 0; i < 5; i++) {
+      collection.collect(0, new TaskMessage(i, "e", 0));
+    }
+    Assert.assertEquals(2, collection.flush(0, ops(op)));
+    Assert.assertTrue(collection.hasPending());
+
+    op.capacity = Integer.MAX_VALUE;
+    Assert.assertEquals(3, collection.flush(0, ops(op)));
+    Assert.assertEquals(Arrays.asList(Arrays.<Object>asList(0, 1),
+        Arrays.<Object>asList(2, 3, 4)), op.batches);
+    Assert.assertFalse(collection.hasPending());
+  }
+
+  @Test
+  public void testFullAtBatchSize() {
+    DefaultOutputCollection collection = new DefaultOutputCollection(2);
+    collection.collect(0, new TaskMessage(0, "e", 0));
+    Assert.assertFalse(collection.isFull());
+    collection.collect(0, new TaskMessage(1, "e", 0));
+    Assert.assertTrue(collection.isFull());
+    collection.flush(0, ops(new BatchRecordingOperation()));
+    Assert.assertFalse(collection.isFull());
+  }
+
+  @Test
+  public void testTaskFlushesOnBatchSizeAndEndOfInput() {
+    Config cfg = Config.newBuilder().put(ExecutorContext.INSTANCE_BATCH_SIZE, 4).build();
+    LinkedBlockingQueue<IMessage> inQueue = new LinkedBlockingQueue<>();
+    TaskInstance instance = new TaskInstance(new ForwardTask(), inQueue, cfg, null,
+        "task", 0, 0, 1);
+    BatchRecordingOperation op = new BatchRecordingOperation();
+    instance.registerOutParallelOperation("e", op);
+    instance.prepare();
+
+    for (int i = 0; i < 10; i++) {
+      inQueue.add(new TaskMessage(i, "in", 1));
+    }
+    Assert.assertTrue(instance.execute());
+    // two full batches are flushed by their size and the rest at the end of the input
+    Assert.assertEquals(Arrays.asList(4, 4, 2), op.batchSizes());
+    Assert.assertFalse(instance.isReady());
+  }
+
+  @Test
+  public void testTaskKeepsOutputWhileEdgeIsFull() {
+    Config cfg = Config.newBuilder().put(ExecutorContext.INSTANCE_BATCH_SIZE, 4).build();
+    LinkedBlockingQueue<IMessage> inQueue = new LinkedBlockingQueue<>();
+    TaskInstance instance = new TaskInstance(new ForwardTask(), inQueue, cfg, null,
+        "task", 0, 0, 1);
+    BatchRecordingOperation op = new BatchRecordingOperation();
+    op.capacity = 0;
+    instance.registerOutParallelOperation("e", op);
+    instance.prepare();
+
+    for (int i = 0; i < 10; i++) {
+      inQueue.add(new TaskMessage(i, "in", 1));
+    }
+    instance.execute();
+    // the output of the first batch waits, no more input is taken
+    Assert.assertEquals(6, inQueue.size());
+    Assert.assertTrue(instance.isReady());
+
+    op.capacity = Integer.MAX_VALUE;
+    instance.execute();
+    Assert.assertEquals(Arrays.asList(4, 4, 2), op.batchSizes());
+    Assert.assertTrue(inQueue.isEmpty());
+  }
+}
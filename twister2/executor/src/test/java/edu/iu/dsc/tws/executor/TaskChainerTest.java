@@ -0,0 +1,235 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.data.api.DataType;
+import edu.iu.dsc.tws.task.api.IMessage;
+import edu.iu.dsc.tws.task.api.INode;
+import edu.iu.dsc.tws.task.api.ITask;
+import edu.iu.dsc.tws.task.api.Operations;
+import edu.iu.dsc.tws.task.api.SinkTask;
+import edu.iu.dsc.tws.task.api.SourceTask;
+import edu.iu.dsc.tws.task.api.TaskContext;
+import edu.iu.dsc.tws.task.graph.DataFlowTaskGraph;
+import edu.iu.dsc.tws.task.graph.Edge;
+import edu.iu.dsc.tws.task.graph.Vertex;
+import edu.iu.dsc.tws.tsched.spi.taskschedule.Resource;
+import edu.iu.dsc.tws.tsched.spi.taskschedule.TaskSchedulePlan;
+
+public class TaskChainerTest {
+
+  private static final class Source extends SourceTask {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static final class Sink extends SinkTask {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static final class Mapper implements ITask {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public IMessage execute() {
+      return null;
+    }
+
+    @Override
+    public IMessage execute(IMessage content) {
+      return content;
+    }
+
+    @Override
+    public void run(IMessage content) {
+    }
+
+    @Override
+    public void run() {
+    }
+
+    @Override
+    public void prepare(Config cfg, TaskContext context) {
+    }
+  }
+
+  private static Vertex vertex(DataFlowTaskGraph graph, String name, INode task,
+                               int parallelism) {
+    Vertex v = new Vertex(name, task);
+    v.setParallelism(parallelism);
+    graph.addTaskVertex(name, v);
+    return v;
+  }
+
+  private static Resource resource() {
+    return new Resource(1.0, 1.0, 1.0);
+  }
+
+  /**
+   * A plan with two containers, the given task indexes of each task run in the first container
+   * and the rest in the second
+   */
+  private static TaskSchedulePlan plan(String[] tasks, int parallelism, int[][] firstContainer) {
+    Set<TaskSchedulePlan.TaskInstancePlan> first = new HashSet<>();
+    Set<TaskSchedulePlan.TaskInstancePlan> second = new HashSet<>();
+    int id = 0;
+    for (int t = 0; t < tasks.length; t++) {
+      Set<Integer> indexes = new HashSet<>();
+      for (int i : firstContainer[t]) {
+        indexes.add(i);
+      }
+      for (int i = 0; i < parallelism; i++) {
+        TaskSchedulePlan.TaskInstancePlan ip =
+            new TaskSchedulePlan.TaskInstancePlan(tasks[t], id, i, resource());
+        if (indexes.contains(i)) {
+          first.add(ip);
+        } else {
+          second.add(ip);
+        }
+      }
+      id++;
+    }
+    Set<TaskSchedulePlan.ContainerPlan> containers = new HashSet<>();
+    containers.add(new TaskSchedulePlan.ContainerPlan(0, first, resource()));
+    containers.add(new TaskSchedulePlan.ContainerPlan(1, second, resource()));
+    return new TaskSchedulePlan(0, containers);
+  }
+
+  private static TaskSchedulePlan alignedPlan(String... tasks) {
+    int[][] indexes = new int[tasks.length][];
+    for (int t = 0; t < tasks.length; t++) {
+      indexes[t] = new int[]{0, 1};
+    }
+    return plan(tasks, 4, indexes);
+  }
+
+  @Test
+  public void testChainingIsOptIn() {
+    Assert.assertFalse(ExecutorContext.taskChaining(Config.newBuilder().build()));
+    Assert.assertTrue(ExecutorContext.taskChaining(Config.newBuilder()
+        .put(ExecutorContext.TASK_CHAINING, true).build()));
+  }
+
+  @Test
+  public void testPartitionIsChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge edge = new Edge("e", Operations.PARTITION);
+    graph.addTaskEdge(source, sink, edge);
+
+    Assert.assertTrue(TaskChainer.isChainable(graph, source, sink, edge,
+        alignedPlan("source", "sink")));
+  }
+
+  @Test
+  public void testPipelineIsChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex map = vertex(graph, "map", new Mapper(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge e1 = new Edge("e1", Operations.PARTITION);
+    Edge e2 = new Edge("e2", Operations.PARTITION);
+    graph.addTaskEdge(source, map, e1);
+    graph.addTaskEdge(map, sink, e2);
+
+    TaskSchedulePlan plan = alignedPlan("source", "map", "sink");
+    Assert.assertTrue(TaskChainer.isChainable(graph, source, map, e1, plan));
+    Assert.assertTrue(TaskChainer.isChainable(graph, map, sink, e2, plan));
+  }
+
+  @Test
+  public void testOtherOperationsAreNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge edge = new Edge("e", Operations.REDUCE);
+    graph.addTaskEdge(source, sink, edge);
+
+    Assert.assertFalse(TaskChainer.isChainable(graph, source, sink, edge,
+        alignedPlan("source", "sink")));
+  }
+
+  @Test
+  public void testKeyedPartitionIsNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge edge = new Edge("e", Operations.PARTITION, DataType.OBJECT, DataType.INTEGER);
+    graph.addTaskEdge(source, sink, edge);
+
+    Assert.assertFalse(TaskChainer.isChainable(graph, source, sink, edge,
+        alignedPlan("source", "sink")));
+  }
+
+  @Test
+  public void testDifferentParallelismIsNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 2);
+    Edge edge = new Edge("e", Operations.PARTITION);
+    graph.addTaskEdge(source, sink, edge);
+
+    Assert.assertFalse(TaskChainer.isChainable(graph, source, sink, edge,
+        alignedPlan("source", "sink")));
+  }
+
+  @Test
+  public void testFanOutIsNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink1 = vertex(graph, "sink1", new Sink(), 4);
+    Vertex sink2 = vertex(graph, "sink2", new Sink(), 4);
+    Edge e1 = new Edge("e1", Operations.PARTITION);
+    Edge e2 = new Edge("e2", Operations.PARTITION);
+    graph.addTaskEdge(source, sink1, e1);
+    graph.addTaskEdge(source, sink2, e2);
+
+    Assert.assertFalse(TaskChainer.isChainable(graph, source, sink1, e1,
+        alignedPlan("source", "sink1", "sink2")));
+  }
+
+  @Test
+  public void testFanInIsNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source1 = vertex(graph, "source1", new Source(), 4);
+    Vertex source2 = vertex(graph, "source2", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge e1 = new Edge("e1", Operations.PARTITION);
+    Edge e2 = new Edge("e2", Operations.PARTITION);
+    graph.addTaskEdge(source1, sink, e1);
+    graph.addTaskEdge(source2, sink, e2);
+
+    Assert.assertFalse(TaskChainer.isChainable(graph, source1, sink, e1,
+        alignedPlan("source1", "source2", "sink")));
+  }
+
+  @Test
+  public void testInstancesInDifferentContainersAreNotChained() {
+    DataFlowTaskGraph graph = new DataFlowTaskGraph();
+    Vertex source = vertex(graph, "source", new Source(), 4);
+    Vertex sink = vertex(graph, "sink", new Sink(), 4);
+    Edge edge = new Edge("e", Operations.PARTITION);
+    graph.addTaskEdge(source, sink, edge);
+
+    // sink index 1 runs in the second container while source index 1 runs in the first
+    TaskSchedulePlan plan = plan(new String[]{"source", "sink"}, 4,
+        new int[][]{{0, 1}, {0, 2}});
+    Assert.assertFalse(TaskChainer.isChainable(graph, source, sink, edge, plan));
+  }
+}
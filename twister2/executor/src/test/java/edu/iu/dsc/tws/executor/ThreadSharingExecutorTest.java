@@ -0,0 +1,158 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+
+public class ThreadSharingExecutorTest {
+
+  /**
+   * An instance that is ready while its flag is set and records the threads executing it
+   */
+  private static class CountingInstance implements INodeInstance {
+    private final AtomicBoolean ready = new AtomicBoolean();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger readyChecks = new AtomicInteger();
+    private final AtomicInteger inside = new AtomicInteger();
+    private final AtomicBoolean overlapped = new AtomicBoolean();
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch executed = new CountDownLatch(1);
+    private final long busyNanos;
+
+    CountingInstance(boolean ready, long busyNanos) {
+      this.ready.set(ready);
+      this.busyNanos = busyNanos;
+    }
+
+    @Override
+    public boolean execute() {
+      if (inside.incrementAndGet() > 1) {
+        overlapped.set(true);
+      }
+      threads.add(Thread.currentThread().getName());
+      long start = System.nanoTime();
+      while (System.nanoTime() - start < busyNanos) {
+        Thread.yield();
+      }
+      executions.incrementAndGet();
+      executed.countDown();
+      inside.decrementAndGet();
+      return true;
+    }
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public boolean isReady() {
+      readyChecks.incrementAndGet();
+      return ready.get();
+    }
+  }
+
+  private ThreadSharingExecutor executor;
+
+  private ThreadSharingExecutor start(int threads, int idleParkMicros,
+                                      INodeInstance... instances) {
+    Config cfg = Config.newBuilder()
+        .put(ExecutorContext.IDLE_PARK_MAX, idleParkMicros).build();
+    ExecutionPlan plan = new ExecutionPlan();
+    for (int i = 0; i < instances.length; i++) {
+      plan.addNodes(i, instances[i]);
+    }
+    executor = new ThreadSharingExecutor(cfg, threads);
+    executor.execute(plan);
+    return executor;
+  }
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.stop();
+    }
+  }
+
+  @Test
+  public void testBusyInstancesAreStolen() throws InterruptedException {
+    // the instances are spread round robin, so both busy ones start on the first thread
+    CountingInstance busy1 = new CountingInstance(true, TimeUnit.MICROSECONDS.toNanos(200));
+    CountingInstance idle1 = new CountingInstance(false, 0);
+    CountingInstance busy2 = new CountingInstance(true, TimeUnit.MICROSECONDS.toNanos(200));
+    CountingInstance idle2 = new CountingInstance(false, 0);
+    start(2, 1000, busy1, idle1, busy2, idle2);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!busy1.threads.contains("executor-1") && !busy2.threads.contains("executor-1")
+        && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertTrue(busy1.threads.contains("executor-1")
+        || busy2.threads.contains("executor-1"));
+    Assert.assertEquals(0, idle1.executions.get());
+    Assert.assertEquals(0, idle2.executions.get());
+    Assert.assertFalse(busy1.overlapped.get());
+    Assert.assertFalse(busy2.overlapped.get());
+  }
+
+  @Test
+  public void testIdleThreadsPark() throws InterruptedException {
+    CountingInstance idle = new CountingInstance(false, 0);
+    start(2, 50000, idle);
+
+    // let the threads back off to the longest park
+    Thread.sleep(300);
+    int before = idle.readyChecks.get();
+    Thread.sleep(500);
+    int checks = idle.readyChecks.get() - before;
+    // a spinning thread would check millions of times, two parked threads about twenty
+    Assert.assertTrue("ready checks " + checks, checks < 200);
+    Assert.assertEquals(0, idle.executions.get());
+  }
+
+  @Test
+  public void testParkedThreadWakesUpForReadyInstance() throws InterruptedException {
+    CountingInstance instance = new CountingInstance(false, 0);
+    start(1, 20000, instance);
+
+    Thread.sleep(200);
+    Assert.assertEquals(0, instance.executions.get());
+    instance.ready.set(true);
+    // the thread looks again after at most the longest park
+    Assert.assertTrue(instance.executed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testStopEndsExecution() throws InterruptedException {
+    CountingInstance instance = new CountingInstance(true, 0);
+    start(2, 1000, instance);
+    Assert.assertTrue(instance.executed.await(5, TimeUnit.SECONDS));
+
+    executor.stop();
+    Thread.sleep(100);
+    int executions = instance.executions.get();
+    Thread.sleep(100);
+    Assert.assertEquals(executions, instance.executions.get());
+    Assert.assertFalse(instance.overlapped.get());
+  }
+}
@@ -0,0 +1,104 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.executor.comm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EdgeCreditsTest {
+
+  @Test
+  public void testAcquireUntilEmpty() {
+    EdgeCredits credits = new EdgeCredits(3);
+    credits.addTarget(1);
+    for (int i = 0; i < 3; i++) {
+      Assert.assertTrue(credits.acquire(1));
+    }
+    Assert.assertFalse(credits.acquire(1));
+    Assert.assertEquals(0, credits.available(1));
+    Assert.assertEquals(3, credits.queued());
+
+    credits.release(1, 2);
+    Assert.assertEquals(2, credits.available(1));
+    Assert.assertEquals(1, credits.queued());
+    Assert.assertTrue(credits.acquire(1));
+  }
+
+  @Test
+  public void testTargetsAreSeparate() {
+    EdgeCredits credits = new EdgeCredits(1);
+    credits.addTarget(1);
+    credits.addTarget(2);
+    Assert.assertTrue(credits.acquire(1));
+    Assert.assertFalse(credits.acquire(1));
+    Assert.assertTrue(credits.acquire(2));
+    Assert.assertEquals(2, credits.queued());
+  }
+
+  @Test
+  public void testReleaseDoesNotExceedCapacity() {
+    EdgeCredits credits = new EdgeCredits(4);
+    credits.addTarget(1);
+    // messages that were queued without taking a credit
+    credits.release(1, 10);
+    Assert.assertEquals(4, credits.available(1));
+    Assert.assertEquals(0, credits.queued());
+
+    Assert.assertTrue(credits.acquire(1));
+    credits.release(1, 3);
+    Assert.assertEquals(4, credits.available(1));
+  }
+
+  @Test
+  public void testUnknownTarget() {
+    EdgeCredits credits = new EdgeCredits(4);
+    credits.release(5, 1);
+    Assert.assertEquals(0, credits.available(5));
+  }
+
+  @Test
+  public void testConcurrentAcquireAndRelease() throws InterruptedException {
+    final EdgeCredits credits = new EdgeCredits(8);
+    credits.addTarget(1);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int i = 0; i < 10000; i++) {
+            if (credits.acquire(1)) {
+              Assert.assertTrue(credits.available(1) >= 0);
+              credits.release(1, 1);
+            }
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(8, credits.available(1));
+  }
+}
@@ -29,6 +29,7 @@ import org.apache.commons.cli.ParseException;
 import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.common.config.ConfigLoader;
 import edu.iu.dsc.tws.common.util.ReflectionUtils;
+import edu.iu.dsc.tws.comms.mpi.ProgressThreadChannel;
 import edu.iu.dsc.tws.proto.system.job.JobAPI;
 import edu.iu.dsc.tws.rsched.core.SchedulerContext;
 import edu.iu.dsc.tws.rsched.spi.container.IContainer;
@@ -52,7 +53,12 @@ public final class MPIProcess {
   public static void main(String[] args) {
     Options cmdOptions = null;
     try {
-      MPI.Init(args);
+      // the network progress thread calls MPI at the same time as the task threads
+      int provided = MPI.InitThread(args, MPI.THREAD_MULTIPLE);
+      if (provided < MPI.THREAD_MULTIPLE) {
+        LOG.log(Level.WARNING, String.format("MPI provided thread level %d instead of %d, "
+            + "the network progress thread is disabled", provided, MPI.THREAD_MULTIPLE));
+      }
 
       int rank = MPI.COMM_WORLD.getRank();
       int size = MPI.COMM_WORLD.getSize();
@@ -76,6 +82,8 @@ public final class MPIProcess {
       formatter.printHelp("SubmitterMain", cmdOptions);
       throw new RuntimeException("Error parsing command line options: ", e);
     } finally {
+      // no thread should call MPI after it is finalized
+      ProgressThreadChannel.stopAll();
       try {
         MPI.Finalize();
       } catch (MPIException ignore) {
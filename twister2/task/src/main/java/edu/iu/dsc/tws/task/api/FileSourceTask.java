@@ -0,0 +1,129 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.task.api;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.data.api.formatters.FileInputFormat;
+import edu.iu.dsc.tws.data.api.formatters.SplitPrefetcher;
+import edu.iu.dsc.tws.data.fs.FileInputSplit;
+import edu.iu.dsc.tws.data.fs.io.InputSplitAssigner;
+
+/**
+ * A source that reads the records of a file input format and writes them to an edge. The
+ * splits of the task are opened ahead of time by a {@link SplitPrefetcher}, so the task does
+ * not wait for the file system when it moves to the next split.
+ *
+ * @param <OT> the type of the records
+ */
+public class FileSourceTask<OT> extends SourceTask {
+  private static final long serialVersionUID = -254264120110286749L;
+
+  private final FileInputFormat<OT> format;
+
+  private final String edge;
+
+  private transient TaskContext context;
+
+  private transient SplitPrefetcher prefetcher;
+
+  /**
+   * True when a split is open and being read
+   */
+  private transient boolean opened;
+
+  /**
+   * True when all the splits of the task are read
+   */
+  private transient boolean done;
+
+  public FileSourceTask(FileInputFormat<OT> format, String edge) {
+    this.format = format;
+    this.edge = edge;
+  }
+
+  @Override
+  public void prepare(Config cfg, TaskContext ctx) {
+    this.context = ctx;
+    format.configure(cfg);
+    try {
+      FileInputSplit[] splits = format.createInputSplits(ctx.getParallelism());
+      // every task creates the same splits, a task reads the ones of its index
+      List<FileInputSplit> taskSplits = new ArrayList<>();
+      for (FileInputSplit split : splits) {
+        if (split.getSplitNumber() % ctx.getParallelism() == ctx.taskIndex()) {
+          taskSplits.add(split);
+        }
+      }
+      InputSplitAssigner assigner = format.getInputSplitAssigner(
+          taskSplits.toArray(new FileInputSplit[taskSplits.size()]));
+      prefetcher = new SplitPrefetcher(assigner, hostName(), ctx.taskIndex(), cfg);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to create the input splits of task "
+          + ctx.taskName(), e);
+    }
+  }
+
+  /**
+   * Read the next record and write it to the edge, moving to the next split when the current
+   * one is read
+   */
+  @Override
+  public void run() {
+    if (done) {
+      return;
+    }
+    try {
+      if (!opened) {
+        if (!format.open(prefetcher)) {
+          done = true;
+          prefetcher.close();
+          return;
+        }
+        opened = true;
+      }
+
+      if (format.reachedEnd()) {
+        format.close();
+        opened = false;
+        return;
+      }
+      OT record = format.nextRecord(null);
+      if (record == null) {
+        // formats that only find the end while reading return null for it
+        format.close();
+        opened = false;
+        return;
+      }
+      context.write(edge, record);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read the input of task " + context.taskName(), e);
+    }
+  }
+
+  public boolean isDone() {
+    return done;
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+}
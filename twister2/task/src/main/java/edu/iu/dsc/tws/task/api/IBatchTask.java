@@ -0,0 +1,27 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.task.api;
+
+import java.util.Iterator;
+
+/**
+ * A task that can process the messages available to it as a batch, instead of being called once
+ * for every message
+ */
+public interface IBatchTask extends ITask {
+  /**
+   * Execute with a batch of incoming messages. The iterator is only valid during the call.
+   *
+   * @param messages the messages
+   */
+  void run(Iterator<IMessage> messages);
+}
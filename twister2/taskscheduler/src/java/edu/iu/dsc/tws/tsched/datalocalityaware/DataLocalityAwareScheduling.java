@@ -14,187 +14,208 @@ package edu.iu.dsc.tws.tsched.datalocalityaware;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import edu.iu.dsc.tws.common.config.Config;
 import edu.iu.dsc.tws.task.graph.Vertex;
+import edu.iu.dsc.tws.tsched.spi.common.TaskSchedulerContext;
 import edu.iu.dsc.tws.tsched.spi.scheduler.Worker;
 import edu.iu.dsc.tws.tsched.spi.scheduler.WorkerPlan;
 import edu.iu.dsc.tws.tsched.spi.taskschedule.InstanceId;
 import edu.iu.dsc.tws.tsched.utils.CalculateDataTransferTime;
 import edu.iu.dsc.tws.tsched.utils.DataLocatorUtils;
+import edu.iu.dsc.tws.tsched.utils.RequiredRam;
 import edu.iu.dsc.tws.tsched.utils.TaskAttributes;
 
 public class DataLocalityAwareScheduling {
 
   private static final Logger LOG = Logger.getLogger(DataLocalityAwareScheduling.class.getName());
 
+  /**
+   * Worker property with the name of the node the worker runs on
+   */
+  public static final String WORKER_HOSTNAME = "hostname";
+
+  /**
+   * Worker property with the network bandwidth of the worker
+   */
+  public static final String WORKER_BANDWIDTH = "bandwidth";
+
+  /**
+   * Worker property with the network latency of the worker
+   */
+  public static final String WORKER_LATENCY = "latency";
+
+  private static final double DEFAULT_BANDWIDTH = 1.0;
+
+  private static final double DEFAULT_LATENCY = 0.0;
+
   protected DataLocalityAwareScheduling() {
   }
 
   /**
-   * This method generate the container -> instance map
+   * This method generate the container -> instance map. Every task instance is placed in the
+   * container with the least estimated time to read its input, among the containers with enough
+   * ram and cpu left for it. Containers that have less than their share of the instances are
+   * preferred, so the load stays balanced when the data is on a few nodes. If no container has
+   * the resources left, the instance is placed with the same preferences and a warning.
+   *
+   * The tasks with the largest ram requirement are placed first as they are the hardest to fit.
    */
   public static Map<Integer, List<InstanceId>> DataLocalityAwareSchedulingAlgorithm(
-      Set<Vertex> taskVertexSet, int numberOfContainers, WorkerPlan workerPlan) {
+      Set<Vertex> taskVertexSet, int numberOfContainers, WorkerPlan workerPlan, Config cfg) {
 
     TaskAttributes taskAttributes = new TaskAttributes();
-    DataLocatorUtils dataLocatorUtils;
     Map<String, Integer> parallelTaskMap = taskAttributes.getParallelTaskMap(taskVertexSet);
+    Map<String, Double> taskRamMap = taskAttributes.getTaskRamMap(taskVertexSet);
+    Map<String, Double> taskCpuMap = taskAttributes.getTaskCPUMap(taskVertexSet);
+    int totalTaskInstances = taskAttributes.getTotalNumberOfInstances(taskVertexSet);
+    int instancesPerContainer = (totalTaskInstances + numberOfContainers - 1)
+        / numberOfContainers;
 
     LOG.info("Parallel Task Map Details:" + parallelTaskMap.entrySet());
 
-    Set<Map.Entry<String, Integer>> entries = parallelTaskMap.entrySet();
-
-    for (Iterator<Map.Entry<String, Integer>> iterator
-         = entries.iterator(); iterator.hasNext();) {
-      Map.Entry<String, Integer> entry = iterator.next();
-      String key = entry.getKey();
-      Integer value = entry.getValue();
-      Map<String, List<CalculateDataTransferTime>> workerPlanMap = null;
-      for (Vertex vertex : taskVertexSet) {
-        if (vertex.getName().equals(key)
-            && vertex.getConfig().getListValue("dataset") != null) {
-          List<String> datasetList = vertex.getConfig().getListValue("dataset");
-          LOG.info("Key Value exists in the taskset:" + key + "\t" + value
-              + "\t" + datasetList.size());
-          if (datasetList.size() == 1) {
-            String datasetName = datasetList.get(0);
-            dataLocatorUtils = new DataLocatorUtils(datasetName);
-            List<String> datanodesList = dataLocatorUtils.findDataNodes();
-            int totalNumberOfInstances = vertex.getParallelism();
-            for (int i = 0; i < totalNumberOfInstances; i++) {
-              workerPlanMap = calculateDistance(datanodesList, workerPlan, i);
-              print(vertex, workerPlanMap, i);
-            }
-          } /*else if (datasetList.size() > 1) {
-            for (int i = 0; i < datasetList.size(); i++) {
-              String datasetName = datasetList.get(i);
-              dataLocatorUtils = new DataLocatorUtils(datasetName);
-              datanodesList = dataLocatorUtils.findDataNodes();
-              int totalNumberOfInstances = vertex.getParallelism();
-              for (int j = 0; j < totalNumberOfInstances; j++) {
-                workerPlanMap = calculateDistance(datanodesList, workerPlan, i);
-                print(vertex, workerPlanMap);
-              }
-            }
-          }*/
-        }
-      }
-    }
-
     Map<Integer, List<InstanceId>> dataAwareAllocation = new HashMap<>();
+    double[] remainingRam = new double[numberOfContainers];
+    double[] remainingCpu = new double[numberOfContainers];
     for (int i = 0; i < numberOfContainers; i++) {
       dataAwareAllocation.put(i, new ArrayList<>());
+      // a container without the resources of its worker is sized for its instances later
+      Worker worker = workerPlan.getWorker(i);
+      if (worker != null && worker.getRam() > 0 && worker.getCpu() > 0) {
+        remainingRam[i] = worker.getRam() - TaskSchedulerContext.containerRamPadding(cfg);
+        remainingCpu[i] = worker.getCpu() - TaskSchedulerContext.containerCpuPadding(cfg);
+      } else {
+        remainingRam[i] = Double.MAX_VALUE;
+        remainingCpu[i] = Double.MAX_VALUE;
+      }
+    }
+
+    // the task ids follow the order of the parallel task map as in the other schedulers
+    Map<String, Integer> taskIds = new HashMap<>();
+    int globalTaskIndex = 0;
+    for (String taskName : parallelTaskMap.keySet()) {
+      taskIds.put(taskName, globalTaskIndex++);
+    }
+
+    Map<String, Vertex> vertices = new HashMap<>();
+    for (Vertex vertex : taskVertexSet) {
+      vertices.put(vertex.getName(), vertex);
+    }
+
+    List<RequiredRam> ramRequirements = new ArrayList<>();
+    for (Map.Entry<String, Double> e : taskRamMap.entrySet()) {
+      ramRequirements.add(new RequiredRam(e.getKey(), e.getValue()));
+    }
+    Collections.sort(ramRequirements, Collections.reverseOrder());
+
+    for (RequiredRam requiredRam : ramRequirements) {
+      String taskName = requiredRam.getTaskName();
+      double ram = requiredRam.getRequiredRam();
+      double cpu = taskCpuMap.get(taskName);
+      List<List<String>> dataNodes = findDataNodes(vertices.get(taskName));
+
+      for (int i = 0; i < parallelTaskMap.get(taskName); i++) {
+        int containerId = -1;
+        boolean bestFits = false;
+        boolean bestBalanced = false;
+        CalculateDataTransferTime bestTime = null;
+        for (int c = 0; c < numberOfContainers; c++) {
+          boolean fits = remainingRam[c] >= ram && remainingCpu[c] >= cpu;
+          boolean balanced = dataAwareAllocation.get(c).size() < instancesPerContainer;
+          CalculateDataTransferTime time = calculateDataTransferTime(dataNodes, i,
+              workerPlan.getWorker(c));
+          boolean better;
+          if (containerId < 0) {
+            better = true;
+          } else if (fits != bestFits) {
+            better = fits;
+          } else if (balanced != bestBalanced) {
+            better = balanced;
+          } else {
+            int compare = time.compareTo(bestTime);
+            better = compare < 0 || (compare == 0 && dataAwareAllocation.get(c).size()
+                < dataAwareAllocation.get(containerId).size());
+          }
+          if (better) {
+            containerId = c;
+            bestFits = fits;
+            bestBalanced = balanced;
+            bestTime = time;
+          }
+        }
+
+        if (!bestFits) {
+          LOG.warning(String.format("No container has %s ram and %s cpu left for %s(%d), "
+              + "placing it in container %d", ram, cpu, taskName, i, containerId));
+        }
+        dataAwareAllocation.get(containerId).add(
+            new InstanceId(taskName, taskIds.get(taskName), i));
+        remainingRam[containerId] -= ram;
+        remainingCpu[containerId] -= cpu;
+        LOG.fine(String.format("Task %s(%d) placed in container %d with data transfer time %s",
+            taskName, i, containerId, bestTime.getRequiredDataTransferTime()));
+      }
     }
     LOG.info("DataAware Allocation:" + dataAwareAllocation);
     return dataAwareAllocation;
   }
 
-  public static void print(Vertex vertex, Map<String,
-      List<CalculateDataTransferTime>> workerPlanMap, int i) {
-
-    Set<Map.Entry<String, List<CalculateDataTransferTime>>> entries = workerPlanMap.entrySet();
-
-    List<CalculateDataTransferTime> cal = new ArrayList<>();
-
-    for (Iterator<Map.Entry<String, List<CalculateDataTransferTime>>> iterator
-         = entries.iterator(); iterator.hasNext();) {
-      Map.Entry<String, List<CalculateDataTransferTime>> entry = iterator.next();
-      String key = entry.getKey();
-      List<CalculateDataTransferTime> value = entry.getValue();
-      /*for (CalculateDataTransferTime requiredDataTransferTime : value) {
-        System.out.println(String.format("Task Vertex:" + vertex.getName() + "("
-            + requiredDataTransferTime.getTaskIndex() + ")"
-            + "Data Node:" + key + "--> WorkerNode:" + requiredDataTransferTime.getNodeName()
-            + "-->Time:" + requiredDataTransferTime.getRequiredDataTransferTime()));
-      }*/
-      System.out.println(String.format("\nFor Task Vertex:" + vertex.getName() + "(" + i + ")"
-          + "\tData Node:" + key
-          + "\tWorker Node:" + Collections.min(value).getNodeName()
-          + "\tMin Data Trans. Time:" + Collections.min(value).getRequiredDataTransferTime()));
-
-      cal.add(new CalculateDataTransferTime(Collections.min(value).getNodeName(),
-          Collections.min(value).getRequiredDataTransferTime()));
+  /**
+   * The data nodes of each dataset the task reads
+   */
+  private static List<List<String>> findDataNodes(Vertex vertex) {
+    List<List<String>> dataNodes = new ArrayList<>();
+    List<String> datasetList = vertex.getConfig().getListValue("dataset");
+    if (datasetList != null) {
+      for (String datasetName : datasetList) {
+        dataNodes.add(new DataLocatorUtils(datasetName).findDataNodes());
+      }
     }
-    //cal.forEach(System.out::println);
-    System.out.println(String.format("Cal Size:" + cal.size() + "\t"
-        + Collections.min(cal).getRequiredDataTransferTime()) + "\t"
-        + Collections.min(cal).getNodeName());
+    return dataNodes;
   }
 
   /**
-   * It calculates the distance between the data nodes and the worker nodes.
+   * Estimate the time for an instance to read its input on a worker. The instances of a task
+   * read the blocks of a dataset in turns, so the instance reads the block on the data node at
+   * its index from every dataset of the task.
    */
-  public static Map<String, List<CalculateDataTransferTime>> calculateDistance(
-      List<String> datanodesList, WorkerPlan workers, int taskIndex) {
-
-    Map<String, List<CalculateDataTransferTime>> workerPlanMap
-        = new HashMap<String, List<CalculateDataTransferTime>>();
-    for (String nodesList : datanodesList) {
-      ArrayList<CalculateDataTransferTime> calculatedVal = new ArrayList<>();
-      for (int i = 0; i < workers.getNumberOfWorkers(); i++) {
-        Worker worker = workers.getWorker(i);
-        double workerBandwidth = (double) worker.getProperty("bandwidth");
-        double workerLatency = (double) worker.getProperty("latency");
-        double calculateDistance = 0.0;
-        double datanodeBandwidth;
-        double datanodeLatency;
-
-        CalculateDataTransferTime calculateDataTransferTime =
-            new CalculateDataTransferTime(nodesList, calculateDistance);
-
-        //Just for testing assigned static values and static increment...!
-        if ("datanode1".equals(nodesList)) {
-          datanodeBandwidth = 512.0;
-          datanodeLatency = 0.4;
-        } else {
-          datanodeBandwidth = 512.0 + 100.0;
-          datanodeLatency = 0.4 + 0.2;
-        }
-        //Write the proper formula to calculate the distance between
-        //worker nodes and data nodes.
-        calculateDistance = Math.abs((2 * workerBandwidth * workerLatency)
-            - (2 * datanodeBandwidth * datanodeLatency));
-
-        //(use this formula to calculate the data transfer time)
-        //calculateDistance = File Size / Bandwidth;
-
-        calculateDataTransferTime.setRequiredDataTransferTime(calculateDistance);
-        calculateDataTransferTime.setNodeName("worker" + i);
-        calculateDataTransferTime.setTaskIndex(taskIndex);
-        calculatedVal.add(calculateDataTransferTime);
+  public static CalculateDataTransferTime calculateDataTransferTime(
+      List<List<String>> dataNodes, int taskIndex, Worker worker) {
+    double time = 0.0;
+    for (List<String> nodes : dataNodes) {
+      if (!nodes.isEmpty()) {
+        time += calculateDataTransferTime(nodes.get(taskIndex % nodes.size()), worker);
       }
-      //workerPlanMap.put("worker" + i, calculatedValues);
-      //workerPlanMap.put("worker" + i, calculatedVal);
-      workerPlanMap.put(nodesList, calculatedVal);
     }
-    return workerPlanMap;
+    String nodeName = worker != null ? "worker" + worker.getId() : null;
+    return new CalculateDataTransferTime(nodeName, time).setTaskIndex(taskIndex);
   }
 
-  public static double calculateDistance(List<String> datanodesList, List<Worker> workers) {
-    for (String nodesList : datanodesList) {
-      for (Worker worker : workers) {
-        double workerBandwidth = (double) worker.getProperty("bandwidth");
-        double workerLatency = (double) worker.getProperty("latency");
-        double datanodeBandwidth = 512.0;
-        double datanodeLatency = 0.01;
-        double calculateDistance = Math.abs(2 * workerBandwidth * workerLatency)
-            - (2 * datanodeBandwidth * datanodeLatency);
-        LOG.info("Data Node Name:" + nodesList + "\t:" + worker.getId() + ":" + calculateDistance);
-      }
+  /**
+   * Estimate the time for a worker to read a block from a data node. A worker on the data node
+   * reads it locally, others pay the latency and the time to move the block at their bandwidth.
+   */
+  public static double calculateDataTransferTime(String dataNode, Worker worker) {
+    if (worker == null) {
+      return DEFAULT_LATENCY + 1.0 / DEFAULT_BANDWIDTH;
     }
-    return 1.0;
+    if (dataNode.equals(worker.getProperty(WORKER_HOSTNAME))) {
+      return 0.0;
+    }
+    double bandwidth = doubleProperty(worker, WORKER_BANDWIDTH, DEFAULT_BANDWIDTH);
+    double latency = doubleProperty(worker, WORKER_LATENCY, DEFAULT_LATENCY);
+    return latency + 1.0 / bandwidth;
   }
 
-  private ArrayList<CalculateDataTransferTime> getSortedDataTransferTime(Set<String> taskNameSet) {
-    ArrayList<CalculateDataTransferTime> ramRequirements = new ArrayList<>();
-    Collections.sort(ramRequirements, Collections.reverseOrder());
-    return ramRequirements;
+  private static double doubleProperty(Worker worker, String key, double defaultValue) {
+    Object value = worker.getProperty(key);
+    if (value instanceof Number && ((Number) value).doubleValue() > 0) {
+      return ((Number) value).doubleValue();
+    }
+    return defaultValue;
   }
 }
-
-
@@ -59,7 +59,7 @@ public class DataLocalityAwareTaskScheduling implements TaskSchedule {
 
     Map<Integer, List<InstanceId>> datalocalityAwareContainerInstanceMap =
         DataLocalityAwareScheduling.DataLocalityAwareSchedulingAlgorithm(taskVertexSet,
-            workerPlan.getNumberOfWorkers(), workerPlan);
+            workerPlan.getNumberOfWorkers(), workerPlan, cfg);
 
     TaskInstanceMapCalculation instanceMapCalculation = new TaskInstanceMapCalculation(
         this.instanceRAM, this.instanceCPU, this.instanceDisk);
@@ -98,7 +98,7 @@ public class DataLocalityAwareTaskScheduling implements TaskSchedule {
 
         containerRAMValue += instanceRAMValue;
         containerDiskValue += instanceDiskValue;
-        containerCpuValue += instanceDiskValue;
+        containerCpuValue += instanceCPUValue;
       }
 
       Worker worker = workerPlan.getWorker(containerId);
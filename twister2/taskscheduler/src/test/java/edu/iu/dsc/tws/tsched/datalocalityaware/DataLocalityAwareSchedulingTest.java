@@ -0,0 +1,147 @@
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+package edu.iu.dsc.tws.tsched.datalocalityaware;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.iu.dsc.tws.common.config.Config;
+import edu.iu.dsc.tws.task.api.SourceTask;
+import edu.iu.dsc.tws.task.graph.Vertex;
+import edu.iu.dsc.tws.tsched.spi.scheduler.Worker;
+import edu.iu.dsc.tws.tsched.spi.scheduler.WorkerPlan;
+import edu.iu.dsc.tws.tsched.spi.taskschedule.InstanceId;
+
+public class DataLocalityAwareSchedulingTest {
+
+  private static final class Source extends SourceTask {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * A task reading dataset1.txt, which has its blocks on datanode1 and datanode2
+   */
+  private static Vertex task(String name, int parallelism, int ram) {
+    Vertex vertex = new Vertex(name, new Source());
+    vertex.setParallelism(parallelism);
+    vertex.addConfiguration("dataset", Arrays.asList("dataset1.txt"));
+    vertex.addConfiguration("Ram", ram);
+    vertex.addConfiguration("Cpu", 1);
+    return vertex;
+  }
+
+  private static Worker worker(int id, String host, int ram) {
+    Worker worker = new Worker(id);
+    worker.addProperty(DataLocalityAwareScheduling.WORKER_HOSTNAME, host);
+    worker.setRam(ram);
+    worker.setCpu(10);
+    return worker;
+  }
+
+  private static Map<Integer, List<InstanceId>> schedule(WorkerPlan plan, Vertex... tasks) {
+    Set<Vertex> vertices = new HashSet<>(Arrays.asList(tasks));
+    return DataLocalityAwareScheduling.DataLocalityAwareSchedulingAlgorithm(vertices,
+        plan.getNumberOfWorkers(), plan, Config.newBuilder().build());
+  }
+
+  private static List<Integer> indexes(List<InstanceId> instances, String taskName) {
+    List<Integer> indexes = new ArrayList<>();
+    for (InstanceId id : instances) {
+      if (taskName.equals(id.getTaskName())) {
+        indexes.add(id.getTaskIndex());
+      }
+    }
+    return indexes;
+  }
+
+  @Test
+  public void testInstancesPlacedWithTheirData() {
+    WorkerPlan plan = new WorkerPlan();
+    plan.addWorker(worker(0, "datanode2", 1000));
+    plan.addWorker(worker(1, "datanode1", 1000));
+
+    Map<Integer, List<InstanceId>> allocation = schedule(plan, task("source", 2, 10));
+    // index 0 reads the block on datanode1 and index 1 the block on datanode2
+    Assert.assertEquals(Arrays.asList(1), indexes(allocation.get(0), "source"));
+    Assert.assertEquals(Arrays.asList(0), indexes(allocation.get(1), "source"));
+  }
+
+  @Test
+  public void testLoadIsBalanced() {
+    WorkerPlan plan = new WorkerPlan();
+    plan.addWorker(worker(0, "datanode1", 1000));
+    plan.addWorker(worker(1, "datanode2", 1000));
+    plan.addWorker(worker(2, "node3", 1000));
+    plan.addWorker(worker(3, "node4", 1000));
+
+    Map<Integer, List<InstanceId>> allocation = schedule(plan, task("source", 4, 10));
+    Assert.assertEquals(Arrays.asList(0), indexes(allocation.get(0), "source"));
+    Assert.assertEquals(Arrays.asList(1), indexes(allocation.get(1), "source"));
+    // the data of the other two instances is on full containers, they go to the empty ones
+    Set<Integer> rest = new HashSet<>();
+    rest.addAll(indexes(allocation.get(2), "source"));
+    rest.addAll(indexes(allocation.get(3), "source"));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(2, 3)), rest);
+    Assert.assertEquals(1, allocation.get(2).size());
+    Assert.assertEquals(1, allocation.get(3).size());
+  }
+
+  @Test
+  public void testContainerWithoutResourcesIsSkipped() {
+    WorkerPlan plan = new WorkerPlan();
+    // only one of the tasks fits in the ram of the worker on the data node
+    plan.addWorker(worker(0, "datanode1", 150));
+    plan.addWorker(worker(1, "node2", 1000));
+
+    Map<Integer, List<InstanceId>> allocation = schedule(plan, task("a", 1, 100),
+        task("b", 1, 90));
+    // the task with more ram is placed first and takes the data node
+    Assert.assertEquals(Arrays.asList(0), indexes(allocation.get(0), "a"));
+    Assert.assertEquals(Arrays.asList(0), indexes(allocation.get(1), "b"));
+  }
+
+  @Test
+  public void testEveryInstanceIsPlacedOnce() {
+    WorkerPlan plan = new WorkerPlan();
+    plan.addWorker(worker(0, "datanode1", 1000));
+    plan.addWorker(worker(1, "datanode2", 1000));
+
+    Map<Integer, List<InstanceId>> allocation = schedule(plan, task("a", 3, 10),
+        task("b", 3, 20));
+    Set<InstanceId> placed = new HashSet<>();
+    for (List<InstanceId> instances : allocation.values()) {
+      Assert.assertEquals(3, instances.size());
+      placed.addAll(instances);
+    }
+    Assert.assertEquals(6, placed.size());
+  }
+
+  @Test
+  public void testDataTransferTime() {
+    Worker local = worker(0, "datanode1", 1000);
+    Assert.assertEquals(0.0,
+        DataLocalityAwareScheduling.calculateDataTransferTime("datanode1", local), 0.0);
+
+    Worker remote = worker(1, "node2", 1000);
+    remote.addProperty(DataLocalityAwareScheduling.WORKER_BANDWIDTH, 4.0);
+    remote.addProperty(DataLocalityAwareScheduling.WORKER_LATENCY, 0.5);
+    Assert.assertEquals(0.75,
+        DataLocalityAwareScheduling.calculateDataTransferTime("datanode1", remote), 1e-9);
+  }
+}